@@ -0,0 +1,99 @@
+// Copyright (c) 2013 Darach Ennis < darach at gmail dot com >.
+//
+// Permission is hereby granted, free of charge, to any person obtaining a
+// copy of this software and associated documentation files (the
+// "Software"), to deal in the Software without restriction, including
+// without limitation the rights to use, copy, modify, merge, publish,
+// distribute, sublicense, and/or sell copies of the Software, and to permit
+// persons to whom the Software is furnished to do so, subject to the
+// following conditions:  
+//
+// The above copyright notice and this permission notice shall be included
+// in all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS
+// OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+// MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN
+// NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+// DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+// OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE
+// USE OR OTHER DEALINGS IN THE SOFTWARE.
+
+
+package io.darach.bitsyntax.bench;
+
+import io.darach.bitsyntax.BitBinder;
+import io.darach.bitsyntax.BitHelper;
+import io.darach.bitsyntax.BitPattern;
+import io.darach.bitsyntax.BitSyntax;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Throughput of decoding a header into a plain object, extracted into a map and
+ * converted by hand against bound directly by a generated binder.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class BindBenchmark {
+	private static final String SOURCE = "<< version:4, flags:4/unsigned, port:16/little, sequence:32/unsigned, timestamp:64, ratio:32/float, payload:16/binary >>";
+
+	public static class Header {
+		public int version;
+		public int flags;
+		public short port;
+		public long sequence;
+		public long timestamp;
+		public double ratio;
+		public byte[] payload;
+	}
+
+	private BitPattern pattern;
+	private BitBinder<Header> binder;
+	private byte[] binary;
+
+	@Setup
+	public void setup() throws IOException {
+		pattern = BitSyntax.compile(SOURCE);
+		binder = BitSyntax.compile(SOURCE, Header.class);
+		binary = new byte[36];
+		new Random(42).nextBytes(binary);
+	}
+
+	@Benchmark
+	public Header extract() {
+		final Map<String,byte[]> results = pattern.extract(binary);
+		final Header header = new Header();
+		header.version = (int) BitHelper.readSignedBits(results.get("version"), 4, 4);
+		header.flags = (int) BitHelper.readBits(results.get("flags"), 4, 4);
+		header.port = (short) BitHelper.readSignedLittleBits(results.get("port"), 0, 16);
+		header.sequence = BitHelper.readBits(results.get("sequence"), 0, 32);
+		header.timestamp = BitHelper.readBits(results.get("timestamp"), 0, 64);
+		header.ratio = Float.intBitsToFloat((int) BitHelper.readBits(results.get("ratio"), 0, 32));
+		header.payload = results.get("payload");
+		return header;
+	}
+
+	@Benchmark
+	public Header bind() {
+		return binder.decode(binary);
+	}
+}
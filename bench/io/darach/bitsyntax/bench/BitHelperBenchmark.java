@@ -0,0 +1,89 @@
+// Copyright (c) 2013 Darach Ennis < darach at gmail dot com >.
+//
+// Permission is hereby granted, free of charge, to any person obtaining a
+// copy of this software and associated documentation files (the
+// "Software"), to deal in the Software without restriction, including
+// without limitation the rights to use, copy, modify, merge, publish,
+// distribute, sublicense, and/or sell copies of the Software, and to permit
+// persons to whom the Software is furnished to do so, subject to the
+// following conditions:  
+//
+// The above copyright notice and this permission notice shall be included
+// in all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS
+// OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+// MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN
+// NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+// DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+// OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE
+// USE OR OTHER DEALINGS IN THE SOFTWARE.
+
+package io.darach.bitsyntax.bench;
+
+import io.darach.bitsyntax.BitHelper;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Latency of the BitHelper primitives extracted code relies on, over widths and
+ * offsets that are byte aligned and that are not.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class BitHelperBenchmark {
+	@Param({ "0", "4", "11" })
+	public int offset;
+
+	@Param({ "7", "32", "64", "1024" })
+	public int width;
+
+	private byte[] host;
+	private byte[] bytes;
+
+	@Setup
+	public void setup() {
+		final Random random = new Random(42);
+		host = new byte[((offset + width) >>> 3) + 16];
+		random.nextBytes(host);
+		bytes = new byte[(width + 7) >>> 3];
+		random.nextBytes(bytes);
+	}
+
+	@Benchmark
+	public byte[] bitgrok() {
+		return BitHelper.bitgrok(host, offset, width);
+	}
+
+	@Benchmark
+	public long readBits() {
+		return BitHelper.readBits(host, offset, Math.min(width, 64));
+	}
+
+	@Benchmark
+	public byte[] shl() {
+		return BitHelper.shl(bytes, offset);
+	}
+
+	@Benchmark
+	public byte[] shr() {
+		return BitHelper.shr(bytes, offset);
+	}
+}
@@ -0,0 +1,85 @@
+// Copyright (c) 2013 Darach Ennis < darach at gmail dot com >.
+//
+// Permission is hereby granted, free of charge, to any person obtaining a
+// copy of this software and associated documentation files (the
+// "Software"), to deal in the Software without restriction, including
+// without limitation the rights to use, copy, modify, merge, publish,
+// distribute, sublicense, and/or sell copies of the Software, and to permit
+// persons to whom the Software is furnished to do so, subject to the
+// following conditions:  
+//
+// The above copyright notice and this permission notice shall be included
+// in all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS
+// OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+// MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN
+// NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+// DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+// OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE
+// USE OR OTHER DEALINGS IN THE SOFTWARE.
+
+package io.darach.bitsyntax.bench;
+
+import io.darach.bitsyntax.BitHelper;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Throughput of extracting large binary segments, realigned a word at a time by
+ * bitgrok against the byte at a time copy and shift it replaces.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class BulkBitgrokBenchmark {
+	@Param({ "0", "3" })
+	public int offset;
+
+	@Param({ "128", "1024", "16384" })
+	public int bytes;
+
+	private byte[] host;
+	private byte[] dest;
+
+	@Setup
+	public void setup() {
+		host = new byte[bytes + 1];
+		new Random(42).nextBytes(host);
+		dest = new byte[bytes];
+	}
+
+	@Benchmark
+	public byte[] bitgrok() {
+		return BitHelper.bitgrok(host, offset, bytes << 3);
+	}
+
+	@Benchmark
+	public int bitgrokInto() {
+		return BitHelper.bitgrok(host, offset, bytes << 3, dest, 0);
+	}
+
+	@Benchmark
+	public byte[] shifted() {
+		byte[] r = Arrays.copyOfRange(host, 0, bytes + 1);
+		if (offset > 0) r = BitHelper.shl(r, offset);
+		return Arrays.copyOf(r, bytes);
+	}
+}
@@ -0,0 +1,77 @@
+// Copyright (c) 2013 Darach Ennis < darach at gmail dot com >.
+//
+// Permission is hereby granted, free of charge, to any person obtaining a
+// copy of this software and associated documentation files (the
+// "Software"), to deal in the Software without restriction, including
+// without limitation the rights to use, copy, modify, merge, publish,
+// distribute, sublicense, and/or sell copies of the Software, and to permit
+// persons to whom the Software is furnished to do so, subject to the
+// following conditions:  
+//
+// The above copyright notice and this permission notice shall be included
+// in all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS
+// OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+// MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN
+// NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+// DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+// OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE
+// USE OR OTHER DEALINGS IN THE SOFTWARE.
+
+package io.darach.bitsyntax.bench;
+
+import io.darach.bitsyntax.BitPattern;
+import io.darach.bitsyntax.BitSyntax;
+import io.darach.bitsyntax.BitSyntaxCache;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Latency of compiling a pattern, uncached through a cache of size zero so every
+ * invocation parses and generates a class, and cached through the default cache.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class CompileBenchmark {
+	@Param({
+		"<< a:8, b:8, c:16 >>",
+		"<< \"GET \", len:16/unsigned, path:len/binary, _:4, flags:4, rest/binary >>",
+		"<< 0x4500:16, _:16, _:32, ttl:8, proto:8, sum:16, src:32, dst:32, opts/binary >>"
+	})
+	public String source;
+
+	private BitSyntaxCache uncached;
+
+	@Setup
+	public void setup() {
+		uncached = new BitSyntaxCache(0);
+	}
+
+	@Benchmark
+	public BitPattern compile() throws IOException {
+		return uncached.compile("bitsyntax.bench", "Compiled", source);
+	}
+
+	@Benchmark
+	public BitPattern compileCached() throws IOException {
+		return BitSyntax.compile(source);
+	}
+}
@@ -0,0 +1,91 @@
+// Copyright (c) 2013 Darach Ennis < darach at gmail dot com >.
+//
+// Permission is hereby granted, free of charge, to any person obtaining a
+// copy of this software and associated documentation files (the
+// "Software"), to deal in the Software without restriction, including
+// without limitation the rights to use, copy, modify, merge, publish,
+// distribute, sublicense, and/or sell copies of the Software, and to permit
+// persons to whom the Software is furnished to do so, subject to the
+// following conditions:  
+//
+// The above copyright notice and this permission notice shall be included
+// in all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS
+// OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+// MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN
+// NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+// DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+// OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE
+// USE OR OTHER DEALINGS IN THE SOFTWARE.
+
+package io.darach.bitsyntax.bench;
+
+import io.darach.bitsyntax.BitPattern;
+import io.darach.bitsyntax.BitSyntax;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Throughput of extracting small and large segments, starting on a byte boundary or
+ * at a bit offset, from a byte array and from a direct buffer.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ExtractBenchmark {
+	/**
+	 * The pad preceding the segments, 0 or 8 bits is aligned, 3 bits is unaligned
+	 */
+	@Param({ "0", "3" })
+	public int pad;
+
+	/**
+	 * The size in bits of each of the segments
+	 */
+	@Param({ "8", "64", "1024" })
+	public int bits;
+
+	private BitPattern pattern;
+	private byte[] binary;
+	private ByteBuffer buffer;
+
+	@Setup
+	public void setup() throws IOException {
+		final String prefix = (pad > 0) ? "_:" + pad + ", " : "";
+		pattern = BitSyntax.compile("<< " + prefix + "a:" + bits + "/binary-unit:1, b:" + bits + "/binary-unit:1 >>");
+		binary = new byte[((pad + (bits << 1)) >>> 3) + 16];
+		new Random(42).nextBytes(binary);
+		buffer = ByteBuffer.allocateDirect(binary.length);
+		buffer.put(binary).flip();
+	}
+
+	@Benchmark
+	public Map<String,byte[]> extractBytes() {
+		return pattern.extract(binary);
+	}
+
+	@Benchmark
+	public Map<String,byte[]> extractBuffer() {
+		return pattern.extract(buffer, 0);
+	}
+}
@@ -0,0 +1,110 @@
+// Copyright (c) 2013 Darach Ennis < darach at gmail dot com >.
+//
+// Permission is hereby granted, free of charge, to any person obtaining a
+// copy of this software and associated documentation files (the
+// "Software"), to deal in the Software without restriction, including
+// without limitation the rights to use, copy, modify, merge, publish,
+// distribute, sublicense, and/or sell copies of the Software, and to permit
+// persons to whom the Software is furnished to do so, subject to the
+// following conditions:  
+//
+// The above copyright notice and this permission notice shall be included
+// in all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS
+// OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+// MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN
+// NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+// DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+// OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE
+// USE OR OTHER DEALINGS IN THE SOFTWARE.
+
+package io.darach.bitsyntax.bench;
+
+import io.darach.bitsyntax.BitPattern;
+import io.darach.bitsyntax.BitSegmentSink;
+import io.darach.bitsyntax.BitSyntax;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Throughput of reading two of twelve labeled segments, extracted eagerly against
+ * extracted lazily on look up, and against passing every segment to a sink in place.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class LazyExtractBenchmark {
+	private BitPattern pattern;
+	private byte[] binary;
+
+	// Keeps the two segments read
+	private static final class Sink implements BitSegmentSink {
+		long c;
+		long h;
+
+		@Override
+		public void onInt(int slot, long value) {
+			if (slot == 2) c = value;
+			if (slot == 7) h = value;
+		}
+
+		@Override
+		public void onDouble(int slot, double value) {
+			// Unused
+		}
+
+		@Override
+		public void onBinary(int slot, byte[] binary, int bitOffset, int bitLength) {
+			// Unused
+		}
+	}
+
+	private final Sink sink = new Sink();
+
+	@Setup
+	public void setup() throws IOException {
+		pattern = BitSyntax.compile("<< a:8, b:8, c:16, d:32, e:4, f:12, g:16, h:64, i:3, j:5, k:64/binary-unit:1, l/binary >>");
+		binary = new byte[64];
+		new Random(42).nextBytes(binary);
+	}
+
+	@Benchmark
+	public void extract(final Blackhole bh) {
+		final Map<String,byte[]> results = pattern.extract(binary);
+		bh.consume(results.get("c"));
+		bh.consume(results.get("h"));
+	}
+
+	@Benchmark
+	public void extractLazy(final Blackhole bh) {
+		final Map<String,byte[]> results = pattern.extractLazy(binary);
+		bh.consume(results.get("c"));
+		bh.consume(results.get("h"));
+	}
+
+	@Benchmark
+	public void extractInto(final Blackhole bh) {
+		pattern.extractInto(binary, sink);
+		bh.consume(sink.c);
+		bh.consume(sink.h);
+	}
+}
@@ -0,0 +1,310 @@
+// Generated from src/io/darach/bitsyntax/BitSyntax.g4 by ANTLR 4.2
+package io.darach.bitsyntax;
+
+// Copyright (c) 2013 Darach Ennis < darach at gmail dot com >.
+//
+// Permission is hereby granted, free of charge, to any person obtaining a
+// copy of this software and associated documentation files (the
+// "Software"), to deal in the Software without restriction, including
+// without limitation the rights to use, copy, modify, merge, publish,
+// distribute, sublicense, and/or sell copies of the Software, and to permit
+// persons to whom the Software is furnished to do so, subject to the
+// following conditions:  
+//
+// The above copyright notice and this permission notice shall be included
+// in all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS
+// OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+// MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN
+// NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+// DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+// OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE
+// USE OR OTHER DEALINGS IN THE SOFTWARE.
+
+
+// package io.darach.bitsyntax;
+
+
+import org.antlr.v4.runtime.Lexer;
+import org.antlr.v4.runtime.CharStream;
+import org.antlr.v4.runtime.Token;
+import org.antlr.v4.runtime.TokenStream;
+import org.antlr.v4.runtime.*;
+import org.antlr.v4.runtime.atn.*;
+import org.antlr.v4.runtime.dfa.DFA;
+import org.antlr.v4.runtime.misc.*;
+
+@SuppressWarnings({"all", "warnings", "unchecked", "unused", "cast"})
+public class BitSyntaxLexer extends Lexer {
+	protected static final DFA[] _decisionToDFA;
+	protected static final PredictionContextCache _sharedContextCache =
+		new PredictionContextCache();
+	public static final int
+		T__0=1, LE=2, BE=3, ST=4, UT=5, IT=6, BT=7, FT=8, DB=9, QS=10, NM=11, 
+		ID=12, BO=13, BC=14, DS=15, FS=16, CM=17, CN=18, WS=19, Identifier=20, 
+		NumericLiteral=21, TextLiteral=22, IntegerLiteral=23, FloatingPointLiteral=24, 
+		BooleanLiteral=25, CharacterLiteral=26, StringLiteral=27, NullLiteral=28;
+	public static String[] modeNames = {
+		"DEFAULT_MODE"
+	};
+
+	public static final String[] tokenNames = {
+		"<INVALID>",
+		"'unit'", "'little'", "'big'", "'signed'", "'unsigned'", "'integer'", 
+		"'binary'", "'float'", "'double'", "QS", "NM", "ID", "'<<'", "'>>'", "'-'", 
+		"'/'", "','", "':'", "WS", "Identifier", "NumericLiteral", "TextLiteral", 
+		"IntegerLiteral", "FloatingPointLiteral", "BooleanLiteral", "CharacterLiteral", 
+		"StringLiteral", "'null'"
+	};
+	public static final String[] ruleNames = {
+		"T__0", "LE", "BE", "ST", "UT", "IT", "BT", "FT", "DB", "QS", "ES", "UES", 
+		"OES", "NM", "ID", "HX", "BO", "BC", "DS", "FS", "CM", "CN", "WS", "Identifier", 
+		"Letter", "JavaIDDigit", "NumericLiteral", "TextLiteral", "IntegerLiteral", 
+		"DecimalIntegerLiteral", "HexIntegerLiteral", "OctalIntegerLiteral", "BinaryIntegerLiteral", 
+		"IntegerTypeSuffix", "DecimalNumeral", "Digits", "Digit", "NonZeroDigit", 
+		"DigitOrUnderscore", "Underscores", "HexNumeral", "HexDigits", "HexDigit", 
+		"HexDigitOrUnderscore", "OctalNumeral", "OctalDigits", "OctalDigit", "OctalDigitOrUnderscore", 
+		"BinaryNumeral", "BinaryDigits", "BinaryDigit", "BinaryDigitOrUnderscore", 
+		"FloatingPointLiteral", "DecimalFloatingPointLiteral", "ExponentPart", 
+		"ExponentIndicator", "SignedInteger", "Sign", "FloatTypeSuffix", "HexadecimalFloatingPointLiteral", 
+		"HexSignificand", "BinaryExponent", "BinaryExponentIndicator", "BooleanLiteral", 
+		"CharacterLiteral", "SingleCharacter", "StringLiteral", "StringCharacters", 
+		"StringCharacter", "EscapeSequence", "OctalEscape", "UnicodeEscape", "ZeroToThree", 
+		"NullLiteral"
+	};
+
+
+	public BitSyntaxLexer(CharStream input) {
+		super(input);
+		_interp = new LexerATNSimulator(this,_ATN,_decisionToDFA,_sharedContextCache);
+	}
+
+	@Override
+	public String getGrammarFileName() { return "BitSyntax.g4"; }
+
+	@Override
+	public String[] getTokenNames() { return tokenNames; }
+
+	@Override
+	public String[] getRuleNames() { return ruleNames; }
+
+	@Override
+	public String getSerializedATN() { return _serializedATN; }
+
+	@Override
+	public String[] getModeNames() { return modeNames; }
+
+	@Override
+	public ATN getATN() { return _ATN; }
+
+	public static final String _serializedATN =
+		"\3\u0430\ud6d1\u8206\uad2d\u4417\uaef1\u8d80\uaadd\2\36\u022c\b\1\4\2"+
+		"\t\2\4\3\t\3\4\4\t\4\4\5\t\5\4\6\t\6\4\7\t\7\4\b\t\b\4\t\t\t\4\n\t\n\4"+
+		"\13\t\13\4\f\t\f\4\r\t\r\4\16\t\16\4\17\t\17\4\20\t\20\4\21\t\21\4\22"+
+		"\t\22\4\23\t\23\4\24\t\24\4\25\t\25\4\26\t\26\4\27\t\27\4\30\t\30\4\31"+
+		"\t\31\4\32\t\32\4\33\t\33\4\34\t\34\4\35\t\35\4\36\t\36\4\37\t\37\4 \t"+
+		" \4!\t!\4\"\t\"\4#\t#\4$\t$\4%\t%\4&\t&\4\'\t\'\4(\t(\4)\t)\4*\t*\4+\t"+
+		"+\4,\t,\4-\t-\4.\t.\4/\t/\4\60\t\60\4\61\t\61\4\62\t\62\4\63\t\63\4\64"+
+		"\t\64\4\65\t\65\4\66\t\66\4\67\t\67\48\t8\49\t9\4:\t:\4;\t;\4<\t<\4=\t"+
+		"=\4>\t>\4?\t?\4@\t@\4A\tA\4B\tB\4C\tC\4D\tD\4E\tE\4F\tF\4G\tG\4H\tH\4"+
+		"I\tI\4J\tJ\4K\tK\3\2\3\2\3\2\3\2\3\2\3\3\3\3\3\3\3\3\3\3\3\3\3\3\3\4\3"+
+		"\4\3\4\3\4\3\5\3\5\3\5\3\5\3\5\3\5\3\5\3\6\3\6\3\6\3\6\3\6\3\6\3\6\3\6"+
+		"\3\6\3\7\3\7\3\7\3\7\3\7\3\7\3\7\3\7\3\b\3\b\3\b\3\b\3\b\3\b\3\b\3\t\3"+
+		"\t\3\t\3\t\3\t\3\t\3\n\3\n\3\n\3\n\3\n\3\n\3\n\3\13\3\13\3\13\7\13\u00d7"+
+		"\n\13\f\13\16\13\u00da\13\13\3\13\3\13\3\f\3\f\3\f\3\f\5\f\u00e2\n\f\3"+
+		"\r\3\r\3\r\3\r\3\r\3\r\3\r\3\16\3\16\3\16\3\16\3\16\3\16\3\16\3\16\3\16"+
+		"\5\16\u00f4\n\16\3\17\3\17\3\20\3\20\3\21\3\21\3\22\3\22\3\22\3\23\3\23"+
+		"\3\23\3\24\3\24\3\25\3\25\3\26\3\26\3\27\3\27\3\30\6\30\u010b\n\30\r\30"+
+		"\16\30\u010c\3\30\3\30\3\31\3\31\3\31\7\31\u0114\n\31\f\31\16\31\u0117"+
+		"\13\31\3\32\3\32\3\33\3\33\3\34\3\34\5\34\u011f\n\34\3\35\3\35\5\35\u0123"+
+		"\n\35\3\36\3\36\3\36\3\36\5\36\u0129\n\36\3\37\3\37\5\37\u012d\n\37\3"+
+		" \3 \5 \u0131\n \3!\3!\5!\u0135\n!\3\"\3\"\5\"\u0139\n\"\3#\3#\3$\3$\3"+
+		"$\5$\u0140\n$\3$\3$\3$\5$\u0145\n$\5$\u0147\n$\3%\3%\7%\u014b\n%\f%\16"+
+		"%\u014e\13%\3%\5%\u0151\n%\3&\3&\5&\u0155\n&\3\'\3\'\3(\3(\5(\u015b\n"+
+		"(\3)\6)\u015e\n)\r)\16)\u015f\3*\3*\3*\3*\3+\3+\7+\u0168\n+\f+\16+\u016b"+
+		"\13+\3+\5+\u016e\n+\3,\3,\3-\3-\5-\u0174\n-\3.\3.\5.\u0178\n.\3.\3.\3"+
+		"/\3/\7/\u017e\n/\f/\16/\u0181\13/\3/\5/\u0184\n/\3\60\3\60\3\61\3\61\5"+
+		"\61\u018a\n\61\3\62\3\62\3\62\3\62\3\63\3\63\7\63\u0192\n\63\f\63\16\63"+
+		"\u0195\13\63\3\63\5\63\u0198\n\63\3\64\3\64\3\65\3\65\5\65\u019e\n\65"+
+		"\3\66\3\66\5\66\u01a2\n\66\3\67\3\67\3\67\5\67\u01a7\n\67\3\67\5\67\u01aa"+
+		"\n\67\3\67\5\67\u01ad\n\67\3\67\3\67\3\67\5\67\u01b2\n\67\3\67\5\67\u01b5"+
+		"\n\67\3\67\3\67\3\67\5\67\u01ba\n\67\3\67\3\67\3\67\5\67\u01bf\n\67\3"+
+		"8\38\38\39\39\3:\5:\u01c7\n:\3:\3:\3;\3;\3<\3<\3=\3=\3=\5=\u01d2\n=\3"+
+		">\3>\5>\u01d6\n>\3>\3>\3>\5>\u01db\n>\3>\3>\5>\u01df\n>\3?\3?\3?\3@\3"+
+		"@\3A\3A\3A\3A\3A\3A\3A\3A\3A\5A\u01ef\nA\3B\3B\3B\3B\3B\3B\3B\3B\5B\u01f9"+
+		"\nB\3C\3C\3D\3D\5D\u01ff\nD\3D\3D\3E\6E\u0204\nE\rE\16E\u0205\3F\3F\5"+
+		"F\u020a\nF\3G\3G\3G\3G\5G\u0210\nG\3H\3H\3H\3H\3H\3H\3H\3H\3H\3H\3H\5"+
+		"H\u021d\nH\3I\3I\3I\3I\3I\3I\3I\3J\3J\3K\3K\3K\3K\3K\2\2L\3\3\5\4\7\5"+
+		"\t\6\13\7\r\b\17\t\21\n\23\13\25\f\27\2\31\2\33\2\35\r\37\16!\2#\17%\20"+
+		"\'\21)\22+\23-\24/\25\61\26\63\2\65\2\67\279\30;\31=\2?\2A\2C\2E\2G\2"+
+		"I\2K\2M\2O\2Q\2S\2U\2W\2Y\2[\2]\2_\2a\2c\2e\2g\2i\2k\32m\2o\2q\2s\2u\2"+
+		"w\2y\2{\2}\2\177\2\u0081\33\u0083\34\u0085\2\u0087\35\u0089\2\u008b\2"+
+		"\u008d\2\u008f\2\u0091\2\u0093\2\u0095\36\3\2\24\4\2$$^^\n\2$$))^^ddh"+
+		"hppttvv\5\2\62;CHch\5\2\13\f\17\17\"\"\16\2&&C\\aac|\u00c2\u00d8\u00da"+
+		"\u00f8\u00fa\u2001\u3042\u3191\u3302\u3381\u3402\u3d2f\u4e02\ua001\uf902"+
+		"\ufb01\21\2\62;\u0662\u066b\u06f2\u06fb\u0968\u0971\u09e8\u09f1\u0a68"+
+		"\u0a71\u0ae8\u0af1\u0b68\u0b71\u0be9\u0bf1\u0c68\u0c71\u0ce8\u0cf1\u0d68"+
+		"\u0d71\u0e52\u0e5b\u0ed2\u0edb\u1042\u104b\4\2NNnn\3\2\63;\4\2ZZzz\3\2"+
+		"\629\4\2DDdd\3\2\62\63\4\2GGgg\4\2--//\6\2FFHHffhh\4\2RRrr\4\2))^^\3\2"+
+		"\62\65\u0239\2\3\3\2\2\2\2\5\3\2\2\2\2\7\3\2\2\2\2\t\3\2\2\2\2\13\3\2"+
+		"\2\2\2\r\3\2\2\2\2\17\3\2\2\2\2\21\3\2\2\2\2\23\3\2\2\2\2\25\3\2\2\2\2"+
+		"\35\3\2\2\2\2\37\3\2\2\2\2#\3\2\2\2\2%\3\2\2\2\2\'\3\2\2\2\2)\3\2\2\2"+
+		"\2+\3\2\2\2\2-\3\2\2\2\2/\3\2\2\2\2\61\3\2\2\2\2\67\3\2\2\2\29\3\2\2\2"+
+		"\2;\3\2\2\2\2k\3\2\2\2\2\u0081\3\2\2\2\2\u0083\3\2\2\2\2\u0087\3\2\2\2"+
+		"\2\u0095\3\2\2\2\3\u0097\3\2\2\2\5\u009c\3\2\2\2\7\u00a3\3\2\2\2\t\u00a7"+
+		"\3\2\2\2\13\u00ae\3\2\2\2\r\u00b7\3\2\2\2\17\u00bf\3\2\2\2\21\u00c6\3"+
+		"\2\2\2\23\u00cc\3\2\2\2\25\u00d3\3\2\2\2\27\u00e1\3\2\2\2\31\u00e3\3\2"+
+		"\2\2\33\u00f3\3\2\2\2\35\u00f5\3\2\2\2\37\u00f7\3\2\2\2!\u00f9\3\2\2\2"+
+		"#\u00fb\3\2\2\2%\u00fe\3\2\2\2\'\u0101\3\2\2\2)\u0103\3\2\2\2+\u0105\3"+
+		"\2\2\2-\u0107\3\2\2\2/\u010a\3\2\2\2\61\u0110\3\2\2\2\63\u0118\3\2\2\2"+
+		"\65\u011a\3\2\2\2\67\u011e\3\2\2\29\u0122\3\2\2\2;\u0128\3\2\2\2=\u012a"+
+		"\3\2\2\2?\u012e\3\2\2\2A\u0132\3\2\2\2C\u0136\3\2\2\2E\u013a\3\2\2\2G"+
+		"\u0146\3\2\2\2I\u0148\3\2\2\2K\u0154\3\2\2\2M\u0156\3\2\2\2O\u015a\3\2"+
+		"\2\2Q\u015d\3\2\2\2S\u0161\3\2\2\2U\u0165\3\2\2\2W\u016f\3\2\2\2Y\u0173"+
+		"\3\2\2\2[\u0175\3\2\2\2]\u017b\3\2\2\2_\u0185\3\2\2\2a\u0189\3\2\2\2c"+
+		"\u018b\3\2\2\2e\u018f\3\2\2\2g\u0199\3\2\2\2i\u019d\3\2\2\2k\u01a1\3\2"+
+		"\2\2m\u01be\3\2\2\2o\u01c0\3\2\2\2q\u01c3\3\2\2\2s\u01c6\3\2\2\2u\u01ca"+
+		"\3\2\2\2w\u01cc\3\2\2\2y\u01ce\3\2\2\2{\u01de\3\2\2\2}\u01e0\3\2\2\2\177"+
+		"\u01e3\3\2\2\2\u0081\u01ee\3\2\2\2\u0083\u01f8\3\2\2\2\u0085\u01fa\3\2"+
+		"\2\2\u0087\u01fc\3\2\2\2\u0089\u0203\3\2\2\2\u008b\u0209\3\2\2\2\u008d"+
+		"\u020f\3\2\2\2\u008f\u021c\3\2\2\2\u0091\u021e\3\2\2\2\u0093\u0225\3\2"+
+		"\2\2\u0095\u0227\3\2\2\2\u0097\u0098\7w\2\2\u0098\u0099\7p\2\2\u0099\u009a"+
+		"\7k\2\2\u009a\u009b\7v\2\2\u009b\4\3\2\2\2\u009c\u009d\7n\2\2\u009d\u009e"+
+		"\7k\2\2\u009e\u009f\7v\2\2\u009f\u00a0\7v\2\2\u00a0\u00a1\7n\2\2\u00a1"+
+		"\u00a2\7g\2\2\u00a2\6\3\2\2\2\u00a3\u00a4\7d\2\2\u00a4\u00a5\7k\2\2\u00a5"+
+		"\u00a6\7i\2\2\u00a6\b\3\2\2\2\u00a7\u00a8\7u\2\2\u00a8\u00a9\7k\2\2\u00a9"+
+		"\u00aa\7i\2\2\u00aa\u00ab\7p\2\2\u00ab\u00ac\7g\2\2\u00ac\u00ad\7f\2\2"+
+		"\u00ad\n\3\2\2\2\u00ae\u00af\7w\2\2\u00af\u00b0\7p\2\2\u00b0\u00b1\7u"+
+		"\2\2\u00b1\u00b2\7k\2\2\u00b2\u00b3\7i\2\2\u00b3\u00b4\7p\2\2\u00b4\u00b5"+
+		"\7g\2\2\u00b5\u00b6\7f\2\2\u00b6\f\3\2\2\2\u00b7\u00b8\7k\2\2\u00b8\u00b9"+
+		"\7p\2\2\u00b9\u00ba\7v\2\2\u00ba\u00bb\7g\2\2\u00bb\u00bc\7i\2\2\u00bc"+
+		"\u00bd\7g\2\2\u00bd\u00be\7t\2\2\u00be\16\3\2\2\2\u00bf\u00c0\7d\2\2\u00c0"+
+		"\u00c1\7k\2\2\u00c1\u00c2\7p\2\2\u00c2\u00c3\7c\2\2\u00c3\u00c4\7t\2\2"+
+		"\u00c4\u00c5\7{\2\2\u00c5\20\3\2\2\2\u00c6\u00c7\7h\2\2\u00c7\u00c8\7"+
+		"n\2\2\u00c8\u00c9\7q\2\2\u00c9\u00ca\7c\2\2\u00ca\u00cb\7v\2\2\u00cb\22"+
+		"\3\2\2\2\u00cc\u00cd\7f\2\2\u00cd\u00ce\7q\2\2\u00ce\u00cf\7w\2\2\u00cf"+
+		"\u00d0\7d\2\2\u00d0\u00d1\7n\2\2\u00d1\u00d2\7g\2\2\u00d2\24\3\2\2\2\u00d3"+
+		"\u00d8\7$\2\2\u00d4\u00d7\5\27\f\2\u00d5\u00d7\n\2\2\2\u00d6\u00d4\3\2"+
+		"\2\2\u00d6\u00d5\3\2\2\2\u00d7\u00da\3\2\2\2\u00d8\u00d6\3\2\2\2\u00d8"+
+		"\u00d9\3\2\2\2\u00d9\u00db\3\2\2\2\u00da\u00d8\3\2\2\2\u00db\u00dc\7$"+
+		"\2\2\u00dc\26\3\2\2\2\u00dd\u00de\7^\2\2\u00de\u00e2\t\3\2\2\u00df\u00e2"+
+		"\5\31\r\2\u00e0\u00e2\5\33\16\2\u00e1\u00dd\3\2\2\2\u00e1\u00df\3\2\2"+
+		"\2\u00e1\u00e0\3\2\2\2\u00e2\30\3\2\2\2\u00e3\u00e4\7^\2\2\u00e4\u00e5"+
+		"\7w\2\2\u00e5\u00e6\5!\21\2\u00e6\u00e7\5!\21\2\u00e7\u00e8\5!\21\2\u00e8"+
+		"\u00e9\5!\21\2\u00e9\32\3\2\2\2\u00ea\u00eb\7^\2\2\u00eb\u00ec\4\62\65"+
+		"\2\u00ec\u00ed\4\629\2\u00ed\u00f4\4\629\2\u00ee\u00ef\7^\2\2\u00ef\u00f0"+
+		"\4\629\2\u00f0\u00f4\4\629\2\u00f1\u00f2\7^\2\2\u00f2\u00f4\4\629\2\u00f3"+
+		"\u00ea\3\2\2\2\u00f3\u00ee\3\2\2\2\u00f3\u00f1\3\2\2\2\u00f4\34\3\2\2"+
+		"\2\u00f5\u00f6\5;\36\2\u00f6\36\3\2\2\2\u00f7\u00f8\5\61\31\2\u00f8 \3"+
+		"\2\2\2\u00f9\u00fa\t\4\2\2\u00fa\"\3\2\2\2\u00fb\u00fc\7>\2\2\u00fc\u00fd"+
+		"\7>\2\2\u00fd$\3\2\2\2\u00fe\u00ff\7@\2\2\u00ff\u0100\7@\2\2\u0100&\3"+
+		"\2\2\2\u0101\u0102\7/\2\2\u0102(\3\2\2\2\u0103\u0104\7\61\2\2\u0104*\3"+
+		"\2\2\2\u0105\u0106\7.\2\2\u0106,\3\2\2\2\u0107\u0108\7<\2\2\u0108.\3\2"+
+		"\2\2\u0109\u010b\t\5\2\2\u010a\u0109\3\2\2\2\u010b\u010c\3\2\2\2\u010c"+
+		"\u010a\3\2\2\2\u010c\u010d\3\2\2\2\u010d\u010e\3\2\2\2\u010e\u010f\b\30"+
+		"\2\2\u010f\60\3\2\2\2\u0110\u0115\5\63\32\2\u0111\u0114\5\63\32\2\u0112"+
+		"\u0114\5\65\33\2\u0113\u0111\3\2\2\2\u0113\u0112\3\2\2\2\u0114\u0117\3"+
+		"\2\2\2\u0115\u0113\3\2\2\2\u0115\u0116\3\2\2\2\u0116\62\3\2\2\2\u0117"+
+		"\u0115\3\2\2\2\u0118\u0119\t\6\2\2\u0119\64\3\2\2\2\u011a\u011b\t\7\2"+
+		"\2\u011b\66\3\2\2\2\u011c\u011f\5;\36\2\u011d\u011f\5k\66\2\u011e\u011c"+
+		"\3\2\2\2\u011e\u011d\3\2\2\2\u011f8\3\2\2\2\u0120\u0123\5\u0083B\2\u0121"+
+		"\u0123\5\u0087D\2\u0122\u0120\3\2\2\2\u0122\u0121\3\2\2\2\u0123:\3\2\2"+
+		"\2\u0124\u0129\5=\37\2\u0125\u0129\5? \2\u0126\u0129\5A!\2\u0127\u0129"+
+		"\5C\"\2\u0128\u0124\3\2\2\2\u0128\u0125\3\2\2\2\u0128\u0126\3\2\2\2\u0128"+
+		"\u0127\3\2\2\2\u0129<\3\2\2\2\u012a\u012c\5G$\2\u012b\u012d\5E#\2\u012c"+
+		"\u012b\3\2\2\2\u012c\u012d\3\2\2\2\u012d>\3\2\2\2\u012e\u0130\5S*\2\u012f"+
+		"\u0131\5E#\2\u0130\u012f\3\2\2\2\u0130\u0131\3\2\2\2\u0131@\3\2\2\2\u0132"+
+		"\u0134\5[.\2\u0133\u0135\5E#\2\u0134\u0133\3\2\2\2\u0134\u0135\3\2\2\2"+
+		"\u0135B\3\2\2\2\u0136\u0138\5c\62\2\u0137\u0139\5E#\2\u0138\u0137\3\2"+
+		"\2\2\u0138\u0139\3\2\2\2\u0139D\3\2\2\2\u013a\u013b\t\b\2\2\u013bF\3\2"+
+		"\2\2\u013c\u0147\7\62\2\2\u013d\u0144\5M\'\2\u013e\u0140\5I%\2\u013f\u013e"+
+		"\3\2\2\2\u013f\u0140\3\2\2\2\u0140\u0145\3\2\2\2\u0141\u0142\5Q)\2\u0142"+
+		"\u0143\5I%\2\u0143\u0145\3\2\2\2\u0144\u013f\3\2\2\2\u0144\u0141\3\2\2"+
+		"\2\u0145\u0147\3\2\2\2\u0146\u013c\3\2\2\2\u0146\u013d\3\2\2\2\u0147H"+
+		"\3\2\2\2\u0148\u0150\5K&\2\u0149\u014b\5O(\2\u014a\u0149\3\2\2\2\u014b"+
+		"\u014e\3\2\2\2\u014c\u014a\3\2\2\2\u014c\u014d\3\2\2\2\u014d\u014f\3\2"+
+		"\2\2\u014e\u014c\3\2\2\2\u014f\u0151\5K&\2\u0150\u014c\3\2\2\2\u0150\u0151"+
+		"\3\2\2\2\u0151J\3\2\2\2\u0152\u0155\7\62\2\2\u0153\u0155\5M\'\2\u0154"+
+		"\u0152\3\2\2\2\u0154\u0153\3\2\2\2\u0155L\3\2\2\2\u0156\u0157\t\t\2\2"+
+		"\u0157N\3\2\2\2\u0158\u015b\5K&\2\u0159\u015b\7a\2\2\u015a\u0158\3\2\2"+
+		"\2\u015a\u0159\3\2\2\2\u015bP\3\2\2\2\u015c\u015e\7a\2\2\u015d\u015c\3"+
+		"\2\2\2\u015e\u015f\3\2\2\2\u015f\u015d\3\2\2\2\u015f\u0160\3\2\2\2\u0160"+
+		"R\3\2\2\2\u0161\u0162\7\62\2\2\u0162\u0163\t\n\2\2\u0163\u0164\5U+\2\u0164"+
+		"T\3\2\2\2\u0165\u016d\5W,\2\u0166\u0168\5Y-\2\u0167\u0166\3\2\2\2\u0168"+
+		"\u016b\3\2\2\2\u0169\u0167\3\2\2\2\u0169\u016a\3\2\2\2\u016a\u016c\3\2"+
+		"\2\2\u016b\u0169\3\2\2\2\u016c\u016e\5W,\2\u016d\u0169\3\2\2\2\u016d\u016e"+
+		"\3\2\2\2\u016eV\3\2\2\2\u016f\u0170\t\4\2\2\u0170X\3\2\2\2\u0171\u0174"+
+		"\5W,\2\u0172\u0174\7a\2\2\u0173\u0171\3\2\2\2\u0173\u0172\3\2\2\2\u0174"+
+		"Z\3\2\2\2\u0175\u0177\7\62\2\2\u0176\u0178\5Q)\2\u0177\u0176\3\2\2\2\u0177"+
+		"\u0178\3\2\2\2\u0178\u0179\3\2\2\2\u0179\u017a\5]/\2\u017a\\\3\2\2\2\u017b"+
+		"\u0183\5_\60\2\u017c\u017e\5a\61\2\u017d\u017c\3\2\2\2\u017e\u0181\3\2"+
+		"\2\2\u017f\u017d\3\2\2\2\u017f\u0180\3\2\2\2\u0180\u0182\3\2\2\2\u0181"+
+		"\u017f\3\2\2\2\u0182\u0184\5_\60\2\u0183\u017f\3\2\2\2\u0183\u0184\3\2"+
+		"\2\2\u0184^\3\2\2\2\u0185\u0186\t\13\2\2\u0186`\3\2\2\2\u0187\u018a\5"+
+		"_\60\2\u0188\u018a\7a\2\2\u0189\u0187\3\2\2\2\u0189\u0188\3\2\2\2\u018a"+
+		"b\3\2\2\2\u018b\u018c\7\62\2\2\u018c\u018d\t\f\2\2\u018d\u018e\5e\63\2"+
+		"\u018ed\3\2\2\2\u018f\u0197\5g\64\2\u0190\u0192\5i\65\2\u0191\u0190\3"+
+		"\2\2\2\u0192\u0195\3\2\2\2\u0193\u0191\3\2\2\2\u0193\u0194\3\2\2\2\u0194"+
+		"\u0196\3\2\2\2\u0195\u0193\3\2\2\2\u0196\u0198\5g\64\2\u0197\u0193\3\2"+
+		"\2\2\u0197\u0198\3\2\2\2\u0198f\3\2\2\2\u0199\u019a\t\r\2\2\u019ah\3\2"+
+		"\2\2\u019b\u019e\5g\64\2\u019c\u019e\7a\2\2\u019d\u019b\3\2\2\2\u019d"+
+		"\u019c\3\2\2\2\u019ej\3\2\2\2\u019f\u01a2\5m\67\2\u01a0\u01a2\5y=\2\u01a1"+
+		"\u019f\3\2\2\2\u01a1\u01a0\3\2\2\2\u01a2l\3\2\2\2\u01a3\u01a4\5I%\2\u01a4"+
+		"\u01a6\7\60\2\2\u01a5\u01a7\5I%\2\u01a6\u01a5\3\2\2\2\u01a6\u01a7\3\2"+
+		"\2\2\u01a7\u01a9\3\2\2\2\u01a8\u01aa\5o8\2\u01a9\u01a8\3\2\2\2\u01a9\u01aa"+
+		"\3\2\2\2\u01aa\u01ac\3\2\2\2\u01ab\u01ad\5w<\2\u01ac\u01ab\3\2\2\2\u01ac"+
+		"\u01ad\3\2\2\2\u01ad\u01bf\3\2\2\2\u01ae\u01af\7\60\2\2\u01af\u01b1\5"+
+		"I%\2\u01b0\u01b2\5o8\2\u01b1\u01b0\3\2\2\2\u01b1\u01b2\3\2\2\2\u01b2\u01b4"+
+		"\3\2\2\2\u01b3\u01b5\5w<\2\u01b4\u01b3\3\2\2\2\u01b4\u01b5\3\2\2\2\u01b5"+
+		"\u01bf\3\2\2\2\u01b6\u01b7\5I%\2\u01b7\u01b9\5o8\2\u01b8\u01ba\5w<\2\u01b9"+
+		"\u01b8\3\2\2\2\u01b9\u01ba\3\2\2\2\u01ba\u01bf\3\2\2\2\u01bb\u01bc\5I"+
+		"%\2\u01bc\u01bd\5w<\2\u01bd\u01bf\3\2\2\2\u01be\u01a3\3\2\2\2\u01be\u01ae"+
+		"\3\2\2\2\u01be\u01b6\3\2\2\2\u01be\u01bb\3\2\2\2\u01bfn\3\2\2\2\u01c0"+
+		"\u01c1\5q9\2\u01c1\u01c2\5s:\2\u01c2p\3\2\2\2\u01c3\u01c4\t\16\2\2\u01c4"+
+		"r\3\2\2\2\u01c5\u01c7\5u;\2\u01c6\u01c5\3\2\2\2\u01c6\u01c7\3\2\2\2\u01c7"+
+		"\u01c8\3\2\2\2\u01c8\u01c9\5I%\2\u01c9t\3\2\2\2\u01ca\u01cb\t\17\2\2\u01cb"+
+		"v\3\2\2\2\u01cc\u01cd\t\20\2\2\u01cdx\3\2\2\2\u01ce\u01cf\5{>\2\u01cf"+
+		"\u01d1\5}?\2\u01d0\u01d2\5w<\2\u01d1\u01d0\3\2\2\2\u01d1\u01d2\3\2\2\2"+
+		"\u01d2z\3\2\2\2\u01d3\u01d5\5S*\2\u01d4\u01d6\7\60\2\2\u01d5\u01d4\3\2"+
+		"\2\2\u01d5\u01d6\3\2\2\2\u01d6\u01df\3\2\2\2\u01d7\u01d8\7\62\2\2\u01d8"+
+		"\u01da\t\n\2\2\u01d9\u01db\5U+\2\u01da\u01d9\3\2\2\2\u01da\u01db\3\2\2"+
+		"\2\u01db\u01dc\3\2\2\2\u01dc\u01dd\7\60\2\2\u01dd\u01df\5U+\2\u01de\u01d3"+
+		"\3\2\2\2\u01de\u01d7\3\2\2\2\u01df|\3\2\2\2\u01e0\u01e1\5\177@\2\u01e1"+
+		"\u01e2\5s:\2\u01e2~\3\2\2\2\u01e3\u01e4\t\21\2\2\u01e4\u0080\3\2\2\2\u01e5"+
+		"\u01e6\7v\2\2\u01e6\u01e7\7t\2\2\u01e7\u01e8\7w\2\2\u01e8\u01ef\7g\2\2"+
+		"\u01e9\u01ea\7h\2\2\u01ea\u01eb\7c\2\2\u01eb\u01ec\7n\2\2\u01ec\u01ed"+
+		"\7u\2\2\u01ed\u01ef\7g\2\2\u01ee\u01e5\3\2\2\2\u01ee\u01e9\3\2\2\2\u01ef"+
+		"\u0082\3\2\2\2\u01f0\u01f1\7)\2\2\u01f1\u01f2\5\u0085C\2\u01f2\u01f3\7"+
+		")\2\2\u01f3\u01f9\3\2\2\2\u01f4\u01f5\7)\2\2\u01f5\u01f6\5\u008dG\2\u01f6"+
+		"\u01f7\7)\2\2\u01f7\u01f9\3\2\2\2\u01f8\u01f0\3\2\2\2\u01f8\u01f4\3\2"+
+		"\2\2\u01f9\u0084\3\2\2\2\u01fa\u01fb\n\22\2\2\u01fb\u0086\3\2\2\2\u01fc"+
+		"\u01fe\7$\2\2\u01fd\u01ff\5\u0089E\2\u01fe\u01fd\3\2\2\2\u01fe\u01ff\3"+
+		"\2\2\2\u01ff\u0200\3\2\2\2\u0200\u0201\7$\2\2\u0201\u0088\3\2\2\2\u0202"+
+		"\u0204\5\u008bF\2\u0203\u0202\3\2\2\2\u0204\u0205\3\2\2\2\u0205\u0203"+
+		"\3\2\2\2\u0205\u0206\3\2\2\2\u0206\u008a\3\2\2\2\u0207\u020a\n\2\2\2\u0208"+
+		"\u020a\5\u008dG\2\u0209\u0207\3\2\2\2\u0209\u0208\3\2\2\2\u020a\u008c"+
+		"\3\2\2\2\u020b\u020c\7^\2\2\u020c\u0210\t\3\2\2\u020d\u0210\5\u008fH\2"+
+		"\u020e\u0210\5\u0091I\2\u020f\u020b\3\2\2\2\u020f\u020d\3\2\2\2\u020f"+
+		"\u020e\3\2\2\2\u0210\u008e\3\2\2\2\u0211\u0212\7^\2\2\u0212\u021d\5_\60"+
+		"\2\u0213\u0214\7^\2\2\u0214\u0215\5_\60\2\u0215\u0216\5_\60\2\u0216\u021d"+
+		"\3\2\2\2\u0217\u0218\7^\2\2\u0218\u0219\5\u0093J\2\u0219\u021a\5_\60\2"+
+		"\u021a\u021b\5_\60\2\u021b\u021d\3\2\2\2\u021c\u0211\3\2\2\2\u021c\u0213"+
+		"\3\2\2\2\u021c\u0217\3\2\2\2\u021d\u0090\3\2\2\2\u021e\u021f\7^\2\2\u021f"+
+		"\u0220\7w\2\2\u0220\u0221\5W,\2\u0221\u0222\5W,\2\u0222\u0223\5W,\2\u0223"+
+		"\u0224\5W,\2\u0224\u0092\3\2\2\2\u0225\u0226\t\23\2\2\u0226\u0094\3\2"+
+		"\2\2\u0227\u0228\7p\2\2\u0228\u0229\7w\2\2\u0229\u022a\7n\2\2\u022a\u022b"+
+		"\7n\2\2\u022b\u0096\3\2\2\2\67\2\u00d6\u00d8\u00e1\u00f3\u010c\u0113\u0115"+
+		"\u011e\u0122\u0128\u012c\u0130\u0134\u0138\u013f\u0144\u0146\u014c\u0150"+
+		"\u0154\u015a\u015f\u0169\u016d\u0173\u0177\u017f\u0183\u0189\u0193\u0197"+
+		"\u019d\u01a1\u01a6\u01a9\u01ac\u01b1\u01b4\u01b9\u01be\u01c6\u01d1\u01d5"+
+		"\u01da\u01de\u01ee\u01f8\u01fe\u0205\u0209\u020f\u021c\3\b\2\2";
+	public static final ATN _ATN =
+		new ATNDeserializer().deserialize(_serializedATN.toCharArray());
+	static {
+		_decisionToDFA = new DFA[_ATN.getNumberOfDecisions()];
+		for (int i = 0; i < _ATN.getNumberOfDecisions(); i++) {
+			_decisionToDFA[i] = new DFA(_ATN.getDecisionState(i), i);
+		}
+	}
+}
\ No newline at end of file
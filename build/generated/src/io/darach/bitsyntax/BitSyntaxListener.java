@@ -0,0 +1,113 @@
+// Generated from src/io/darach/bitsyntax/BitSyntax.g4 by ANTLR 4.2
+package io.darach.bitsyntax;
+
+// Copyright (c) 2013 Darach Ennis < darach at gmail dot com >.
+//
+// Permission is hereby granted, free of charge, to any person obtaining a
+// copy of this software and associated documentation files (the
+// "Software"), to deal in the Software without restriction, including
+// without limitation the rights to use, copy, modify, merge, publish,
+// distribute, sublicense, and/or sell copies of the Software, and to permit
+// persons to whom the Software is furnished to do so, subject to the
+// following conditions:  
+//
+// The above copyright notice and this permission notice shall be included
+// in all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS
+// OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+// MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN
+// NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+// DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+// OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE
+// USE OR OTHER DEALINGS IN THE SOFTWARE.
+
+
+// package io.darach.bitsyntax;
+
+
+import org.antlr.v4.runtime.misc.NotNull;
+import org.antlr.v4.runtime.tree.ParseTreeListener;
+
+/**
+ * This interface defines a complete listener for a parse tree produced by
+ * {@link BitSyntaxParser}.
+ */
+public interface BitSyntaxListener extends ParseTreeListener {
+	/**
+	 * Enter a parse tree produced by {@link BitSyntaxParser#specifier}.
+	 * @param ctx the parse tree
+	 */
+	void enterSpecifier(@NotNull BitSyntaxParser.SpecifierContext ctx);
+	/**
+	 * Exit a parse tree produced by {@link BitSyntaxParser#specifier}.
+	 * @param ctx the parse tree
+	 */
+	void exitSpecifier(@NotNull BitSyntaxParser.SpecifierContext ctx);
+
+	/**
+	 * Enter a parse tree produced by {@link BitSyntaxParser#unit}.
+	 * @param ctx the parse tree
+	 */
+	void enterUnit(@NotNull BitSyntaxParser.UnitContext ctx);
+	/**
+	 * Exit a parse tree produced by {@link BitSyntaxParser#unit}.
+	 * @param ctx the parse tree
+	 */
+	void exitUnit(@NotNull BitSyntaxParser.UnitContext ctx);
+
+	/**
+	 * Enter a parse tree produced by {@link BitSyntaxParser#size}.
+	 * @param ctx the parse tree
+	 */
+	void enterSize(@NotNull BitSyntaxParser.SizeContext ctx);
+	/**
+	 * Exit a parse tree produced by {@link BitSyntaxParser#size}.
+	 * @param ctx the parse tree
+	 */
+	void exitSize(@NotNull BitSyntaxParser.SizeContext ctx);
+
+	/**
+	 * Enter a parse tree produced by {@link BitSyntaxParser#binary}.
+	 * @param ctx the parse tree
+	 */
+	void enterBinary(@NotNull BitSyntaxParser.BinaryContext ctx);
+	/**
+	 * Exit a parse tree produced by {@link BitSyntaxParser#binary}.
+	 * @param ctx the parse tree
+	 */
+	void exitBinary(@NotNull BitSyntaxParser.BinaryContext ctx);
+
+	/**
+	 * Enter a parse tree produced by {@link BitSyntaxParser#segment}.
+	 * @param ctx the parse tree
+	 */
+	void enterSegment(@NotNull BitSyntaxParser.SegmentContext ctx);
+	/**
+	 * Exit a parse tree produced by {@link BitSyntaxParser#segment}.
+	 * @param ctx the parse tree
+	 */
+	void exitSegment(@NotNull BitSyntaxParser.SegmentContext ctx);
+
+	/**
+	 * Enter a parse tree produced by {@link BitSyntaxParser#specifiers}.
+	 * @param ctx the parse tree
+	 */
+	void enterSpecifiers(@NotNull BitSyntaxParser.SpecifiersContext ctx);
+	/**
+	 * Exit a parse tree produced by {@link BitSyntaxParser#specifiers}.
+	 * @param ctx the parse tree
+	 */
+	void exitSpecifiers(@NotNull BitSyntaxParser.SpecifiersContext ctx);
+
+	/**
+	 * Enter a parse tree produced by {@link BitSyntaxParser#segments}.
+	 * @param ctx the parse tree
+	 */
+	void enterSegments(@NotNull BitSyntaxParser.SegmentsContext ctx);
+	/**
+	 * Exit a parse tree produced by {@link BitSyntaxParser#segments}.
+	 * @param ctx the parse tree
+	 */
+	void exitSegments(@NotNull BitSyntaxParser.SegmentsContext ctx);
+}
\ No newline at end of file
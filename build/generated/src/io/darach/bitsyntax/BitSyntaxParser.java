@@ -0,0 +1,522 @@
+// Generated from src/io/darach/bitsyntax/BitSyntax.g4 by ANTLR 4.2
+package io.darach.bitsyntax;
+
+// Copyright (c) 2013 Darach Ennis < darach at gmail dot com >.
+//
+// Permission is hereby granted, free of charge, to any person obtaining a
+// copy of this software and associated documentation files (the
+// "Software"), to deal in the Software without restriction, including
+// without limitation the rights to use, copy, modify, merge, publish,
+// distribute, sublicense, and/or sell copies of the Software, and to permit
+// persons to whom the Software is furnished to do so, subject to the
+// following conditions:  
+//
+// The above copyright notice and this permission notice shall be included
+// in all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS
+// OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+// MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN
+// NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+// DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+// OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE
+// USE OR OTHER DEALINGS IN THE SOFTWARE.
+
+
+// package io.darach.bitsyntax;
+
+
+import org.antlr.v4.runtime.atn.*;
+import org.antlr.v4.runtime.dfa.DFA;
+import org.antlr.v4.runtime.*;
+import org.antlr.v4.runtime.misc.*;
+import org.antlr.v4.runtime.tree.*;
+import java.util.List;
+import java.util.Iterator;
+import java.util.ArrayList;
+
+@SuppressWarnings({"all", "warnings", "unchecked", "unused", "cast"})
+public class BitSyntaxParser extends Parser {
+	protected static final DFA[] _decisionToDFA;
+	protected static final PredictionContextCache _sharedContextCache =
+		new PredictionContextCache();
+	public static final int
+		T__0=1, LE=2, BE=3, ST=4, UT=5, IT=6, BT=7, FT=8, DB=9, QS=10, NM=11, 
+		ID=12, BO=13, BC=14, DS=15, FS=16, CM=17, CN=18, WS=19, Identifier=20, 
+		NumericLiteral=21, TextLiteral=22, IntegerLiteral=23, FloatingPointLiteral=24, 
+		BooleanLiteral=25, CharacterLiteral=26, StringLiteral=27, NullLiteral=28;
+	public static final String[] tokenNames = {
+		"<INVALID>", "'unit'", "'little'", "'big'", "'signed'", "'unsigned'", 
+		"'integer'", "'binary'", "'float'", "'double'", "QS", "NM", "ID", "'<<'", 
+		"'>>'", "'-'", "'/'", "','", "':'", "WS", "Identifier", "NumericLiteral", 
+		"TextLiteral", "IntegerLiteral", "FloatingPointLiteral", "BooleanLiteral", 
+		"CharacterLiteral", "StringLiteral", "'null'"
+	};
+	public static final int
+		RULE_binary = 0, RULE_segments = 1, RULE_segment = 2, RULE_size = 3, RULE_specifiers = 4, 
+		RULE_specifier = 5, RULE_unit = 6;
+	public static final String[] ruleNames = {
+		"binary", "segments", "segment", "size", "specifiers", "specifier", "unit"
+	};
+
+	@Override
+	public String getGrammarFileName() { return "BitSyntax.g4"; }
+
+	@Override
+	public String[] getTokenNames() { return tokenNames; }
+
+	@Override
+	public String[] getRuleNames() { return ruleNames; }
+
+	@Override
+	public String getSerializedATN() { return _serializedATN; }
+
+	@Override
+	public ATN getATN() { return _ATN; }
+
+	public BitSyntaxParser(TokenStream input) {
+		super(input);
+		_interp = new ParserATNSimulator(this,_ATN,_decisionToDFA,_sharedContextCache);
+	}
+	public static class BinaryContext extends ParserRuleContext {
+		public TerminalNode BO() { return getToken(BitSyntaxParser.BO, 0); }
+		public SegmentsContext segments() {
+			return getRuleContext(SegmentsContext.class,0);
+		}
+		public TerminalNode BC() { return getToken(BitSyntaxParser.BC, 0); }
+		public BinaryContext(ParserRuleContext parent, int invokingState) {
+			super(parent, invokingState);
+		}
+		@Override public int getRuleIndex() { return RULE_binary; }
+		@Override
+		public void enterRule(ParseTreeListener listener) {
+			if ( listener instanceof BitSyntaxListener ) ((BitSyntaxListener)listener).enterBinary(this);
+		}
+		@Override
+		public void exitRule(ParseTreeListener listener) {
+			if ( listener instanceof BitSyntaxListener ) ((BitSyntaxListener)listener).exitBinary(this);
+		}
+	}
+
+	public final BinaryContext binary() throws RecognitionException {
+		BinaryContext _localctx = new BinaryContext(_ctx, getState());
+		enterRule(_localctx, 0, RULE_binary);
+		int _la;
+		try {
+			enterOuterAlt(_localctx, 1);
+			{
+			setState(14); match(BO);
+			setState(16);
+			_la = _input.LA(1);
+			if ((((_la) & ~0x3f) == 0 && ((1L << _la) & ((1L << QS) | (1L << NM) | (1L << ID))) != 0)) {
+				{
+				setState(15); segments();
+				}
+			}
+
+			setState(18); match(BC);
+			}
+		}
+		catch (RecognitionException re) {
+			_localctx.exception = re;
+			_errHandler.reportError(this, re);
+			_errHandler.recover(this, re);
+		}
+		finally {
+			exitRule();
+		}
+		return _localctx;
+	}
+
+	public static class SegmentsContext extends ParserRuleContext {
+		public TerminalNode CM(int i) {
+			return getToken(BitSyntaxParser.CM, i);
+		}
+		public SegmentContext segment(int i) {
+			return getRuleContext(SegmentContext.class,i);
+		}
+		public List<SegmentContext> segment() {
+			return getRuleContexts(SegmentContext.class);
+		}
+		public List<TerminalNode> CM() { return getTokens(BitSyntaxParser.CM); }
+		public SegmentsContext(ParserRuleContext parent, int invokingState) {
+			super(parent, invokingState);
+		}
+		@Override public int getRuleIndex() { return RULE_segments; }
+		@Override
+		public void enterRule(ParseTreeListener listener) {
+			if ( listener instanceof BitSyntaxListener ) ((BitSyntaxListener)listener).enterSegments(this);
+		}
+		@Override
+		public void exitRule(ParseTreeListener listener) {
+			if ( listener instanceof BitSyntaxListener ) ((BitSyntaxListener)listener).exitSegments(this);
+		}
+	}
+
+	public final SegmentsContext segments() throws RecognitionException {
+		SegmentsContext _localctx = new SegmentsContext(_ctx, getState());
+		enterRule(_localctx, 2, RULE_segments);
+		int _la;
+		try {
+			enterOuterAlt(_localctx, 1);
+			{
+			setState(20); segment();
+			setState(25);
+			_errHandler.sync(this);
+			_la = _input.LA(1);
+			while (_la==CM) {
+				{
+				{
+				setState(21); match(CM);
+				setState(22); segment();
+				}
+				}
+				setState(27);
+				_errHandler.sync(this);
+				_la = _input.LA(1);
+			}
+			}
+		}
+		catch (RecognitionException re) {
+			_localctx.exception = re;
+			_errHandler.reportError(this, re);
+			_errHandler.recover(this, re);
+		}
+		finally {
+			exitRule();
+		}
+		return _localctx;
+	}
+
+	public static class SegmentContext extends ParserRuleContext {
+		public TerminalNode ID() { return getToken(BitSyntaxParser.ID, 0); }
+		public TerminalNode NM() { return getToken(BitSyntaxParser.NM, 0); }
+		public SizeContext size() {
+			return getRuleContext(SizeContext.class,0);
+		}
+		public TerminalNode QS() { return getToken(BitSyntaxParser.QS, 0); }
+		public SpecifiersContext specifiers() {
+			return getRuleContext(SpecifiersContext.class,0);
+		}
+		public SegmentContext(ParserRuleContext parent, int invokingState) {
+			super(parent, invokingState);
+		}
+		@Override public int getRuleIndex() { return RULE_segment; }
+		@Override
+		public void enterRule(ParseTreeListener listener) {
+			if ( listener instanceof BitSyntaxListener ) ((BitSyntaxListener)listener).enterSegment(this);
+		}
+		@Override
+		public void exitRule(ParseTreeListener listener) {
+			if ( listener instanceof BitSyntaxListener ) ((BitSyntaxListener)listener).exitSegment(this);
+		}
+	}
+
+	public final SegmentContext segment() throws RecognitionException {
+		SegmentContext _localctx = new SegmentContext(_ctx, getState());
+		enterRule(_localctx, 4, RULE_segment);
+		int _la;
+		try {
+			setState(36);
+			switch (_input.LA(1)) {
+			case QS:
+				enterOuterAlt(_localctx, 1);
+				{
+				setState(28); match(QS);
+				}
+				break;
+			case NM:
+			case ID:
+				enterOuterAlt(_localctx, 2);
+				{
+				setState(29);
+				_la = _input.LA(1);
+				if ( !(_la==NM || _la==ID) ) {
+				_errHandler.recoverInline(this);
+				}
+				consume();
+				setState(31);
+				_la = _input.LA(1);
+				if (_la==CN) {
+					{
+					setState(30); size();
+					}
+				}
+
+				setState(34);
+				_la = _input.LA(1);
+				if (_la==FS) {
+					{
+					setState(33); specifiers();
+					}
+				}
+
+				}
+				break;
+			default:
+				throw new NoViableAltException(this);
+			}
+		}
+		catch (RecognitionException re) {
+			_localctx.exception = re;
+			_errHandler.reportError(this, re);
+			_errHandler.recover(this, re);
+		}
+		finally {
+			exitRule();
+		}
+		return _localctx;
+	}
+
+	public static class SizeContext extends ParserRuleContext {
+		public TerminalNode ID() { return getToken(BitSyntaxParser.ID, 0); }
+		public TerminalNode NM() { return getToken(BitSyntaxParser.NM, 0); }
+		public TerminalNode CN() { return getToken(BitSyntaxParser.CN, 0); }
+		public SizeContext(ParserRuleContext parent, int invokingState) {
+			super(parent, invokingState);
+		}
+		@Override public int getRuleIndex() { return RULE_size; }
+		@Override
+		public void enterRule(ParseTreeListener listener) {
+			if ( listener instanceof BitSyntaxListener ) ((BitSyntaxListener)listener).enterSize(this);
+		}
+		@Override
+		public void exitRule(ParseTreeListener listener) {
+			if ( listener instanceof BitSyntaxListener ) ((BitSyntaxListener)listener).exitSize(this);
+		}
+	}
+
+	public final SizeContext size() throws RecognitionException {
+		SizeContext _localctx = new SizeContext(_ctx, getState());
+		enterRule(_localctx, 6, RULE_size);
+		try {
+			setState(42);
+			switch ( getInterpreter().adaptivePredict(_input,5,_ctx) ) {
+			case 1:
+				enterOuterAlt(_localctx, 1);
+				{
+				setState(38); match(CN);
+				setState(39); match(NM);
+				}
+				break;
+
+			case 2:
+				enterOuterAlt(_localctx, 2);
+				{
+				setState(40); match(CN);
+				setState(41); match(ID);
+				}
+				break;
+			}
+		}
+		catch (RecognitionException re) {
+			_localctx.exception = re;
+			_errHandler.reportError(this, re);
+			_errHandler.recover(this, re);
+		}
+		finally {
+			exitRule();
+		}
+		return _localctx;
+	}
+
+	public static class SpecifiersContext extends ParserRuleContext {
+		public List<SpecifierContext> specifier() {
+			return getRuleContexts(SpecifierContext.class);
+		}
+		public SpecifierContext specifier(int i) {
+			return getRuleContext(SpecifierContext.class,i);
+		}
+		public List<TerminalNode> DS() { return getTokens(BitSyntaxParser.DS); }
+		public TerminalNode FS() { return getToken(BitSyntaxParser.FS, 0); }
+		public TerminalNode DS(int i) {
+			return getToken(BitSyntaxParser.DS, i);
+		}
+		public SpecifiersContext(ParserRuleContext parent, int invokingState) {
+			super(parent, invokingState);
+		}
+		@Override public int getRuleIndex() { return RULE_specifiers; }
+		@Override
+		public void enterRule(ParseTreeListener listener) {
+			if ( listener instanceof BitSyntaxListener ) ((BitSyntaxListener)listener).enterSpecifiers(this);
+		}
+		@Override
+		public void exitRule(ParseTreeListener listener) {
+			if ( listener instanceof BitSyntaxListener ) ((BitSyntaxListener)listener).exitSpecifiers(this);
+		}
+	}
+
+	public final SpecifiersContext specifiers() throws RecognitionException {
+		SpecifiersContext _localctx = new SpecifiersContext(_ctx, getState());
+		enterRule(_localctx, 8, RULE_specifiers);
+		int _la;
+		try {
+			enterOuterAlt(_localctx, 1);
+			{
+			setState(44); match(FS);
+			setState(45); specifier();
+			setState(50);
+			_errHandler.sync(this);
+			_la = _input.LA(1);
+			while (_la==DS) {
+				{
+				{
+				setState(46); match(DS);
+				setState(47); specifier();
+				}
+				}
+				setState(52);
+				_errHandler.sync(this);
+				_la = _input.LA(1);
+			}
+			}
+		}
+		catch (RecognitionException re) {
+			_localctx.exception = re;
+			_errHandler.reportError(this, re);
+			_errHandler.recover(this, re);
+		}
+		finally {
+			exitRule();
+		}
+		return _localctx;
+	}
+
+	public static class SpecifierContext extends ParserRuleContext {
+		public UnitContext unit() {
+			return getRuleContext(UnitContext.class,0);
+		}
+		public TerminalNode BE() { return getToken(BitSyntaxParser.BE, 0); }
+		public TerminalNode DB() { return getToken(BitSyntaxParser.DB, 0); }
+		public TerminalNode ST() { return getToken(BitSyntaxParser.ST, 0); }
+		public TerminalNode UT() { return getToken(BitSyntaxParser.UT, 0); }
+		public TerminalNode BT() { return getToken(BitSyntaxParser.BT, 0); }
+		public TerminalNode FT() { return getToken(BitSyntaxParser.FT, 0); }
+		public TerminalNode LE() { return getToken(BitSyntaxParser.LE, 0); }
+		public TerminalNode IT() { return getToken(BitSyntaxParser.IT, 0); }
+		public SpecifierContext(ParserRuleContext parent, int invokingState) {
+			super(parent, invokingState);
+		}
+		@Override public int getRuleIndex() { return RULE_specifier; }
+		@Override
+		public void enterRule(ParseTreeListener listener) {
+			if ( listener instanceof BitSyntaxListener ) ((BitSyntaxListener)listener).enterSpecifier(this);
+		}
+		@Override
+		public void exitRule(ParseTreeListener listener) {
+			if ( listener instanceof BitSyntaxListener ) ((BitSyntaxListener)listener).exitSpecifier(this);
+		}
+	}
+
+	public final SpecifierContext specifier() throws RecognitionException {
+		SpecifierContext _localctx = new SpecifierContext(_ctx, getState());
+		enterRule(_localctx, 10, RULE_specifier);
+		int _la;
+		try {
+			setState(55);
+			switch (_input.LA(1)) {
+			case LE:
+			case BE:
+			case ST:
+			case UT:
+			case IT:
+			case BT:
+			case FT:
+			case DB:
+				enterOuterAlt(_localctx, 1);
+				{
+				setState(53);
+				_la = _input.LA(1);
+				if ( !((((_la) & ~0x3f) == 0 && ((1L << _la) & ((1L << LE) | (1L << BE) | (1L << ST) | (1L << UT) | (1L << IT) | (1L << BT) | (1L << FT) | (1L << DB))) != 0)) ) {
+				_errHandler.recoverInline(this);
+				}
+				consume();
+				}
+				break;
+			case 1:
+				enterOuterAlt(_localctx, 2);
+				{
+				setState(54); unit();
+				}
+				break;
+			default:
+				throw new NoViableAltException(this);
+			}
+		}
+		catch (RecognitionException re) {
+			_localctx.exception = re;
+			_errHandler.reportError(this, re);
+			_errHandler.recover(this, re);
+		}
+		finally {
+			exitRule();
+		}
+		return _localctx;
+	}
+
+	public static class UnitContext extends ParserRuleContext {
+		public TerminalNode NM() { return getToken(BitSyntaxParser.NM, 0); }
+		public TerminalNode CN() { return getToken(BitSyntaxParser.CN, 0); }
+		public UnitContext(ParserRuleContext parent, int invokingState) {
+			super(parent, invokingState);
+		}
+		@Override public int getRuleIndex() { return RULE_unit; }
+		@Override
+		public void enterRule(ParseTreeListener listener) {
+			if ( listener instanceof BitSyntaxListener ) ((BitSyntaxListener)listener).enterUnit(this);
+		}
+		@Override
+		public void exitRule(ParseTreeListener listener) {
+			if ( listener instanceof BitSyntaxListener ) ((BitSyntaxListener)listener).exitUnit(this);
+		}
+	}
+
+	public final UnitContext unit() throws RecognitionException {
+		UnitContext _localctx = new UnitContext(_ctx, getState());
+		enterRule(_localctx, 12, RULE_unit);
+		try {
+			enterOuterAlt(_localctx, 1);
+			{
+			setState(57); match(1);
+			setState(58); match(CN);
+			setState(59); match(NM);
+			}
+		}
+		catch (RecognitionException re) {
+			_localctx.exception = re;
+			_errHandler.reportError(this, re);
+			_errHandler.recover(this, re);
+		}
+		finally {
+			exitRule();
+		}
+		return _localctx;
+	}
+
+	public static final String _serializedATN =
+		"\3\u0430\ud6d1\u8206\uad2d\u4417\uaef1\u8d80\uaadd\3\36@\4\2\t\2\4\3\t"+
+		"\3\4\4\t\4\4\5\t\5\4\6\t\6\4\7\t\7\4\b\t\b\3\2\3\2\5\2\23\n\2\3\2\3\2"+
+		"\3\3\3\3\3\3\7\3\32\n\3\f\3\16\3\35\13\3\3\4\3\4\3\4\5\4\"\n\4\3\4\5\4"+
+		"%\n\4\5\4\'\n\4\3\5\3\5\3\5\3\5\5\5-\n\5\3\6\3\6\3\6\3\6\7\6\63\n\6\f"+
+		"\6\16\6\66\13\6\3\7\3\7\5\7:\n\7\3\b\3\b\3\b\3\b\3\b\2\2\t\2\4\6\b\n\f"+
+		"\16\2\4\3\2\r\16\3\2\4\13@\2\20\3\2\2\2\4\26\3\2\2\2\6&\3\2\2\2\b,\3\2"+
+		"\2\2\n.\3\2\2\2\f9\3\2\2\2\16;\3\2\2\2\20\22\7\17\2\2\21\23\5\4\3\2\22"+
+		"\21\3\2\2\2\22\23\3\2\2\2\23\24\3\2\2\2\24\25\7\20\2\2\25\3\3\2\2\2\26"+
+		"\33\5\6\4\2\27\30\7\23\2\2\30\32\5\6\4\2\31\27\3\2\2\2\32\35\3\2\2\2\33"+
+		"\31\3\2\2\2\33\34\3\2\2\2\34\5\3\2\2\2\35\33\3\2\2\2\36\'\7\f\2\2\37!"+
+		"\t\2\2\2 \"\5\b\5\2! \3\2\2\2!\"\3\2\2\2\"$\3\2\2\2#%\5\n\6\2$#\3\2\2"+
+		"\2$%\3\2\2\2%\'\3\2\2\2&\36\3\2\2\2&\37\3\2\2\2\'\7\3\2\2\2()\7\24\2\2"+
+		")-\7\r\2\2*+\7\24\2\2+-\7\16\2\2,(\3\2\2\2,*\3\2\2\2-\t\3\2\2\2./\7\22"+
+		"\2\2/\64\5\f\7\2\60\61\7\21\2\2\61\63\5\f\7\2\62\60\3\2\2\2\63\66\3\2"+
+		"\2\2\64\62\3\2\2\2\64\65\3\2\2\2\65\13\3\2\2\2\66\64\3\2\2\2\67:\t\3\2"+
+		"\28:\5\16\b\29\67\3\2\2\298\3\2\2\2:\r\3\2\2\2;<\7\3\2\2<=\7\24\2\2=>"+
+		"\7\r\2\2>\17\3\2\2\2\n\22\33!$&,\649";
+	public static final ATN _ATN =
+		new ATNDeserializer().deserialize(_serializedATN.toCharArray());
+	static {
+		_decisionToDFA = new DFA[_ATN.getNumberOfDecisions()];
+		for (int i = 0; i < _ATN.getNumberOfDecisions(); i++) {
+			_decisionToDFA[i] = new DFA(_ATN.getDecisionState(i), i);
+		}
+	}
+}
\ No newline at end of file
@@ -0,0 +1,79 @@
+// Copyright (c) 2013 Darach Ennis < darach at gmail dot com >.
+//
+// Permission is hereby granted, free of charge, to any person obtaining a
+// copy of this software and associated documentation files (the
+// "Software"), to deal in the Software without restriction, including
+// without limitation the rights to use, copy, modify, merge, publish,
+// distribute, sublicense, and/or sell copies of the Software, and to permit
+// persons to whom the Software is furnished to do so, subject to the
+// following conditions:  
+//
+// The above copyright notice and this permission notice shall be included
+// in all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS
+// OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+// MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN
+// NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+// DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+// OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE
+// USE OR OTHER DEALINGS IN THE SOFTWARE.
+
+
+package io.darach.bitsyntax;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+public abstract class AbstractBitBinder<T> implements BitBinder<T> {
+	private static final Map<String,Integer> EMPTY_MAP = Collections.unmodifiableMap(new HashMap<String, Integer>());
+	protected Class<T> target;
+	protected BitPattern pattern;
+
+	public AbstractBitBinder() { }
+
+	/**
+	 * Decodes a binary into a new instance of the target
+	 * 
+	 * @return	The instance, or null if the binary does not match
+	 */
+	public abstract Object decoded(byte[] binary, Map<String,Integer> sizes);
+
+	/* (non-Javadoc)
+	 * @see BitBinder#decode(byte[])
+	 */
+	@Override
+	public T decode(byte[] binary) {
+		return decode(binary, EMPTY_MAP);
+	}
+
+	/* (non-Javadoc)
+	 * @see BitBinder#decode(byte[], java.util.Map)
+	 */
+	@Override
+	@SuppressWarnings("unchecked")
+	public T decode(byte[] binary, Map<String, Integer> sizes) {
+		final Object decoded = decoded(binary, sizes);
+		if (decoded == null) {
+			throw new BitSyntaxException("Actual vs expected size mismatch");
+		}
+		return (T) decoded;
+	}
+
+	/* (non-Javadoc)
+	 * @see BitBinder#target()
+	 */
+	@Override
+	public Class<T> target() {
+		return target;
+	}
+
+	/* (non-Javadoc)
+	 * @see BitBinder#pattern()
+	 */
+	@Override
+	public BitPattern pattern() {
+		return pattern;
+	}
+}
@@ -0,0 +1,77 @@
+// Copyright (c) 2013 Darach Ennis < darach at gmail dot com >.
+//
+// Permission is hereby granted, free of charge, to any person obtaining a
+// copy of this software and associated documentation files (the
+// "Software"), to deal in the Software without restriction, including
+// without limitation the rights to use, copy, modify, merge, publish,
+// distribute, sublicense, and/or sell copies of the Software, and to permit
+// persons to whom the Software is furnished to do so, subject to the
+// following conditions:  
+//
+// The above copyright notice and this permission notice shall be included
+// in all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS
+// OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+// MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN
+// NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+// DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+// OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE
+// USE OR OTHER DEALINGS IN THE SOFTWARE.
+
+
+package io.darach.bitsyntax;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+public abstract class AbstractBitClauses implements BitClauses {
+	private static final Map<String,Integer> EMPTY_MAP = Collections.unmodifiableMap(new HashMap<String, Integer>());
+	protected AbstractBitPattern[] clauses;
+
+	public AbstractBitClauses() { }
+
+	public abstract int dispatch(byte[] binary, Map<String,Integer> sizes, Map<String,byte[]> results);
+
+	/* (non-Javadoc)
+	 * @see BitClauses#match(byte[])
+	 */
+	@Override
+	public int match(byte[] binary) {
+		return dispatch(binary, EMPTY_MAP, null);
+	}
+
+	/* (non-Javadoc)
+	 * @see BitClauses#extract(byte[], java.util.Map)
+	 */
+	@Override
+	public int extract(byte[] binary, Map<String, byte[]> results) {
+		return dispatch(binary, EMPTY_MAP, results);
+	}
+
+	/* (non-Javadoc)
+	 * @see BitClauses#extract(byte[], java.util.Map, java.util.Map)
+	 */
+	@Override
+	public int extract(byte[] binary, Map<String, Integer> sizes,
+			Map<String, byte[]> results) {
+		return dispatch(binary, sizes, results);
+	}
+
+	/* (non-Javadoc)
+	 * @see BitClauses#clause(int)
+	 */
+	@Override
+	public BitPattern clause(int index) {
+		return clauses[index];
+	}
+
+	/* (non-Javadoc)
+	 * @see BitClauses#size()
+	 */
+	@Override
+	public int size() {
+		return clauses.length;
+	}
+}
@@ -22,17 +22,87 @@
 
 package io.darach.bitsyntax;
 
+import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
 
+import io.darach.bitsyntax.BitSyntax.SegmentType;
+
 public abstract class AbstractBitPattern implements BitPattern {
+	/**
+	 * The status <code>framed</code> returns if the binary ends before the frame does
+	 */
+	public static final int SHORTFALL = Integer.MIN_VALUE;
+
 	private static final Map<String,Integer> EMPTY_MAP = Collections.unmodifiableMap(new HashMap<String, Integer>());
-	protected Map<String,Integer> scope;
+	Class<? extends BitFlyweight> flyweightClass;
+
+	// The slot of each label, the last slot of a label used more than once as extract keeps the last
+	Map<String,Integer> labels = EMPTY_MAP;
+
+	// The type of the column each slot is decoded into by slot, Integer or Double, or null if not decoded
+	SegmentType[] columns;
+
+	// An empty result, of the generated result class, that extract creates results from
+	BitResult result;
+
+	// As compiled, to specialize the pattern when sizes are bound
+	String packageName;
+	String className;
+	String source;
+	Map<String,Integer> binding;
 
 	public AbstractBitPattern() { }
 	
-	public abstract Map<String, byte[]> generated(byte[] binary, Map<String,Integer> sizes);
+	public abstract int generated(byte[] binary, Map<String,Integer> sizes, Map<String,byte[]> results);
+
+	public abstract int generated(ByteBuffer binary, int bitOffset, Map<String,Integer> sizes, Map<String,byte[]> results);
+
+	public abstract int extracted(byte[] binary, Map<String,Integer> sizes, BitResult results);
+
+	public abstract int extracted(ByteBuffer binary, int bitOffset, Map<String,Integer> sizes, BitResult results);
+
+	public abstract int located(byte[] binary, Map<String,Integer> sizes, int[] marks);
+
+	public abstract int extractedInto(byte[] binary, Map<String,Integer> sizes, BitSegmentSink sink);
+
+	public abstract int decoded(byte[] binary, long[] integers, double[] reals);
+
+	public abstract int decoded(long address, long length, long[] integers, double[] reals);
+
+	public abstract int decodedBatch(byte[] binary, int offset, int index, int count, int stride, long[][] integers, double[][] reals);
+
+	public abstract int encoded(byte[] binary, int offset, long[] integers, double[] reals, byte[][] binaries);
+
+	public abstract int framed(byte[] binary, int offset, int length);
+
+	public abstract int framed(ByteBuffer binary, int offset, int length);
+
+	/**
+	 * The least number of bytes a binary must hold to match, the size of the
+	 * leading segments of constant size
+	 */
+	public abstract int minimum();
+
+	/**
+	 * The size in bits of a binary matching the pattern if all segments are of
+	 * constant size, otherwise -1
+	 */
+	public abstract int size();
+
+	/**
+	 * Can the pattern match frames, the size of a frame must be known from its segments
+	 * so a pattern with a segment without a size cannot
+	 */
+	public abstract boolean frameable();
+
+	/**
+	 * The number of labeled segments
+	 */
+	public abstract int slots();
 
 	/* (non-Javadoc)
 	 * @see BitPattern#specification()
@@ -44,28 +114,247 @@ public abstract class AbstractBitPattern implements BitPattern {
 	 * @see BitPattern#extract(byte[], java.util.Map)
 	 */
 	@Override
-	public Map<String, byte[]> extract(byte[] binary,
+	public BitResult extract(byte[] binary,
 			Map<String, Integer> sizes) throws BitSyntaxException {
-		return generated(binary, sizes);
+		final BitResult results = result.create();
+		if (extracted(binary, sizes, results) < 0) {
+			throw new BitSyntaxException("Actual vs expected size mismatch");
+		}
+		return results;
 	}
 
 	/* (non-Javadoc)
 	 * @see BitPattern#extract(byte[])
 	 */
 	@Override
-	public Map<String, byte[]> extract(byte[] binary)
+	public BitResult extract(byte[] binary)
 			throws BitSyntaxException {
 		return extract(binary, EMPTY_MAP);
 	}
 
+	/* (non-Javadoc)
+	 * @see BitPattern#tryExtract(byte[], java.util.Map, java.util.Map)
+	 */
+	@Override
+	public int tryExtract(byte[] binary, Map<String, Integer> sizes,
+			Map<String, byte[]> results) {
+		return generated(binary, sizes, results);
+	}
+
+	/* (non-Javadoc)
+	 * @see BitPattern#tryExtract(byte[], java.util.Map)
+	 */
+	@Override
+	public int tryExtract(byte[] binary, Map<String, byte[]> results) {
+		return generated(binary, EMPTY_MAP, results);
+	}
+
+	/* (non-Javadoc)
+	 * @see BitPattern#extract(java.nio.ByteBuffer, int, java.util.Map)
+	 */
+	@Override
+	public BitResult extract(ByteBuffer buffer, int bitOffset,
+			Map<String, Integer> sizes) throws BitSyntaxException {
+		origin(buffer, bitOffset);
+		final BitResult results = result.create();
+		if (extracted(buffer, bitOffset, sizes, results) < 0) {
+			throw new BitSyntaxException("Actual vs expected size mismatch");
+		}
+		return results;
+	}
+
+	/* (non-Javadoc)
+	 * @see BitPattern#extract(java.nio.ByteBuffer, int)
+	 */
+	@Override
+	public BitResult extract(ByteBuffer buffer, int bitOffset)
+			throws BitSyntaxException {
+		return extract(buffer, bitOffset, EMPTY_MAP);
+	}
+
+	/* (non-Javadoc)
+	 * @see BitPattern#tryExtract(java.nio.ByteBuffer, int, java.util.Map, java.util.Map)
+	 */
+	@Override
+	public int tryExtract(ByteBuffer buffer, int bitOffset,
+			Map<String, Integer> sizes, Map<String, byte[]> results) {
+		origin(buffer, bitOffset);
+		return generated(buffer, bitOffset, sizes, results);
+	}
+
+	// The binary of a buffer is matched at int offsets in bits from the start of the
+	// buffer, so must start at its position or after within the first 256MB
+	private static void origin(final ByteBuffer buffer, final int bitOffset) {
+		final long origin = ((long) buffer.position() << 3) + bitOffset;
+		if (bitOffset < 0 || origin > Integer.MAX_VALUE) {
+			throw new BitSyntaxException("Binary at bit " + origin + " of the buffer is before its position or beyond 256MB");
+		}
+	}
+
+	/* (non-Javadoc)
+	 * @see BitPattern#extractInto(byte[], java.util.Map, BitSegmentSink)
+	 */
+	@Override
+	public int extractInto(byte[] binary, Map<String, Integer> sizes,
+			BitSegmentSink sink) throws BitSyntaxException {
+		final int status = extractedInto(binary, sizes, sink);
+		if (status < 0) {
+			throw new BitSyntaxException("Actual vs expected size mismatch");
+		}
+		return status;
+	}
+
+	/* (non-Javadoc)
+	 * @see BitPattern#extractInto(byte[], BitSegmentSink)
+	 */
+	@Override
+	public int extractInto(byte[] binary, BitSegmentSink sink)
+			throws BitSyntaxException {
+		return extractInto(binary, EMPTY_MAP, sink);
+	}
+
+	/* (non-Javadoc)
+	 * @see BitPattern#extractLazy(byte[], java.util.Map, boolean)
+	 */
+	@Override
+	public Map<String, byte[]> extractLazy(byte[] binary,
+			Map<String, Integer> sizes, boolean memoize) throws BitSyntaxException {
+		final int[] marks = new int[slots() << 1];
+		if (located(binary, sizes, marks) < 0) {
+			throw new BitSyntaxException("Actual vs expected size mismatch");
+		}
+		return new BitLazyMap(binary, marks, labels, memoize);
+	}
+
+	/* (non-Javadoc)
+	 * @see BitPattern#extractLazy(byte[])
+	 */
+	@Override
+	public Map<String, byte[]> extractLazy(byte[] binary)
+			throws BitSyntaxException {
+		return extractLazy(binary, EMPTY_MAP, false);
+	}
+
+	/* (non-Javadoc)
+	 * @see BitPattern#matches(byte[])
+	 */
+	@Override
+	public boolean matches(byte[] binary) {
+		return generated(binary, EMPTY_MAP, null) >= 0;
+	}
+
+	/* (non-Javadoc)
+	 * @see BitPattern#decode(byte[], long[], double[])
+	 */
+	@Override
+	public int decode(byte[] binary, long[] integers, double[] reals)
+			throws BitSyntaxException {
+		final int status = decoded(binary, integers, reals);
+		if (status < 0) {
+			throw new BitSyntaxException("Actual vs expected size mismatch");
+		}
+		return status;
+	}
+
+	/* (non-Javadoc)
+	 * @see BitPattern#decode(BitRegion, long, long, long[], double[])
+	 */
+	@Override
+	public int decode(BitRegion region, long offset, long length,
+			long[] integers, double[] reals) throws BitSyntaxException {
+		region.bounds(offset, length);
+		final int status = decoded(region.address() + offset, length, integers, reals);
+		if (status < 0) {
+			throw new BitSyntaxException("Actual vs expected size mismatch");
+		}
+		return status;
+	}
+
+	/* (non-Javadoc)
+	 * @see BitPattern#decodeBatch(byte[], int, int, BitColumns)
+	 */
+	@Override
+	public int decodeBatch(byte[] binary, int recordCount, int strideBits,
+			BitColumns out) throws BitSyntaxException {
+		if (out.pattern() != this) {
+			throw new BitSyntaxException("Columns are of another pattern");
+		}
+		if (recordCount < 0 || recordCount > out.capacity()) {
+			throw new BitSyntaxException("Record count " + recordCount + " outside of column capacity " + out.capacity());
+		}
+		if (strideBits <= 0) {
+			throw new BitSyntaxException("Invalid stride " + strideBits);
+		}
+		final long bits = (long) recordCount * strideBits;
+		if (bits > (long) binary.length << 3 || bits > Integer.MAX_VALUE) {
+			throw new BitSyntaxException(recordCount + " records of " + strideBits + " bits exceed the binary or 256MB");
+		}
+		final int status = decodedBatch(binary, 0, 0, recordCount, strideBits, out.integers, out.reals);
+		if (status < 0) {
+			throw new BitSyntaxException("Record " + ~status + " does not match");
+		}
+		return status;
+	}
+
+	/* (non-Javadoc)
+	 * @see BitPattern#encode(byte[], int, long[], double[], byte[][])
+	 */
+	@Override
+	public int encode(byte[] binary, int offset, long[] integers,
+			double[] reals, byte[][] binaries) throws BitSyntaxException {
+		if (offset < 0 || offset > binary.length) {
+			throw new BitSyntaxException("Offset " + offset + " outside of binary of " + binary.length + " bytes");
+		}
+		final int status = encoded(binary, offset, integers, reals, binaries);
+		if (status < 0) {
+			throw new BitSyntaxException("Binary too small to encode segment " + ~status);
+		}
+		return status;
+	}
+
 	/* (non-Javadoc)
 	 * @see BitPattern#bind(java.util.Map)
 	 */
 	@Override
 	public BitPattern bind(Map<String, Integer> sizes)
 			throws BitSyntaxException {
-		return null;
+		if (sizes == null || sizes.isEmpty()) return this;
+
+		final Map<String,Integer> bound = (binding != null) ? new HashMap<String,Integer>(binding) : new HashMap<String,Integer>();
+		for (Map.Entry<String,Integer> size : sizes.entrySet()) {
+			if (size.getValue() == null || size.getValue() < 0) {
+				throw new BitSyntaxException("Invalid size " + size.getValue() + " for variable segment size " + size.getKey());
+			}
+			bound.put(size.getKey(), size.getValue());
+		}
+		try {
+			return BitSyntax.cache().compile(packageName, className, source, Collections.unmodifiableMap(bound));
+		} catch (IOException e) {
+			throw new BitSyntaxException(e);
+		}
 	}
 	
+	/* (non-Javadoc)
+	 * @see BitPattern#flyweight()
+	 */
+	@Override
+	public BitFlyweight flyweight() {
+		try {
+			return flyweightClass.newInstance();
+		} catch (Exception e) {
+			throw new BitSyntaxException(e);
+		}
+	}
+
+	// Index labels by slot
+	static Map<String,Integer> index(final String[] labels) {
+		final Map<String,Integer> index = new LinkedHashMap<String,Integer>();
+		for (int slot = 0; slot < labels.length; slot++) {
+			index.remove(labels[slot]);
+			index.put(labels[slot], slot);
+		}
+		return Collections.unmodifiableMap(index);
+	}
+
 	public abstract void debug() throws Exception;
 }
\ No newline at end of file
@@ -0,0 +1,42 @@
+// Copyright (c) 2013 Darach Ennis < darach at gmail dot com >.
+//
+// Permission is hereby granted, free of charge, to any person obtaining a
+// copy of this software and associated documentation files (the
+// "Software"), to deal in the Software without restriction, including
+// without limitation the rights to use, copy, modify, merge, publish,
+// distribute, sublicense, and/or sell copies of the Software, and to permit
+// persons to whom the Software is furnished to do so, subject to the
+// following conditions:  
+//
+// The above copyright notice and this permission notice shall be included
+// in all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS
+// OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+// MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN
+// NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+// DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+// OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE
+// USE OR OTHER DEALINGS IN THE SOFTWARE.
+
+package io.darach.bitsyntax;
+
+/**
+ * A BitBatchHandler receives the batches of records a <code>BitParallelDecoder</code>
+ * decodes into columns, a chunk of consecutive records at a time.
+ */
+public interface BitBatchHandler {
+	/**
+	 * A chunk of consecutive records has been decoded into the columns of the handler,
+	 * the records in rows from 0. The columns are reused for the next chunk, so are only
+	 * valid for the duration of the call.
+	 * 
+	 * Chunks are passed to the handler of the thread decoding them, not in record order.
+	 * The index of the first record of the chunk orders the chunks of all handlers.
+	 * 
+	 * @param columns	The columns the records are decoded into
+	 * @param count		The number of records decoded
+	 * @param first		The index of the first record of the chunk in the binary or file
+	 */
+	public void batch(final BitColumns columns, final int count, final long first);
+}
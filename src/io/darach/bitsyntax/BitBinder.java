@@ -0,0 +1,75 @@
+// Copyright (c) 2013 Darach Ennis < darach at gmail dot com >.
+//
+// Permission is hereby granted, free of charge, to any person obtaining a
+// copy of this software and associated documentation files (the
+// "Software"), to deal in the Software without restriction, including
+// without limitation the rights to use, copy, modify, merge, publish,
+// distribute, sublicense, and/or sell copies of the Software, and to permit
+// persons to whom the Software is furnished to do so, subject to the
+// following conditions:  
+//
+// The above copyright notice and this permission notice shall be included
+// in all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS
+// OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+// MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN
+// NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+// DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+// OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE
+// USE OR OTHER DEALINGS IN THE SOFTWARE.
+
+
+package io.darach.bitsyntax;
+
+import java.util.Map;
+
+/**
+ * The BitBinder decodes a binary directly into an instance of a user class, the
+ * target, binding each labeled segment of a compiled bit pattern to the member of
+ * the target of the same name. BitBinders are generated via
+ * <code>BitSyntax.compile(source, target)</code>.
+ * 
+ * A target is either a public class with a public no-argument constructor, segments
+ * being bound to public setters named after their labels or else to public fields,
+ * or a public record, segments being bound to the record components and passed to
+ * its canonical constructor. Integer segments of constant size are bound to any
+ * primitive numeric member that holds every value of the segment, so an unsigned
+ * segment needs a signed primitive wider than itself or a char, and a signed segment
+ * is never bound to a char. Float segments are bound to a float of 32 bits or a
+ * double. Values honour the endianness and signedness of each segment.
+ * Any segment may be bound to a <code>byte[]</code> member. Members are resolved
+ * and validated when the binder is compiled, not when a binary is decoded.
+ *
+ * @param <T>	The target class
+ */
+public interface BitBinder<T> {
+	/**
+	 * The <code>decode</code> matches a binary and binds its labeled segments onto a
+	 * new instance of the target.
+	 * 
+	 * @param binary	The binary to be decoded
+	 * @return			A new instance of the target
+	 * @throws BitSyntaxException if the binary does not match
+	 */
+	public T decode(final byte[] binary);
+
+	/**
+	 * @param binary	The binary to be decoded
+	 * @param sizes		A possibly null or empty map of variable segment size names and their respective sizes
+	 * @return			A new instance of the target
+	 * @throws BitSyntaxException if the binary does not match
+	 * @see #decode(byte[])
+	 */
+	public T decode(final byte[] binary, final Map<String,Integer> sizes);
+
+	/**
+	 * @return			The target class
+	 */
+	public Class<T> target();
+
+	/**
+	 * @return			The compiled bit pattern the binder decodes with
+	 */
+	public BitPattern pattern();
+}
@@ -0,0 +1,78 @@
+// Copyright (c) 2013 Darach Ennis < darach at gmail dot com >.
+//
+// Permission is hereby granted, free of charge, to any person obtaining a
+// copy of this software and associated documentation files (the
+// "Software"), to deal in the Software without restriction, including
+// without limitation the rights to use, copy, modify, merge, publish,
+// distribute, sublicense, and/or sell copies of the Software, and to permit
+// persons to whom the Software is furnished to do so, subject to the
+// following conditions:  
+//
+// The above copyright notice and this permission notice shall be included
+// in all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS
+// OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+// MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN
+// NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+// DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+// OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE
+// USE OR OTHER DEALINGS IN THE SOFTWARE.
+
+
+package io.darach.bitsyntax;
+
+import java.util.Map;
+
+/**
+ * The BitClauses matches a binary against an ordered list of compiled bit patterns,
+ * the clauses, as with an Erlang/OTP <code>case</code> expression. BitClauses are
+ * generated via <code>BitSyntax.compileClauses</code>.
+ * 
+ * Clauses are matched as a decision tree branching on the values of literal segments
+ * at offsets known when the clauses are compiled, so literal segments shared by many
+ * clauses are read once and only the clauses consistent with the values read are
+ * matched in full. The first clause in order that matches is the clause matched.
+ */
+public interface BitClauses {
+	/**
+	 * The <code>match</code> finds the first clause that matches a binary without
+	 * extracting any segments.
+	 * 
+	 * @param binary	The binary to be matched
+	 * @return			The zero based index of the first matching clause, or -1 if none match
+	 */
+	public int match(final byte[] binary);
+
+	/**
+	 * The <code>extract</code> finds the first clause that matches a binary and extracts
+	 * the labeled segments of that clause.
+	 * 
+	 * @param binary	The binary to be matched and extracted
+	 * @param results	The map the extracted values of labeled segments of the matching clause
+	 * 					are put into. Cleared of the segments of any clause that fails to match
+	 * @return			The zero based index of the first matching clause, or -1 if none match
+	 */
+	public int extract(final byte[] binary, final Map<String,byte[]> results);
+
+	/**
+	 * @param binary	The binary to be matched and extracted
+	 * @param sizes		A possibly null or empty map of variable segment size names and their respective sizes
+	 * @param results	The map the extracted values of labeled segments of the matching clause
+	 * 					are put into. Cleared of the segments of any clause that fails to match
+	 * @return			The zero based index of the first matching clause, or -1 if none match
+	 * @see #extract(byte[], Map)
+	 */
+	public int extract(final byte[] binary, final Map<String,Integer> sizes, final Map<String,byte[]> results);
+
+	/**
+	 * @param index		The zero based index of a clause
+	 * @return			The compiled bit pattern of the clause
+	 */
+	public BitPattern clause(final int index);
+
+	/**
+	 * @return			The number of clauses
+	 */
+	public int size();
+}
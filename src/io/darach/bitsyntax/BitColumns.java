@@ -0,0 +1,105 @@
+// Copyright (c) 2013 Darach Ennis < darach at gmail dot com >.
+//
+// Permission is hereby granted, free of charge, to any person obtaining a
+// copy of this software and associated documentation files (the
+// "Software"), to deal in the Software without restriction, including
+// without limitation the rights to use, copy, modify, merge, publish,
+// distribute, sublicense, and/or sell copies of the Software, and to permit
+// persons to whom the Software is furnished to do so, subject to the
+// following conditions:  
+//
+// The above copyright notice and this permission notice shall be included
+// in all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS
+// OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+// MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN
+// NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+// DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+// OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE
+// USE OR OTHER DEALINGS IN THE SOFTWARE.
+
+package io.darach.bitsyntax;
+
+import io.darach.bitsyntax.BitSyntax.SegmentType;
+
+/**
+ * BitColumns are the reusable columns, a struct of arrays, that
+ * <code>BitPattern.decodeBatch</code> decodes records into. Each column holds the
+ * decoded values of one labeled segment, by record. Only the columns requested are
+ * allocated and decoded, so records are decoded no further than needed.
+ * 
+ * Columns are allocated once for a pattern and a capacity in records and reused
+ * for each batch. Columns are not thread safe.
+ */
+public class BitColumns {
+	private final AbstractBitPattern pattern;
+	private final int capacity;
+
+	// Columns by slot, null if not requested
+	final long[][] integers;
+	final double[][] reals;
+
+	/**
+	 * @param pattern	The bit pattern of the records
+	 * @param capacity	The number of records each column holds
+	 */
+	public BitColumns(final BitPattern pattern, final int capacity) {
+		if (capacity < 0) throw new BitSyntaxException("Invalid capacity " + capacity);
+		this.pattern = (AbstractBitPattern) pattern;
+		this.capacity = capacity;
+		this.integers = new long[this.pattern.slots()][];
+		this.reals = new double[this.pattern.slots()][];
+	}
+
+	/**
+	 * The column of a labeled integer segment, allocated on first request
+	 * 
+	 * @param label		The label of an integer segment of at most 64 bits
+	 * @return			The column the segment is decoded into
+	 * @throws BitSyntaxException	Thrown if no segment has this label or it is not decoded as an integer
+	 */
+	public long[] integer(final String label) throws BitSyntaxException {
+		final int slot = slot(label, SegmentType.Integer);
+		if (integers[slot] == null) integers[slot] = new long[capacity];
+		return integers[slot];
+	}
+
+	/**
+	 * The column of a labeled float or double segment, allocated on first request
+	 * 
+	 * @param label		The label of a float or double segment of 32 or 64 bits
+	 * @return			The column the segment is decoded into
+	 * @throws BitSyntaxException	Thrown if no segment has this label or it is not decoded as a real
+	 */
+	public double[] real(final String label) throws BitSyntaxException {
+		final int slot = slot(label, SegmentType.Double);
+		if (reals[slot] == null) reals[slot] = new double[capacity];
+		return reals[slot];
+	}
+
+	/**
+	 * The number of records each column holds
+	 */
+	public int capacity() {
+		return capacity;
+	}
+
+	BitPattern pattern() {
+		return pattern;
+	}
+
+	// A column is only ever written by decodeBatch if of the type its segment is decoded as.
+	// A label used more than once is the last segment with the label, as for extract
+	private int slot(final String label, final SegmentType type) {
+		final Integer slot = pattern.labels.get(label);
+		if (slot == null) throw new BitSyntaxException("No segment labeled " + label);
+		if (pattern.columns[slot] == null) {
+			throw new BitSyntaxException("Segment " + label + " is not decoded, only integers of at most 64 bits and reals of 32 or 64 bits are");
+		}
+		if (!type.equals(pattern.columns[slot])) {
+			throw new BitSyntaxException("Segment " + label + " is decoded as " + (SegmentType.Integer.equals(pattern.columns[slot]) ? "an integer" : "a real"));
+		}
+		return slot;
+	}
+}
@@ -0,0 +1,93 @@
+// Copyright (c) 2013 Darach Ennis < darach at gmail dot com >.
+//
+// Permission is hereby granted, free of charge, to any person obtaining a
+// copy of this software and associated documentation files (the
+// "Software"), to deal in the Software without restriction, including
+// without limitation the rights to use, copy, modify, merge, publish,
+// distribute, sublicense, and/or sell copies of the Software, and to permit
+// persons to whom the Software is furnished to do so, subject to the
+// following conditions:  
+//
+// The above copyright notice and this permission notice shall be included
+// in all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS
+// OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+// MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN
+// NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+// DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+// OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE
+// USE OR OTHER DEALINGS IN THE SOFTWARE.
+
+
+package io.darach.bitsyntax;
+
+/**
+ * A BitFlyweight is a reusable, allocation free view over a binary laid out
+ * according to a compiled bit pattern. A flyweight is obtained from
+ * <code>BitPattern.flyweight</code>, wrapped over a buffer and its segments
+ * read on demand directly from the wrapped buffer.
+ * 
+ * Each labeled segment is exposed as a typed accessor named after its label, eg:
+ * <code>getLen()</code> for a segment labeled <code>len</code>. Integer segments of
+ * up to 32 bits are read as <code>int</code>, up to 64 bits as <code>long</code>, but
+ * for unsigned segments of 32 bits, which are read as <code>long</code> so as not to
+ * be sign extended.
+ * Float and double segments of 32 and 64 bits are read as <code>float</code> and
+ * <code>double</code> respectively. All other labeled segments are read as a byte
+ * array exactly as <code>BitPattern.extract</code> would return them.
+ * 
+ * Segments can also be read by slot, the zero based position of the segment
+ * amongst the labeled segments of the pattern in declaration order.
+ * 
+ * Flyweights hold the wrapped buffer and are not thread safe. Allocate one per
+ * thread and rewrap it per binary.
+ */
+public interface BitFlyweight {
+	/**
+	 * Wrap a binary starting at a byte offset, up to the end of the binary
+	 * 
+	 * @param buffer	The binary to be wrapped
+	 * @param offset	The offset in bytes of the first byte of the wrapped binary
+	 * @return			This flyweight
+	 * @throws BitSyntaxException	Thrown if the binary is too short for the bit pattern
+	 */
+	public BitFlyweight wrap(final byte[] buffer, final int offset) throws BitSyntaxException;
+
+	/**
+	 * Wrap a binary starting at a byte offset for a given number of bytes
+	 * 
+	 * @param buffer	The binary to be wrapped
+	 * @param offset	The offset in bytes of the first byte of the wrapped binary
+	 * @param length	The length in bytes of the wrapped binary
+	 * @return			This flyweight
+	 * @throws BitSyntaxException	Thrown if the binary is too short for the bit pattern
+	 */
+	public BitFlyweight wrap(final byte[] buffer, final int offset, final int length) throws BitSyntaxException;
+
+	/**
+	 * The <code>slot</code> of a labeled segment
+	 * 
+	 * @param label		The label of a segment
+	 * @return			The slot of the labeled segment, or -1 if no segment has this label
+	 */
+	public int slot(final String label);
+
+	/**
+	 * Read an integer segment by slot
+	 * 
+	 * @param slot		The slot of an integer segment of at most 64 bits
+	 * @return			The value of the segment
+	 * @throws BitSyntaxException	Thrown if the slot is not an integer segment of at most 64 bits
+	 */
+	public long getLong(final int slot) throws BitSyntaxException;
+
+	/**
+	 * Read a numeric segment by slot
+	 * 
+	 * @param slot		The slot of a float or double segment of 32 or 64 bits, or an integer segment of at most 64 bits
+	 * @return			The value of the segment
+	 * @throws BitSyntaxException	Thrown if the slot is not a numeric segment readable as a primitive
+	 */
+	public double getDouble(final int slot) throws BitSyntaxException;
+}
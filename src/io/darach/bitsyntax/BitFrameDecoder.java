@@ -0,0 +1,167 @@
+// Copyright (c) 2013 Darach Ennis < darach at gmail dot com >.
+//
+// Permission is hereby granted, free of charge, to any person obtaining a
+// copy of this software and associated documentation files (the
+// "Software"), to deal in the Software without restriction, including
+// without limitation the rights to use, copy, modify, merge, publish,
+// distribute, sublicense, and/or sell copies of the Software, and to permit
+// persons to whom the Software is furnished to do so, subject to the
+// following conditions:  
+//
+// The above copyright notice and this permission notice shall be included
+// in all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS
+// OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+// MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN
+// NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+// DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+// OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE
+// USE OR OTHER DEALINGS IN THE SOFTWARE.
+
+package io.darach.bitsyntax;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+
+/**
+ * The BitFrameDecoder decodes a stream of frames, each matching a compiled bit
+ * pattern, as they arrive. Bytes are read into a buffer of fixed capacity and
+ * each complete frame is matched in place and passed to a handler without copying.
+ * A frame that is incomplete is left buffered until more bytes are read, no frame
+ * is matched until the buffer holds at least the minimum size of the pattern.
+ * 
+ * The size of a frame must be known from its segments, so every segment must have
+ * a size. Variable segment sizes must either refer to a preceding segment or be bound
+ * with <code>BitPattern.bind</code>. Frames start on a byte boundary, a frame of a
+ * size in bits that is not a multiple of 8 is padded to the next byte.
+ * 
+ * A frame no larger than the capacity of the buffer is always contiguous in the buffer.
+ * The bytes of a partial frame are moved to the start of the buffer once its end is
+ * reached, so only the partial frame is ever copied.
+ * 
+ * Decoders hold the buffered bytes of a stream and are not thread safe.
+ */
+public class BitFrameDecoder {
+	private final AbstractBitPattern pattern;
+	private final byte[] buffer;
+	private final ByteBuffer window;
+	private final int minimum;
+
+	// Bytes from the position up to the limit are buffered but not yet decoded
+	private int position = 0;
+	private int limit = 0;
+
+	/**
+	 * @param pattern	The bit pattern each frame matches
+	 * @param capacity	The capacity in bytes of the buffer, the largest frame that can be decoded
+	 * @throws BitSyntaxException	Thrown if the minimum size of the pattern exceeds the capacity, or if
+	 * 								the pattern has a segment without a size
+	 */
+	public BitFrameDecoder(final BitPattern pattern, final int capacity) throws BitSyntaxException {
+		this.pattern = (AbstractBitPattern) pattern;
+		if (!this.pattern.frameable()) {
+			throw new BitSyntaxException("Segments without a size cannot be framed");
+		}
+		this.minimum = Math.max(1, this.pattern.minimum());
+		if (capacity < minimum) {
+			throw new BitSyntaxException("Capacity of " + capacity + " bytes is less than the minimum frame size of " + minimum + " bytes");
+		}
+		this.buffer = new byte[capacity];
+		this.window = ByteBuffer.wrap(buffer);
+	}
+
+	/**
+	 * Reads once from a channel and decodes all complete frames
+	 * 
+	 * @param channel	The channel to read from
+	 * @param handler	The handler of each complete frame
+	 * @return			The number of frames decoded, or -1 if the channel has reached the end of stream
+	 * @throws IOException	Thrown if reading from the channel fails
+	 * @throws BitSyntaxException	Thrown if a frame does not match or is larger than the buffer
+	 */
+	public int read(final ReadableByteChannel channel, final BitFrameHandler handler) throws IOException, BitSyntaxException {
+		compact();
+		window.limit(buffer.length);
+		window.position(limit);
+		final int n = channel.read(window);
+		if (n < 0) return -1;
+		limit += n;
+		return decode(handler);
+	}
+
+	/**
+	 * Reads once from an input stream and decodes all complete frames
+	 * 
+	 * @param in		The input stream to read from
+	 * @param handler	The handler of each complete frame
+	 * @return			The number of frames decoded, or -1 if the stream has reached the end of stream
+	 * @throws IOException	Thrown if reading from the stream fails
+	 * @throws BitSyntaxException	Thrown if a frame does not match or is larger than the buffer
+	 */
+	public int read(final InputStream in, final BitFrameHandler handler) throws IOException, BitSyntaxException {
+		compact();
+		final int n = in.read(buffer, limit, buffer.length - limit);
+		if (n < 0) return -1;
+		limit += n;
+		return decode(handler);
+	}
+
+	/**
+	 * Decodes all complete frames buffered
+	 * 
+	 * @param handler	The handler of each complete frame
+	 * @return			The number of frames decoded
+	 * @throws BitSyntaxException	Thrown if a frame does not match or is larger than the buffer
+	 */
+	public int decode(final BitFrameHandler handler) throws BitSyntaxException {
+		int frames = 0;
+		while (limit - position >= minimum) {
+			final int status = pattern.framed(buffer, position, limit - position);
+			if (status == AbstractBitPattern.SHORTFALL) {
+				if (position == 0 && limit == buffer.length) {
+					throw new BitSyntaxException("Frame exceeds the capacity of " + buffer.length + " bytes");
+				}
+				break;
+			}
+			if (status < 0) {
+				throw new BitSyntaxException("Frame does not match at segment " + ~status);
+			}
+			final int length = (status + 7) >>> 3;
+			if (length == 0) {
+				throw new BitSyntaxException("Empty frames cannot be decoded");
+			}
+			handler.frame(buffer, position, length);
+			position += length;
+			frames++;
+		}
+		return frames;
+	}
+
+	/**
+	 * The number of bytes buffered but not yet decoded, the bytes of a partial frame
+	 */
+	public int remaining() {
+		return limit - position;
+	}
+
+	/**
+	 * The capacity in bytes of the buffer
+	 */
+	public int capacity() {
+		return buffer.length;
+	}
+
+	// Makes room to read into once the end of the buffer is reached
+	private void compact() {
+		if (position == limit) {
+			position = limit = 0;
+		} else if (limit == buffer.length && position > 0) {
+			System.arraycopy(buffer, position, buffer, 0, limit - position);
+			limit -= position;
+			position = 0;
+		}
+	}
+}
@@ -0,0 +1,39 @@
+// Copyright (c) 2013 Darach Ennis < darach at gmail dot com >.
+//
+// Permission is hereby granted, free of charge, to any person obtaining a
+// copy of this software and associated documentation files (the
+// "Software"), to deal in the Software without restriction, including
+// without limitation the rights to use, copy, modify, merge, publish,
+// distribute, sublicense, and/or sell copies of the Software, and to permit
+// persons to whom the Software is furnished to do so, subject to the
+// following conditions:  
+//
+// The above copyright notice and this permission notice shall be included
+// in all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS
+// OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+// MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN
+// NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+// DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+// OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE
+// USE OR OTHER DEALINGS IN THE SOFTWARE.
+
+package io.darach.bitsyntax;
+
+/**
+ * A BitFrameHandler receives the frames a <code>BitFrameDecoder</code> decodes
+ * as soon as each is complete.
+ */
+public interface BitFrameHandler {
+	/**
+	 * A complete frame has matched. The frame is not copied out of the buffer of the
+	 * decoder, so it is only valid for the duration of the call. A flyweight wrapped
+	 * over the frame reads its segments in place.
+	 * 
+	 * @param buffer	The buffer of the decoder holding the frame
+	 * @param offset	The offset in bytes of the frame in the buffer
+	 * @param length	The length in bytes of the frame
+	 */
+	public void frame(final byte[] buffer, final int offset, final int length);
+}
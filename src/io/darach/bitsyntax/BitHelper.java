@@ -22,8 +22,10 @@
 
 package io.darach.bitsyntax;
 
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.nio.charset.Charset;
-import java.util.Arrays;
+import java.util.Map;
 
 import javax.xml.bind.DatatypeConverter;
 
@@ -35,35 +37,466 @@ public class BitHelper {
 	/**
 	 * Given an array of bytes, a starting bit and a length in bits produce
 	 * a result array sized to the nearest byte to accomodate the number of
-	 * bits with the matching subset of bits in the host byte array.
+	 * bits with the matching subset of bits in the host byte array. At most
+	 * 64 bits are read as a single word, allocating only the result.
 	 * 
 	 * @param host		The buffer from which to isolate bits of interest
 	 * @param bitStart  The offset in bits that demarcates the 1st bit of interest
 	 * @param numBits   The number of bits of interest
 	 * @return			The bits of interest as a byte array
+	 * @throws ArrayIndexOutOfBoundsException if the bits of interest are not all within the host
 	 */
 	public static byte[] bitgrok(final byte[] host, final int bitStart, final int numBits) {
+		check(host.length, bitStart, numBits);
 		if (numBits == 0) return EMPTY_BYTE_ARRAY;
+		if (numBits < 8) return new byte[] { (byte) readBits(host, bitStart, numBits) };
+		if (numBits <= 64) return bytes(readBits(host, bitStart, numBits & ~7), numBits >> 3);
 
-		final int bitEnd = bitStart + numBits;
-		final int s = bitStart >> 3; 			// starting byte index
-		final int e = (bitEnd >> 3) + 1; 		// ending byte index
-		final int so = bitStart - (s << 3); 	// number of LR leading offset bits from starting byte to starting bit
-		final int eo = bitEnd - (e << 3);   	// number of RL trailing offset bits from ending byte to ending bit
 
-		byte[] r = Arrays.copyOfRange(host, s,  e);
+		// Trailing bits short of a whole byte are dropped
+		final byte[] r = new byte[numBits >> 3];
+		bitgrok(host, bitStart, numBits, r, 0);
+		return r;
+	}
 
-		// iff byte boundary, we're done here
-		if (so == 0 && eo == 0) return r;
-		
-		if (so > 0) r = shl(r, so);
-		if (eo > 0) r = shr(r,eo);
-		if (numBits / 8 == 0 && numBits % 8 > 0) r = shr(r, 8 - numBits);
-		
-		// Return a copy
-		return Arrays.copyOf(r, (numBits / 8) > 0 ? (numBits / 8) : 1);
+	/**
+	 * Given an array of bytes, a starting bit and a length in bits copy the bits of
+	 * interest into a destination array as <code>bitgrok</code> produces them, whole
+	 * bytes only. Bits starting on a byte boundary are copied with <code>System.arraycopy</code>,
+	 * otherwise the bits are realigned 64 bits at a time in a single pass.
+	 * 
+	 * @param host		The buffer from which to isolate bits of interest
+	 * @param bitStart  The offset in bits that demarcates the 1st bit of interest
+	 * @param numBits   The number of bits of interest
+	 * @param dest		The array to copy the bits of interest into
+	 * @param destPos	The index in the destination of the first byte copied
+	 * @return			The number of bytes copied, trailing bits short of a whole byte are dropped
+	 * @throws ArrayIndexOutOfBoundsException if the bits of interest are not all within the host
+	 * 					or the bytes copied do not fit the destination
+	 */
+	public static int bitgrok(final byte[] host, final int bitStart, final int numBits, final byte[] dest, final int destPos) {
+		check(host.length, bitStart, numBits);
+		final int n = numBits >> 3;		// number of whole bytes
+		final int s = bitStart >> 3;	// starting byte index
+		final int so = bitStart & 7;	// number of LR leading offset bits in the starting byte
+		if (destPos < 0 || destPos + n > dest.length) {
+			throw new ArrayIndexOutOfBoundsException("Destination of " + dest.length + " bytes is too short for " + n + " bytes at " + destPos);
+		}
+		if (so == 0) {
+			System.arraycopy(host, s, dest, destPos, n);
+			return n;
+		}
+
+		// Each word of 8 bytes takes the leading bits of the 9th byte, so stop a word short of the end
+		int i = 0;
+		final int words = Math.min(n, host.length - s - 8) & ~7;
+		if (BitRegion.UNALIGNED && BitRegion.UNSAFE != null && s >= 0) {
+			// Both arrays are bounds checked above, so words are read and written unchecked
+			for (; i < words; i += 8) {
+				long w = BitRegion.UNSAFE.getLong(host, BitRegion.BYTE_ARRAY_OFFSET + s + i);
+				if (BitRegion.LITTLE_ENDIAN) w = Long.reverseBytes(w);
+				w = (w << so) | ((host[s + i + 8] & 0xFF) >>> (8 - so));
+				if (BitRegion.LITTLE_ENDIAN) w = Long.reverseBytes(w);
+				BitRegion.UNSAFE.putLong(dest, BitRegion.BYTE_ARRAY_OFFSET + destPos + i, w);
+			}
+		}
+		for (; i < words; i += 8) {
+			final long w = (word(host, s + i) << so) | ((host[s + i + 8] & 0xFF) >>> (8 - so));
+			dest[destPos + i] = (byte) (w >>> 56);
+			dest[destPos + i + 1] = (byte) (w >>> 48);
+			dest[destPos + i + 2] = (byte) (w >>> 40);
+			dest[destPos + i + 3] = (byte) (w >>> 32);
+			dest[destPos + i + 4] = (byte) (w >>> 24);
+			dest[destPos + i + 5] = (byte) (w >>> 16);
+			dest[destPos + i + 6] = (byte) (w >>> 8);
+			dest[destPos + i + 7] = (byte) w;
+		}
+		for (; i < n; i++) {
+			dest[destPos + i] = (byte) readBits(host, bitStart + (i << 3), 8);
+		}
+		return n;
 	}
 	
+	/**
+	 * Given a byte buffer, a starting bit and a length in bits produce a result
+	 * array exactly as <code>bitgrok</code> produces from an array of bytes. Bits
+	 * are read with absolute gets, a word at a time, without any intermediate
+	 * array, so offsets are from the start of the buffer regardless of its position.
+	 * 
+	 * @param host		The buffer from which to isolate bits of interest
+	 * @param bitStart  The offset in bits that demarcates the 1st bit of interest
+	 * @param numBits   The number of bits of interest
+	 * @return			The bits of interest as a byte array
+	 * @throws ArrayIndexOutOfBoundsException if the bits of interest are not all within the limit of the host
+	 */
+	public static byte[] bitgrok(final ByteBuffer host, final int bitStart, final int numBits) {
+		check(host.limit(), bitStart, numBits);
+		if (numBits == 0) return EMPTY_BYTE_ARRAY;
+		if (numBits < 8) return new byte[] { (byte) readBits(host, bitStart, numBits) };
+
+		// Trailing bits short of a whole byte are dropped
+		final byte[] r = new byte[numBits >> 3];
+		int i = 0;
+		for (; i + 8 <= r.length; i += 8) {
+			final long w = readBits(host, bitStart + (i << 3), 64);
+			for (int j = 0; j < 8; j++) {
+				r[i + j] = (byte) (w >>> (56 - (j << 3)));
+			}
+		}
+		for (; i < r.length; i++) {
+			r[i] = (byte) readBits(host, bitStart + (i << 3), 8);
+		}
+		return r;
+	}
+
+	/**
+	 * Given an array of bytes, a starting bit and a length in bits of at most
+	 * 64 bits read the bits of interest as an unsigned big endian integer
+	 * without allocating. The bits are read as a single unaligned 64 bit word,
+	 * plus a 9th byte when the bits of interest straddle it, then shifted into place.
+	 *
+	 * @param host		The buffer from which to read the bits of interest
+	 * @param bitStart  The offset in bits that demarcates the 1st bit of interest
+	 * @param numBits   The number of bits of interest, at most 64
+	 * @return			The bits of interest as an unsigned integer
+	 * @throws ArrayIndexOutOfBoundsException if the bits of interest are not all within the host
+	 * @throws BitSyntaxException if the number of bits is negative or more than 64
+	 */
+	public static long readBits(final byte[] host, final int bitStart, final int numBits) {
+		width(numBits);
+		check(host.length, bitStart, numBits);
+		if (numBits == 0) return 0L;
+
+		final int s = bitStart >> 3;	// starting byte index
+		final int so = bitStart & 7;	// number of LR leading offset bits in the starting byte
+
+		long w;
+		if (s + 8 <= host.length) {
+			w = word(host, s) << so;
+			if (so + numBits > 64) w |= (host[s + 8] & 0xFF) >>> (8 - so);
+		} else {
+			// Short of a word at the end of the buffer, so the bits of interest span fewer than 8 bytes
+			w = 0;
+			for (int i = s, shift = 56; i < host.length; i++, shift -= 8) {
+				w |= (long)(host[i] & 0xFF) << shift;
+			}
+			w <<= so;
+		}
+		return w >>> (64 - numBits);
+	}
+
+	/**
+	 * Given a byte buffer, a starting bit and a length in bits of at most 64 bits
+	 * read the bits of interest as an unsigned big endian integer without allocating
+	 * or copying, as <code>readBits</code> reads an array of bytes. Bits are read with
+	 * absolute gets, so offsets are from the start of the buffer regardless of its
+	 * position, and in big endian order regardless of the byte order of the buffer.
+	 *
+	 * @param host		The buffer from which to read the bits of interest
+	 * @param bitStart  The offset in bits that demarcates the 1st bit of interest
+	 * @param numBits   The number of bits of interest, at most 64
+	 * @return			The bits of interest as an unsigned integer
+	 * @throws ArrayIndexOutOfBoundsException if the bits of interest are not all within the limit of the host
+	 * @throws BitSyntaxException if the number of bits is negative or more than 64
+	 */
+	public static long readBits(final ByteBuffer host, final int bitStart, final int numBits) {
+		width(numBits);
+		final int limit = host.limit();
+		check(limit, bitStart, numBits);
+		if (numBits == 0) return 0L;
+
+		final int s = bitStart >> 3;	// starting byte index
+		final int so = bitStart & 7;	// number of LR leading offset bits in the starting byte
+
+		long w;
+		if (s + 8 <= limit) {
+			w = host.getLong(s);
+			if (host.order() == ByteOrder.LITTLE_ENDIAN) w = Long.reverseBytes(w);
+			w <<= so;
+			if (so + numBits > 64) w |= (host.get(s + 8) & 0xFF) >>> (8 - so);
+		} else {
+			// Short of a word at the limit of the buffer, so the bits of interest span fewer than 8 bytes
+			w = 0;
+			for (int i = s, shift = 56; i < limit; i++, shift -= 8) {
+				w |= (long)(host.get(i) & 0xFF) << shift;
+			}
+			w <<= so;
+		}
+		return w >>> (64 - numBits);
+	}
+
+	// At most a word of bits is read as an integer, a wider read would shift out its leading bits
+	private static void width(final int numBits) {
+		if (numBits < 0 || numBits > 64) {
+			throw new BitSyntaxException("Invalid read of " + numBits + " bits, integers are read from at most 64 bits");
+		}
+	}
+
+	// Bits are only ever read from within the host, never zero filled past its end. The size
+	// in bits of the host is widened so that hosts of 256MB or more do not overflow
+	private static void check(final int length, final int bitStart, final int numBits) {
+		if (bitStart < 0 || numBits < 0 || (long) bitStart + numBits > (long) length << 3) {
+			throw new ArrayIndexOutOfBoundsException("Bits " + bitStart + " to " + ((long) bitStart + numBits) + " are not within " + length + " bytes");
+		}
+	}
+
+	/**
+	 * Read the bits of interest as a signed, two's complement, big endian integer
+	 *
+	 * @see #readBits(byte[], int, int)
+	 */
+	public static long readSignedBits(final byte[] host, final int bitStart, final int numBits) {
+		return signed(readBits(host, bitStart, numBits), numBits);
+	}
+
+	/**
+	 * Read the bits of interest as an unsigned little endian integer
+	 *
+	 * @see #readBits(byte[], int, int)
+	 * @see #littleEndian(long, int)
+	 */
+	public static long readLittleBits(final byte[] host, final int bitStart, final int numBits) {
+		return littleEndian(readBits(host, bitStart, numBits), numBits);
+	}
+
+	/**
+	 * Read the bits of interest as a signed, two's complement, little endian integer
+	 *
+	 * @see #readBits(byte[], int, int)
+	 * @see #littleEndian(long, int)
+	 */
+	public static long readSignedLittleBits(final byte[] host, final int bitStart, final int numBits) {
+		return signed(littleEndian(readBits(host, bitStart, numBits), numBits), numBits);
+	}
+
+	/**
+	 * Read the bits of interest as a signed, two's complement, big endian integer
+	 *
+	 * @see #readBits(ByteBuffer, int, int)
+	 */
+	public static long readSignedBits(final ByteBuffer host, final int bitStart, final int numBits) {
+		return signed(readBits(host, bitStart, numBits), numBits);
+	}
+
+	/**
+	 * Read the bits of interest as an unsigned little endian integer
+	 *
+	 * @see #readBits(ByteBuffer, int, int)
+	 * @see #littleEndian(long, int)
+	 */
+	public static long readLittleBits(final ByteBuffer host, final int bitStart, final int numBits) {
+		return littleEndian(readBits(host, bitStart, numBits), numBits);
+	}
+
+	/**
+	 * Read the bits of interest as a signed, two's complement, little endian integer
+	 *
+	 * @see #readBits(ByteBuffer, int, int)
+	 * @see #littleEndian(long, int)
+	 */
+	public static long readSignedLittleBits(final ByteBuffer host, final int bitStart, final int numBits) {
+		return signed(littleEndian(readBits(host, bitStart, numBits), numBits), numBits);
+	}
+
+	/**
+	 * Sign extend an unsigned integer of at most 64 bits
+	 *
+	 * @param bits		The bits of the integer
+	 * @param numBits	The number of bits, at most 64
+	 * @return			The bits as a signed integer
+	 */
+	public static long signed(final long bits, final int numBits) {
+		if (numBits == 0) return 0L;
+		return (bits << (64 - numBits)) >> (64 - numBits);
+	}
+
+	/**
+	 * Given the address and length in bytes of an off-heap binary, a starting bit and
+	 * a length in bits of at most 64 bits read the bits of interest as an unsigned big
+	 * endian integer without allocating or copying, as <code>readBits</code> reads an
+	 * array of bytes. The binary is not bounds checked, that is left to the caller once
+	 * per binary, but no byte beyond its length is read.
+	 *
+	 * @param address	The address of the first byte of the binary
+	 * @param length	The length in bytes of the binary
+	 * @param bitStart  The offset in bits that demarcates the 1st bit of interest
+	 * @param numBits   The number of bits of interest, at most 64
+	 * @return			The bits of interest as an unsigned integer
+	 * @throws BitSyntaxException if the number of bits is negative or more than 64
+	 */
+	public static long readBits(final long address, final long length, final int bitStart, final int numBits) {
+		width(numBits);
+		if (numBits == 0) return 0L;
+
+		final int s = bitStart >> 3;	// starting byte index
+		final int so = bitStart & 7;	// number of LR leading offset bits in the starting byte
+
+		long w;
+		if (BitRegion.UNALIGNED && s + 8 <= length) {
+			w = BitRegion.UNSAFE.getLong(address + s);
+			if (BitRegion.LITTLE_ENDIAN) w = Long.reverseBytes(w);
+		} else {
+			// Short of a word at the end of the binary, or unaligned reads are unsupported
+			w = 0;
+			final long end = Math.min(length, s + 8);
+			for (int i = s, shift = 56; i < end; i++, shift -= 8) {
+				w |= (long)(BitRegion.UNSAFE.getByte(address + i) & 0xFF) << shift;
+			}
+		}
+		w <<= so;
+		if (so + numBits > 64) w |= (BitRegion.UNSAFE.getByte(address + s + 8) & 0xFF) >>> (8 - so);
+		return w >>> (64 - numBits);
+	}
+
+	// The least significant bytes of a word in big endian order
+	private static byte[] bytes(final long w, final int n) {
+		final byte[] r = new byte[n];
+		for (int i = 0, shift = (n - 1) << 3; i < n; i++, shift -= 8) {
+			r[i] = (byte) (w >>> shift);
+		}
+		return r;
+	}
+
+	// Big endian 64 bit word at a byte index
+	private static long word(final byte[] b, final int i) {
+		return ((long) b[i] << 56) |
+			((long)(b[i + 1] & 0xFF) << 48) |
+			((long)(b[i + 2] & 0xFF) << 40) |
+			((long)(b[i + 3] & 0xFF) << 32) |
+			((long)(b[i + 4] & 0xFF) << 24) |
+			((b[i + 5] & 0xFF) << 16) |
+			((b[i + 6] & 0xFF) << 8) |
+			(b[i + 7] & 0xFF);
+	}
+
+	/**
+	 * Reorder an unsigned integer of at most 64 bits read in big endian order
+	 * into little endian order. As with Erlang/OTP when the number of bits is
+	 * not a multiple of 8 the trailing partial byte holds the most significant bits.
+	 *
+	 * @param bits		The bits as read in big endian order
+	 * @param numBits	The number of bits, at most 64
+	 * @return			The bits as an unsigned little endian integer
+	 */
+	public static long littleEndian(final long bits, final int numBits) {
+		if (numBits == 0) return 0L;
+
+		final int partial = numBits & 7;
+		if (partial == 0) return Long.reverseBytes(bits) >>> (64 - numBits);
+
+		long r = bits & ((1L << partial) - 1);
+		long b = bits >>> partial;
+		for (int i = numBits >> 3; i > 0; i--) {
+			r = (r << 8) | (b & 0xFF);
+			b >>>= 8;
+		}
+		return r;
+	}
+
+	/**
+	 * Reorder an integer of at most 64 bits into the little endian order in which it is
+	 * written, the inverse of <code>littleEndian</code>. When the number of bits is not a
+	 * multiple of 8 the most significant bits are written in the trailing partial byte.
+	 *
+	 * @param value		The integer
+	 * @param numBits	The number of bits, at most 64
+	 * @return			The bits to write in big endian order
+	 */
+	public static long toLittleEndian(final long value, final int numBits) {
+		if (numBits == 0) return 0L;
+
+		final int partial = numBits & 7;
+		if (partial == 0) return Long.reverseBytes(value) >>> (64 - numBits);
+
+		long r = 0;
+		long b = value;
+		for (int i = numBits >> 3; i > 0; i--) {
+			r = (r << 8) | (b & 0xFF);
+			b >>>= 8;
+		}
+		return (r << partial) | (b & ((1L << partial) - 1));
+	}
+
+	/**
+	 * Given an array of bytes, a starting bit and a length in bits of at most 64 bits
+	 * write the least significant bits of an integer in big endian order without
+	 * allocating. Bits either side of the bits written are preserved.
+	 *
+	 * @param host		The buffer to write the bits into
+	 * @param bitStart  The offset in bits that demarcates the 1st bit written
+	 * @param numBits   The number of bits to write, at most 64
+	 * @param value		The bits to write as an integer
+	 */
+	public static void writeBits(final byte[] host, final int bitStart, final int numBits, final long value) {
+		long v = value;
+		int bit = bitStart + numBits;	// ending bit, exclusive
+		int remaining = numBits;
+
+		// From the last byte written to the first
+		while (remaining > 0) {
+			final int i = (bit - 1) >> 3;
+			final int lo = (8 - (bit & 7)) & 7;		// lowest bit written in the byte, from the right
+			final int n = Math.min(remaining, 8 - lo);
+			final int mask = ((1 << n) - 1) << lo;
+			host[i] = (byte)((host[i] & ~mask) | (((int) v << lo) & mask));
+			v >>>= n;
+			remaining -= n;
+			bit -= n;
+		}
+	}
+
+	/**
+	 * Given an array of bytes, a starting bit and a length in bits write the leading
+	 * bits of a source binary without allocating. Bits either side of the bits written
+	 * are preserved.
+	 *
+	 * @param host		The buffer to write the bits into
+	 * @param bitStart  The offset in bits that demarcates the 1st bit written
+	 * @param numBits   The number of bits to write
+	 * @param source	The binary whose leading bits are written
+	 * @throws BitSyntaxException if the source binary is shorter than the number of bits
+	 */
+	public static void writeBinary(final byte[] host, final int bitStart, final int numBits, final byte[] source) {
+		if (source == null || (long) source.length << 3 < numBits) {
+			throw new BitSyntaxException("Binary shorter than the segment of " + numBits + " bits written");
+		}
+
+		final int bytes = numBits >> 3;
+		if ((bitStart & 7) == 0) {
+			System.arraycopy(source, 0, host, bitStart >> 3, bytes);
+		} else {
+			for (int i = 0; i < bytes; i++) {
+				writeBits(host, bitStart + (i << 3), 8, source[i]);
+			}
+		}
+
+		final int partial = numBits & 7;
+		if (partial > 0) {
+			writeBits(host, bitStart + (bytes << 3), partial, (source[bytes] & 0xFF) >>> (8 - partial));
+		}
+	}
+
+	/**
+	 * Given a map of variable segment size names and their respective sizes, look up
+	 * the size of a variable segment. Invoked once per call by generated code for each
+	 * variable size of a pattern.
+	 * 
+	 * @param sizes		A possibly null map of variable segment size names and their respective sizes
+	 * @param name		The name of the variable segment size
+	 * @return			The size, in units of the segment
+	 * @throws BitSyntaxException if the size is not supplied or is negative
+	 */
+	public static int sizeof(final Map<String,Integer> sizes, final String name) {
+		final Integer size = (sizes != null) ? sizes.get(name) : null;
+		if (size == null) {
+			throw new BitSyntaxException("Unbound variable segment size " + name);
+		}
+		if (size < 0) {
+			throw new BitSyntaxException("Invalid size " + size + " for variable segment size " + name);
+		}
+		return size;
+	}
+
 	/**
 	 * Logical shift left operation on a byte array by a number of bits
 	 * 
@@ -0,0 +1,104 @@
+// Copyright (c) 2013 Darach Ennis < darach at gmail dot com >.
+//
+// Permission is hereby granted, free of charge, to any person obtaining a
+// copy of this software and associated documentation files (the
+// "Software"), to deal in the Software without restriction, including
+// without limitation the rights to use, copy, modify, merge, publish,
+// distribute, sublicense, and/or sell copies of the Software, and to permit
+// persons to whom the Software is furnished to do so, subject to the
+// following conditions:  
+//
+// The above copyright notice and this permission notice shall be included
+// in all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS
+// OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+// MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN
+// NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+// DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+// OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE
+// USE OR OTHER DEALINGS IN THE SOFTWARE.
+
+package io.darach.bitsyntax;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The read-only view <code>BitPattern.extractLazy</code> returns. Holds the binary, the
+ * offset and size in bits of each labeled segment by slot, and extracts a segment only
+ * when its label is looked up, optionally memoizing it.
+ */
+final class BitLazyMap extends AbstractMap<String,byte[]> {
+	private final byte[] binary;
+	private final int[] marks;
+	private final Map<String,Integer> labels;
+	private final byte[][] memo;
+
+	BitLazyMap(final byte[] binary, final int[] marks, final Map<String,Integer> labels, final boolean memoize) {
+		this.binary = binary;
+		this.marks = marks;
+		this.labels = labels;
+		this.memo = memoize ? new byte[marks.length >> 1][] : null;
+	}
+
+	@Override
+	public byte[] get(final Object key) {
+		final Integer slot = labels.get(key);
+		return (slot != null) ? extract(slot) : null;
+	}
+
+	private byte[] extract(final int slot) {
+		if (memo == null) return BitHelper.bitgrok(binary, marks[slot << 1], marks[(slot << 1) + 1]);
+		byte[] value = memo[slot];
+		if (value == null) {
+			value = memo[slot] = BitHelper.bitgrok(binary, marks[slot << 1], marks[(slot << 1) + 1]);
+		}
+		return value;
+	}
+
+	@Override
+	public boolean containsKey(final Object key) {
+		return labels.containsKey(key);
+	}
+
+	@Override
+	public int size() {
+		return labels.size();
+	}
+
+	@Override
+	public Set<Map.Entry<String,byte[]>> entrySet() {
+		return new AbstractSet<Map.Entry<String,byte[]>>() {
+			@Override
+			public Iterator<Map.Entry<String,byte[]>> iterator() {
+				final Iterator<Map.Entry<String,Integer>> i = labels.entrySet().iterator();
+				return new Iterator<Map.Entry<String,byte[]>>() {
+					@Override
+					public boolean hasNext() {
+						return i.hasNext();
+					}
+
+					@Override
+					public Map.Entry<String,byte[]> next() {
+						final Map.Entry<String,Integer> label = i.next();
+						return new AbstractMap.SimpleImmutableEntry<String,byte[]>(label.getKey(), extract(label.getValue()));
+					}
+
+					@Override
+					public void remove() {
+						throw new UnsupportedOperationException();
+					}
+				};
+			}
+
+			@Override
+			public int size() {
+				return labels.size();
+			}
+		};
+	}
+}
@@ -0,0 +1,363 @@
+// Copyright (c) 2013 Darach Ennis < darach at gmail dot com >.
+//
+// Permission is hereby granted, free of charge, to any person obtaining a
+// copy of this software and associated documentation files (the
+// "Software"), to deal in the Software without restriction, including
+// without limitation the rights to use, copy, modify, merge, publish,
+// distribute, sublicense, and/or sell copies of the Software, and to permit
+// persons to whom the Software is furnished to do so, subject to the
+// following conditions:  
+//
+// The above copyright notice and this permission notice shall be included
+// in all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS
+// OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+// MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN
+// NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+// DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+// OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE
+// USE OR OTHER DEALINGS IN THE SOFTWARE.
+
+package io.darach.bitsyntax;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * The BitParallelDecoder decodes a binary, or a file, of records matching a compiled bit
+ * pattern in parallel. The records are split into chunks of consecutive records, each
+ * chunk decoded on a fork join pool as <code>decodeBatch</code> decodes records, into
+ * the columns of the thread decoding it, then passed to the sink of that thread.
+ * 
+ * Records of constant size are split arithmetically, the first record of each chunk
+ * at a multiple of the chunk in records of the stride. Otherwise the record boundaries
+ * are found walking the length of each record once, and each chunk decoded from the
+ * boundaries found.
+ * 
+ * A sink is created per thread, not per chunk, and receives the index of the first
+ * record of each chunk so that merging the chunks of all sinks preserves record order.
+ * 
+ * As with <code>BitFrameDecoder</code>, every segment must have a size and records
+ * start on a byte boundary, a record size in bits that is not a multiple of 8 being
+ * padded to the next byte.
+ */
+public class BitParallelDecoder {
+	/**
+	 * The default number of records per chunk
+	 */
+	public static final int DEFAULT_CHUNK = 4096;
+
+	private final AbstractBitPattern pattern;
+	private final ForkJoinPool pool;
+	private final int chunk;
+	private final int minimum;
+
+	// The size in bytes of a record of constant size, otherwise 0
+	private final int stride;
+
+	public BitParallelDecoder(final BitPattern pattern, final ForkJoinPool pool) {
+		this(pattern, pool, DEFAULT_CHUNK);
+	}
+
+	/**
+	 * @param pattern	The bit pattern each record matches
+	 * @param pool		The pool chunks are decoded on
+	 * @param chunk		The number of records per chunk, and the capacity of the columns of each thread
+	 * @throws BitSyntaxException	Thrown if the chunk is not positive or a segment of the pattern has no size
+	 */
+	public BitParallelDecoder(final BitPattern pattern, final ForkJoinPool pool, final int chunk) throws BitSyntaxException {
+		if (chunk <= 0) throw new BitSyntaxException("Invalid chunk of " + chunk + " records");
+		this.pattern = (AbstractBitPattern) pattern;
+		if (!this.pattern.frameable()) {
+			throw new BitSyntaxException("Segments without a size cannot be framed");
+		}
+		this.pool = pool;
+		this.chunk = chunk;
+		this.minimum = Math.max(1, this.pattern.minimum());
+		this.stride = (this.pattern.size() > 0) ? (this.pattern.size() + 7) >>> 3 : 0;
+	}
+
+	/**
+	 * Decodes the records of a binary up to the last complete record
+	 * 
+	 * @param binary	The binary of records, from its start
+	 * @param factory	The factory of a sink per thread
+	 * @return			The sinks of the threads that decoded records
+	 * @throws BitSyntaxException	Thrown if a record does not match
+	 */
+	public <S extends BitBatchHandler> List<S> decode(final byte[] binary, final BitSinkFactory<S> factory) throws BitSyntaxException {
+		final Workers<S> workers = new Workers<S>(factory);
+		final Records records = new Records(binary.length) {
+			// Records of an array beyond the bits an int offset reaches are framed in a
+			// window of the array, moved on to the record framed once half way through
+			private ByteBuffer window = ByteBuffer.wrap(binary);
+			private int base = 0;
+
+			@Override
+			int framed(int offset, int length) {
+				if (binary.length <= MappedRecordScanner.MAXIMUM_WINDOW) {
+					return pattern.framed(binary, offset, length);
+				}
+				if (offset - base > MappedRecordScanner.MAXIMUM_WINDOW >>> 1) slide(offset);
+				int limit = Math.min(length, MappedRecordScanner.MAXIMUM_WINDOW - (offset - base));
+				int status = pattern.framed(window, offset - base, limit);
+				if (status == AbstractBitPattern.SHORTFALL && limit < length && offset > base) {
+					slide(offset);
+					limit = Math.min(length, MappedRecordScanner.MAXIMUM_WINDOW);
+					status = pattern.framed(window, 0, limit);
+				}
+				if (status == AbstractBitPattern.SHORTFALL && limit < length) {
+					throw new BitSyntaxException("Record at " + offset + " exceeds the window of " + MappedRecordScanner.MAXIMUM_WINDOW + " bytes");
+				}
+				return status;
+			}
+
+			private void slide(final int offset) {
+				window = ByteBuffer.wrap(binary, offset, binary.length - offset).slice();
+				base = offset;
+			}
+
+			@Override
+			void load(Worker<?> worker, int from, int to) {
+				if ((long) to << 3 <= Integer.MAX_VALUE) {
+					worker.binary = binary;
+					worker.base = 0;
+					return;
+				}
+				// Beyond the bits an int offset reaches
+				System.arraycopy(binary, from, worker.scratch(to - from), 0, to - from);
+				worker.base = from;
+			}
+		};
+		decode(records, workers, 0);
+		return workers.sinks();
+	}
+
+	/**
+	 * Decodes the records of a file up to the last complete record. The file is mapped a
+	 * window at a time, as by <code>MappedRecordScanner</code>, and the chunks of each
+	 * window decoded in parallel.
+	 * 
+	 * @param channel	The file of records, opened for reading
+	 * @param factory	The factory of a sink per thread
+	 * @return			The sinks of the threads that decoded records
+	 * @throws IOException	Thrown if the file cannot be mapped
+	 * @throws BitSyntaxException	Thrown if a record does not match or is larger than a window
+	 */
+	public <S extends BitBatchHandler> List<S> decode(final FileChannel channel, final BitSinkFactory<S> factory) throws IOException, BitSyntaxException {
+		final Workers<S> workers = new Workers<S>(factory);
+		final long size = channel.size();
+		long position = 0;
+		long first = 0;
+		while (size - position >= minimum) {
+			final int window = (int) Math.min(MappedRecordScanner.MAXIMUM_WINDOW, size - position);
+			final MappedByteBuffer buffer = channel.map(MapMode.READ_ONLY, position, window);
+			final Records records = new Records(window) {
+				@Override
+				int framed(int offset, int length) {
+					return pattern.framed(buffer, offset, length);
+				}
+
+				@Override
+				void load(Worker<?> worker, int from, int to) {
+					// The chunk is copied out of the window, the generated batch reading arrays
+					final ByteBuffer view = buffer.duplicate();
+					view.position(from);
+					view.get(worker.scratch(to - from), 0, to - from);
+					worker.base = from;
+				}
+			};
+			final int end = decode(records, workers, first);
+			if (end == 0) {
+				if (window == MappedRecordScanner.MAXIMUM_WINDOW) {
+					throw new BitSyntaxException("Record at " + position + " exceeds the window of " + window + " bytes");
+				}
+				break;
+			}
+			position += end;
+			first += records.count;
+		}
+		return workers.sinks();
+	}
+
+	// Splits the records into chunks and decodes the chunks in parallel, returns the
+	// offset following the last complete record
+	private <S extends BitBatchHandler> int decode(final Records records, final Workers<S> workers, final long first) {
+		final int end = records.split();
+		if (records.count == 0) return end;
+
+		try {
+			pool.invoke(new Split<S>(records, workers, first, 0, (records.count + chunk - 1) / chunk));
+		} catch (BitSyntaxException e) {
+			// An exception of another thread is rethrown as a copy caused by the original,
+			// once for each task it is joined through
+			BitSyntaxException original = e;
+			while (original.getCause() instanceof BitSyntaxException) {
+				original = (BitSyntaxException) original.getCause();
+			}
+			throw original;
+		}
+		return end;
+	}
+
+	// The records of an array or a window of a file
+	private abstract class Records {
+		final int length;
+
+		// The number of records, and the offset of each record and of the end of the
+		// last if the records are not of constant size
+		int count = 0;
+		int[] offsets;
+
+		Records(final int length) {
+			this.length = length;
+		}
+
+		abstract int framed(int offset, int length);
+
+		// Sets the binary of a worker to one holding the bytes from an offset to another
+		abstract void load(Worker<?> worker, int from, int to);
+
+		// Counts the complete records, framing each record once if not of constant
+		// size, returns the offset following the last complete record
+		int split() {
+			if (stride > 0) {
+				count = length / stride;
+				return count * stride;
+			}
+			offsets = new int[16];
+			int offset = 0;
+			while (length - offset >= minimum) {
+				final int status = framed(offset, length - offset);
+				if (status == AbstractBitPattern.SHORTFALL) break;
+				if (status < 0) {
+					throw new BitSyntaxException("Record at " + offset + " does not match at segment " + ~status);
+				}
+				final int n = (status + 7) >>> 3;
+				if (n == 0) {
+					throw new BitSyntaxException("Empty records cannot be decoded");
+				}
+				if (count + 1 == offsets.length) offsets = Arrays.copyOf(offsets, offsets.length << 1);
+				offsets[count++] = offset;
+				offset += n;
+			}
+			offsets[count] = offset;
+			return offset;
+		}
+
+		// Decodes the records of a chunk into the columns of a worker and passes them to its sink
+		<S extends BitBatchHandler> void decode(final int index, final Worker<S> worker, final long first) {
+			final int lo = index * chunk;
+			final int n = Math.min(chunk, count - lo);
+			if (stride > 0) {
+				final int from = lo * stride;
+				load(worker, from, from + n * stride);
+				check(pattern.decodedBatch(worker.binary, (from - worker.base) << 3, 0, n, stride << 3, worker.columns.integers, worker.columns.reals), first + lo);
+			} else {
+				load(worker, offsets[lo], offsets[lo + n]);
+				for (int i = 0; i < n; i++) {
+					final int offset = offsets[lo + i];
+					check(pattern.decodedBatch(worker.binary, (offset - worker.base) << 3, i, 1, (offsets[lo + i + 1] - offset) << 3, worker.columns.integers, worker.columns.reals), first + lo);
+				}
+			}
+			worker.sink.batch(worker.columns, n, first + lo);
+		}
+
+		private void check(final int status, final long first) {
+			if (status < 0) {
+				throw new BitSyntaxException("Record " + (first + ~status) + " does not match");
+			}
+		}
+	}
+
+	// The columns, sink and scratch binary of a thread
+	private final class Worker<S> {
+		final BitColumns columns;
+		final S sink;
+
+		// The binary a chunk is decoded from, and the offset of its first byte in the records
+		byte[] binary;
+		int base;
+
+		private byte[] scratch = new byte[0];
+
+		Worker(final BitSinkFactory<S> factory) {
+			this.columns = new BitColumns(pattern, chunk);
+			this.sink = factory.create(columns);
+		}
+
+		byte[] scratch(final int length) {
+			if (scratch.length < length) scratch = new byte[length];
+			return binary = scratch;
+		}
+	}
+
+	// The worker of each thread, created with its sink on the first chunk the thread decodes.
+	// Workers are held by the decode call, not by their threads, so none outlive the call
+	private final class Workers<S> {
+		final BitSinkFactory<S> factory;
+		final ConcurrentHashMap<Thread,Worker<S>> workers = new ConcurrentHashMap<Thread,Worker<S>>();
+
+		Workers(final BitSinkFactory<S> factory) {
+			this.factory = factory;
+		}
+
+		// Only the current thread ever adds its own worker
+		Worker<S> get() {
+			final Thread thread = Thread.currentThread();
+			Worker<S> worker = workers.get(thread);
+			if (worker == null) {
+				worker = new Worker<S>(factory);
+				workers.put(thread, worker);
+			}
+			return worker;
+		}
+
+		List<S> sinks() {
+			final List<S> sinks = new ArrayList<S>(workers.size());
+			for (Worker<S> worker : workers.values()) {
+				sinks.add(worker.sink);
+			}
+			return sinks;
+		}
+	}
+
+	// Splits a range of chunks in halves until a single chunk remains
+	private static final class Split<S extends BitBatchHandler> extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+
+		private final BitParallelDecoder.Records records;
+		private final BitParallelDecoder.Workers<S> workers;
+		private final long first;
+		private final int lo;
+		private final int hi;
+
+		Split(final BitParallelDecoder.Records records, final BitParallelDecoder.Workers<S> workers, final long first, final int lo, final int hi) {
+			this.records = records;
+			this.workers = workers;
+			this.first = first;
+			this.lo = lo;
+			this.hi = hi;
+		}
+
+		@Override
+		protected void compute() {
+			if (hi - lo > 1) {
+				final int mid = (lo + hi) >>> 1;
+				invokeAll(new Split<S>(records, workers, first, lo, mid), new Split<S>(records, workers, first, mid, hi));
+				return;
+			}
+			records.decode(lo, workers.get(), first);
+		}
+	}
+}
@@ -22,6 +22,7 @@
 
 package io.darach.bitsyntax;
 
+import java.nio.ByteBuffer;
 import java.util.Map;
 
 /**
@@ -30,6 +31,10 @@ import java.util.Map;
  * specific language derived from the Erlang/OTP bit syntax with some accommodations
  * for the JVM's builtin type system.
  * 
+ * BitPattern's are stateless once compiled, all state of a match is local to the call,
+ * so a single pattern is thread safe and may be shared by any number of threads.
+ * Flyweights, results and sizes passed to a pattern are owned by the caller.
+ * 
  */
 public interface BitPattern {
 	/**
@@ -46,7 +51,15 @@ public interface BitPattern {
 	 * unless the specification specifies them as skippable. A skippable segment is
 	 * not validated.
 	 * 
-	 * Variable segments are extracted into an associative map if the match succeeds.
+	 * Variable segments are extracted into an associative map if the match succeeds,
+	 * a <code>BitResult</code> generated for the pattern with one field per labeled
+	 * segment that can also be read by slot.
+	 * 
+	 * The result has a fixed set of keys, the labels of the pattern. Unlike the
+	 * <code>HashMap</code> returned by earlier releases, <code>put</code> only replaces
+	 * the segment of an existing label, and <code>remove</code> and <code>clear</code>
+	 * throw <code>UnsupportedOperationException</code>. Copy the result into a map of
+	 * your own to add or remove entries.
 	 * 
 	 * The last segment may be of arbitrary length. All other segments must have a
 	 * length with an a priori known length.
@@ -56,7 +69,7 @@ public interface BitPattern {
 	 * @return			The extracted values and associated names of variable segments
 	 * @throws BitSyntaxException	Thrown if the binary does not match the bit pattern syntax specification
 	 */
-	public Map<String,byte[]> extract(final byte[] binary, final Map<String,Integer> sizes) throws BitSyntaxException;
+	public BitResult extract(final byte[] binary, final Map<String,Integer> sizes) throws BitSyntaxException;
 
 	/**
 	 * The <code>match</code> is an analog of pattern matching in the Erlang
@@ -79,17 +92,262 @@ public interface BitPattern {
 	 * 
 	 * @param binary	The binary to be matched and extracted
 	 * @param sizes		A possibly null or empty map of variable segment size names and their respective sizes
-	 * @return			The extracted values and associated names of variable segments
+	 * @return			The extracted values and associated names of variable segments, with a
+	 * 					fixed set of keys as described by <code>extract(byte[], Map)</code>
 	 * @throws BitSyntaxException	Thrown if the binary does not match the bit pattern syntax specification
 	 */	
-	public Map<String,byte[]> extract(final byte[] binary) throws BitSyntaxException;
+	public BitResult extract(final byte[] binary) throws BitSyntaxException;
 	 
-	// Returns a bit pattern with variable segment sizes bound and sealed
+	/**
+	 * The <code>tryExtract</code> is an exception free alternative to <code>extract</code>
+	 * for binaries that are expected to not match. Rather than throw, the failure to
+	 * match is returned as a status.
+	 * 
+	 * The values of labeled segments are put into the supplied map as they match, so
+	 * the map may hold the segments preceding the failing segment if the match fails.
+	 * 
+	 * @param binary	The binary to be matched and extracted
+	 * @param sizes		A possibly null or empty map of variable segment size names and their respective sizes
+	 * @param results	The map the extracted values of labeled segments are put into, or null to only match
+	 * @return			The number of bits matched if the binary matches, otherwise the complement
+	 * 					of the zero based index of the segment that failed to match
+	 */
+	public int tryExtract(final byte[] binary, final Map<String,Integer> sizes, final Map<String,byte[]> results);
+
+	/**
+	 * The <code>tryExtract</code> is an exception free alternative to <code>extract</code>
+	 * for binaries that are expected to not match.
+	 * 
+	 * @param binary	The binary to be matched and extracted
+	 * @param results	The map the extracted values of labeled segments are put into, or null to only match
+	 * @return			The number of bits matched if the binary matches, otherwise the complement
+	 * 					of the zero based index of the segment that failed to match
+	 * @see #tryExtract(byte[], Map, Map)
+	 */
+	public int tryExtract(final byte[] binary, final Map<String,byte[]> results);
+
+	/**
+	 * The <code>extract</code> of a binary held in a heap or direct byte buffer, read in
+	 * place without first copying the binary into an array of bytes. The binary starts at
+	 * an offset in bits from the position of the buffer and ends at its limit. Bytes are
+	 * read with absolute gets, so neither the position nor the limit of the buffer changes.
+	 * The binary must start within the first 256MB of the buffer, the most bits an int
+	 * offset reaches, though the buffer itself may be larger.
+	 * 
+	 * @param buffer	The buffer holding the binary to be matched and extracted
+	 * @param bitOffset	The offset in bits of the binary from the position of the buffer, not negative
+	 * @param sizes		A possibly null or empty map of variable segment size names and their respective sizes
+	 * @return			The extracted values and associated names of variable segments
+	 * @throws BitSyntaxException	Thrown if the binary does not match the bit pattern syntax specification,
+	 * 								or starts before the position of the buffer or beyond its first 256MB
+	 * @see #extract(byte[], Map)
+	 */
+	public BitResult extract(final ByteBuffer buffer, final int bitOffset, final Map<String,Integer> sizes) throws BitSyntaxException;
+
+	/**
+	 * The <code>extract</code> of a binary held in a heap or direct byte buffer
+	 * 
+	 * @param buffer	The buffer holding the binary to be matched and extracted
+	 * @param bitOffset	The offset in bits of the binary from the position of the buffer
+	 * @return			The extracted values and associated names of variable segments
+	 * @throws BitSyntaxException	Thrown if the binary does not match the bit pattern syntax specification
+	 * @see #extract(ByteBuffer, int, Map)
+	 */
+	public BitResult extract(final ByteBuffer buffer, final int bitOffset) throws BitSyntaxException;
+
+	/**
+	 * The <code>extract</code> of a binary into a sink, without any result container. Each
+	 * labeled segment is passed to the sink as it matches, in declaration order. Segments
+	 * that are not read as primitives are passed in place, by their offset and size in the
+	 * binary, rather than copied.
+	 * 
+	 * Segments are passed as they match, so a sink may receive the leading segments of a
+	 * binary that then fails to match.
+	 * 
+	 * @param binary	The binary to be matched
+	 * @param sizes		A possibly null or empty map of variable segment size names and their respective sizes
+	 * @param sink		The sink the labeled segments are passed to
+	 * @return			The number of bits matched
+	 * @throws BitSyntaxException	Thrown if the binary does not match the bit pattern syntax specification
+	 * @see BitSegmentSink
+	 */
+	public int extractInto(final byte[] binary, final Map<String,Integer> sizes, final BitSegmentSink sink) throws BitSyntaxException;
+
+	/**
+	 * The <code>extractInto</code> of a binary without variable segment sizes
+	 * 
+	 * @param binary	The binary to be matched
+	 * @param sink		The sink the labeled segments are passed to
+	 * @return			The number of bits matched
+	 * @throws BitSyntaxException	Thrown if the binary does not match the bit pattern syntax specification
+	 * @see #extractInto(byte[], Map, BitSegmentSink)
+	 */
+	public int extractInto(final byte[] binary, final BitSegmentSink sink) throws BitSyntaxException;
+
+	/**
+	 * The <code>extract</code> of a binary as a lazy, read-only view. The binary is matched
+	 * at once and the offset of each labeled segment recorded, but a segment is only
+	 * extracted once its label is looked up, so segments never looked up cost nothing.
+	 * 
+	 * The view holds the binary rather than a copy of it. Changes to the binary are
+	 * visible in segments not yet extracted, or extracted again if not memoized.
+	 * 
+	 * @param binary	The binary to be matched
+	 * @param sizes		A possibly null or empty map of variable segment size names and their respective sizes
+	 * @param memoize	Extract each segment once, the first time it is looked up, rather than per look up
+	 * @return			A view of the values and associated names of variable segments
+	 * @throws BitSyntaxException	Thrown if the binary does not match the bit pattern syntax specification
+	 * @see #extract(byte[], Map)
+	 */
+	public Map<String,byte[]> extractLazy(final byte[] binary, final Map<String,Integer> sizes, final boolean memoize) throws BitSyntaxException;
+
+	/**
+	 * The <code>extractLazy</code> of a binary without variable segment sizes, extracting a
+	 * segment on every look up
+	 * 
+	 * @param binary	The binary to be matched
+	 * @return			A view of the values and associated names of variable segments
+	 * @throws BitSyntaxException	Thrown if the binary does not match the bit pattern syntax specification
+	 * @see #extractLazy(byte[], Map, boolean)
+	 */
+	public Map<String,byte[]> extractLazy(final byte[] binary) throws BitSyntaxException;
+
+	/**
+	 * The <code>tryExtract</code> of a binary held in a heap or direct byte buffer
+	 * 
+	 * @param buffer	The buffer holding the binary to be matched and extracted
+	 * @param bitOffset	The offset in bits of the binary from the position of the buffer
+	 * @param sizes		A possibly null or empty map of variable segment size names and their respective sizes
+	 * @param results	The map the extracted values of labeled segments are put into, or null to only match
+	 * @return			The number of bits matched if the binary matches, otherwise the complement
+	 * 					of the zero based index of the segment that failed to match
+	 * @throws BitSyntaxException	Thrown if the binary starts before the position of the buffer or beyond its first 256MB
+	 * @see #tryExtract(byte[], Map, Map)
+	 * @see #extract(ByteBuffer, int, Map)
+	 */
+	public int tryExtract(final ByteBuffer buffer, final int bitOffset, final Map<String,Integer> sizes, final Map<String,byte[]> results);
+
+	/**
+	 * The <code>matches</code> tests if a binary matches without extracting any segments
+	 * and without throwing if it does not match.
+	 * 
+	 * @param binary	The binary to be matched
+	 * @return			True if the binary matches the bit pattern syntax specification
+	 */
+	public boolean matches(final byte[] binary);
+
+	/**
+	 * The <code>decode</code> is a primitive alternative to <code>extract</code>. Labeled
+	 * integer segments of at most 64 bits are decoded to a long, and labeled float or double
+	 * segments of 32 or 64 bits to a double, honouring the endianness and signedness of each
+	 * segment. No other segments are decoded.
+	 * 
+	 * Decoded values are stored by slot, the zero based position of the segment amongst the
+	 * labeled segments of the pattern in declaration order. Slots not decoded are left untouched.
+	 * 
+	 * No sizes are supplied, so variable segment sizes must first be bound with <code>bind</code>.
+	 * 
+	 * @param binary	The binary to be matched and decoded
+	 * @param integers	The decoded integer segments by slot
+	 * @param reals		The decoded float and double segments by slot
+	 * @return			The number of bits matched
+	 * @throws BitSyntaxException	Thrown if the binary does not match the bit pattern syntax specification
+	 */
+	public int decode(final byte[] binary, final long[] integers, final double[] reals) throws BitSyntaxException;
+
+	/**
+	 * The <code>decode</code> of a frame in off-heap memory, read in place without first
+	 * copying the frame into an array of bytes. The frame is bounds checked against the
+	 * region once, then each segment is read with an unchecked unaligned read honouring
+	 * its endianness. Both regions and frames may be larger than 2GB, offsets and lengths
+	 * being longs, though the segments of a frame are matched within its first 256MB,
+	 * the most bits an int offset reaches.
+	 * 
+	 * @param region	The off-heap region holding the frame
+	 * @param offset	The offset in bytes of the frame in the region
+	 * @param length	The length in bytes of the frame
+	 * @param integers	The decoded integer segments by slot
+	 * @param reals		The decoded float and double segments by slot
+	 * @return			The number of bits matched
+	 * @throws BitSyntaxException	Thrown if the frame lies outside of the region or does not match the bit pattern syntax specification
+	 * @see #decode(byte[], long[], double[])
+	 */
+	public int decode(final BitRegion region, final long offset, final long length, final long[] integers, final double[] reals) throws BitSyntaxException;
+
+	/**
+	 * The <code>decodeBatch</code> decodes a run of records of a fixed stride into columns,
+	 * a struct of arrays. Each record is decoded as <code>decode</code> decodes a binary,
+	 * the value of each labeled segment into the column of its slot at the index of the
+	 * record. Only the segments with a column in the columns are decoded.
+	 * 
+	 * Records are decoded in a single generated loop without allocating, so columns should
+	 * be allocated once and reused.
+	 * 
+	 * @param binary		The binary holding the records, from its start
+	 * @param recordCount	The number of records to decode
+	 * @param strideBits	The size in bits of each record, records are matched within their stride
+	 * @param out			The columns of this pattern to decode into, of at least the record count
+	 * @return				The number of records decoded
+	 * @throws BitSyntaxException	Thrown if the records exceed the binary or the columns, or a record does not match
+	 */
+	public int decodeBatch(final byte[] binary, final int recordCount, final int strideBits, final BitColumns out) throws BitSyntaxException;
+
+	/**
+	 * The <code>encode</code> is the construction counterpart of <code>decode</code>, writing
+	 * the segments of the pattern into a caller supplied binary without allocating. Labeled
+	 * integer segments of at most 64 bits are written from the long, and labeled float or
+	 * double segments of 32 or 64 bits from the double, of their slot honouring the endianness
+	 * of each segment. All other labeled segments are written from the leading bits of the
+	 * binary of their slot, a segment without a size from the whole binary. Literal numbers
+	 * and strings are written as specified. Skipped segments are left untouched.
+	 * 
+	 * Slots are as for <code>decode</code>. A variable segment size that refers to a preceding
+	 * segment is taken from the value of that segment, other variable segment sizes must first
+	 * be bound with <code>bind</code>.
+	 * 
+	 * @param binary	The binary to encode into
+	 * @param offset	The offset in bytes into the binary of the first segment
+	 * @param integers	The integer segments by slot, or null if there are none
+	 * @param reals		The float and double segments by slot, or null if there are none
+	 * @param binaries	All other labeled segments by slot, or null if there are none
+	 * @return			The number of bits written
+	 * @throws BitSyntaxException	Thrown if the segments do not fit the binary
+	 */
+	public int encode(final byte[] binary, final int offset, final long[] integers, final double[] reals, final byte[][] binaries) throws BitSyntaxException;
+
+	/**
+	 * The <code>bind</code> specializes a pattern with variable segment sizes. A new pattern
+	 * is compiled in which the bound sizes are constants, so segments of bound size are
+	 * matched at constant offsets and the size of a binary is validated against them once.
+	 * Binding sizes to an already bound pattern rebinds them.
+	 * 
+	 * Bound patterns are cached as with <code>BitSyntax.compile</code>.
+	 * 
+	 * @param sizes		A map of variable segment size names and their respective sizes
+	 * @return			A bit pattern with variable segment sizes bound and sealed
+	 * @throws BitSyntaxException	Thrown if a size is negative
+	 */
 	public BitPattern bind(Map<String,Integer> sizes) throws BitSyntaxException;
 
 
 	public Map<String, byte[]> fixed(byte[] payload) throws BitSyntaxException;
 
+	/**
+	 * The <code>flyweight</code> is an allocation free alternative to <code>extract</code>.
+	 * The returned flyweight is generated alongside this pattern and, once wrapped over a
+	 * binary, reads labeled segments on demand directly from the wrapped binary as primitives
+	 * at the same offsets <code>extract</code> would extract them from.
+	 * 
+	 * No sizes are supplied, so segments from the first segment of variable size onwards
+	 * are only accessible once the size is bound with <code>bind</code>.
+	 * 
+	 * Flyweights are not thread safe. A flyweight should be allocated once per thread
+	 * and rewrapped per binary.
+	 * 
+	 * @return			A new flyweight for this bit pattern
+	 */
+	public BitFlyweight flyweight();
+
 	/**
 	 * The <code>specification</code> source this compiled artefact is an expression of
 	 * 
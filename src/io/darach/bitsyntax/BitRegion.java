@@ -0,0 +1,184 @@
+// Copyright (c) 2013 Darach Ennis < darach at gmail dot com >.
+//
+// Permission is hereby granted, free of charge, to any person obtaining a
+// copy of this software and associated documentation files (the
+// "Software"), to deal in the Software without restriction, including
+// without limitation the rights to use, copy, modify, merge, publish,
+// distribute, sublicense, and/or sell copies of the Software, and to permit
+// persons to whom the Software is furnished to do so, subject to the
+// following conditions:  
+//
+// The above copyright notice and this permission notice shall be included
+// in all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS
+// OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+// MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN
+// NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+// DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+// OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE
+// USE OR OTHER DEALINGS IN THE SOFTWARE.
+
+package io.darach.bitsyntax;
+
+import java.lang.reflect.Field;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import sun.misc.Unsafe;
+
+/**
+ * A BitRegion is a region of off-heap memory that compiled bit patterns decode from
+ * in place, without first copying into an array of bytes. Regions are either allocated
+ * and freed explicitly, or wrap memory owned elsewhere such as by native capture code
+ * or a direct byte buffer.
+ * 
+ * Offsets into a region are longs, so regions may be larger than 2GB. Each frame is
+ * bounds checked against the region once and then read with unchecked unaligned reads.
+ * 
+ * Off-heap access is through <code>sun.misc.Unsafe</code> and is only available where
+ * it is, see <code>isSupported</code>.
+ */
+public final class BitRegion {
+	static final Unsafe UNSAFE = unsafe();
+
+	// Unaligned reads of a word are only made where the platform supports them
+	static final boolean UNALIGNED = System.getProperty("os.arch", "").matches("amd64|x86_64|i386|x86|aarch64|ppc64le");
+	static final boolean LITTLE_ENDIAN = ByteOrder.nativeOrder() == ByteOrder.LITTLE_ENDIAN;
+
+	static final long BYTE_ARRAY_OFFSET = (UNSAFE != null) ? UNSAFE.arrayBaseOffset(byte[].class) : 0;
+
+	private final long address;
+	private final long size;
+	private final boolean owned;
+	// Volatile so that a free is seen by the bounds checks of other threads
+	private volatile boolean freed = false;
+
+	private BitRegion(final long address, final long size, final boolean owned) {
+		this.address = address;
+		this.size = size;
+		this.owned = owned;
+	}
+
+	/**
+	 * Is off-heap memory accessible on this platform
+	 */
+	public static boolean isSupported() {
+		return UNSAFE != null;
+	}
+
+	/**
+	 * Allocate a zeroed region of off-heap memory, to be freed with <code>free</code>
+	 * 
+	 * @param size		The size in bytes of the region
+	 * @return			The allocated region
+	 * @throws BitSyntaxException	Thrown if off-heap memory is not supported
+	 */
+	public static BitRegion allocate(final long size) throws BitSyntaxException {
+		check();
+		if (size < 0) throw new BitSyntaxException("Invalid region size " + size);
+		final long address = UNSAFE.allocateMemory(size);
+		UNSAFE.setMemory(address, size, (byte) 0);
+		return new BitRegion(address, size, true);
+	}
+
+	/**
+	 * Wrap a region of off-heap memory owned elsewhere. The memory must remain valid for
+	 * as long as the region is used.
+	 * 
+	 * @param address	The address of the first byte of the region
+	 * @param size		The size in bytes of the region
+	 * @return			The wrapped region
+	 * @throws BitSyntaxException	Thrown if off-heap memory is not supported
+	 */
+	public static BitRegion wrap(final long address, final long size) throws BitSyntaxException {
+		check();
+		if (address == 0 || size < 0) throw new BitSyntaxException("Invalid region of " + size + " bytes at " + address);
+		return new BitRegion(address, size, false);
+	}
+
+	/**
+	 * Wrap the memory of a direct byte buffer from index zero up to its capacity. The buffer
+	 * must remain reachable for as long as the region is used.
+	 * 
+	 * @param buffer	A direct byte buffer
+	 * @return			The wrapped region
+	 * @throws BitSyntaxException	Thrown if the buffer is not direct or off-heap memory is not supported
+	 */
+	public static BitRegion wrap(final ByteBuffer buffer) throws BitSyntaxException {
+		check();
+		if (!buffer.isDirect()) throw new BitSyntaxException("Only direct buffers are off-heap");
+		try {
+			final long offset = UNSAFE.objectFieldOffset(Buffer.class.getDeclaredField("address"));
+			return new BitRegion(UNSAFE.getLong(buffer, offset), buffer.capacity(), false);
+		} catch (NoSuchFieldException e) {
+			throw new BitSyntaxException(e);
+		}
+	}
+
+	public long address() {
+		return address;
+	}
+
+	public long size() {
+		return size;
+	}
+
+	/**
+	 * Copy bytes into the region
+	 */
+	public void put(final long offset, final byte[] src, final int from, final int length) throws BitSyntaxException {
+		bounds(offset, length);
+		if (from < 0 || length < 0 || from + length > src.length) throw new IndexOutOfBoundsException();
+		UNSAFE.copyMemory(src, BYTE_ARRAY_OFFSET + from, null, address + offset, length);
+	}
+
+	/**
+	 * Copy bytes out of the region
+	 */
+	public void get(final long offset, final byte[] dst, final int from, final int length) throws BitSyntaxException {
+		bounds(offset, length);
+		if (from < 0 || length < 0 || from + length > dst.length) throw new IndexOutOfBoundsException();
+		UNSAFE.copyMemory(null, address + offset, dst, BYTE_ARRAY_OFFSET + from, length);
+	}
+
+	/**
+	 * Free an allocated region. Regions that wrap memory owned elsewhere are not freed.
+	 * 
+	 * A frame is only bounds checked before it is decoded, so a region must not be freed
+	 * while another thread is decoding from it. Decodes that start after the free throw.
+	 */
+	public synchronized void free() {
+		if (owned && !freed) {
+			freed = true;
+			UNSAFE.freeMemory(address);
+		}
+	}
+
+	/**
+	 * Checks a frame lies within the region, once per frame
+	 * 
+	 * @throws BitSyntaxException	Thrown if the frame lies outside of the region
+	 */
+	void bounds(final long offset, final long length) throws BitSyntaxException {
+		if (freed) throw new BitSyntaxException("Region has been freed");
+		if (offset < 0 || length < 0 || offset > size - length) {
+			throw new BitSyntaxException("Frame of " + length + " bytes at " + offset + " outside of region of " + size + " bytes");
+		}
+	}
+
+	private static void check() throws BitSyntaxException {
+		if (UNSAFE == null) throw new BitSyntaxException("Off-heap memory is not supported");
+	}
+
+	private static Unsafe unsafe() {
+		try {
+			final Field field = Unsafe.class.getDeclaredField("theUnsafe");
+			field.setAccessible(true);
+			return (Unsafe) field.get(null);
+		} catch (Throwable t) {
+			return null;
+		}
+	}
+}
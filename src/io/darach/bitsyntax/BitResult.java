@@ -0,0 +1,153 @@
+// Copyright (c) 2013 Darach Ennis < darach at gmail dot com >.
+//
+// Permission is hereby granted, free of charge, to any person obtaining a
+// copy of this software and associated documentation files (the
+// "Software"), to deal in the Software without restriction, including
+// without limitation the rights to use, copy, modify, merge, publish,
+// distribute, sublicense, and/or sell copies of the Software, and to permit
+// persons to whom the Software is furnished to do so, subject to the
+// following conditions:  
+//
+// The above copyright notice and this permission notice shall be included
+// in all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS
+// OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+// MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN
+// NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+// DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+// OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE
+// USE OR OTHER DEALINGS IN THE SOFTWARE.
+
+package io.darach.bitsyntax;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * A BitResult holds the segments <code>BitPattern.extract</code> extracts. Each bit
+ * pattern generates a result class of its own with one field per labeled segment, so
+ * an extract allocates the result and the extracted segments only.
+ * 
+ * Segments are read by label, as an associative map, or by slot, the zero based position
+ * of the segment amongst the labeled segments of the pattern in declaration order. Labels
+ * are looked up by a switch on their hash codes. As with an associative map, the label of
+ * segments sharing a label refers to the last of these segments.
+ * 
+ * The labels of a result are fixed by its pattern. The segment of a label may be
+ * replaced with <code>put</code>, but labels cannot be added or removed.
+ */
+public abstract class BitResult extends AbstractMap<String,byte[]> {
+	protected BitResult() { }
+
+	/**
+	 * Read a segment by slot
+	 * 
+	 * @param slot		The slot of a labeled segment
+	 * @return			The segment as extracted
+	 * @throws BitSyntaxException	Thrown if no segment has this slot
+	 */
+	public abstract byte[] get(final int slot) throws BitSyntaxException;
+
+	/**
+	 * The <code>slot</code> of a label
+	 * 
+	 * @param label		The label of a segment
+	 * @return			The slot of the last segment with this label, or -1 if no segment has this label
+	 */
+	public abstract int slot(final Object label);
+
+	/**
+	 * The label of a slot
+	 * 
+	 * @param slot		The slot of a labeled segment
+	 * @return			The label of the segment
+	 * @throws BitSyntaxException	Thrown if no segment has this slot
+	 */
+	public abstract String label(final int slot) throws BitSyntaxException;
+
+	/**
+	 * The number of labeled segments, one more than the last slot
+	 */
+	public abstract int slots();
+
+	/**
+	 * Sets a segment by slot as it is extracted, called by generated code only
+	 */
+	public abstract void set(final int slot, final byte[] value);
+
+	/**
+	 * A new empty result of the same pattern
+	 */
+	protected abstract BitResult create();
+
+	@Override
+	public byte[] get(final Object label) {
+		final int slot = slot(label);
+		return (slot >= 0) ? get(slot) : null;
+	}
+
+	@Override
+	public boolean containsKey(final Object label) {
+		return slot(label) >= 0;
+	}
+
+	/**
+	 * Replaces the segment of a label, that of the last segment with this label
+	 * 
+	 * @throws IllegalArgumentException	Thrown if no segment has this label
+	 */
+	@Override
+	public byte[] put(final String label, final byte[] value) {
+		final int slot = slot(label);
+		if (slot < 0) throw new IllegalArgumentException("No segment labeled " + label);
+		final byte[] previous = get(slot);
+		set(slot, value);
+		return previous;
+	}
+
+	@Override
+	public Set<Map.Entry<String,byte[]>> entrySet() {
+		return new AbstractSet<Map.Entry<String,byte[]>>() {
+			@Override
+			public Iterator<Map.Entry<String,byte[]>> iterator() {
+				return new Iterator<Map.Entry<String,byte[]>>() {
+					private int slot = next(0);
+
+					// The next slot from a slot that is the last of its label
+					private int next(int from) {
+						while (from < slots() && slot(label(from)) != from) from++;
+						return from;
+					}
+
+					@Override
+					public boolean hasNext() {
+						return slot < slots();
+					}
+
+					@Override
+					public Map.Entry<String,byte[]> next() {
+						if (!hasNext()) throw new NoSuchElementException();
+						final Map.Entry<String,byte[]> entry = new AbstractMap.SimpleImmutableEntry<String,byte[]>(label(slot), get(slot));
+						slot = next(slot + 1);
+						return entry;
+					}
+
+					@Override
+					public void remove() {
+						throw new UnsupportedOperationException();
+					}
+				};
+			}
+
+			@Override
+			public int size() {
+				return BitResult.this.size();
+			}
+		};
+	}
+}
@@ -0,0 +1,63 @@
+// Copyright (c) 2013 Darach Ennis < darach at gmail dot com >.
+//
+// Permission is hereby granted, free of charge, to any person obtaining a
+// copy of this software and associated documentation files (the
+// "Software"), to deal in the Software without restriction, including
+// without limitation the rights to use, copy, modify, merge, publish,
+// distribute, sublicense, and/or sell copies of the Software, and to permit
+// persons to whom the Software is furnished to do so, subject to the
+// following conditions:  
+//
+// The above copyright notice and this permission notice shall be included
+// in all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS
+// OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+// MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN
+// NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+// DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+// OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE
+// USE OR OTHER DEALINGS IN THE SOFTWARE.
+
+package io.darach.bitsyntax;
+
+/**
+ * A BitSegmentSink receives the labeled segments of a binary from
+ * <code>BitPattern.extractInto</code> as each segment matches, in declaration order,
+ * without any result container or copy of the binary.
+ * 
+ * Integer segments of constant size of at most 64 bits are passed as a long, and float
+ * and double segments of 32 or 64 bits as a double, honouring the endianness and
+ * signedness of the segment. All other labeled segments are passed as their offset and
+ * size in bits in the binary, to be read in place.
+ * 
+ * Segments are identified by slot, the zero based position of the segment amongst the
+ * labeled segments of the pattern in declaration order.
+ */
+public interface BitSegmentSink {
+	/**
+	 * An integer segment has matched
+	 * 
+	 * @param slot		The slot of the segment
+	 * @param value		The value of the segment
+	 */
+	public void onInt(final int slot, final long value);
+
+	/**
+	 * A float or double segment has matched
+	 * 
+	 * @param slot		The slot of the segment
+	 * @param value		The value of the segment
+	 */
+	public void onDouble(final int slot, final double value);
+
+	/**
+	 * A binary segment, or a segment not readable as a primitive, has matched
+	 * 
+	 * @param slot		The slot of the segment
+	 * @param binary	The binary being matched, not to be modified
+	 * @param bitOffset	The offset in bits of the segment in the binary
+	 * @param bitLength	The size in bits of the segment
+	 */
+	public void onBinary(final int slot, final byte[] binary, final int bitOffset, final int bitLength);
+}
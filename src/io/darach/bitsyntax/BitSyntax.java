@@ -24,6 +24,9 @@ package io.darach.bitsyntax;
 
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
 
 import org.antlr.v4.runtime.*;
 
@@ -97,11 +100,43 @@ public class BitSyntax {
         return v;
     }
 
+	private static final BitSyntaxCache CACHE = new BitSyntaxCache(Integer.getInteger("io.darach.bitsyntax.cache.size", 256));
+
+	private static volatile BitSyntaxClassDefiner definer = "hidden".equals(System.getProperty("io.darach.bitsyntax.definer")) && BitSyntaxHiddenClassDefiner.isSupported()
+		? new BitSyntaxHiddenClassDefiner()
+		: new BitSyntaxClassLoaderDefiner();
+
+	/**
+	 * The strategy used to define generated classes. Each pattern is defined in a class
+	 * loader of its own by default, setting the io.darach.bitsyntax.definer system property
+	 * to hidden defines hidden classes instead where supported.
+	 */
+	public static BitSyntaxClassDefiner getClassDefiner() {
+		return definer;
+	}
+
+	public static void setClassDefiner(final BitSyntaxClassDefiner definer) {
+		if (definer == null) throw new IllegalArgumentException("Class definer must not be null");
+		BitSyntax.definer = definer;
+	}
+
+	/**
+	 * The cache of compiled patterns. Its maximum size defaults to 256 and may be
+	 * set with the io.darach.bitsyntax.cache.size system property, zero disables it.
+	 */
+	public static BitSyntaxCache cache() {
+		return CACHE;
+	}
+
 	public static BitPattern compile(String source) throws IOException {
 		return compile("bitsyntax.generated", "Expr", source);
 	}
 	
 	public static BitPattern compile( String packageName, String className, String source) throws IOException {
+		return CACHE.compile(packageName, className, source);
+	}
+
+	private static BitSyntaxParser.BinaryContext parse(String source) throws IOException {
 		// Convert string to stream
 		final ByteArrayInputStream bais = new ByteArrayInputStream(source.getBytes());
         final ANTLRInputStream input = new ANTLRInputStream(bais);
@@ -112,17 +147,106 @@ public class BitSyntax {
 
         // Parser lexed tokens into an AST
         final BitSyntaxParser parser = new BitSyntaxParser(tokens);
-        final BitSyntaxParser.BinaryContext binary = parser.binary();
+        return parser.binary();
+	}
+
+	public static BitClauses compileClauses(String... sources) throws IOException {
+		return compileClauses("bitsyntax.generated", "Clauses", Arrays.asList(sources));
+	}
+
+	/**
+	 * Compiles an ordered list of bit patterns, the clauses, into a single dispatcher
+	 * matching a binary against the first clause that matches.
+	 */
+	public static BitClauses compileClauses(String packageName, String className, List<String> sources) throws IOException {
+		final AbstractBitPattern[] patterns = new AbstractBitPattern[sources.size()];
+		final BitSyntaxClausesPrinter printer = new BitSyntaxClausesPrinter(packageName, className);
+		for (int i = 0; i < patterns.length; i++) {
+			patterns[i] = (AbstractBitPattern) compile(packageName, "Expr", sources.get(i));
+			printer.clause(parse(sources.get(i)));
+		}
+		printer.print();
+
+		final Class<?>[] classes = definer.define(new String[] { printer.getBinaryName() }, new byte[][] { printer.toByteArray() });
+		try {
+			final AbstractBitClauses clauses = (AbstractBitClauses) classes[0].newInstance();
+			clauses.clauses = patterns;
+			return clauses;
+		} catch (InstantiationException e) {
+			throw new BitSyntaxException(e);
+		} catch (IllegalAccessException e) {
+			throw new BitSyntaxException(e);
+		}
+	}
+
+	public static <T> BitBinder<T> compile(String source, Class<T> target) throws IOException {
+		return compile("bitsyntax.generated", "Expr", source, target);
+	}
+
+	/**
+	 * Compiles a bit pattern into a binder decoding a binary directly into a new instance
+	 * of a target class, each labeled segment bound to the member of the target of the
+	 * same name. Binders are not cached, compile each once and share it.
+	 * 
+	 * The binder is defined in a class loader of its own that sees both the bitsyntax
+	 * runtime and the target, regardless of the class definer in use.
+	 */
+	public static <T> BitBinder<T> compile(String packageName, String className, String source, Class<T> target) throws IOException {
+		final BitPattern pattern = compile(packageName, className, source);
+		final BitSyntaxBinderPrinter printer = new BitSyntaxBinderPrinter(target);
+		printer.setPackageName(packageName);
+		printer.setClassName(className);
+		visit(parse(source), printer);
+
+		final ClassLoader parent = (target.getClassLoader() == null) ? BitSyntax.class.getClassLoader() : new BinderClassLoader(target.getClassLoader());
+		final Class<?>[] classes = new BitSyntaxClassLoaderDefiner(parent).define(new String[] { printer.getBinaryName() }, new byte[][] { printer.toByteArray() });
+		try {
+			@SuppressWarnings("unchecked")
+			final AbstractBitBinder<T> binder = (AbstractBitBinder<T>) classes[0].newInstance();
+			binder.target = target;
+			binder.pattern = pattern;
+			return binder;
+		} catch (InstantiationException e) {
+			throw new BitSyntaxException(e);
+		} catch (IllegalAccessException e) {
+			throw new BitSyntaxException(e);
+		}
+	}
+
+	// Sees the bitsyntax runtime first and then the classes of the loader of a binder target
+	private static final class BinderClassLoader extends ClassLoader {
+		private final ClassLoader target;
+
+		BinderClassLoader(final ClassLoader target) {
+			super(BitSyntax.class.getClassLoader());
+			this.target = target;
+		}
+
+		@Override
+		protected Class<?> findClass(final String name) throws ClassNotFoundException {
+			return target.loadClass(name);
+		}
+	}
+
+	static BitPattern generate( String packageName, String className, String source) throws IOException {
+		return generate(packageName, className, source, null);
+	}
+
+	static BitPattern generate( String packageName, String className, String source, Map<String,Integer> binding) throws IOException {
+		final BitSyntaxParser.BinaryContext binary = parse(source);
 
         final BitSyntaxExpandoVisitor visitor0 = new BitSyntaxExpandoVisitor();
         final BitSyntaxSourcePrinter visitor1 = new BitSyntaxSourcePrinter();
         final BitSyntaxBytecodePrinter visitor2 = new BitSyntaxBytecodePrinter();
+        final BitSyntaxFlyweightPrinter visitor3 = new BitSyntaxFlyweightPrinter();
+        final BitSyntaxResultPrinter visitor4 = new BitSyntaxResultPrinter();
 
         // Extract Segments from abstract syntax tree
         
         visitor0.setSource(source);
         visitor0.setPackageName(packageName);
         visitor0.setClassName(className);
+        visitor0.setBinding(binding);
         visitor1.setSource(source);
         visitor1.setPackageName(packageName);
         visitor1.setClassName(className);
@@ -135,13 +259,35 @@ public class BitSyntax {
         visitor2.setExpansion(visitor0.meta());
         visitor2.setPackageName(packageName);
         visitor2.setClassName(className);
+        visitor2.setBinding(binding);
+        visitor3.setPackageName(packageName);
+        visitor3.setClassName(visitor2.getClassName() + "Flyweight");
+        visitor3.setBinding(binding);
+        visitor4.setPackageName(packageName);
+        visitor4.setClassName(visitor2.getClassName() + "Result");
         visit(binary,visitor1);
         visit(binary,visitor2);
+        visit(binary,visitor3);
+        visit(binary,visitor4);
 
+        final Class<?>[] classes = definer.define(
+        	new String[] { visitor2.getBinaryName(), visitor3.getBinaryName(), visitor4.getBinaryName() },
+        	new byte[][] { visitor2.toByteArray(), visitor3.toByteArray(), visitor4.toByteArray() });
         try {
-			return visitor2.load();
-		} catch (Exception e) {
-			throw new RuntimeException(e);
+			final AbstractBitPattern pattern = (AbstractBitPattern) classes[0].newInstance();
+			pattern.flyweightClass = classes[1].asSubclass(BitFlyweight.class);
+			pattern.labels = AbstractBitPattern.index(visitor2.getLabels());
+			pattern.columns = visitor2.getColumns();
+			pattern.result = (BitResult) classes[2].newInstance();
+			pattern.packageName = packageName;
+			pattern.className = className;
+			pattern.source = source;
+			pattern.binding = binding;
+			return pattern;
+		} catch (InstantiationException e) {
+			throw new BitSyntaxException(e);
+		} catch (IllegalAccessException e) {
+			throw new BitSyntaxException(e);
 		}
 	}
 }
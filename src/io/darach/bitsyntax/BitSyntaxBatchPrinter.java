@@ -0,0 +1,134 @@
+// Copyright (c) 2013 Darach Ennis < darach at gmail dot com >.
+//
+// Permission is hereby granted, free of charge, to any person obtaining a
+// copy of this software and associated documentation files (the
+// "Software"), to deal in the Software without restriction, including
+// without limitation the rights to use, copy, modify, merge, publish,
+// distribute, sublicense, and/or sell copies of the Software, and to permit
+// persons to whom the Software is furnished to do so, subject to the
+// following conditions:  
+//
+// The above copyright notice and this permission notice shall be included
+// in all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS
+// OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+// MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN
+// NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+// DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+// OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE
+// USE OR OTHER DEALINGS IN THE SOFTWARE.
+
+package io.darach.bitsyntax;
+
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.Label;
+
+import static org.objectweb.asm.Opcodes.*;
+import static io.darach.bitsyntax.BitSyntaxBytecodeHelper.*;
+
+/**
+ * Generates <code>decodedBatch</code>, the method backing <code>BitPattern.decodeBatch</code>,
+ * decoding a run of records of a fixed stride as <code>decoded</code> decodes a single
+ * record. The segments of a record are decoded in a single loop over the records, each
+ * labeled integer or real segment into the column of its slot at the index of the record.
+ * Slots without a column are not decoded.
+ * 
+ * Records are decoded from an offset in bits of the binary into the rows of the columns
+ * from an index. The method returns the number of records decoded, or the complement of
+ * the row of the first record that does not match.
+ */
+public class BitSyntaxBatchPrinter extends BitSyntaxDecodePrinter {
+	private final Label loop = new Label();
+	private final Label done = new Label();
+	private int offset;
+	private int index;
+	private int count;
+	private int stride;
+	private int record;
+
+	public BitSyntaxBatchPrinter(final ClassWriter cw, final String fqcn) {
+		super(cw, fqcn);
+	}
+
+	@Override
+	protected int begin() {
+		mv = cw.visitMethod(ACC_PUBLIC, "decodedBatch", "([BIIII[[J[[D)I", null, null);
+		mv.visitCode();
+		offset = 2;
+		index = 3;
+		count = 4;
+		stride = 5;
+		integers = 6;
+		reals = 7;
+		origin = 8;
+		record = 9;
+		width = 10;
+		// The count becomes the row following the last record
+		mv.visitVarInsn(ILOAD, index);
+		mv.visitVarInsn(ILOAD, count);
+		mv.visitInsn(IADD);
+		mv.visitVarInsn(ISTORE, count);
+		mv.visitVarInsn(ILOAD, index);
+		mv.visitVarInsn(ISTORE, record);
+		mv.visitVarInsn(ILOAD, offset);
+		mv.visitVarInsn(ISTORE, origin);
+		mv.visitLabel(loop);
+		mv.visitVarInsn(ILOAD, record);
+		mv.visitVarInsn(ILOAD, count);
+		mv.visitJumpInsn(IF_ICMPGE, done);
+		return 11;
+	}
+
+	// Each record is matched within its stride
+	@Override
+	protected void pushTotal() {
+		mv.visitVarInsn(ILOAD, stride);
+	}
+
+	@Override
+	protected void target(boolean integer, int slot, Label skip) {
+		final int column = newLocal(1);
+		mv.visitVarInsn(ALOAD, integer ? integers : reals);
+		push(mv, slot);
+		mv.visitInsn(AALOAD);
+		mv.visitVarInsn(ASTORE, column);
+		mv.visitVarInsn(ALOAD, column);
+		mv.visitJumpInsn(IFNULL, skip);
+		mv.visitVarInsn(ALOAD, column);
+		mv.visitVarInsn(ILOAD, record);
+	}
+
+	@Override
+	protected void fail() {
+		failRecord();
+	}
+
+	@Override
+	protected void shortfall(int index) {
+		failRecord();
+	}
+
+	// Advances to the next record
+	@Override
+	protected void end() {
+		mv.visitIincInsn(record, 1);
+		mv.visitVarInsn(ILOAD, origin);
+		mv.visitVarInsn(ILOAD, stride);
+		mv.visitInsn(IADD);
+		mv.visitVarInsn(ISTORE, origin);
+		mv.visitJumpInsn(GOTO, loop);
+		mv.visitLabel(done);
+		mv.visitVarInsn(ILOAD, count);
+		mv.visitVarInsn(ILOAD, index);
+		mv.visitInsn(ISUB);
+		mv.visitInsn(IRETURN);
+	}
+
+	private void failRecord() {
+		mv.visitVarInsn(ILOAD, record);
+		mv.visitInsn(ICONST_M1);
+		mv.visitInsn(IXOR);
+		mv.visitInsn(IRETURN);
+	}
+}
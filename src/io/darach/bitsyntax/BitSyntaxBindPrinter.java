@@ -0,0 +1,331 @@
+// Copyright (c) 2013 Darach Ennis < darach at gmail dot com >.
+//
+// Permission is hereby granted, free of charge, to any person obtaining a
+// copy of this software and associated documentation files (the
+// "Software"), to deal in the Software without restriction, including
+// without limitation the rights to use, copy, modify, merge, publish,
+// distribute, sublicense, and/or sell copies of the Software, and to permit
+// persons to whom the Software is furnished to do so, subject to the
+// following conditions:  
+//
+// The above copyright notice and this permission notice shall be included
+// in all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS
+// OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+// MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN
+// NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+// DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+// OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE
+// USE OR OTHER DEALINGS IN THE SOFTWARE.
+
+
+package io.darach.bitsyntax;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.Type;
+
+import io.darach.bitsyntax.BitSyntax.SegmentType;
+import io.darach.bitsyntax.BitSyntax.Signedness;
+
+import static org.objectweb.asm.Opcodes.*;
+import static io.darach.bitsyntax.BitSyntaxParser.*;
+import static io.darach.bitsyntax.BitSyntaxHelper.*;
+import static io.darach.bitsyntax.BitSyntaxBytecodeHelper.*;
+
+/**
+ * Generates <code>decoded</code>, the method backing <code>BitBinder.decode</code>,
+ * binding each labeled segment as it matches onto a new instance of the target class.
+ * Segments are set on a class through public setters or public fields, or held in
+ * locals and passed to the canonical constructor of a record. Members are resolved
+ * as segments are visited, so a segment without a member of a compatible type fails
+ * the compilation of the binder rather than the decode.
+ * 
+ * Returns null rather than a status if the binary does not match.
+ */
+public class BitSyntaxBindPrinter extends BitSyntaxMethodPrinter {
+	// Member types in order of preference where a label has overloaded setters
+	private static final Class<?>[] INTEGERS = { long.class, int.class, short.class, char.class, byte.class, double.class, float.class, byte[].class };
+	private static final Class<?>[] FLOATS = { double.class, float.class, byte[].class };
+
+	private final Class<?> target;
+	private final String owner;
+
+	// Record component types by name in declaration order, null if the target is not a record
+	private final Map<String,Class<?>> components;
+
+	// Locals holding the value of each record component
+	private final Map<String,Integer> values = new HashMap<String,Integer>();
+	private final Set<String> assigned = new HashSet<String>();
+
+	private int instance;
+
+	public BitSyntaxBindPrinter(final ClassWriter cw, final String fqcn, final Class<?> target) {
+		super(cw, fqcn);
+		this.target = target;
+		this.owner = Type.getInternalName(target);
+		this.components = components(target);
+		if (!Modifier.isPublic(target.getModifiers())) {
+			throw new BitSyntaxException("Target " + target.getName() + " must be public");
+		}
+		if (components == null && (target.isInterface() || Modifier.isAbstract(target.getModifiers()) || target.isArray() || target.isPrimitive())) {
+			throw new BitSyntaxException("Target " + target.getName() + " must be a concrete class or a record");
+		}
+	}
+
+	@Override
+	protected int begin() {
+		mv = cw.visitMethod(ACC_PUBLIC, "decoded", "([BLjava/util/Map;)Ljava/lang/Object;", "([BLjava/util/Map<Ljava/lang/String;Ljava/lang/Integer;>;)Ljava/lang/Object;", null);
+		mv.visitCode();
+		sizes = 2;
+		int local = 3;
+		if (components != null) {
+			for (Map.Entry<String,Class<?>> component : components.entrySet()) {
+				values.put(component.getKey(), local);
+				local += Type.getType(component.getValue()).getSize();
+			}
+			return local;
+		}
+
+		try {
+			target.getConstructor();
+		} catch (NoSuchMethodException e) {
+			throw new BitSyntaxException("Target " + target.getName() + " must have a public no-argument constructor");
+		}
+		instance = local++;
+		mv.visitTypeInsn(NEW, owner);
+		mv.visitInsn(DUP);
+		mv.visitMethodInsn(INVOKESPECIAL, owner, "<init>", "()V");
+		mv.visitVarInsn(ASTORE, instance);
+		return local;
+	}
+
+	@Override
+	protected void end() {
+		if (components == null) {
+			mv.visitVarInsn(ALOAD, instance);
+			mv.visitInsn(ARETURN);
+			return;
+		}
+
+		for (String name : components.keySet()) {
+			if (!assigned.contains(name)) {
+				throw new BitSyntaxException("Record component " + name + " of target " + target.getName() + " has no segment");
+			}
+		}
+		final Class<?>[] types = components.values().toArray(new Class<?>[components.size()]);
+		final String descriptor;
+		try {
+			descriptor = Type.getConstructorDescriptor(target.getConstructor(types));
+		} catch (NoSuchMethodException e) {
+			throw new BitSyntaxException("Target " + target.getName() + " must have a public canonical constructor");
+		}
+		mv.visitTypeInsn(NEW, owner);
+		mv.visitInsn(DUP);
+		for (Map.Entry<String,Class<?>> component : components.entrySet()) {
+			final Type type = Type.getType(component.getValue());
+			mv.visitVarInsn(type.getOpcode(ILOAD), values.get(component.getKey()));
+		}
+		mv.visitMethodInsn(INVOKESPECIAL, owner, "<init>", descriptor);
+		mv.visitInsn(ARETURN);
+	}
+
+	@Override
+	protected void fail() {
+		mv.visitInsn(ACONST_NULL);
+		mv.visitInsn(ARETURN);
+	}
+
+	@Override
+	protected void shortfall(int index) {
+		mv.visitInsn(ACONST_NULL);
+		mv.visitInsn(ARETURN);
+	}
+
+	@Override
+	protected void number(SegmentContext segment, int slot) {
+		bind(segment, slot);
+	}
+
+	@Override
+	protected void binary(SegmentContext segment, int slot) {
+		bind(segment, slot);
+	}
+
+	// Pushes the value of a segment as the type of its member and sets the member
+	private void bind(SegmentContext segment, int slot) {
+		final String name = label(segment);
+		if (components != null) {
+			final Class<?> type = components.get(name);
+			if (type == null) {
+				throw new BitSyntaxException("Target " + target.getName() + " has no record component " + name);
+			}
+			check(segment, type);
+			pushValue(segment, slot, type);
+			mv.visitVarInsn(Type.getType(type).getOpcode(ISTORE), values.get(name));
+			assigned.add(name);
+			return;
+		}
+
+		final Method setter = setter(segment);
+		if (setter != null) {
+			mv.visitVarInsn(ALOAD, instance);
+			pushValue(segment, slot, setter.getParameterTypes()[0]);
+			mv.visitMethodInsn(INVOKEVIRTUAL, owner, setter.getName(), Type.getMethodDescriptor(setter));
+			switch (Type.getReturnType(setter).getSize()) {
+			case 1: mv.visitInsn(POP); break;
+			case 2: mv.visitInsn(POP2); break;
+			default: break;
+			}
+			return;
+		}
+
+		final Field field = field(segment);
+		mv.visitVarInsn(ALOAD, instance);
+		pushValue(segment, slot, field.getType());
+		mv.visitFieldInsn(PUTFIELD, owner, field.getName(), Type.getDescriptor(field.getType()));
+	}
+
+	// The public setter named after the label of a segment, preferring the parameter type
+	// closest to the segment where overloaded, or null if there is none
+	private Method setter(SegmentContext segment) {
+		final String name = "set" + Character.toUpperCase(label(segment).charAt(0)) + label(segment).substring(1);
+		final Map<Class<?>,Method> setters = new HashMap<Class<?>,Method>();
+		for (Method method : target.getMethods()) {
+			if (name.equals(method.getName()) && method.getParameterTypes().length == 1 && !Modifier.isStatic(method.getModifiers())) {
+				setters.put(method.getParameterTypes()[0], method);
+			}
+		}
+		if (setters.isEmpty()) return null;
+
+		for (Class<?> type : preference(segment)) {
+			if (setters.containsKey(type) && accepts(segment, type)) {
+				return setters.get(type);
+			}
+		}
+		throw new BitSyntaxException("Segment " + label(segment) + " cannot be bound to any " + name + " of target " + target.getName());
+	}
+
+	private Field field(SegmentContext segment) {
+		final Field field;
+		try {
+			field = target.getField(label(segment));
+		} catch (NoSuchFieldException e) {
+			throw new BitSyntaxException("Target " + target.getName() + " has no public setter or field for segment " + label(segment));
+		}
+		if (Modifier.isStatic(field.getModifiers()) || Modifier.isFinal(field.getModifiers())) {
+			throw new BitSyntaxException("Field " + field.getName() + " of target " + target.getName() + " must not be static or final");
+		}
+		check(segment, field.getType());
+		return field;
+	}
+
+	private void check(SegmentContext segment, Class<?> type) {
+		if (!accepts(segment, type)) {
+			throw new BitSyntaxException("Segment " + label(segment) + " cannot be bound to " + type.getSimpleName() + " " + label(segment) + " of target " + target.getName());
+		}
+	}
+
+	private Class<?>[] preference(SegmentContext segment) {
+		switch(typeof(segment)) {
+		case Integer: return INTEGERS;
+		case Float:
+		case Double: return FLOATS;
+		default: return new Class<?>[] { byte[].class };
+		}
+	}
+
+	/**
+	 * Any segment may be bound to an array of bytes. Numeric segments of constant size
+	 * that are readable as a primitive may also be bound to a primitive that holds its
+	 * value. A signed integer may be bound to a signed primitive at least as wide, an
+	 * unsigned integer to one wider or to a char at least as wide, and either to a float
+	 * or a double unless unsigned of 64 bits. A float may be bound to a double or, if
+	 * of 32 bits, a float.
+	 */
+	private boolean accepts(SegmentContext segment, Class<?> type) {
+		if (byte[].class.equals(type)) return true;
+		if (!type.isPrimitive() || !isConstant(segment) || !isPrimitive(segment, binding)) return false;
+
+		final int bits = bits(segment, binding);
+		if (!SegmentType.Integer.equals(typeof(segment))) {
+			return double.class.equals(type) || (float.class.equals(type) && bits == 32);
+		}
+
+		// The sign bit of a signed primitive is not available to the bits of an unsigned integer
+		final boolean signed = Signedness.Signed.equals(signedness(segment));
+		final int available = signed ? bits : bits + 1;
+		if (char.class.equals(type)) return !signed && bits <= 16;
+		if (long.class.equals(type) || double.class.equals(type) || float.class.equals(type)) return available <= 64;
+		if (int.class.equals(type)) return available <= 32;
+		if (short.class.equals(type)) return available <= 16;
+		if (byte.class.equals(type)) return available <= 8;
+		return false;
+	}
+
+	// Pushes the value of a matched segment converted to the type of its member
+	private void pushValue(SegmentContext segment, int slot, Class<?> type) {
+		if (byte[].class.equals(type)) {
+			mv.visitVarInsn(ALOAD, binary);
+			pushMark();
+			width(segment);
+			mv.visitMethodInsn(INVOKESTATIC, HELPER, "bitgrok", "([BII)[B");
+			return;
+		}
+
+		value(segment, slot);
+		if (!SegmentType.Integer.equals(typeof(segment))) {
+			if (bits(segment, binding) == 32) {
+				mv.visitInsn(L2I);
+				mv.visitMethodInsn(INVOKESTATIC, "java/lang/Float", "intBitsToFloat", "(I)F");
+				if (double.class.equals(type)) mv.visitInsn(F2D);
+			} else {
+				mv.visitMethodInsn(INVOKESTATIC, "java/lang/Double", "longBitsToDouble", "(J)D");
+			}
+			return;
+		}
+		if (long.class.equals(type)) return;
+		if (double.class.equals(type)) {
+			mv.visitInsn(L2D);
+		} else if (float.class.equals(type)) {
+			mv.visitInsn(L2F);
+		} else {
+			mv.visitInsn(L2I);
+			if (short.class.equals(type)) mv.visitInsn(I2S);
+			if (char.class.equals(type)) mv.visitInsn(I2C);
+			if (byte.class.equals(type)) mv.visitInsn(I2B);
+		}
+	}
+
+	// The components of a record by name, looked up reflectively so that records are bound
+	// where the runtime supports them while the library itself targets older runtimes
+	private static Map<String,Class<?>> components(Class<?> target) {
+		try {
+			if (!((Boolean) Class.class.getMethod("isRecord").invoke(target))) return null;
+			final Map<String,Class<?>> components = new LinkedHashMap<String,Class<?>>();
+			for (Object component : (Object[]) Class.class.getMethod("getRecordComponents").invoke(target)) {
+				final Method name = component.getClass().getMethod("getName");
+				final Method type = component.getClass().getMethod("getType");
+				components.put((String) name.invoke(component), (Class<?>) type.invoke(component));
+			}
+			return components;
+		} catch (NoSuchMethodException e) {
+			// Records are not supported by this runtime
+			return null;
+		} catch (IllegalAccessException e) {
+			throw new BitSyntaxException(e);
+		} catch (InvocationTargetException e) {
+			throw new BitSyntaxException(e);
+		}
+	}
+}
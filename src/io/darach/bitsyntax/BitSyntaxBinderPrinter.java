@@ -0,0 +1,139 @@
+// Copyright (c) 2013 Darach Ennis < darach at gmail dot com >.
+//
+// Permission is hereby granted, free of charge, to any person obtaining a
+// copy of this software and associated documentation files (the
+// "Software"), to deal in the Software without restriction, including
+// without limitation the rights to use, copy, modify, merge, publish,
+// distribute, sublicense, and/or sell copies of the Software, and to permit
+// persons to whom the Software is furnished to do so, subject to the
+// following conditions:  
+//
+// The above copyright notice and this permission notice shall be included
+// in all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS
+// OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+// MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN
+// NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+// DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+// OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE
+// USE OR OTHER DEALINGS IN THE SOFTWARE.
+
+
+package io.darach.bitsyntax;
+
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.MethodVisitor;
+
+import static org.objectweb.asm.Opcodes.*;
+import static io.darach.bitsyntax.BitSyntaxParser.*;
+
+/**
+ * The <code>BitSyntaxBinderPrinter</code> visits a bit syntax ANTLR v4 AST
+ * and generates a <code>BitBinder</code> decoding a binary directly into an
+ * instance of a target class. The decode itself is generated by a
+ * <code>BitSyntaxBindPrinter</code>.
+ */
+public class BitSyntaxBinderPrinter implements BitSyntaxVisitor {
+	private static final String BINDER = "io/darach/bitsyntax/AbstractBitBinder";
+
+	private static AtomicLong counter = new AtomicLong();
+	private final long invocationCount = counter.incrementAndGet();
+
+	// defaults
+	private String packageName = "bitsyntax.generated";
+	private String clazzName;
+
+	private final Class<?> target;
+	private Map<String,Integer> binding;
+
+	private ClassWriter cw = new ClassWriter(ClassWriter.COMPUTE_FRAMES);
+	private MethodVisitor mv;
+	private BitSyntaxBindPrinter bind;
+
+	// For ASM
+	private String fqcn;
+
+	// For Reflection
+	private String rflx;
+
+	public BitSyntaxBinderPrinter(final Class<?> target) {
+		this.target = target;
+	}
+
+	public void setPackageName(final String packageName) {
+		this.packageName = packageName;
+	}
+
+	public void setSource(final String sourceText) {
+		// Ignore
+	}
+
+	public void setClassName(final String clazzNameStub) {
+		clazzName = clazzNameStub + invocationCount + "Binder";
+		fqcn = packageName.replace('.', '/') + '/' + clazzName;
+		rflx = packageName + "." + clazzName;
+	}
+
+	public void setBinding(final Map<String, Integer> binding) {
+		this.binding = binding;
+	}
+
+	public void prologue() {
+		cw.visit(V1_6, ACC_PUBLIC + ACC_FINAL + ACC_SUPER, fqcn, null, BINDER, null);
+
+		// Default ctor
+		mv = cw.visitMethod(ACC_PUBLIC, "<init>", "()V", null, null);
+		mv.visitCode();
+		mv.visitVarInsn(ALOAD, 0);
+		mv.visitMethodInsn(INVOKESPECIAL, BINDER, "<init>", "()V");
+		mv.visitInsn(RETURN);
+		mv.visitMaxs(1, 1);
+		mv.visitEnd();
+
+		bind = new BitSyntaxBindPrinter(cw, fqcn, target);
+		bind.setBinding(binding);
+		bind.prologue();
+	}
+
+	@Override
+	public void skipSegment(SegmentContext segment) {
+		bind.skipSegment(segment);
+	}
+
+	@Override
+	public void numberSegment(SegmentContext segment) {
+		bind.numberSegment(segment);
+	}
+
+	@Override
+	public void binarySegment(SegmentContext segment) {
+		bind.binarySegment(segment);
+	}
+
+	@Override
+	public void stringSegment(SegmentContext segment) {
+		bind.stringSegment(segment);
+	}
+
+	@Override
+	public void epilogue() {
+		bind.epilogue();
+		cw.visitEnd();
+	}
+
+	public String getClassName() {
+		return clazzName;
+	}
+
+	public String getBinaryName() {
+		return rflx;
+	}
+
+	public byte[] toByteArray() {
+		return cw.toByteArray();
+	}
+}
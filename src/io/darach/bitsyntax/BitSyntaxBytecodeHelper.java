@@ -0,0 +1,142 @@
+// Copyright (c) 2013 Darach Ennis < darach at gmail dot com >.
+//
+// Permission is hereby granted, free of charge, to any person obtaining a
+// copy of this software and associated documentation files (the
+// "Software"), to deal in the Software without restriction, including
+// without limitation the rights to use, copy, modify, merge, publish,
+// distribute, sublicense, and/or sell copies of the Software, and to permit
+// persons to whom the Software is furnished to do so, subject to the
+// following conditions:  
+//
+// The above copyright notice and this permission notice shall be included
+// in all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS
+// OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+// MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN
+// NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+// DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+// OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE
+// USE OR OTHER DEALINGS IN THE SOFTWARE.
+
+
+package io.darach.bitsyntax;
+
+import java.util.Map;
+
+import org.objectweb.asm.MethodVisitor;
+
+import io.darach.bitsyntax.BitSyntax.Endianness;
+import io.darach.bitsyntax.BitSyntax.SegmentType;
+import io.darach.bitsyntax.BitSyntax.Signedness;
+import io.darach.bitsyntax.BitSyntaxParser.SegmentContext;
+
+import static org.objectweb.asm.Opcodes.*;
+import static io.darach.bitsyntax.BitSyntaxHelper.*;
+
+/**
+ * Bytecode sequences shared by the bytecode generating visitors.
+ */
+public class BitSyntaxBytecodeHelper {
+	public static final String HELPER = "io/darach/bitsyntax/BitHelper";
+	public static final String EXCEPTION = "io/darach/bitsyntax/BitSyntaxException";
+
+	// Descriptors of the binaries generated methods read from, an off-heap binary
+	// is described by its address and its length in bytes, both longs
+	public static final String BYTES = "[B";
+	public static final String BUFFER = "Ljava/nio/ByteBuffer;";
+	public static final String ADDRESS = "JJ";
+
+	private BitSyntaxBytecodeHelper() { }
+
+	public static void push(MethodVisitor mv, int value) {
+		if (value >= -1 && value <= 5) {
+			mv.visitInsn(ICONST_0 + value);
+		} else if (value >= Byte.MIN_VALUE && value <= Byte.MAX_VALUE) {
+			mv.visitIntInsn(BIPUSH, value);
+		} else if (value >= Short.MIN_VALUE && value <= Short.MAX_VALUE) {
+			mv.visitIntInsn(SIPUSH, value);
+		} else {
+			mv.visitLdcInsn(value);
+		}
+	}
+
+	public static void mismatch(MethodVisitor mv, String message) {
+		mv.visitTypeInsn(NEW, EXCEPTION);
+		mv.visitInsn(DUP);
+		mv.visitLdcInsn(message);
+		mv.visitMethodInsn(INVOKESPECIAL, EXCEPTION, "<init>", "(Ljava/lang/String;)V");
+		mv.visitInsn(ATHROW);
+	}
+
+	/**
+	 * Is the segment readable as a primitive given its size in bits. Integers of at most
+	 * 64 bits, floats and doubles of 32 or 64 bits are primitives. The size of segments
+	 * that consume the rest of a binary, or of unbound variable size, is only known once
+	 * matched, so these are treated as primitives and their size checked when read.
+	 */
+	public static boolean isPrimitive(SegmentContext segment, Map<String,Integer> binding) {
+		if (isRest(segment) || !isBound(segment, binding)) return !SegmentType.Binary.equals(typeof(segment));
+		final int bits = bits(segment, binding);
+		switch(typeof(segment)) {
+		case Integer: return bits <= 64;
+		case Float:
+		case Double: return bits == 32 || bits == 64;
+		default: return false;
+		}
+	}
+
+	/**
+	 * Emits the read of a numeric segment of at most 64 bits honouring its endianness
+	 * and, for integers, its signedness. Expects the binary and the offset in bits of
+	 * the segment on the operand stack and leaves the raw segment value as a long.
+	 *
+	 * @param mv		The method being generated
+	 * @param segment	The segment being read
+	 * @param bits		The size of the segment in bits, iff known
+	 * @param local		The local variable holding the size of the segment in bits, iff bits is not known
+	 */
+	public static void readBits(MethodVisitor mv, SegmentContext segment, int bits, int local) {
+		readBits(mv, segment, bits, local, BYTES);
+	}
+
+	/**
+	 * Emits the read of a numeric segment of at most 64 bits from a binary of the given
+	 * descriptor, either an array of bytes or a byte buffer
+	 *
+	 * @see #readBits(MethodVisitor, SegmentContext, int, int)
+	 */
+	public static void readBits(MethodVisitor mv, SegmentContext segment, int bits, int local, String descriptor) {
+		width(mv, bits, local);
+		mv.visitMethodInsn(INVOKESTATIC, HELPER, "readBits", "(" + descriptor + "II)J");
+		if (Endianness.Little.equals(endianess(segment))) {
+			width(mv, bits, local);
+			mv.visitMethodInsn(INVOKESTATIC, HELPER, "littleEndian", "(JI)J");
+		}
+		if (SegmentType.Integer.equals(typeof(segment)) && Signedness.Signed.equals(signedness(segment)) && (local >= 0 || bits < 64)) {
+			// Sign extend, a shift of 64 - 64 bits is a no-op
+			extension(mv, bits, local);
+			mv.visitInsn(LSHL);
+			extension(mv, bits, local);
+			mv.visitInsn(LSHR);
+		}
+	}
+
+	private static void width(MethodVisitor mv, int bits, int local) {
+		if (local >= 0) {
+			mv.visitVarInsn(ILOAD, local);
+		} else {
+			push(mv, bits);
+		}
+	}
+
+	private static void extension(MethodVisitor mv, int bits, int local) {
+		if (local >= 0) {
+			mv.visitIntInsn(BIPUSH, 64);
+			mv.visitVarInsn(ILOAD, local);
+			mv.visitInsn(ISUB);
+		} else {
+			push(mv, 64 - bits);
+		}
+	}
+}
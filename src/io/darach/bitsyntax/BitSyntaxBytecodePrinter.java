@@ -22,17 +22,17 @@
 
 package io.darach.bitsyntax;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.atomic.AtomicLong;
 
 import org.objectweb.asm.ClassWriter;
 import org.objectweb.asm.FieldVisitor;
-import org.objectweb.asm.Label;
 import org.objectweb.asm.MethodVisitor;
 
 import static org.objectweb.asm.Opcodes.*;
 import static io.darach.bitsyntax.BitSyntaxParser.*;
-import static io.darach.bitsyntax.BitSyntaxHelper.*;
 
 public class BitSyntaxBytecodePrinter implements BitSyntaxVisitor {
 	private static AtomicLong counter = new AtomicLong();
@@ -45,12 +45,14 @@ public class BitSyntaxBytecodePrinter implements BitSyntaxVisitor {
 	private String clazzName;
 	
 	
-	private ClassWriter cw = new ClassWriter(0);
+	private ClassWriter cw = new ClassWriter(ClassWriter.COMPUTE_FRAMES);
 	private MethodVisitor mv;
 	private FieldVisitor fv;
-	private int storeIndex = 8;
+	private final List<BitSyntaxVisitor> methods = new ArrayList<BitSyntaxVisitor>();
+	private BitSyntaxFramePrinter frame;
+	private BitSyntaxLocatePrinter locate;
+	private BitSyntaxBatchPrinter batch;
 	
-	@SuppressWarnings("unused") // @NOTE Used in generated bytecode
 	private Map<String,Integer> binding = null;
 
 	// For ASM
@@ -79,6 +81,10 @@ public class BitSyntaxBytecodePrinter implements BitSyntaxVisitor {
 		rflx = packageName + "." + clazzName;
 	}
 	
+	public String getClassName() {
+		return clazzName;
+	}
+	
 	public void setBinding(final Map<String,Integer> binding) {
 		this.binding = binding;
 	}
@@ -104,194 +110,59 @@ public class BitSyntaxBytecodePrinter implements BitSyntaxVisitor {
 		mv.visitMaxs(1, 1);
 		mv.visitEnd();
 		
-		// CG hook
-		mv = cw.visitMethod(ACC_PUBLIC, "generated", "([BLjava/util/Map;)Ljava/util/Map;", "([BLjava/util/Map<Ljava/lang/String;Ljava/lang/Integer;>;)Ljava/util/Map<Ljava/lang/String;[B>;", null);
-		mv.visitCode();
-		mv.visitTypeInsn(NEW, "java/util/HashMap");
-		mv.visitInsn(DUP);
-		mv.visitMethodInsn(INVOKESPECIAL, "java/util/HashMap", "<init>", "()V");
-		mv.visitVarInsn(ASTORE, 3);
-		mv.visitVarInsn(ALOAD, 0);
-		mv.visitVarInsn(ALOAD, 2);
-		Label l0 = new Label();
-		mv.visitJumpInsn(IFNULL, l0);
-		mv.visitVarInsn(ALOAD, 2);
-		Label l1 = new Label();
-		mv.visitJumpInsn(GOTO, l1);
-		mv.visitLabel(l0);
-		mv.visitFrame(F_FULL, 4, new Object[] { fqcn, "[B", "java/util/Map", "java/util/Map"}, 1, new Object[] { fqcn});
-		mv.visitTypeInsn(NEW, "java/util/HashMap");
-		mv.visitInsn(DUP);
-		mv.visitMethodInsn(INVOKESPECIAL, "java/util/HashMap", "<init>", "()V");
-		mv.visitLabel(l1);
-		mv.visitFrame(F_FULL, 4, new Object[] {fqcn, "[B", "java/util/Map", "java/util/Map"}, 2, new Object[] {fqcn, "java/util/Map"});
-		mv.visitFieldInsn(PUTFIELD, fqcn, "scope", "Ljava/util/Map;");
-		mv.visitInsn(ICONST_0);
-		mv.visitVarInsn(ISTORE, 4);
-		mv.visitInsn(ICONST_0);
-		mv.visitVarInsn(ISTORE, 5);
-		mv.visitVarInsn(ALOAD, 1);
-		mv.visitInsn(ARRAYLENGTH);
-		mv.visitIntInsn(BIPUSH, 8);
-		mv.visitInsn(IMUL);
-		mv.visitVarInsn(ISTORE, 6);
-		mv.visitInsn(ACONST_NULL);
-		mv.visitVarInsn(ASTORE, 7);		
+		// Methods
+		methods.add(new BitSyntaxExtractPrinter(cw, fqcn));
+		methods.add(new BitSyntaxExtractPrinter(cw, fqcn, BitSyntaxBytecodeHelper.BUFFER));
+		methods.add(new BitSyntaxExtractPrinter(cw, fqcn, BitSyntaxBytecodeHelper.BYTES, BitSyntaxExtractPrinter.RESULT));
+		methods.add(new BitSyntaxExtractPrinter(cw, fqcn, BitSyntaxBytecodeHelper.BUFFER, BitSyntaxExtractPrinter.RESULT));
+		methods.add(new BitSyntaxDecodePrinter(cw, fqcn));
+		methods.add(new BitSyntaxDecodePrinter(cw, fqcn, BitSyntaxBytecodeHelper.ADDRESS));
+		methods.add(batch = new BitSyntaxBatchPrinter(cw, fqcn));
+		methods.add(locate = new BitSyntaxLocatePrinter(cw, fqcn));
+		methods.add(new BitSyntaxSinkPrinter(cw, fqcn));
+		methods.add(new BitSyntaxEncodePrinter(cw, fqcn));
+		methods.add(frame = new BitSyntaxFramePrinter(cw, fqcn, BitSyntaxBytecodeHelper.BYTES));
+		methods.add(new BitSyntaxFramePrinter(cw, fqcn, BitSyntaxBytecodeHelper.BUFFER));
+		for (BitSyntaxVisitor method : methods) {
+			method.setBinding(binding);
+			method.prologue();
+		}
 	}
 
 	@Override
 	public void skipSegment(SegmentContext segment) {
-		int bitsToSkip = Integer.parseInt(segment.size().NM().getText());
-		mv.visitVarInsn(ILOAD, bitsToSkip);
-		mv.visitInsn(ICONST_4);
-		mv.visitInsn(IADD);
-		mv.visitVarInsn(ILOAD, 6);
-		Label l3 = new Label();
-		mv.visitJumpInsn(IF_ICMPLE, l3);
-		mv.visitTypeInsn(NEW, "io/darach/bitsyntax/BitSyntaxException");
-		mv.visitInsn(DUP);
-		mv.visitLdcInsn("Actual vs expected size mismatch");
-		mv.visitMethodInsn(INVOKESPECIAL, "io/darach/bitsyntax/BitSyntaxException", "<init>", "(Ljava/lang/String;)V");
-		mv.visitInsn(ATHROW);
-		mv.visitLabel(l3);
-		mv.visitFrame(F_SAME, 0, null, 0, null);
-		mv.visitIincInsn(4, bitsToSkip);
+		for (BitSyntaxVisitor method : methods) {
+			method.skipSegment(segment);
+		}
 	}
 
 	@Override
 	public void numberSegment(SegmentContext segment) {
-		mv.visitInsn(ACONST_NULL);
-		mv.visitVarInsn(ASTORE, 7);
-		mv.visitVarInsn(ILOAD, 4);
-		mv.visitVarInsn(ISTORE, 5);
-		if (segment.size() == null) {
-			// @TODO Enforce last segment rule. last segment only can have no (variable) size
-			mv.visitInsn(ACONST_NULL);
-			mv.visitVarInsn(ASTORE, 7);
-			mv.visitVarInsn(ILOAD, 4);
-			mv.visitVarInsn(ISTORE, 5);
-			mv.visitVarInsn(ILOAD, 6);
-			mv.visitVarInsn(ISTORE, 4);
-			mv.visitVarInsn(ALOAD, 1);
-			mv.visitVarInsn(ILOAD, 5);
-			mv.visitVarInsn(ILOAD, 4);
-			mv.visitVarInsn(ILOAD, 5);
-			mv.visitInsn(ISUB);
-			mv.visitMethodInsn(INVOKESTATIC, "io/darach/bitsyntax/BitHelper", "bitgrok", "([BII)[B");
-			mv.visitVarInsn(ASTORE, 7);
-			mv.visitVarInsn(ALOAD, 3);
-			if (segment.ID() != null) {
-				mv.visitLdcInsn(segment.ID().getText());
-				mv.visitVarInsn(ALOAD, 7);
-				mv.visitMethodInsn(INVOKEINTERFACE, "java/util/Map", "put", "(Ljava/lang/Object;Ljava/lang/Object;)Ljava/lang/Object;");
-			}
-			mv.visitInsn(POP);
-		} else {
-			int s = sizeof(null, segment.size()) * unit(segment).size;
-			mv.visitVarInsn(ILOAD, 4);
-			mv.visitVarInsn(ILOAD, 6);
-			mv.visitIincInsn(4, s);
-			bitgrok_with_size(segment);
+		for (BitSyntaxVisitor method : methods) {
+			method.numberSegment(segment);
 		}
-//		}
 	}
 
 	@Override
 	public void binarySegment(SegmentContext segment) {
-		mv.visitInsn(ACONST_NULL);
-		mv.visitVarInsn(ASTORE, 7);
-		mv.visitVarInsn(ILOAD, 4);
-		mv.visitVarInsn(ISTORE, 5);
-		if (segment.size() == null) {
-			// @TODO Enforce last segment rule. last segment only can have no (variable) size
-			mv.visitInsn(ACONST_NULL);
-			mv.visitVarInsn(ASTORE, 7);
-			mv.visitVarInsn(ILOAD, 4);
-			mv.visitVarInsn(ISTORE, 5);
-			mv.visitVarInsn(ILOAD, 6);
-			mv.visitVarInsn(ISTORE, 4);
-			mv.visitVarInsn(ALOAD, 1);
-			mv.visitVarInsn(ILOAD, 5);
-			mv.visitVarInsn(ILOAD, 4);
-			mv.visitVarInsn(ILOAD, 5);
-			mv.visitInsn(ISUB);
-			mv.visitMethodInsn(INVOKESTATIC, "io/darach/bitsyntax/BitHelper", "bitgrok", "([BII)[B");
-			mv.visitVarInsn(ASTORE, 7);
-			mv.visitVarInsn(ALOAD, 3);
-		} else {
-			int s = sizeof(null, segment.size()) * unit(segment).size;
-			mv.visitVarInsn(ILOAD, 4);
-			mv.visitVarInsn(ILOAD, 6);
-			mv.visitIincInsn(4, s);
-			bitgrok_with_size(segment);
+		for (BitSyntaxVisitor method : methods) {
+			method.binarySegment(segment);
 		}
-//		}
-	}
-
-	private void bitgrok_with_size(SegmentContext segment) {
-		Label l4 = new Label();
-		mv.visitJumpInsn(IF_ICMPLE, l4);
-		mv.visitTypeInsn(NEW, "io/darach/bitsyntax/BitSyntaxException");
-		mv.visitInsn(DUP);
-		mv.visitLdcInsn("Actual vs expected size mismatch");
-		mv.visitMethodInsn(INVOKESPECIAL, "io/darach/bitsyntax/BitSyntaxException", "<init>", "(Ljava/lang/String;)V");
-		mv.visitInsn(ATHROW);
-		mv.visitLabel(l4);
-		mv.visitFrame(F_SAME, 0, null, 0, null);
-		mv.visitVarInsn(ALOAD, 1);
-		mv.visitVarInsn(ILOAD, 5);
-		mv.visitVarInsn(ILOAD, 4);
-		mv.visitVarInsn(ILOAD, 5);
-		mv.visitInsn(ISUB);
-		mv.visitMethodInsn(INVOKESTATIC, "io/darach/bitsyntax/BitHelper", "bitgrok", "([BII)[B");
-		mv.visitVarInsn(ASTORE, 7);
-		mv.visitVarInsn(ALOAD, 3);
-		if (hasLabel(segment)) {
-			mv.visitLdcInsn(label(segment));
-			mv.visitVarInsn(ALOAD, 7);
-			mv.visitMethodInsn(INVOKEINTERFACE, "java/util/Map", "put", "(Ljava/lang/Object;Ljava/lang/Object;)Ljava/lang/Object;");
-		}
-		mv.visitInsn(POP);
 	}
 
 	@Override
 	public void stringSegment(SegmentContext segment) {
-		int size = segment.QS().getText().length() - 2;
-		
-		System.out.println("String Segment size: " + size);
-		
-		mv.visitInsn(ACONST_NULL);
-		mv.visitVarInsn(ASTORE, 7);
-		mv.visitVarInsn(ILOAD, 4);
-		mv.visitVarInsn(ISTORE, 5);
-		mv.visitIincInsn(4, size * unit(segment).size);
-		mv.visitVarInsn(ILOAD, 4);
-		mv.visitVarInsn(ILOAD, 6);
-		Label l2 = new Label();
-		mv.visitJumpInsn(IF_ICMPLE, l2);
-		mv.visitTypeInsn(NEW, "io/darach/bitsyntax/BitSyntaxException");
-		mv.visitInsn(DUP);
-		mv.visitLdcInsn("Actual vs expected size mismatch");
-		mv.visitMethodInsn(INVOKESPECIAL, "io/darach/bitsyntax/BitSyntaxException", "<init>", "(Ljava/lang/String;)V");
-		mv.visitInsn(ATHROW);
-		mv.visitLabel(l2);
-		mv.visitFrame(F_FULL, 8, new Object[] { fqcn, "[B", "java/util/Map", "java/util/Map", INTEGER, INTEGER, INTEGER, "[B"}, 0, new Object[] {});
-		mv.visitVarInsn(ALOAD, 1);
-		mv.visitVarInsn(ILOAD, 5);
-		mv.visitVarInsn(ILOAD, 4);
-		mv.visitVarInsn(ILOAD, 5);
-		mv.visitInsn(ISUB);
-		mv.visitMethodInsn(INVOKESTATIC, "io/darach/bitsyntax/BitHelper", "bitgrok", "([BII)[B");
-		mv.visitVarInsn(ASTORE, 7);
+		for (BitSyntaxVisitor method : methods) {
+			method.stringSegment(segment);
+		}
 	}
 
 	@Override
 	public void epilogue() {
-		mv.visitVarInsn(ALOAD, 3);
-		mv.visitInsn(ARETURN);
-		mv.visitMaxs(4, storeIndex);
-		mv.visitEnd();
-		
+		for (BitSyntaxVisitor method : methods) {
+			method.epilogue();
+		}
+
 		mv = cw.visitMethod(ACC_PUBLIC, "specification", "()Ljava/lang/String;", null, null);
 		mv.visitCode();
 		mv.visitLdcInsn(sourceText);
@@ -305,45 +176,61 @@ public class BitSyntaxBytecodePrinter implements BitSyntaxVisitor {
 		mv.visitInsn(ARETURN);
 		mv.visitMaxs(1, 1);
 		mv.visitEnd();
+
+		// Least number of bytes a binary must hold to match
+		mv = cw.visitMethod(ACC_PUBLIC, "minimum", "()I", null, null);
+		mv.visitCode();
+		mv.visitLdcInsn((frame.getMinimum() + 7) >>> 3);
+		mv.visitInsn(IRETURN);
+		mv.visitMaxs(1, 1);
+		mv.visitEnd();
+
+		// Size of a matching binary if of constant size
+		mv = cw.visitMethod(ACC_PUBLIC, "size", "()I", null, null);
+		mv.visitCode();
+		mv.visitLdcInsn(frame.getSize());
+		mv.visitInsn(IRETURN);
+		mv.visitMaxs(1, 1);
+		mv.visitEnd();
+
+		// Whether frames can be matched
+		mv = cw.visitMethod(ACC_PUBLIC, "frameable", "()Z", null, null);
+		mv.visitCode();
+		mv.visitInsn(frame.isFrameable() ? ICONST_1 : ICONST_0);
+		mv.visitInsn(IRETURN);
+		mv.visitMaxs(1, 1);
+		mv.visitEnd();
+
+		// Number of labeled segments
+		mv = cw.visitMethod(ACC_PUBLIC, "slots", "()I", null, null);
+		mv.visitCode();
+		mv.visitLdcInsn(frame.getSlots());
+		mv.visitInsn(IRETURN);
+		mv.visitMaxs(1, 1);
+		mv.visitEnd();
 		
 		cw.visitEnd();
 	}
 	
-    private static int sizeof(MethodVisitor mv, BitSyntaxParser.SizeContext size) {
-    	if (size.NM() != null) {
-    		return Integer.parseInt(size.NM().getText());
-    	} else {
-    		if (size.ID() != null) {
-    			throw new IllegalStateException("Cannot establish size of variable reference");
-    		} else
-    			return 8; // 8 bits / byte
-    	}
-    }
+	public String getBinaryName() {
+		return rflx;
+	}
 
+	/**
+	 * The labels of the labeled segments by slot
+	 */
+	public String[] getLabels() {
+		return locate.getLabels();
+	}
 
-	 private static Class<?> loadClass(String clazzName, ClassLoader cl, byte[] clazzBytes) {
-		Class<?> clazz = null;
-		try {
-		  Class<?> cls = Class.forName("java.lang.ClassLoader");
-		  java.lang.reflect.Method method =
-		    cls.getDeclaredMethod("defineClass", new Class[] { String.class, byte[].class, int.class, int.class });
-		
-		  // protected method invocaton
-		      method.setAccessible(true);
-		      try {
-		        Object[] args = new Object[] { clazzName, clazzBytes, new Integer(0), new Integer(clazzBytes.length)};
-		        clazz = (Class<?>) method.invoke(ClassLoader.getSystemClassLoader(), args);
-		      } finally {
-		        method.setAccessible(false);
-		      }
-		    } catch (Exception e) {
-		      e.printStackTrace();
-		      System.exit(1);
-		    }
-		    return clazz;
-		  }
-	 
-	public BitPattern load() throws InstantiationException, IllegalAccessException {
-		return (BitPattern)(loadClass(rflx, Thread.currentThread().getContextClassLoader(), cw.toByteArray()).newInstance());
+	/**
+	 * The type of the column each slot is decoded into by a batch decode
+	 */
+	public BitSyntax.SegmentType[] getColumns() {
+		return batch.getColumns();
+	}
+
+	public byte[] toByteArray() {
+		return cw.toByteArray();
 	}
 }
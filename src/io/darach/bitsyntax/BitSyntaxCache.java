@@ -0,0 +1,182 @@
+// Copyright (c) 2013 Darach Ennis < darach at gmail dot com >.
+//
+// Permission is hereby granted, free of charge, to any person obtaining a
+// copy of this software and associated documentation files (the
+// "Software"), to deal in the Software without restriction, including
+// without limitation the rights to use, copy, modify, merge, publish,
+// distribute, sublicense, and/or sell copies of the Software, and to permit
+// persons to whom the Software is furnished to do so, subject to the
+// following conditions:  
+//
+// The above copyright notice and this permission notice shall be included
+// in all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS
+// OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+// MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN
+// NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+// DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+// OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE
+// USE OR OTHER DEALINGS IN THE SOFTWARE.
+
+
+package io.darach.bitsyntax;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A bounded cache of compiled bit patterns. Patterns are keyed by package,
+ * class name stub, source with insignificant whitespace removed and the sizes
+ * bound to variable segments, if any, so that
+ * recompiling an identical specification returns the already loaded pattern
+ * rather than generating and loading a new class.
+ * 
+ * The least recently used pattern is evicted once the cache is full. The cache
+ * holds the only reference to a pattern it creates so an evicted pattern, and
+ * its generated classes, can be collected once no longer used elsewhere.
+ * 
+ * The cache is thread safe. Patterns are compiled outside of the cache lock, so
+ * concurrent misses on the same key may compile twice, but only the first pattern
+ * compiled is cached and returned.
+ */
+public class BitSyntaxCache {
+	private final AtomicLong hits = new AtomicLong();
+	private final AtomicLong misses = new AtomicLong();
+	private final AtomicLong evictions = new AtomicLong();
+	private final Map<String,BitPattern> patterns;
+	private volatile int maximumSize;
+
+	/**
+	 * @param maximumSize	The maximum number of patterns cached, zero disables caching
+	 */
+	public BitSyntaxCache(final int maximumSize) {
+		if (maximumSize < 0) throw new IllegalArgumentException("Maximum size must not be negative");
+		this.maximumSize = maximumSize;
+		patterns = new LinkedHashMap<String,BitPattern>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String,BitPattern> eldest) {
+				if (size() > BitSyntaxCache.this.maximumSize) {
+					evictions.incrementAndGet();
+					return true;
+				}
+				return false;
+			}
+		};
+	}
+
+	public BitPattern compile(final String packageName, final String className, final String source) throws IOException {
+		return compile(packageName, className, source, null);
+	}
+
+	/**
+	 * @param binding	A possibly null map of variable segment size names and their respective sizes
+	 */
+	public BitPattern compile(final String packageName, final String className, final String source, final Map<String,Integer> binding) throws IOException {
+		if (maximumSize == 0) {
+			misses.incrementAndGet();
+			return BitSyntax.generate(packageName, className, source, binding);
+		}
+
+		String key = packageName + '\0' + className + '\0' + normalize(source);
+		if (binding != null && !binding.isEmpty()) {
+			key += '\0' + new TreeMap<String,Integer>(binding).toString();
+		}
+		BitPattern pattern;
+		synchronized (patterns) {
+			pattern = patterns.get(key);
+		}
+		if (pattern != null) {
+			hits.incrementAndGet();
+			return pattern;
+		}
+
+		misses.incrementAndGet();
+		pattern = BitSyntax.generate(packageName, className, source, binding);
+		synchronized (patterns) {
+			final BitPattern cached = patterns.get(key);
+			if (cached != null) return cached;
+			patterns.put(key, pattern);
+		}
+		return pattern;
+	}
+
+	/**
+	 * Removes whitespace outside of quoted strings. Whitespace is skipped by the
+	 * lexer, so sources that differ only in whitespace compile to the same pattern.
+	 */
+	static String normalize(final String source) {
+		final StringBuilder sb = new StringBuilder(source.length());
+		boolean quoted = false;
+		for (int i = 0; i < source.length(); i++) {
+			final char c = source.charAt(i);
+			if (quoted) {
+				sb.append(c);
+				if (c == '\\' && i + 1 < source.length()) {
+					sb.append(source.charAt(++i));
+				} else if (c == '"') {
+					quoted = false;
+				}
+			} else if (c == '"') {
+				quoted = true;
+				sb.append(c);
+			} else if (!Character.isWhitespace(c)) {
+				sb.append(c);
+			}
+		}
+		return sb.toString();
+	}
+
+	public void setMaximumSize(final int maximumSize) {
+		if (maximumSize < 0) throw new IllegalArgumentException("Maximum size must not be negative");
+		this.maximumSize = maximumSize;
+		synchronized (patterns) {
+			// Trim to the new maximum, least recently used first
+			final Iterator<String> it = patterns.keySet().iterator();
+			while (patterns.size() > maximumSize && it.hasNext()) {
+				it.next();
+				it.remove();
+				evictions.incrementAndGet();
+			}
+		}
+	}
+
+	public int getMaximumSize() {
+		return maximumSize;
+	}
+
+	public int size() {
+		synchronized (patterns) {
+			return patterns.size();
+		}
+	}
+
+	public void clear() {
+		synchronized (patterns) {
+			patterns.clear();
+		}
+	}
+
+	public long getHits() {
+		return hits.get();
+	}
+
+	public long getMisses() {
+		return misses.get();
+	}
+
+	public long getEvictions() {
+		return evictions.get();
+	}
+
+	@Override
+	public String toString() {
+		return "BitSyntaxCache(size:" + size() + ", max:" + maximumSize + ", hits:" + getHits() + ", misses:" + getMisses() + ", evictions:" + getEvictions() + ")";
+	}
+}
@@ -0,0 +1,42 @@
+// Copyright (c) 2013 Darach Ennis < darach at gmail dot com >.
+//
+// Permission is hereby granted, free of charge, to any person obtaining a
+// copy of this software and associated documentation files (the
+// "Software"), to deal in the Software without restriction, including
+// without limitation the rights to use, copy, modify, merge, publish,
+// distribute, sublicense, and/or sell copies of the Software, and to permit
+// persons to whom the Software is furnished to do so, subject to the
+// following conditions:  
+//
+// The above copyright notice and this permission notice shall be included
+// in all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS
+// OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+// MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN
+// NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+// DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+// OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE
+// USE OR OTHER DEALINGS IN THE SOFTWARE.
+
+
+package io.darach.bitsyntax;
+
+/**
+ * A strategy for defining the classes generated from a bit pattern.
+ * 
+ * Generated classes never refer to one another by name, so a strategy is free
+ * to define them in isolation. A strategy should define them so that they can be
+ * unloaded once the pattern is no longer reachable.
+ */
+public interface BitSyntaxClassDefiner {
+	/**
+	 * Defines the classes generated from a single pattern.
+	 * 
+	 * @param names		The binary names of the generated classes
+	 * @param classes	The bytecode of each generated class
+	 * @return			The defined classes, in the same order
+	 * @throws BitSyntaxException if a class cannot be defined
+	 */
+	Class<?>[] define(String[] names, byte[][] classes);
+}
@@ -0,0 +1,66 @@
+// Copyright (c) 2013 Darach Ennis < darach at gmail dot com >.
+//
+// Permission is hereby granted, free of charge, to any person obtaining a
+// copy of this software and associated documentation files (the
+// "Software"), to deal in the Software without restriction, including
+// without limitation the rights to use, copy, modify, merge, publish,
+// distribute, sublicense, and/or sell copies of the Software, and to permit
+// persons to whom the Software is furnished to do so, subject to the
+// following conditions:  
+//
+// The above copyright notice and this permission notice shall be included
+// in all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS
+// OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+// MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN
+// NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+// DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+// OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE
+// USE OR OTHER DEALINGS IN THE SOFTWARE.
+
+
+package io.darach.bitsyntax;
+
+/**
+ * Defines the classes generated from each pattern in a class loader of their own,
+ * so they are unloaded with their loader once the pattern is no longer reachable.
+ */
+public class BitSyntaxClassLoaderDefiner implements BitSyntaxClassDefiner {
+	private final ClassLoader parent;
+
+	public BitSyntaxClassLoaderDefiner() {
+		this(BitSyntaxClassLoaderDefiner.class.getClassLoader());
+	}
+
+	/**
+	 * @param parent	The parent of each pattern class loader, it must see the bitsyntax runtime
+	 */
+	public BitSyntaxClassLoaderDefiner(final ClassLoader parent) {
+		this.parent = parent;
+	}
+
+	@Override
+	public Class<?>[] define(final String[] names, final byte[][] classes) {
+		final PatternClassLoader loader = new PatternClassLoader(parent);
+		final Class<?>[] defined = new Class<?>[names.length];
+		try {
+			for (int i = 0; i < names.length; i++) {
+				defined[i] = loader.define(names[i], classes[i]);
+			}
+		} catch (LinkageError e) {
+			throw new BitSyntaxException("Unable to define generated class", e);
+		}
+		return defined;
+	}
+
+	private static final class PatternClassLoader extends ClassLoader {
+		PatternClassLoader(final ClassLoader parent) {
+			super(parent);
+		}
+
+		Class<?> define(final String name, final byte[] b) {
+			return defineClass(name, b, 0, b.length);
+		}
+	}
+}
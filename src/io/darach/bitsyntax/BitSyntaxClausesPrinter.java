@@ -0,0 +1,332 @@
+// Copyright (c) 2013 Darach Ennis < darach at gmail dot com >.
+//
+// Permission is hereby granted, free of charge, to any person obtaining a
+// copy of this software and associated documentation files (the
+// "Software"), to deal in the Software without restriction, including
+// without limitation the rights to use, copy, modify, merge, publish,
+// distribute, sublicense, and/or sell copies of the Software, and to permit
+// persons to whom the Software is furnished to do so, subject to the
+// following conditions:  
+//
+// The above copyright notice and this permission notice shall be included
+// in all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS
+// OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+// MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN
+// NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+// DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+// OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE
+// USE OR OTHER DEALINGS IN THE SOFTWARE.
+
+
+package io.darach.bitsyntax;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.Label;
+import org.objectweb.asm.MethodVisitor;
+
+import static org.objectweb.asm.Opcodes.*;
+import static io.darach.bitsyntax.BitSyntaxParser.*;
+import static io.darach.bitsyntax.BitSyntaxHelper.*;
+import static io.darach.bitsyntax.BitSyntaxBytecodeHelper.*;
+
+/**
+ * The <code>BitSyntaxClausesPrinter</code> generates a <code>BitClauses</code>
+ * dispatching a binary to the first of many compiled bit patterns that matches.
+ * 
+ * The literal segments amongst the leading segments of constant size of each
+ * clause are tests of the value of the bits at a known offset. The generated
+ * decision tree reads the bits tested by the most clauses once, branches on
+ * their value to the clauses consistent with it, and so on until no tests remain.
+ * The remaining clauses are then matched in full in order.
+ */
+public class BitSyntaxClausesPrinter {
+	private static final String CLAUSES = "io/darach/bitsyntax/AbstractBitClauses";
+	private static final String PATTERN = "io/darach/bitsyntax/AbstractBitPattern";
+	private static AtomicLong counter = new AtomicLong();
+
+	// Locals
+	private static final int BINARY = 1;
+	private static final int SIZES = 2;
+	private static final int RESULTS = 3;
+	private static final int TOTAL = 4;
+	private static final int VALUE = 5;
+
+	private final ClassWriter cw = new ClassWriter(ClassWriter.COMPUTE_FRAMES);
+	private MethodVisitor mv;
+
+	// The tests of each clause, by offset and size in bits, and the bits expected
+	private final List<Map<Test,Long>> clauses = new ArrayList<Map<Test,Long>>();
+
+	// Nodes of the decision tree by the clauses remaining and the tests done
+	private final Map<String,Label> nodes = new HashMap<String,Label>();
+	private final LinkedList<Node> pending = new LinkedList<Node>();
+
+	// For ASM
+	private final String fqcn;
+
+	// For Reflection
+	private final String rflx;
+
+	public BitSyntaxClausesPrinter(final String packageName, final String clazzNameStub) {
+		final String clazzName = clazzNameStub + counter.incrementAndGet();
+		fqcn = packageName.replace('.', '/') + '/' + clazzName;
+		rflx = packageName + "." + clazzName;
+	}
+
+	/**
+	 * Adds the next clause in order
+	 */
+	public void clause(final BinaryContext binary) {
+		final Map<Test,Long> tests = new LinkedHashMap<Test,Long>();
+		if (binary.segments() != null) {
+			int offset = 0;
+			for (SegmentContext segment : binary.segments().segment()) {
+				if (isRest(segment) || !isBound(segment, null)) break;
+				final int bits = bits(segment, null);
+				if (segment.QS() != null) {
+					string(tests, offset, segment);
+				} else if (isComparable(segment, null)) {
+					tests.put(new Test(offset, bits), literalBits(segment, bits));
+				}
+				offset += bits;
+			}
+		}
+		clauses.add(tests);
+	}
+
+	// Tests each run of up to 8 characters of a string literal as a single integer
+	private static void string(final Map<Test,Long> tests, final int offset, final SegmentContext segment) {
+		final String chars = chars(segment);
+		for (int i = 0; i < chars.length(); i += 8) {
+			final int n = Math.min(8, chars.length() - i);
+			tests.put(new Test(offset + (i << 3), n << 3), word(chars, i));
+		}
+	}
+
+	public void print() {
+		cw.visit(V1_6, ACC_PUBLIC + ACC_FINAL + ACC_SUPER, fqcn, null, CLAUSES, null);
+
+		// Default ctor
+		mv = cw.visitMethod(ACC_PUBLIC, "<init>", "()V", null, null);
+		mv.visitCode();
+		mv.visitVarInsn(ALOAD, 0);
+		mv.visitMethodInsn(INVOKESPECIAL, CLAUSES, "<init>", "()V");
+		mv.visitInsn(RETURN);
+		mv.visitMaxs(1, 1);
+		mv.visitEnd();
+
+		// dispatch(binary, sizes, results)
+		mv = cw.visitMethod(ACC_PUBLIC, "dispatch", "([BLjava/util/Map;Ljava/util/Map;)I", "([BLjava/util/Map<Ljava/lang/String;Ljava/lang/Integer;>;Ljava/util/Map<Ljava/lang/String;[B>;)I", null);
+		mv.visitCode();
+		mv.visitVarInsn(ALOAD, BINARY);
+		mv.visitInsn(ARRAYLENGTH);
+		mv.visitInsn(ICONST_3);
+		mv.visitInsn(ISHL);
+		mv.visitVarInsn(ISTORE, TOTAL);
+
+		final List<Integer> all = new ArrayList<Integer>();
+		for (int i = 0; i < clauses.size(); i++) {
+			all.add(i);
+		}
+		mv.visitJumpInsn(GOTO, node(all, Collections.<Test>emptySet()));
+		while (!pending.isEmpty()) {
+			emit(pending.removeFirst());
+		}
+		mv.visitMaxs(0, 0);
+		mv.visitEnd();
+
+		cw.visitEnd();
+	}
+
+	// The label of the node for the clauses remaining once tests are done
+	private Label node(final List<Integer> remaining, final Set<Test> done) {
+		final String id = remaining + "/" + done;
+		Label label = nodes.get(id);
+		if (label == null) {
+			label = new Label();
+			nodes.put(id, label);
+			pending.add(new Node(label, remaining, done));
+		}
+		return label;
+	}
+
+	private void emit(final Node node) {
+		mv.visitLabel(node.label);
+
+		// The test done by the most clauses remaining, earliest first
+		Test test = null;
+		int count = 0;
+		for (Test candidate : tests(node)) {
+			int n = 0;
+			for (int i : node.remaining) {
+				if (clauses.get(i).containsKey(candidate)) n++;
+			}
+			if (n > count) {
+				test = candidate;
+				count = n;
+			}
+		}
+		if (test == null) {
+			leaf(node.remaining);
+			return;
+		}
+
+		final Set<Test> done = new TreeSet<Test>(node.done);
+		done.add(test);
+
+		// Clauses without the test remain whatever the value of the bits tested
+		final List<Integer> untested = new ArrayList<Integer>();
+		final Map<Long,List<Integer>> branches = new LinkedHashMap<Long,List<Integer>>();
+		for (int i : node.remaining) {
+			final Long expected = clauses.get(i).get(test);
+			if (expected != null && !branches.containsKey(expected)) {
+				branches.put(expected, new ArrayList<Integer>());
+			}
+		}
+		for (int i : node.remaining) {
+			final Long expected = clauses.get(i).get(test);
+			for (Map.Entry<Long,List<Integer>> branch : branches.entrySet()) {
+				if (expected == null || expected.equals(branch.getKey())) branch.getValue().add(i);
+			}
+			if (expected == null) untested.add(i);
+		}
+		final Label dflt = node(untested, done);
+
+		// Too short for the bits tested
+		mv.visitVarInsn(ILOAD, TOTAL);
+		push(mv, test.offset + test.bits);
+		mv.visitJumpInsn(IF_ICMPLT, dflt);
+
+		mv.visitVarInsn(ALOAD, BINARY);
+		push(mv, test.offset);
+		push(mv, test.bits);
+		mv.visitMethodInsn(INVOKESTATIC, HELPER, "readBits", "([BII)J");
+		if (test.bits <= 32) {
+			final Map<Integer,Label> cases = new TreeMap<Integer,Label>();
+			for (Map.Entry<Long,List<Integer>> branch : branches.entrySet()) {
+				cases.put((int) branch.getKey().longValue(), node(branch.getValue(), done));
+			}
+			final int[] keys = new int[cases.size()];
+			final Label[] labels = new Label[cases.size()];
+			int k = 0;
+			for (Map.Entry<Integer,Label> c : cases.entrySet()) {
+				keys[k] = c.getKey();
+				labels[k++] = c.getValue();
+			}
+			mv.visitInsn(L2I);
+			mv.visitLookupSwitchInsn(dflt, keys, labels);
+		} else {
+			mv.visitVarInsn(LSTORE, VALUE);
+			for (Map.Entry<Long,List<Integer>> branch : branches.entrySet()) {
+				mv.visitVarInsn(LLOAD, VALUE);
+				mv.visitLdcInsn(branch.getKey());
+				mv.visitInsn(LCMP);
+				mv.visitJumpInsn(IFEQ, node(branch.getValue(), done));
+			}
+			mv.visitJumpInsn(GOTO, dflt);
+		}
+	}
+
+	// The tests of the clauses remaining not yet done
+	private Set<Test> tests(final Node node) {
+		final Set<Test> tests = new TreeSet<Test>();
+		for (int i : node.remaining) {
+			tests.addAll(clauses.get(i).keySet());
+		}
+		tests.removeAll(node.done);
+		return tests;
+	}
+
+	// Matches the clauses remaining in full, in order
+	private void leaf(final List<Integer> remaining) {
+		for (int i : remaining) {
+			mv.visitVarInsn(ALOAD, 0);
+			mv.visitFieldInsn(GETFIELD, CLAUSES, "clauses", "[L" + PATTERN + ";");
+			push(mv, i);
+			mv.visitInsn(AALOAD);
+			mv.visitVarInsn(ALOAD, BINARY);
+			mv.visitVarInsn(ALOAD, SIZES);
+			mv.visitVarInsn(ALOAD, RESULTS);
+			mv.visitMethodInsn(INVOKEVIRTUAL, PATTERN, "generated", "([BLjava/util/Map;Ljava/util/Map;)I");
+			Label next = new Label();
+			mv.visitJumpInsn(IFLT, next);
+			push(mv, i);
+			mv.visitInsn(IRETURN);
+			mv.visitLabel(next);
+
+			// Discard the segments of the clause that failed to match
+			Label l0 = new Label();
+			mv.visitVarInsn(ALOAD, RESULTS);
+			mv.visitJumpInsn(IFNULL, l0);
+			mv.visitVarInsn(ALOAD, RESULTS);
+			mv.visitMethodInsn(INVOKEINTERFACE, "java/util/Map", "clear", "()V");
+			mv.visitLabel(l0);
+		}
+		mv.visitInsn(ICONST_M1);
+		mv.visitInsn(IRETURN);
+	}
+
+	public String getBinaryName() {
+		return rflx;
+	}
+
+	public byte[] toByteArray() {
+		return cw.toByteArray();
+	}
+
+	private static final class Test implements Comparable<Test> {
+		final int offset;
+		final int bits;
+
+		Test(final int offset, final int bits) {
+			this.offset = offset;
+			this.bits = bits;
+		}
+
+		@Override
+		public int compareTo(final Test o) {
+			return (offset != o.offset) ? (offset < o.offset ? -1 : 1) : (bits < o.bits ? -1 : bits == o.bits ? 0 : 1);
+		}
+
+		@Override
+		public boolean equals(final Object o) {
+			return (o instanceof Test) && compareTo((Test) o) == 0;
+		}
+
+		@Override
+		public int hashCode() {
+			return offset * 31 + bits;
+		}
+
+		@Override
+		public String toString() {
+			return offset + ":" + bits;
+		}
+	}
+
+	private static final class Node {
+		final Label label;
+		final List<Integer> remaining;
+		final Set<Test> done;
+
+		Node(final Label label, final List<Integer> remaining, final Set<Test> done) {
+			this.label = label;
+			this.remaining = remaining;
+			this.done = done;
+		}
+	}
+}
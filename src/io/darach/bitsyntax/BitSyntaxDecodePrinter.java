@@ -0,0 +1,165 @@
+// Copyright (c) 2013 Darach Ennis < darach at gmail dot com >.
+//
+// Permission is hereby granted, free of charge, to any person obtaining a
+// copy of this software and associated documentation files (the
+// "Software"), to deal in the Software without restriction, including
+// without limitation the rights to use, copy, modify, merge, publish,
+// distribute, sublicense, and/or sell copies of the Software, and to permit
+// persons to whom the Software is furnished to do so, subject to the
+// following conditions:  
+//
+// The above copyright notice and this permission notice shall be included
+// in all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS
+// OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+// MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN
+// NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+// DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+// OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE
+// USE OR OTHER DEALINGS IN THE SOFTWARE.
+
+
+package io.darach.bitsyntax;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.Label;
+
+import io.darach.bitsyntax.BitSyntax.SegmentType;
+
+import static org.objectweb.asm.Opcodes.*;
+import static io.darach.bitsyntax.BitSyntaxParser.*;
+import static io.darach.bitsyntax.BitSyntaxHelper.*;
+import static io.darach.bitsyntax.BitSyntaxBytecodeHelper.*;
+
+/**
+ * Generates <code>decoded</code>, the method backing <code>BitPattern.decode</code>, decoding each labeled integer
+ * segment into a long and each labeled float or double segment into a double
+ * honouring the endianness and signedness of the segment.
+ * 
+ * The binary is either an array of bytes or off-heap memory, an address and a length.
+ */
+public class BitSyntaxDecodePrinter extends BitSyntaxMethodPrinter {
+	protected int integers;
+	protected int reals;
+	protected int width;
+
+	// The type of the column each decoded slot is decoded into, Integer or Double
+	private final Map<Integer,SegmentType> columns = new HashMap<Integer,SegmentType>();
+
+	public BitSyntaxDecodePrinter(final ClassWriter cw, final String fqcn) {
+		this(cw, fqcn, BYTES);
+	}
+
+	public BitSyntaxDecodePrinter(final ClassWriter cw, final String fqcn, final String descriptor) {
+		super(cw, fqcn);
+		this.descriptor = descriptor;
+	}
+
+	@Override
+	protected int begin() {
+		mv = cw.visitMethod(ACC_PUBLIC, "decoded", "(" + descriptor + "[J[D)I", null, null);
+		mv.visitCode();
+		final int next = ADDRESS.equals(descriptor) ? 5 : 2;
+		integers = next;
+		reals = next + 1;
+		width = next + 2;
+		return next + 3;
+	}
+
+	/**
+	 * Pushes the array and index the decoded value of a slot is stored at, or jumps
+	 * to skip if the slot is not to be decoded. By default the slot of the integers
+	 * or reals.
+	 */
+	protected void target(boolean integer, int slot, Label skip) {
+		mv.visitVarInsn(ALOAD, integer ? integers : reals);
+		push(mv, slot);
+	}
+
+	@Override
+	protected void number(SegmentContext segment, int slot) {
+		if (!isPrimitive(segment, binding)) return;
+		columns.put(slot, SegmentType.Integer.equals(typeof(segment)) ? SegmentType.Integer : SegmentType.Double);
+
+		final int bits = isConstant(segment) ? bits(segment, binding) : 0;
+		final int local = isConstant(segment) ? -1 : width;
+		if (!isConstant(segment)) {
+			width(segment);
+			mv.visitVarInsn(ISTORE, width);
+		}
+
+		if (SegmentType.Integer.equals(typeof(segment))) {
+			if (!isConstant(segment)) {
+				mv.visitVarInsn(ILOAD, width);
+				push(mv, 64);
+				Label l0 = new Label();
+				mv.visitJumpInsn(IF_ICMPLE, l0);
+				fail();
+				mv.visitLabel(l0);
+			}
+			final Label skip = new Label();
+			target(true, slot, skip);
+			pushBinary();
+			pushMark();
+			readBits(mv, segment, bits, local, descriptor);
+			mv.visitInsn(LASTORE);
+			mv.visitLabel(skip);
+			return;
+		}
+
+		final Label skip = new Label();
+		target(false, slot, skip);
+		pushBinary();
+		pushMark();
+		readBits(mv, segment, bits, local, descriptor);
+		if (!isConstant(segment)) {
+			// Single or double precision by the size matched
+			Label single = new Label();
+			Label done = new Label();
+			mv.visitVarInsn(ILOAD, width);
+			push(mv, 32);
+			mv.visitJumpInsn(IF_ICMPEQ, single);
+			mv.visitVarInsn(ILOAD, width);
+			push(mv, 64);
+			Label l0 = new Label();
+			mv.visitJumpInsn(IF_ICMPEQ, l0);
+			fail();
+			mv.visitLabel(l0);
+			mv.visitMethodInsn(INVOKESTATIC, "java/lang/Double", "longBitsToDouble", "(J)D");
+			mv.visitJumpInsn(GOTO, done);
+			mv.visitLabel(single);
+			toDouble(32);
+			mv.visitLabel(done);
+		} else {
+			toDouble(bits);
+		}
+		mv.visitInsn(DASTORE);
+		mv.visitLabel(skip);
+	}
+
+	/**
+	 * The type of the column each slot is decoded into by slot, Integer or Double,
+	 * or null if the slot is not decoded
+	 */
+	public SegmentType[] getColumns() {
+		final SegmentType[] types = new SegmentType[getSlots()];
+		for (Map.Entry<Integer,SegmentType> column : columns.entrySet()) {
+			types[column.getKey()] = column.getValue();
+		}
+		return types;
+	}
+
+	private void toDouble(int bits) {
+		if (bits == 32) {
+			mv.visitInsn(L2I);
+			mv.visitMethodInsn(INVOKESTATIC, "java/lang/Float", "intBitsToFloat", "(I)F");
+			mv.visitInsn(F2D);
+		} else {
+			mv.visitMethodInsn(INVOKESTATIC, "java/lang/Double", "longBitsToDouble", "(J)D");
+		}
+	}
+}
@@ -0,0 +1,228 @@
+// Copyright (c) 2013 Darach Ennis < darach at gmail dot com >.
+//
+// Permission is hereby granted, free of charge, to any person obtaining a
+// copy of this software and associated documentation files (the
+// "Software"), to deal in the Software without restriction, including
+// without limitation the rights to use, copy, modify, merge, publish,
+// distribute, sublicense, and/or sell copies of the Software, and to permit
+// persons to whom the Software is furnished to do so, subject to the
+// following conditions:  
+//
+// The above copyright notice and this permission notice shall be included
+// in all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS
+// OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+// MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN
+// NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+// DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+// OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE
+// USE OR OTHER DEALINGS IN THE SOFTWARE.
+
+
+package io.darach.bitsyntax;
+
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.Label;
+
+import io.darach.bitsyntax.BitSyntax.Endianness;
+import io.darach.bitsyntax.BitSyntax.SegmentType;
+
+import static org.objectweb.asm.Opcodes.*;
+import static io.darach.bitsyntax.BitSyntaxParser.*;
+import static io.darach.bitsyntax.BitSyntaxHelper.*;
+import static io.darach.bitsyntax.BitSyntaxBytecodeHelper.*;
+
+/**
+ * Generates <code>encoded</code>, the method backing <code>BitPattern.encode</code>, the
+ * construction counterpart of <code>decoded</code>. Labeled segments that decode would
+ * decode are written from the integer or real of their slot honouring the endianness of
+ * the segment, all other labeled segments from the binary of their slot. Literals are
+ * written as specified and skipped segments are left untouched.
+ * 
+ * Segments are written in place at arbitrary bit offsets into the caller supplied binary
+ * without allocating. A segment that does not fit the binary fails as a mismatch would.
+ */
+public class BitSyntaxEncodePrinter extends BitSyntaxMethodPrinter {
+	private int integers;
+	private int reals;
+	private int binaries;
+	private int width;
+
+	public BitSyntaxEncodePrinter(final ClassWriter cw, final String fqcn) {
+		super(cw, fqcn);
+	}
+
+	@Override
+	protected int begin() {
+		mv = cw.visitMethod(ACC_PUBLIC, "encoded", "([BI[J[D[[B)I", null, null);
+		mv.visitCode();
+		integers = 3;
+		reals = 4;
+		binaries = 5;
+		origin = 6;
+		width = 7;
+		mv.visitVarInsn(ILOAD, 2);
+		mv.visitInsn(ICONST_3);
+		mv.visitInsn(ISHL);
+		mv.visitVarInsn(ISTORE, origin);
+		return 8;
+	}
+
+	// A segment that consumes the rest of the binary is written from the binary of its slot in full
+	@Override
+	protected void rest(SegmentContext segment) {
+		if (!hasLabel(segment)) return;
+
+		mv.visitVarInsn(ALOAD, binaries);
+		push(mv, slot);
+		mv.visitInsn(AALOAD);
+		mv.visitInsn(ARRAYLENGTH);
+		mv.visitInsn(ICONST_3);
+		mv.visitInsn(ISHL);
+		mv.visitInsn(DUP);
+		mv.visitVarInsn(ISTORE, width);
+		mv.visitVarInsn(ILOAD, total);
+		mv.visitVarInsn(ILOAD, offset);
+		mv.visitInsn(ISUB);
+		Label l0 = new Label();
+		mv.visitJumpInsn(IF_ICMPLE, l0);
+		shortfall(index);
+		mv.visitLabel(l0);
+		mv.visitVarInsn(ILOAD, offset);
+		mv.visitVarInsn(ILOAD, width);
+		mv.visitInsn(IADD);
+		mv.visitVarInsn(ISTORE, offset);
+	}
+
+	@Override
+	protected void value(SegmentContext segment, int slot) {
+		mv.visitVarInsn(ALOAD, integers);
+		push(mv, slot);
+		mv.visitInsn(LALOAD);
+	}
+
+	@Override
+	protected void number(SegmentContext segment, int slot) {
+		if (isRest(segment) || !isPrimitive(segment, binding)) {
+			write(segment, slot);
+			return;
+		}
+
+		final boolean integer = SegmentType.Integer.equals(typeof(segment));
+		if (!isConstant(segment)) {
+			width(segment);
+			mv.visitVarInsn(ISTORE, width);
+			Label l0 = new Label();
+			mv.visitVarInsn(ILOAD, width);
+			push(mv, integer ? 64 : 32);
+			mv.visitJumpInsn(integer ? IF_ICMPLE : IF_ICMPEQ, l0);
+			if (!integer) {
+				mv.visitVarInsn(ILOAD, width);
+				push(mv, 64);
+				mv.visitJumpInsn(IF_ICMPEQ, l0);
+			}
+			fail();
+			mv.visitLabel(l0);
+		}
+
+		mv.visitVarInsn(ALOAD, binary);
+		pushMark();
+		pushWidth(segment);
+		if (integer) {
+			value(segment, slot);
+		} else {
+			mv.visitVarInsn(ALOAD, reals);
+			push(mv, slot);
+			mv.visitInsn(DALOAD);
+			if (isConstant(segment)) {
+				toBits(bits(segment, binding));
+			} else {
+				// Single or double precision by the size of the segment
+				Label single = new Label();
+				Label done = new Label();
+				mv.visitVarInsn(ILOAD, width);
+				push(mv, 32);
+				mv.visitJumpInsn(IF_ICMPEQ, single);
+				toBits(64);
+				mv.visitJumpInsn(GOTO, done);
+				mv.visitLabel(single);
+				toBits(32);
+				mv.visitLabel(done);
+			}
+		}
+		if (Endianness.Little.equals(endianess(segment))) {
+			pushWidth(segment);
+			mv.visitMethodInsn(INVOKESTATIC, HELPER, "toLittleEndian", "(JI)J");
+		}
+		mv.visitMethodInsn(INVOKESTATIC, HELPER, "writeBits", "([BIIJ)V");
+	}
+
+	@Override
+	protected void binary(SegmentContext segment, int slot) {
+		write(segment, slot);
+	}
+
+	@Override
+	protected void literal(SegmentContext segment) {
+		if (segment.QS() != null) {
+			// Characters as bytes, 8 at a time
+			final String chars = chars(segment);
+			for (int i = 0; i < chars.length(); i += 8) {
+				final int n = Math.min(8, chars.length() - i);
+				mv.visitVarInsn(ALOAD, binary);
+				pushMark();
+				if (i > 0) {
+					push(mv, i << 3);
+					mv.visitInsn(IADD);
+				}
+				push(mv, n << 3);
+				mv.visitLdcInsn(word(chars, i));
+				mv.visitMethodInsn(INVOKESTATIC, HELPER, "writeBits", "([BIIJ)V");
+			}
+			return;
+		}
+
+		if (!isComparable(segment, binding)) {
+			mismatch(mv, "Literal segments of variable size, of more than 64 bits, or of float type other than of 32 or 64 bits, cannot be encoded");
+			return;
+		}
+
+		final int bits = bits(segment, binding);
+		mv.visitVarInsn(ALOAD, binary);
+		pushMark();
+		push(mv, bits);
+		mv.visitLdcInsn(literalBits(segment, bits));
+		mv.visitMethodInsn(INVOKESTATIC, HELPER, "writeBits", "([BIIJ)V");
+	}
+
+	// Writes the leading bits of the binary of the slot
+	private void write(SegmentContext segment, int slot) {
+		mv.visitVarInsn(ALOAD, binary);
+		pushMark();
+		width(segment);
+		mv.visitVarInsn(ALOAD, binaries);
+		push(mv, slot);
+		mv.visitInsn(AALOAD);
+		mv.visitMethodInsn(INVOKESTATIC, HELPER, "writeBinary", "([BII[B)V");
+	}
+
+	private void pushWidth(SegmentContext segment) {
+		if (isConstant(segment)) {
+			push(mv, bits(segment, binding));
+		} else {
+			mv.visitVarInsn(ILOAD, width);
+		}
+	}
+
+	// Converts the double on the stack to the bits of a float or double as a long
+	private void toBits(int bits) {
+		if (bits == 32) {
+			mv.visitInsn(D2F);
+			mv.visitMethodInsn(INVOKESTATIC, "java/lang/Float", "floatToRawIntBits", "(F)I");
+			mv.visitInsn(I2L);
+		} else {
+			mv.visitMethodInsn(INVOKESTATIC, "java/lang/Double", "doubleToRawLongBits", "(D)J");
+		}
+	}
+}
@@ -36,6 +36,7 @@ import static io.darach.bitsyntax.BitSyntaxHelper.*;
  */
 public class BitSyntaxExpandoVisitor implements BitSyntaxVisitor {
 	private String meta = "";
+	private Map<String, Integer> binding;
 	
 	public void setPackageName(String string) {
 		// Ignore
@@ -50,7 +51,7 @@ public class BitSyntaxExpandoVisitor implements BitSyntaxVisitor {
 	}
 
 	public void setBinding(Map<String, Integer> binding) {
-		// Ignore
+		this.binding = binding;
 	}
 
 	public void prologue() {
@@ -61,7 +62,7 @@ public class BitSyntaxExpandoVisitor implements BitSyntaxVisitor {
 		if (!"<<".equals(meta)) {
 			meta += ",";
 		}
-		meta += "\n  _:" + bits(segment) + segmentSpecification(segment);
+		meta += "\n  _:" + size(segment) + segmentSpecification(segment);
 	}
 
 	@Override
@@ -69,7 +70,7 @@ public class BitSyntaxExpandoVisitor implements BitSyntaxVisitor {
 		if (!"<<".equals(meta)) {
 			meta += ",";
 		}
-		meta += "\n  " + label(segment) + ":" + bits(segment) + segmentSpecification(segment);
+		meta += "\n  " + label(segment) + ":" + size(segment) + segmentSpecification(segment);
 	}
 
 	@Override
@@ -77,7 +78,7 @@ public class BitSyntaxExpandoVisitor implements BitSyntaxVisitor {
 		if (!"<<".equals(meta)) {
 			meta += ",";
 		}
-		meta += "\n  " + label(segment) + ":"  + bits(segment) + segmentSpecification(segment);
+		meta += "\n  " + label(segment) + ":"  + size(segment) + segmentSpecification(segment);
 	}
 
 	@Override
@@ -85,7 +86,15 @@ public class BitSyntaxExpandoVisitor implements BitSyntaxVisitor {
 		if (!"<<".equals(meta)) {
 			meta += ",";
 		}
-		meta += "\n  " + segment.QS().getText() + ":" + (segment.QS().getText().length() - 2);
+		meta += "\n  " + segment.QS().getText() + ":" + chars(segment).length();
+	}
+
+	// The size in bits, or the name of an unbound variable size scaled by the unit
+	private String size(SegmentContext segment) {
+		if (!isBound(segment, binding)) {
+			return variable(segment) + "*" + unit(segment).size;
+		}
+		return isVariable(segment) ? "" + bits(segment, binding) : bits(segment);
 	}
 
 	private String segmentSpecification(SegmentContext segment) {
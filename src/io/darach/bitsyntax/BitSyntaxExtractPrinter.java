@@ -0,0 +1,136 @@
+// Copyright (c) 2013 Darach Ennis < darach at gmail dot com >.
+//
+// Permission is hereby granted, free of charge, to any person obtaining a
+// copy of this software and associated documentation files (the
+// "Software"), to deal in the Software without restriction, including
+// without limitation the rights to use, copy, modify, merge, publish,
+// distribute, sublicense, and/or sell copies of the Software, and to permit
+// persons to whom the Software is furnished to do so, subject to the
+// following conditions:  
+//
+// The above copyright notice and this permission notice shall be included
+// in all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS
+// OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+// MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN
+// NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+// DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+// OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE
+// USE OR OTHER DEALINGS IN THE SOFTWARE.
+
+
+package io.darach.bitsyntax;
+
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.Label;
+
+import static org.objectweb.asm.Opcodes.*;
+import static io.darach.bitsyntax.BitSyntaxParser.*;
+import static io.darach.bitsyntax.BitSyntaxHelper.*;
+import static io.darach.bitsyntax.BitSyntaxBytecodeHelper.*;
+
+/**
+ * Generates <code>generated</code>, the method backing <code>BitPattern.tryExtract</code>,
+ * extracting each labeled segment into a caller supplied associative map. Segments are
+ * only matched, not extracted, if no map is supplied.
+ * 
+ * Generates <code>extracted</code>, the method backing <code>BitPattern.extract</code>,
+ * if the results are a <code>BitResult</code>, setting each labeled segment by slot.
+ * 
+ * The binary is either an array of bytes, matched from its start, or a byte buffer,
+ * matched from an offset in bits from its position up to its limit with absolute gets.
+ */
+public class BitSyntaxExtractPrinter extends BitSyntaxMethodPrinter {
+	public static final String MAP = "Ljava/util/Map;";
+	public static final String RESULT = "Lio/darach/bitsyntax/BitResult;";
+
+	private final String type;
+	private int results;
+
+	public BitSyntaxExtractPrinter(final ClassWriter cw, final String fqcn) {
+		this(cw, fqcn, BYTES);
+	}
+
+	public BitSyntaxExtractPrinter(final ClassWriter cw, final String fqcn, final String descriptor) {
+		this(cw, fqcn, descriptor, MAP);
+	}
+
+	/**
+	 * @param descriptor	The descriptor of the binary
+	 * @param type			The descriptor of the results, either an associative map or a <code>BitResult</code>
+	 */
+	public BitSyntaxExtractPrinter(final ClassWriter cw, final String fqcn, final String descriptor, final String type) {
+		super(cw, fqcn);
+		this.descriptor = descriptor;
+		this.type = type;
+	}
+
+	@Override
+	protected int begin() {
+		final int next;
+		if (BUFFER.equals(descriptor)) {
+			mv = cw.visitMethod(ACC_PUBLIC, name(), "(Ljava/nio/ByteBuffer;ILjava/util/Map;" + type + ")I", "(Ljava/nio/ByteBuffer;ILjava/util/Map<Ljava/lang/String;Ljava/lang/Integer;>;" + signature() + ")I", null);
+			mv.visitCode();
+			sizes = 3;
+			results = 4;
+			origin = 5;
+			next = 6;
+			mv.visitVarInsn(ALOAD, binary);
+			mv.visitMethodInsn(INVOKEVIRTUAL, "java/nio/ByteBuffer", "position", "()I");
+			mv.visitInsn(ICONST_3);
+			mv.visitInsn(ISHL);
+			mv.visitVarInsn(ILOAD, 2);
+			mv.visitInsn(IADD);
+			mv.visitVarInsn(ISTORE, origin);
+		} else {
+			mv = cw.visitMethod(ACC_PUBLIC, name(), "([BLjava/util/Map;" + type + ")I", "([BLjava/util/Map<Ljava/lang/String;Ljava/lang/Integer;>;" + signature() + ")I", null);
+			mv.visitCode();
+			sizes = 2;
+			results = 3;
+			next = 4;
+		}
+		return next;
+	}
+
+	private String name() {
+		return RESULT.equals(type) ? "extracted" : "generated";
+	}
+
+	private String signature() {
+		return RESULT.equals(type) ? RESULT : "Ljava/util/Map<Ljava/lang/String;[B>;";
+	}
+
+	@Override
+	protected void number(SegmentContext segment, int slot) {
+		put(segment, slot);
+	}
+
+	@Override
+	protected void binary(SegmentContext segment, int slot) {
+		put(segment, slot);
+	}
+
+	private void put(SegmentContext segment, int slot) {
+		Label l0 = new Label();
+		mv.visitVarInsn(ALOAD, results);
+		mv.visitJumpInsn(IFNULL, l0);
+		mv.visitVarInsn(ALOAD, results);
+		if (RESULT.equals(type)) {
+			push(mv, slot);
+		} else {
+			mv.visitLdcInsn(label(segment));
+		}
+		mv.visitVarInsn(ALOAD, binary);
+		pushMark();
+		width(segment);
+		mv.visitMethodInsn(INVOKESTATIC, HELPER, "bitgrok", "(" + descriptor + "II)[B");
+		if (RESULT.equals(type)) {
+			mv.visitMethodInsn(INVOKEVIRTUAL, "io/darach/bitsyntax/BitResult", "set", "(I[B)V");
+		} else {
+			mv.visitMethodInsn(INVOKEINTERFACE, "java/util/Map", "put", "(Ljava/lang/Object;Ljava/lang/Object;)Ljava/lang/Object;");
+			mv.visitInsn(POP);
+		}
+		mv.visitLabel(l0);
+	}
+}
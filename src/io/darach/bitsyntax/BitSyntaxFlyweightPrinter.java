@@ -0,0 +1,371 @@
+// Copyright (c) 2013 Darach Ennis < darach at gmail dot com >.
+//
+// Permission is hereby granted, free of charge, to any person obtaining a
+// copy of this software and associated documentation files (the
+// "Software"), to deal in the Software without restriction, including
+// without limitation the rights to use, copy, modify, merge, publish,
+// distribute, sublicense, and/or sell copies of the Software, and to permit
+// persons to whom the Software is furnished to do so, subject to the
+// following conditions:  
+//
+// The above copyright notice and this permission notice shall be included
+// in all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS
+// OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+// MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN
+// NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+// DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+// OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE
+// USE OR OTHER DEALINGS IN THE SOFTWARE.
+
+
+package io.darach.bitsyntax;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.FieldVisitor;
+import org.objectweb.asm.Label;
+import org.objectweb.asm.MethodVisitor;
+
+import io.darach.bitsyntax.BitSyntax.Signedness;
+
+import static org.objectweb.asm.Opcodes.*;
+import static io.darach.bitsyntax.BitSyntaxParser.*;
+import static io.darach.bitsyntax.BitSyntaxHelper.*;
+import static io.darach.bitsyntax.BitSyntaxBytecodeHelper.*;
+
+/**
+ * The <code>BitSyntaxFlyweightPrinter</code> visits a bit syntax
+ * ANTLR v4 AST and generates a <code>BitFlyweight</code> with one
+ * accessor per labeled segment reading directly from the wrapped
+ * binary at the offsets established by the bit pattern.
+ * 
+ */
+public class BitSyntaxFlyweightPrinter implements BitSyntaxVisitor {
+	private static final String FLYWEIGHT = "io/darach/bitsyntax/BitFlyweight";
+
+	// defaults
+	private String packageName = "bitsyntax.generated";
+	private String clazzName;
+
+	private ClassWriter cw = new ClassWriter(ClassWriter.COMPUTE_FRAMES);
+	private MethodVisitor mv;
+	private FieldVisitor fv;
+
+	// Offset in bits of the current segment relative to the base field. The base is
+	// the start of the wrapped binary until a segment consumes the rest of the binary
+	private String base = "offset";
+	private int offset = 0;
+	private int minimum = 0;
+
+	// Sizes of variable segments bound when the pattern is compiled. Segments following
+	// a segment of unbound or dependent size cannot be located, so their accessors throw
+	private Map<String,Integer> binding;
+	private String unbound;
+
+	private static String unbound(SegmentContext segment) {
+		if (dependency(segment) != null) {
+			return "Segment size " + variable(segment) + " depends on a preceding segment, unsupported by flyweights";
+		}
+		return "Unbound variable segment size " + variable(segment);
+	}
+
+	// Accessors by slot
+	private final List<String> getters = new ArrayList<String>();
+	private final List<String> descriptors = new ArrayList<String>();
+	private final List<String> labels = new ArrayList<String>();
+	private final Set<String> names = new HashSet<String>();
+
+	// For ASM
+	private String fqcn;
+
+	// For Reflection
+	private String rflx;
+
+	public void setPackageName(final String packageName) {
+		this.packageName = packageName;
+	}
+
+	public void setSource(final String sourceText) {
+		// Ignore
+	}
+
+	/**
+	 * The flyweight is named after the bit pattern it is generated alongside
+	 * so, unlike other visitors, the class name is used as is.
+	 */
+	public void setClassName(final String clazzName) {
+		this.clazzName = clazzName;
+		fqcn = packageName.replace('.', '/') + '/' + clazzName;
+		rflx = packageName + "." + clazzName;
+	}
+
+	public void setBinding(final Map<String, Integer> binding) {
+		this.binding = binding;
+	}
+
+	public void prologue() {
+		cw.visit(V1_6, ACC_PUBLIC + ACC_FINAL + ACC_SUPER, fqcn, null, "java/lang/Object", new String[] { FLYWEIGHT });
+
+		fv = cw.visitField(ACC_PRIVATE, "buffer", "[B", null, null);
+		fv.visitEnd();
+		fv = cw.visitField(ACC_PRIVATE, "offset", "I", null, null);
+		fv.visitEnd();
+		fv = cw.visitField(ACC_PRIVATE, "limit", "I", null, null);
+		fv.visitEnd();
+
+		// Default ctor
+		mv = cw.visitMethod(ACC_PUBLIC, "<init>", "()V", null, null);
+		mv.visitCode();
+		mv.visitVarInsn(ALOAD, 0);
+		mv.visitMethodInsn(INVOKESPECIAL, "java/lang/Object", "<init>", "()V");
+		mv.visitInsn(RETURN);
+		mv.visitMaxs(1, 1);
+		mv.visitEnd();
+	}
+
+	@Override
+	public void skipSegment(SegmentContext segment) {
+		advance(segment);
+	}
+
+	@Override
+	public void numberSegment(SegmentContext segment) {
+		if (hasLabel(segment)) {
+			getter(segment);
+		}
+		advance(segment);
+	}
+
+	@Override
+	public void binarySegment(SegmentContext segment) {
+		if (hasLabel(segment)) {
+			getter(segment);
+		}
+		advance(segment);
+	}
+
+	@Override
+	public void stringSegment(SegmentContext segment) {
+		advance(segment);
+	}
+
+	private void advance(SegmentContext segment) {
+		if (unbound != null) return;
+		if (!isBound(segment, binding)) {
+			unbound = unbound(segment);
+		} else if (isRest(segment)) {
+			base = "limit";
+			offset = 0;
+		} else {
+			offset += bits(segment, binding);
+			if ("offset".equals(base)) minimum = offset;
+		}
+	}
+
+	private String descriptor(SegmentContext segment) {
+		if (isRest(segment) || !isBound(segment, binding)) return "[B";
+		final int bits = bits(segment, binding);
+		switch(typeof(segment)) {
+		// An unsigned integer of 32 bits only fits a long
+		case Integer: return (bits < 32 || (bits == 32 && Signedness.Signed.equals(signedness(segment)))) ? "I" : (bits <= 64) ? "J" : "[B";
+		case Float:
+		case Double: return (bits == 32) ? "F" : (bits == 64) ? "D" : "[B";
+		default: return "[B";
+		}
+	}
+
+	private void getter(SegmentContext segment) {
+		final String label = label(segment);
+		final String desc = descriptor(segment);
+		String name = "get" + Character.toUpperCase(label.charAt(0)) + label.substring(1);
+		if (!names.add(name)) {
+			name += labels.size();
+			names.add(name);
+		}
+		labels.add(label);
+		getters.add(name);
+		descriptors.add(desc);
+
+		mv = cw.visitMethod(ACC_PUBLIC, name, "()" + desc, null, null);
+		mv.visitCode();
+		if (unbound != null || !isBound(segment, binding)) {
+			mismatch(mv, (unbound != null) ? unbound : unbound(segment));
+			mv.visitMaxs(0, 0);
+			mv.visitEnd();
+			return;
+		}
+		mv.visitVarInsn(ALOAD, 0);
+		mv.visitFieldInsn(GETFIELD, fqcn, "buffer", "[B");
+		start();
+		if ("[B".equals(desc)) {
+			if (isRest(segment)) {
+				mv.visitVarInsn(ALOAD, 0);
+				mv.visitFieldInsn(GETFIELD, fqcn, "limit", "I");
+				start();
+				mv.visitInsn(ISUB);
+			} else {
+				push(mv, bits(segment, binding));
+			}
+			mv.visitMethodInsn(INVOKESTATIC, HELPER, "bitgrok", "([BII)[B");
+			mv.visitInsn(ARETURN);
+		} else {
+			readBits(mv, segment, bits(segment, binding), -1);
+			switch(desc.charAt(0)) {
+			case 'I':
+				mv.visitInsn(L2I);
+				mv.visitInsn(IRETURN);
+				break;
+			case 'J':
+				mv.visitInsn(LRETURN);
+				break;
+			case 'F':
+				mv.visitInsn(L2I);
+				mv.visitMethodInsn(INVOKESTATIC, "java/lang/Float", "intBitsToFloat", "(I)F");
+				mv.visitInsn(FRETURN);
+				break;
+			default:
+				mv.visitMethodInsn(INVOKESTATIC, "java/lang/Double", "longBitsToDouble", "(J)D");
+				mv.visitInsn(DRETURN);
+			}
+		}
+		mv.visitMaxs(0, 0);
+		mv.visitEnd();
+	}
+
+	// Pushes the offset in bits of the current segment in the wrapped binary
+	private void start() {
+		mv.visitVarInsn(ALOAD, 0);
+		mv.visitFieldInsn(GETFIELD, fqcn, base, "I");
+		if (offset != 0) {
+			push(mv, offset);
+			mv.visitInsn(IADD);
+		}
+	}
+
+	@Override
+	public void epilogue() {
+		// wrap(buffer, offset)
+		mv = cw.visitMethod(ACC_PUBLIC, "wrap", "([BI)Lio/darach/bitsyntax/BitFlyweight;", null, null);
+		mv.visitCode();
+		mv.visitVarInsn(ALOAD, 0);
+		mv.visitVarInsn(ALOAD, 1);
+		mv.visitVarInsn(ILOAD, 2);
+		mv.visitVarInsn(ALOAD, 1);
+		mv.visitInsn(ARRAYLENGTH);
+		mv.visitVarInsn(ILOAD, 2);
+		mv.visitInsn(ISUB);
+		mv.visitMethodInsn(INVOKEVIRTUAL, fqcn, "wrap", "([BII)Lio/darach/bitsyntax/BitFlyweight;");
+		mv.visitInsn(ARETURN);
+		mv.visitMaxs(0, 0);
+		mv.visitEnd();
+
+		// wrap(buffer, offset, length), validates the size of the binary once
+		mv = cw.visitMethod(ACC_PUBLIC, "wrap", "([BII)Lio/darach/bitsyntax/BitFlyweight;", null, null);
+		mv.visitCode();
+		mv.visitVarInsn(ILOAD, 3);
+		mv.visitInsn(ICONST_3);
+		mv.visitInsn(ISHL);
+		push(mv, minimum);
+		Label l0 = new Label();
+		mv.visitJumpInsn(IF_ICMPGE, l0);
+		mismatch(mv, "Actual vs expected size mismatch");
+		mv.visitLabel(l0);
+		mv.visitVarInsn(ALOAD, 0);
+		mv.visitVarInsn(ALOAD, 1);
+		mv.visitFieldInsn(PUTFIELD, fqcn, "buffer", "[B");
+		mv.visitVarInsn(ALOAD, 0);
+		mv.visitVarInsn(ILOAD, 2);
+		mv.visitInsn(ICONST_3);
+		mv.visitInsn(ISHL);
+		mv.visitFieldInsn(PUTFIELD, fqcn, "offset", "I");
+		mv.visitVarInsn(ALOAD, 0);
+		mv.visitVarInsn(ILOAD, 2);
+		mv.visitVarInsn(ILOAD, 3);
+		mv.visitInsn(IADD);
+		mv.visitInsn(ICONST_3);
+		mv.visitInsn(ISHL);
+		mv.visitFieldInsn(PUTFIELD, fqcn, "limit", "I");
+		mv.visitVarInsn(ALOAD, 0);
+		mv.visitInsn(ARETURN);
+		mv.visitMaxs(0, 0);
+		mv.visitEnd();
+
+		// slot(label)
+		mv = cw.visitMethod(ACC_PUBLIC, "slot", "(Ljava/lang/String;)I", null, null);
+		mv.visitCode();
+		for (int i = 0; i < labels.size(); i++) {
+			mv.visitLdcInsn(labels.get(i));
+			mv.visitVarInsn(ALOAD, 1);
+			mv.visitMethodInsn(INVOKEVIRTUAL, "java/lang/String", "equals", "(Ljava/lang/Object;)Z");
+			Label next = new Label();
+			mv.visitJumpInsn(IFEQ, next);
+			push(mv, i);
+			mv.visitInsn(IRETURN);
+			mv.visitLabel(next);
+		}
+		mv.visitInsn(ICONST_M1);
+		mv.visitInsn(IRETURN);
+		mv.visitMaxs(0, 0);
+		mv.visitEnd();
+
+		slotAccessor("getLong", 'J', "Not an integer segment");
+		slotAccessor("getDouble", 'D', "Not a numeric segment");
+
+		cw.visitEnd();
+	}
+
+	// Generates getLong(slot) or getDouble(slot) dispatching to the accessor of the slot
+	private void slotAccessor(String name, char type, String message) {
+		mv = cw.visitMethod(ACC_PUBLIC, name, "(I)" + type, null, null);
+		mv.visitCode();
+		final Label dflt = new Label();
+		if (!labels.isEmpty()) {
+			final Label[] cases = new Label[labels.size()];
+			for (int i = 0; i < cases.length; i++) {
+				cases[i] = new Label();
+			}
+			mv.visitVarInsn(ILOAD, 1);
+			mv.visitTableSwitchInsn(0, cases.length - 1, dflt, cases);
+			for (int i = 0; i < cases.length; i++) {
+				final char desc = descriptors.get(i).charAt(0);
+				mv.visitLabel(cases[i]);
+				if (desc == '[' || (type == 'J' && (desc == 'F' || desc == 'D'))) {
+					mv.visitJumpInsn(GOTO, dflt);
+					continue;
+				}
+				mv.visitVarInsn(ALOAD, 0);
+				mv.visitMethodInsn(INVOKEVIRTUAL, fqcn, getters.get(i), "()" + desc);
+				if (type == 'J') {
+					if (desc == 'I') mv.visitInsn(I2L);
+					mv.visitInsn(LRETURN);
+				} else {
+					switch(desc) {
+					case 'I': mv.visitInsn(I2D); break;
+					case 'J': mv.visitInsn(L2D); break;
+					case 'F': mv.visitInsn(F2D); break;
+					}
+					mv.visitInsn(DRETURN);
+				}
+			}
+		}
+		mv.visitLabel(dflt);
+		mismatch(mv, message);
+		mv.visitMaxs(0, 0);
+		mv.visitEnd();
+	}
+
+	public String getBinaryName() {
+		return rflx;
+	}
+
+	public byte[] toByteArray() {
+		return cw.toByteArray();
+	}
+}
@@ -0,0 +1,89 @@
+// Copyright (c) 2013 Darach Ennis < darach at gmail dot com >.
+//
+// Permission is hereby granted, free of charge, to any person obtaining a
+// copy of this software and associated documentation files (the
+// "Software"), to deal in the Software without restriction, including
+// without limitation the rights to use, copy, modify, merge, publish,
+// distribute, sublicense, and/or sell copies of the Software, and to permit
+// persons to whom the Software is furnished to do so, subject to the
+// following conditions:  
+//
+// The above copyright notice and this permission notice shall be included
+// in all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS
+// OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+// MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN
+// NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+// DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+// OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE
+// USE OR OTHER DEALINGS IN THE SOFTWARE.
+
+package io.darach.bitsyntax;
+
+import org.objectweb.asm.ClassWriter;
+
+import static org.objectweb.asm.Opcodes.*;
+import static io.darach.bitsyntax.BitSyntaxParser.*;
+import static io.darach.bitsyntax.BitSyntaxBytecodeHelper.*;
+
+/**
+ * Generates <code>framed</code>, the method backing <code>BitFrameDecoder</code> and
+ * <code>MappedRecordScanner</code>, matching a frame in place in a region of a binary,
+ * either an array of bytes or a byte buffer, without extracting any segments.
+ * A region that ends before the frame does returns <code>AbstractBitPattern.SHORTFALL</code>
+ * rather than a mismatch, so that the caller can wait for more of the frame.
+ * 
+ * The size of a frame must be known from its segments, so segments without a
+ * size cannot be framed.
+ */
+public class BitSyntaxFramePrinter extends BitSyntaxMethodPrinter {
+	private int start;
+	private int length;
+	private boolean frameable = true;
+
+	public BitSyntaxFramePrinter(final ClassWriter cw, final String fqcn, final String descriptor) {
+		super(cw, fqcn);
+		this.descriptor = descriptor;
+	}
+
+	@Override
+	protected int begin() {
+		mv = cw.visitMethod(ACC_PUBLIC, "framed", "(" + descriptor + "II)I", null, null);
+		mv.visitCode();
+		start = 2;
+		length = 3;
+		origin = 4;
+		mv.visitVarInsn(ILOAD, start);
+		mv.visitInsn(ICONST_3);
+		mv.visitInsn(ISHL);
+		mv.visitVarInsn(ISTORE, origin);
+		return 5;
+	}
+
+	@Override
+	protected void pushLimit() {
+		mv.visitVarInsn(ILOAD, start);
+		mv.visitVarInsn(ILOAD, length);
+		mv.visitInsn(IADD);
+	}
+
+	@Override
+	protected void shortfall(int index) {
+		mv.visitLdcInsn(AbstractBitPattern.SHORTFALL);
+		mv.visitInsn(IRETURN);
+	}
+
+	@Override
+	protected void rest(SegmentContext segment) {
+		frameable = false;
+		mismatch(mv, "Segments without a size cannot be framed");
+	}
+
+	/**
+	 * Can frames be matched, false if any segment is without a size
+	 */
+	public boolean isFrameable() {
+		return frameable;
+	}
+}
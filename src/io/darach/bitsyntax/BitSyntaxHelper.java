@@ -22,8 +22,10 @@
 
 package io.darach.bitsyntax;
 
+import java.math.BigInteger;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 
 import io.darach.bitsyntax.BitSyntax.Endianness;
 import io.darach.bitsyntax.BitSyntax.SegmentType;
@@ -114,7 +116,7 @@ public class BitSyntaxHelper {
 
 	public static String bits(SegmentContext segment) {
 		if (segment.size() == null && segment.QS() != null) {
-			return "" + (segment.QS().getText().length()-2)*8;
+			return "" + chars(segment).length()*8;
 		} 
 		
 		if (segment.size() == null){
@@ -129,6 +131,195 @@ public class BitSyntaxHelper {
 		throw new BitSyntaxException("Invalid segment. Unable to determine size in bits");
 	}
 
+	/**
+	 * The size in bits of a segment, resolving a variable size by name from a binding
+	 * 
+	 * @param segment	The segment
+	 * @param binding	A possibly null map of variable size names and their respective sizes
+	 * @return			The size in bits of the segment
+	 * @throws BitSyntaxException if the segment is of variable size and the size is unbound
+	 */
+	public static int bits(SegmentContext segment, Map<String,Integer> binding) {
+		if (isVariable(segment)) {
+			final Integer size = (binding != null) ? binding.get(variable(segment)) : null;
+			if (size == null) {
+				throw new BitSyntaxException("Unbound variable segment size " + variable(segment));
+			}
+			return size * unit(segment).size;
+		}
+		return Integer.parseInt(bits(segment));
+	}
+
+	public static boolean isVariable(BitSyntaxParser.SegmentContext segment) {
+		return segment.size() != null && segment.size().ID() != null;
+	}
+
+	public static String variable(BitSyntaxParser.SegmentContext segment) {
+		return isVariable(segment) ? segment.size().ID().getText() : null;
+	}
+
+	/**
+	 * A variable segment size is bound if its size is known when the pattern is compiled.
+	 * Sizes that depend on a preceding segment are never bound.
+	 */
+	public static boolean isBound(BitSyntaxParser.SegmentContext segment, Map<String,Integer> binding) {
+		if (!isVariable(segment)) return true;
+		return dependency(segment) == null && binding != null && binding.containsKey(variable(segment));
+	}
+
+	/**
+	 * The nearest preceding labeled integer segment that a variable segment size
+	 * refers to by label, if any
+	 */
+	public static SegmentContext dependency(BitSyntaxParser.SegmentContext segment) {
+		if (!isVariable(segment)) return null;
+		SegmentContext dependency = null;
+		for (SegmentContext sibling : siblings(segment)) {
+			if (sibling == segment) break;
+			if (variable(segment).equals(label(sibling)) && SegmentType.Integer.equals(typeof(sibling))) {
+				dependency = sibling;
+			}
+		}
+		return dependency;
+	}
+
+	/**
+	 * Is the segment referred to by the variable size of a following segment
+	 */
+	public static boolean isDependency(BitSyntaxParser.SegmentContext segment) {
+		if (!hasLabel(segment)) return false;
+		for (SegmentContext sibling : siblings(segment)) {
+			if (sibling != segment && dependency(sibling) == segment) return true;
+		}
+		return false;
+	}
+
+	private static List<SegmentContext> siblings(BitSyntaxParser.SegmentContext segment) {
+		return ((BitSyntaxParser.SegmentsContext) segment.getParent()).segment();
+	}
+
+	/**
+	 * The value of a number segment, a literal, truncated to 64 bits
+	 */
+	public static long literalValue(BitSyntaxParser.SegmentContext segment) {
+		String text = segment.NM().getText().replace("_", "");
+		if (text.endsWith("l") || text.endsWith("L")) {
+			text = text.substring(0, text.length() - 1);
+		}
+		int radix = 10;
+		if (text.startsWith("0x") || text.startsWith("0X")) {
+			radix = 16;
+			text = text.substring(2);
+		} else if (text.startsWith("0b") || text.startsWith("0B")) {
+			radix = 2;
+			text = text.substring(2);
+		} else if (text.length() > 1 && text.startsWith("0")) {
+			radix = 8;
+			text = text.substring(1);
+		}
+		return new BigInteger(text, radix).longValue();
+	}
+
+	public static boolean isLiteral(BitSyntaxParser.SegmentContext segment) {
+		return segment.NM() != null;
+	}
+
+	/**
+	 * A number segment, a literal, is comparable if it is of constant size and its bits fit
+	 * a single long. Integer literals are comparable up to 64 bits, float literals only at
+	 * 32 or 64 bits. Binary literals are not comparable.
+	 */
+	public static boolean isComparable(BitSyntaxParser.SegmentContext segment, Map<String,Integer> binding) {
+		if (!isLiteral(segment) || isRest(segment) || !isBound(segment, binding)) return false;
+		final int bits = bits(segment, binding);
+		switch(typeof(segment)) {
+		case Integer: return bits > 0 && bits <= 64;
+		case Float:
+		case Double: return bits == 32 || bits == 64;
+		default: return false;
+		}
+	}
+
+	/**
+	 * The bits of a comparable literal as read in big endian order, the bits of a float
+	 * or double literal are those of its IEEE 754 representation
+	 */
+	public static long literalBits(BitSyntaxParser.SegmentContext segment, int bits) {
+		long value = literalValue(segment);
+		switch(typeof(segment)) {
+		case Float:
+		case Double:
+			if (bits == 32) value = Float.floatToRawIntBits((float) value);
+			if (bits == 64) value = Double.doubleToRawLongBits((double) value);
+			break;
+		default:
+			break;
+		}
+		if (Endianness.Little.equals(endianess(segment))) {
+			value = BitHelper.toLittleEndian(value, bits);
+		}
+		return (bits == 64) ? value : value & ((1L << bits) - 1);
+	}
+
+	/**
+	 * The characters of a string segment without the enclosing quotes and with escape
+	 * sequences replaced by the characters they denote, one byte per character
+	 * 
+	 * @throws BitSyntaxException if an escaped character does not fit a byte
+	 */
+	public static String chars(BitSyntaxParser.SegmentContext segment) {
+		final String text = segment.QS().getText();
+		final StringBuilder chars = new StringBuilder(text.length());
+		for (int i = 1; i < text.length() - 1; i++) {
+			char c = text.charAt(i);
+			if (c == '\\') {
+				c = text.charAt(++i);
+				switch (c) {
+				case 'b': c = '\b'; break;
+				case 't': c = '\t'; break;
+				case 'n': c = '\n'; break;
+				case 'f': c = '\f'; break;
+				case 'r': c = '\r'; break;
+				case 'u':
+					c = (char) Integer.parseInt(text.substring(i + 1, i + 5), 16);
+					i += 4;
+					break;
+				default:
+					if (c >= '0' && c <= '7') {
+						// Up to 3 octal digits, the lexer allows 3 only if the first is at most 3
+						int end = i + 1;
+						while (end < text.length() - 1 && end < i + 3 && text.charAt(end) >= '0' && text.charAt(end) <= '7') end++;
+						c = (char) Integer.parseInt(text.substring(i, end), 8);
+						i = end - 1;
+					}
+					// Otherwise the escaped character itself, a quote or a backslash
+					break;
+				}
+				if (c > 0xFF) {
+					throw new BitSyntaxException("Escaped character " + text.substring(i - 5, i + 1) + " of string segment " + text + " does not fit a byte");
+				}
+			}
+			chars.append(c);
+		}
+		return chars.toString();
+	}
+
+	/**
+	 * Up to 8 characters of a string from an index as bytes of a single big endian word
+	 */
+	public static long word(String chars, int from) {
+		final int n = Math.min(8, chars.length() - from);
+		long value = 0;
+		for (int i = 0; i < n; i++) {
+			value = (value << 8) | (chars.charAt(from + i) & 0xFF);
+		}
+		return value;
+	}
+
+    public static boolean isRest(BitSyntaxParser.SegmentContext segment) {
+    	return segment.QS() == null && segment.size() == null;
+    }
+
     public static boolean isSkip(BitSyntaxParser.SegmentContext segment) {
     	return (segment.ID() != null && "_".equals(segment.ID().getText()));
     }
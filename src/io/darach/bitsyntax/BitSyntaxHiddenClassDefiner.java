@@ -0,0 +1,137 @@
+// Copyright (c) 2013 Darach Ennis < darach at gmail dot com >.
+//
+// Permission is hereby granted, free of charge, to any person obtaining a
+// copy of this software and associated documentation files (the
+// "Software"), to deal in the Software without restriction, including
+// without limitation the rights to use, copy, modify, merge, publish,
+// distribute, sublicense, and/or sell copies of the Software, and to permit
+// persons to whom the Software is furnished to do so, subject to the
+// following conditions:  
+//
+// The above copyright notice and this permission notice shall be included
+// in all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS
+// OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+// MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN
+// NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+// DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+// OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE
+// USE OR OTHER DEALINGS IN THE SOFTWARE.
+
+
+package io.darach.bitsyntax;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.Array;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.MethodVisitor;
+
+import static org.objectweb.asm.Opcodes.*;
+
+/**
+ * Defines the classes generated from each pattern as hidden classes, which are
+ * unloaded individually once no longer reachable. Hidden classes need Java 15 or
+ * later and are defined reflectively so the runtime still builds and runs on older
+ * releases.
+ * 
+ * A hidden class is defined relative to a lookup in the same package, so a small
+ * anchor class is defined once for each generated package to provide it. Hidden
+ * class names are suffixed by the JVM and cannot be resolved by name.
+ */
+public class BitSyntaxHiddenClassDefiner implements BitSyntaxClassDefiner {
+	private static final String ANCHOR = "BitSyntaxAnchor";
+	private static final Method DEFINE_HIDDEN_CLASS;
+	private static final Object NO_OPTIONS;
+
+	static {
+		Method defineHiddenClass = null;
+		Object noOptions = null;
+		try {
+			final Class<?> option = Class.forName("java.lang.invoke.MethodHandles$Lookup$ClassOption");
+			noOptions = Array.newInstance(option, 0);
+			defineHiddenClass = MethodHandles.Lookup.class.getMethod("defineHiddenClass", byte[].class, boolean.class, noOptions.getClass());
+		} catch (Exception e) {
+			// Not supported by this JVM
+		}
+		DEFINE_HIDDEN_CLASS = defineHiddenClass;
+		NO_OPTIONS = noOptions;
+	}
+
+	private final BitSyntaxClassDefiner anchors;
+	private final ConcurrentMap<String,MethodHandles.Lookup> lookups = new ConcurrentHashMap<String,MethodHandles.Lookup>();
+
+	public BitSyntaxHiddenClassDefiner() {
+		this(BitSyntaxHiddenClassDefiner.class.getClassLoader());
+	}
+
+	/**
+	 * @param parent	The parent of each anchor class loader, it must see the bitsyntax runtime
+	 * @throws BitSyntaxException if hidden classes are not supported
+	 */
+	public BitSyntaxHiddenClassDefiner(final ClassLoader parent) {
+		if (!isSupported()) throw new BitSyntaxException("Hidden classes require Java 15 or later");
+		anchors = new BitSyntaxClassLoaderDefiner(parent);
+	}
+
+	public static boolean isSupported() {
+		return DEFINE_HIDDEN_CLASS != null;
+	}
+
+	@Override
+	public Class<?>[] define(final String[] names, final byte[][] classes) {
+		final Class<?>[] defined = new Class<?>[names.length];
+		for (int i = 0; i < names.length; i++) {
+			try {
+				final MethodHandles.Lookup lookup = lookup(packageOf(names[i]));
+				defined[i] = ((MethodHandles.Lookup) DEFINE_HIDDEN_CLASS.invoke(lookup, classes[i], true, NO_OPTIONS)).lookupClass();
+			} catch (InvocationTargetException e) {
+				throw new BitSyntaxException("Unable to define generated class", e.getCause());
+			} catch (IllegalAccessException e) {
+				throw new BitSyntaxException("Unable to define generated class", e);
+			}
+		}
+		return defined;
+	}
+
+	private MethodHandles.Lookup lookup(final String packageName) throws IllegalAccessException, InvocationTargetException {
+		MethodHandles.Lookup lookup = lookups.get(packageName);
+		if (lookup != null) return lookup;
+
+		final String name = packageName.isEmpty() ? ANCHOR : packageName + "." + ANCHOR;
+		final Class<?> anchor = anchors.define(new String[] { name }, new byte[][] { anchor(name) })[0];
+		try {
+			lookup = (MethodHandles.Lookup) anchor.getMethod("lookup").invoke(null);
+		} catch (NoSuchMethodException e) {
+			throw new BitSyntaxException(e);
+		}
+		final MethodHandles.Lookup existing = lookups.putIfAbsent(packageName, lookup);
+		return existing != null ? existing : lookup;
+	}
+
+	private static String packageOf(final String name) {
+		final int dot = name.lastIndexOf('.');
+		return dot < 0 ? "" : name.substring(0, dot);
+	}
+
+	// public final class <package>.BitSyntaxAnchor { public static Lookup lookup() { return MethodHandles.lookup(); } }
+	private static byte[] anchor(final String name) {
+		final ClassWriter cw = new ClassWriter(ClassWriter.COMPUTE_MAXS);
+		cw.visit(V1_6, ACC_PUBLIC + ACC_FINAL + ACC_SUPER, name.replace('.', '/'), null, "java/lang/Object", null);
+
+		final MethodVisitor mv = cw.visitMethod(ACC_PUBLIC + ACC_STATIC, "lookup", "()Ljava/lang/invoke/MethodHandles$Lookup;", null, null);
+		mv.visitCode();
+		mv.visitMethodInsn(INVOKESTATIC, "java/lang/invoke/MethodHandles", "lookup", "()Ljava/lang/invoke/MethodHandles$Lookup;");
+		mv.visitInsn(ARETURN);
+		mv.visitMaxs(0, 0);
+		mv.visitEnd();
+
+		cw.visitEnd();
+		return cw.toByteArray();
+	}
+}
@@ -0,0 +1,85 @@
+// Copyright (c) 2013 Darach Ennis < darach at gmail dot com >.
+//
+// Permission is hereby granted, free of charge, to any person obtaining a
+// copy of this software and associated documentation files (the
+// "Software"), to deal in the Software without restriction, including
+// without limitation the rights to use, copy, modify, merge, publish,
+// distribute, sublicense, and/or sell copies of the Software, and to permit
+// persons to whom the Software is furnished to do so, subject to the
+// following conditions:  
+//
+// The above copyright notice and this permission notice shall be included
+// in all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS
+// OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+// MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN
+// NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+// DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+// OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE
+// USE OR OTHER DEALINGS IN THE SOFTWARE.
+
+package io.darach.bitsyntax;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.objectweb.asm.ClassWriter;
+
+import static org.objectweb.asm.Opcodes.*;
+import static io.darach.bitsyntax.BitSyntaxParser.*;
+import static io.darach.bitsyntax.BitSyntaxHelper.*;
+import static io.darach.bitsyntax.BitSyntaxBytecodeHelper.*;
+
+/**
+ * Generates <code>located</code>, the method backing <code>BitPattern.extractLazy</code>,
+ * matching an array of bytes as <code>extract</code> does but recording the offset and
+ * size in bits of each labeled segment by slot rather than extracting it. The offset of
+ * a slot is recorded at twice the slot, its size at the index following.
+ */
+public class BitSyntaxLocatePrinter extends BitSyntaxMethodPrinter {
+	private final List<String> labels = new ArrayList<String>();
+	private int marks;
+
+	public BitSyntaxLocatePrinter(final ClassWriter cw, final String fqcn) {
+		super(cw, fqcn);
+	}
+
+	@Override
+	protected int begin() {
+		mv = cw.visitMethod(ACC_PUBLIC, "located", "([BLjava/util/Map;[I)I", "([BLjava/util/Map<Ljava/lang/String;Ljava/lang/Integer;>;[I)I", null);
+		mv.visitCode();
+		sizes = 2;
+		marks = 3;
+		return 4;
+	}
+
+	@Override
+	protected void number(SegmentContext segment, int slot) {
+		locate(segment, slot);
+	}
+
+	@Override
+	protected void binary(SegmentContext segment, int slot) {
+		locate(segment, slot);
+	}
+
+	private void locate(SegmentContext segment, int slot) {
+		labels.add(label(segment));
+		mv.visitVarInsn(ALOAD, marks);
+		push(mv, slot << 1);
+		pushMark();
+		mv.visitInsn(IASTORE);
+		mv.visitVarInsn(ALOAD, marks);
+		push(mv, (slot << 1) + 1);
+		width(segment);
+		mv.visitInsn(IASTORE);
+	}
+
+	/**
+	 * The labels of the labeled segments by slot
+	 */
+	public String[] getLabels() {
+		return labels.toArray(new String[labels.size()]);
+	}
+}
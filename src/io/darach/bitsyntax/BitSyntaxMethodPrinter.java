@@ -0,0 +1,548 @@
+// Copyright (c) 2013 Darach Ennis < darach at gmail dot com >.
+//
+// Permission is hereby granted, free of charge, to any person obtaining a
+// copy of this software and associated documentation files (the
+// "Software"), to deal in the Software without restriction, including
+// without limitation the rights to use, copy, modify, merge, publish,
+// distribute, sublicense, and/or sell copies of the Software, and to permit
+// persons to whom the Software is furnished to do so, subject to the
+// following conditions:  
+//
+// The above copyright notice and this permission notice shall be included
+// in all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS
+// OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+// MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN
+// NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+// DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+// OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE
+// USE OR OTHER DEALINGS IN THE SOFTWARE.
+
+
+package io.darach.bitsyntax;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.Label;
+import org.objectweb.asm.MethodVisitor;
+
+import io.darach.bitsyntax.BitSyntax.Signedness;
+
+import static org.objectweb.asm.Opcodes.*;
+import static io.darach.bitsyntax.BitSyntaxParser.*;
+import static io.darach.bitsyntax.BitSyntaxHelper.*;
+import static io.darach.bitsyntax.BitSyntaxBytecodeHelper.*;
+
+/**
+ * The <code>BitSyntaxMethodPrinter</code> generates a single method of a
+ * compiled bit pattern that matches a binary segment by segment. The method
+ * printer tracks the offset of each segment, validating the binary is large
+ * enough to accommodate it, and leaves what to do with each matched segment
+ * to its subclasses.
+ * 
+ * Subclasses open the method and declare the local variables holding the
+ * binary, an array of bytes unless otherwise described, and, if supplied,
+ * the sizes of variable segments. An off-heap binary is held as a long address
+ * followed by a long length in bytes. The size of each
+ * variable segment is looked up once per call into a local. The offset in bits
+ * of the matched segment is pushed by <code>pushMark</code> and the offset of
+ * the next segment by <code>pushOffset</code>. The offsets of the leading
+ * segments of constant size are constants, the size of the binary is validated
+ * against them once, thereafter offsets are held in the <code>mark</code> and
+ * <code>offset</code> locals. Offsets are relative to the <code>origin</code>
+ * local in bits, if declared, otherwise to the start of the binary.
+ * 
+ * Generated methods return a status rather than throw. A status of zero or
+ * more is the number of bits matched. A negative status is the complement of
+ * the zero based index of the segment that failed to match. Subclasses may
+ * return a distinct status if the binary ends before a segment does.
+ */
+public abstract class BitSyntaxMethodPrinter implements BitSyntaxVisitor {
+	protected final ClassWriter cw;
+	protected final String fqcn;
+	protected MethodVisitor mv;
+
+	// Local variables
+	protected int binary = 1;
+	protected String descriptor = BYTES;
+	protected int sizes = -1;
+	protected int origin = -1;
+	protected int offset;
+	protected int mark;
+	protected int total;
+	private int storeIndex;
+
+	// Sizes of variable segments bound when the pattern is compiled
+	protected Map<String,Integer> binding;
+
+	// Locals holding the sizes of unbound variable segments by name, either read from a
+	// preceding segment or looked up from the sizes map once per call
+	private final Map<String,Integer> variables = new HashMap<String,Integer>();
+
+	// Offsets of the leading segments of constant size are known when the pattern is
+	// compiled and held as constants rather than in the mark and offset locals
+	private boolean constant = true;
+	private int constantMark = 0;
+	private int constantOffset = 0;
+	private int minimum = 0;
+
+	// Zero based slot of the next labeled segment
+	protected int slot = 0;
+
+	// Zero based index of the segment being matched
+	protected int index = 0;
+
+	protected BitSyntaxMethodPrinter(final ClassWriter cw, final String fqcn) {
+		this.cw = cw;
+		this.fqcn = fqcn;
+	}
+
+	public void setPackageName(final String packageName) {
+		// Ignore
+	}
+
+	public void setSource(final String sourceText) {
+		// Ignore
+	}
+
+	public void setClassName(final String clazzName) {
+		// Ignore
+	}
+
+	public void setBinding(final Map<String,Integer> binding) {
+		this.binding = binding;
+	}
+
+	/**
+	 * Open the method
+	 * 
+	 * @return	The index of the first free local variable
+	 */
+	protected abstract int begin();
+
+	/**
+	 * Close the method once all segments have matched. By default
+	 * returns the number of bits matched.
+	 */
+	protected void end() {
+		pushOffset();
+		mv.visitInsn(IRETURN);
+	}
+
+	/**
+	 * A labeled number segment has matched
+	 */
+	protected void number(SegmentContext segment, int slot) {
+		// Nothing by default
+	}
+
+	/**
+	 * A labeled binary segment has matched
+	 */
+	protected void binary(SegmentContext segment, int slot) {
+		// Nothing by default
+	}
+
+	/**
+	 * An unlabeled number or a string segment, a literal, has matched. By default
+	 * the bits of the segment are compared with the literal, a string 8 characters
+	 * at a time and a comparable number at once, each as a single long. Other
+	 * literals are not compared.
+	 */
+	protected void literal(SegmentContext segment) {
+		if (segment.QS() != null) {
+			final String chars = chars(segment);
+			for (int i = 0; i < chars.length(); i += 8) {
+				compare(i << 3, Math.min(8, chars.length() - i) << 3, word(chars, i));
+			}
+		} else if (isComparable(segment, binding)) {
+			final int bits = bits(segment, binding);
+			compare(0, bits, literalBits(segment, bits));
+		}
+	}
+
+	/**
+	 * Advances the offset past a segment that consumes the rest of the binary.
+	 * By default the segment consumes all remaining bits.
+	 */
+	protected void rest(SegmentContext segment) {
+		mv.visitVarInsn(ILOAD, total);
+		mv.visitVarInsn(ISTORE, offset);
+	}
+
+	/**
+	 * Pushes the value, as a long, of a matched integer segment of constant size of
+	 * at most 64 bits. By default the value is read from the binary.
+	 */
+	protected void value(SegmentContext segment, int slot) {
+		pushBinary();
+		pushMark();
+		readBits(mv, segment, bits(segment, binding), -1, descriptor);
+	}
+
+	/**
+	 * The binary does not match, returns the failing segment
+	 */
+	protected void fail() {
+		push(mv, ~index);
+		mv.visitInsn(IRETURN);
+	}
+
+	/**
+	 * The binary ends before a segment does. By default returns the
+	 * failing segment as a mismatch would.
+	 */
+	protected void shortfall(int index) {
+		push(mv, ~index);
+		mv.visitInsn(IRETURN);
+	}
+
+	/**
+	 * Pushes the index of the byte following the last byte of the binary that
+	 * segments may be matched in. By default the length of an array of bytes,
+	 * the limit of a byte buffer, or the length of an off-heap binary, the last
+	 * a long rather than an int.
+	 */
+	protected void pushLimit() {
+		if (ADDRESS.equals(descriptor)) {
+			mv.visitVarInsn(LLOAD, binary + 2);
+			return;
+		}
+		mv.visitVarInsn(ALOAD, binary);
+		if (BUFFER.equals(descriptor)) {
+			mv.visitMethodInsn(INVOKEVIRTUAL, "java/nio/ByteBuffer", "limit", "()I");
+		} else {
+			mv.visitInsn(ARRAYLENGTH);
+		}
+	}
+
+	/**
+	 * Pushes the binary as the first arguments of the <code>BitHelper</code> reads of
+	 * its descriptor. An off-heap binary is pushed as its address and its length.
+	 */
+	protected void pushBinary() {
+		if (ADDRESS.equals(descriptor)) {
+			mv.visitVarInsn(LLOAD, binary);
+			mv.visitVarInsn(LLOAD, binary + 2);
+		} else {
+			mv.visitVarInsn(ALOAD, binary);
+		}
+	}
+
+	protected int newLocal(int size) {
+		final int local = storeIndex;
+		storeIndex += size;
+		return local;
+	}
+
+	public void prologue() {
+		storeIndex = begin();
+		offset = newLocal(1);
+		mark = newLocal(1);
+		total = newLocal(1);
+		mv.visitInsn(ICONST_0);
+		mv.visitVarInsn(ISTORE, offset);
+		mv.visitInsn(ICONST_0);
+		mv.visitVarInsn(ISTORE, mark);
+		pushTotal();
+		mv.visitVarInsn(ISTORE, total);
+	}
+
+	/**
+	 * Pushes the number of bits that segments may be matched in. By default from the
+	 * origin up to the limit of the binary. The bits of a binary of 256MB or more do not
+	 * fit an int, so are counted as a long and clamped to the most bits an int offset reaches.
+	 * Segments of larger binaries are matched within their first 256MB.
+	 */
+	protected void pushTotal() {
+		pushLimit();
+		if (!ADDRESS.equals(descriptor)) mv.visitInsn(I2L);
+		mv.visitInsn(ICONST_3);
+		mv.visitInsn(LSHL);
+		if (origin >= 0) {
+			mv.visitVarInsn(ILOAD, origin);
+			mv.visitInsn(I2L);
+			mv.visitInsn(LSUB);
+		}
+		mv.visitLdcInsn(Long.valueOf(Integer.MAX_VALUE));
+		mv.visitMethodInsn(INVOKESTATIC, "java/lang/Math", "min", "(JJ)J");
+		mv.visitInsn(L2I);
+	}
+
+	@Override
+	public void skipSegment(SegmentContext segment) {
+		advance(segment);
+		index++;
+	}
+
+	@Override
+	public void numberSegment(SegmentContext segment) {
+		advance(segment);
+		if (isDependency(segment)) {
+			capture(segment);
+		}
+		if (hasLabel(segment)) {
+			number(segment, slot++);
+		} else {
+			literal(segment);
+		}
+		index++;
+	}
+
+	@Override
+	public void binarySegment(SegmentContext segment) {
+		advance(segment);
+		if (hasLabel(segment)) {
+			binary(segment, slot++);
+		} else {
+			literal(segment);
+		}
+		index++;
+	}
+
+	@Override
+	public void stringSegment(SegmentContext segment) {
+		advance(segment);
+		literal(segment);
+		index++;
+	}
+
+	/**
+	 * A segment is of constant size if its size is known when the pattern is compiled
+	 */
+	protected boolean isConstant(SegmentContext segment) {
+		return !isRest(segment) && isBound(segment, binding);
+	}
+
+	// Validates the size of the binary against the leading segments of constant size once,
+	// so that they are matched at constant offsets without any further checks
+	private void layout(SegmentContext first) {
+		final List<Integer> ends = new ArrayList<Integer>();
+		int end = 0;
+		for (SegmentContext segment : ((SegmentsContext) first.getParent()).segment()) {
+			if (!isConstant(segment)) break;
+			end += bits(segment, binding);
+			ends.add(end);
+		}
+		if (ends.isEmpty()) return;
+
+		minimum = end;
+		final Label ok = new Label();
+		mv.visitVarInsn(ILOAD, total);
+		push(mv, end);
+		mv.visitJumpInsn(IF_ICMPGE, ok);
+		for (int i = 0; i < ends.size(); i++) {
+			final Label next = new Label();
+			mv.visitVarInsn(ILOAD, total);
+			push(mv, ends.get(i));
+			mv.visitJumpInsn(IF_ICMPGE, next);
+			shortfall(i);
+			mv.visitLabel(next);
+		}
+		mv.visitLabel(ok);
+	}
+
+	// Marks the start of the segment and advances the offset past it
+	private void advance(SegmentContext segment) {
+		if (index == 0) layout(segment);
+
+		if (constant) {
+			if (isConstant(segment)) {
+				constantMark = constantOffset;
+				constantOffset += bits(segment, binding);
+				return;
+			}
+			// Leaving the leading segments of constant size
+			constant = false;
+			push(mv, constantOffset);
+			mv.visitVarInsn(ISTORE, offset);
+		}
+
+		mv.visitVarInsn(ILOAD, offset);
+		mv.visitVarInsn(ISTORE, mark);
+		if (isRest(segment)) {
+			// @TODO Enforce last segment rule. last segment only can have no (variable) size
+			rest(segment);
+		} else if (!isBound(segment, binding)) {
+			// Compared against the bits remaining in units, so that the size in bits cannot overflow
+			final int unit = unit(segment).size;
+			final int size = sizeLocal(variable(segment));
+			mv.visitVarInsn(ILOAD, size);
+			mv.visitVarInsn(ILOAD, total);
+			mv.visitVarInsn(ILOAD, offset);
+			mv.visitInsn(ISUB);
+			if (unit != 1) {
+				push(mv, unit);
+				mv.visitInsn(IDIV);
+			}
+			Label l0 = new Label();
+			mv.visitJumpInsn(IF_ICMPLE, l0);
+			shortfall(index);
+			mv.visitLabel(l0);
+			mv.visitVarInsn(ILOAD, offset);
+			mv.visitVarInsn(ILOAD, size);
+			if (unit != 1) {
+				push(mv, unit);
+				mv.visitInsn(IMUL);
+			}
+			mv.visitInsn(IADD);
+			mv.visitVarInsn(ISTORE, offset);
+		} else {
+			mv.visitVarInsn(ILOAD, offset);
+			push(mv, bits(segment, binding));
+			mv.visitInsn(IADD);
+			mv.visitInsn(DUP);
+			mv.visitVarInsn(ISTORE, offset);
+			mv.visitVarInsn(ILOAD, total);
+			Label l0 = new Label();
+			mv.visitJumpInsn(IF_ICMPLE, l0);
+			shortfall(index);
+			mv.visitLabel(l0);
+		}
+	}
+
+	// Reads the value of an integer segment that following segments are sized by into a
+	// local, a value that is not a valid size does not match
+	private void capture(SegmentContext segment) {
+		if (!isConstant(segment) || bits(segment, binding) > 64) {
+			throw new BitSyntaxException("Segment " + label(segment) + " sizes other segments so must be an integer of constant size of at most 64 bits");
+		}
+		final int bits = bits(segment, binding);
+		value(segment, slot);
+		if (Signedness.Signed.equals(signedness(segment))) {
+			mv.visitInsn(DUP2);
+			mv.visitInsn(LCONST_0);
+			mv.visitInsn(LCMP);
+			Label l0 = new Label();
+			mv.visitJumpInsn(IFGE, l0);
+			fail();
+			mv.visitLabel(l0);
+		}
+		if (bits > 31) {
+			mv.visitInsn(DUP2);
+			mv.visitLdcInsn(Long.valueOf(Integer.MAX_VALUE));
+			mv.visitInsn(LCMP);
+			Label l1 = new Label();
+			mv.visitJumpInsn(IFLE, l1);
+			fail();
+			mv.visitLabel(l1);
+		}
+		mv.visitInsn(L2I);
+		final int local = newLocal(1);
+		mv.visitVarInsn(ISTORE, local);
+		variables.put(label(segment), local);
+	}
+
+	// Returns the local holding the size of an unbound variable segment, looking it up
+	// from the sizes map on first use. Segments are matched in sequence without branching
+	// other than to return, so the first use dominates any later use
+	private int sizeLocal(String name) {
+		Integer local = variables.get(name);
+		if (local != null) return local;
+
+		local = newLocal(1);
+		if (sizes < 0) {
+			mismatch(mv, "Unbound variable segment size " + name);
+			return local;
+		}
+		mv.visitVarInsn(ALOAD, sizes);
+		mv.visitLdcInsn(name);
+		mv.visitMethodInsn(INVOKESTATIC, HELPER, "sizeof", "(Ljava/util/Map;Ljava/lang/String;)I");
+		mv.visitVarInsn(ISTORE, local);
+		variables.put(name, local);
+		return local;
+	}
+
+	// Compares the big endian bits at an offset into the matched segment with a constant
+	private void compare(int from, int bits, long expected) {
+		pushBinary();
+		pushMark();
+		if (from > 0) {
+			push(mv, from);
+			mv.visitInsn(IADD);
+		}
+		push(mv, bits);
+		mv.visitMethodInsn(INVOKESTATIC, HELPER, "readBits", "(" + descriptor + "II)J");
+		mv.visitLdcInsn(expected);
+		mv.visitInsn(LCMP);
+		Label l0 = new Label();
+		mv.visitJumpInsn(IFEQ, l0);
+		fail();
+		mv.visitLabel(l0);
+	}
+
+	/**
+	 * The size in bits of the leading segments of constant size, the least
+	 * number of bits a binary must hold to match
+	 */
+	public int getMinimum() {
+		return minimum;
+	}
+
+	/**
+	 * The size in bits of a binary matching the pattern if all segments matched
+	 * so far are of constant size, otherwise -1
+	 */
+	public int getSize() {
+		return constant ? constantOffset : -1;
+	}
+
+	/**
+	 * The number of labeled segments matched so far, once all segments are
+	 * matched the number of slots
+	 */
+	public int getSlots() {
+		return slot;
+	}
+
+	/**
+	 * Pushes the offset in bits of the matched segment in the binary
+	 */
+	protected void pushMark() {
+		if (constant) {
+			push(mv, constantMark);
+		} else {
+			mv.visitVarInsn(ILOAD, mark);
+		}
+		if (origin >= 0) {
+			mv.visitVarInsn(ILOAD, origin);
+			mv.visitInsn(IADD);
+		}
+	}
+
+	/**
+	 * Pushes the offset in bits of the next segment relative to the origin
+	 */
+	protected void pushOffset() {
+		if (constant) {
+			push(mv, constantOffset);
+		} else {
+			mv.visitVarInsn(ILOAD, offset);
+		}
+	}
+
+	/**
+	 * Pushes the size in bits of the matched segment
+	 */
+	protected void width(SegmentContext segment) {
+		if (isConstant(segment)) {
+			push(mv, bits(segment, binding));
+		} else {
+			mv.visitVarInsn(ILOAD, offset);
+			mv.visitVarInsn(ILOAD, mark);
+			mv.visitInsn(ISUB);
+		}
+	}
+
+	@Override
+	public void epilogue() {
+		end();
+		mv.visitMaxs(0, 0);
+		mv.visitEnd();
+	}
+}
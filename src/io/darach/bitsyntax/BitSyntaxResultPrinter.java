@@ -0,0 +1,283 @@
+// Copyright (c) 2013 Darach Ennis < darach at gmail dot com >.
+//
+// Permission is hereby granted, free of charge, to any person obtaining a
+// copy of this software and associated documentation files (the
+// "Software"), to deal in the Software without restriction, including
+// without limitation the rights to use, copy, modify, merge, publish,
+// distribute, sublicense, and/or sell copies of the Software, and to permit
+// persons to whom the Software is furnished to do so, subject to the
+// following conditions:  
+//
+// The above copyright notice and this permission notice shall be included
+// in all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS
+// OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+// MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN
+// NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+// DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+// OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE
+// USE OR OTHER DEALINGS IN THE SOFTWARE.
+
+package io.darach.bitsyntax;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.FieldVisitor;
+import org.objectweb.asm.Label;
+import org.objectweb.asm.MethodVisitor;
+
+import static org.objectweb.asm.Opcodes.*;
+import static io.darach.bitsyntax.BitSyntaxParser.*;
+import static io.darach.bitsyntax.BitSyntaxHelper.*;
+import static io.darach.bitsyntax.BitSyntaxBytecodeHelper.*;
+
+/**
+ * The <code>BitSyntaxResultPrinter</code> visits a bit syntax ANTLR v4 AST
+ * and generates a <code>BitResult</code> with one field per labeled segment,
+ * read and set by slot with a table switch and looked up by label with a
+ * lookup switch on the hash code of the label.
+ * 
+ */
+public class BitSyntaxResultPrinter implements BitSyntaxVisitor {
+	private static final String RESULT = "io/darach/bitsyntax/BitResult";
+
+	// defaults
+	private String packageName = "bitsyntax.generated";
+	private String clazzName;
+
+	private ClassWriter cw = new ClassWriter(ClassWriter.COMPUTE_FRAMES);
+	private MethodVisitor mv;
+	private FieldVisitor fv;
+
+	// Labels by slot
+	private final List<String> labels = new ArrayList<String>();
+
+	// Cases of the current slot switch
+	private Label[] cases;
+
+	// For ASM
+	private String fqcn;
+
+	// For Reflection
+	private String rflx;
+
+	public void setPackageName(final String packageName) {
+		this.packageName = packageName;
+	}
+
+	public void setSource(final String sourceText) {
+		// Ignore
+	}
+
+	/**
+	 * The result is named after the bit pattern it is generated alongside
+	 * so, unlike other visitors, the class name is used as is.
+	 */
+	public void setClassName(final String clazzName) {
+		this.clazzName = clazzName;
+		fqcn = packageName.replace('.', '/') + '/' + clazzName;
+		rflx = packageName + "." + clazzName;
+	}
+
+	public void setBinding(final Map<String, Integer> binding) {
+		// Ignore, results are by slot regardless of size
+	}
+
+	public void prologue() {
+		cw.visit(V1_6, ACC_PUBLIC + ACC_FINAL + ACC_SUPER, fqcn, null, RESULT, null);
+
+		// Default ctor
+		mv = cw.visitMethod(ACC_PUBLIC, "<init>", "()V", null, null);
+		mv.visitCode();
+		mv.visitVarInsn(ALOAD, 0);
+		mv.visitMethodInsn(INVOKESPECIAL, RESULT, "<init>", "()V");
+		mv.visitInsn(RETURN);
+		mv.visitMaxs(1, 1);
+		mv.visitEnd();
+	}
+
+	@Override
+	public void skipSegment(SegmentContext segment) {
+		// Nothing
+	}
+
+	@Override
+	public void numberSegment(SegmentContext segment) {
+		if (hasLabel(segment)) {
+			field(segment);
+		}
+	}
+
+	@Override
+	public void binarySegment(SegmentContext segment) {
+		if (hasLabel(segment)) {
+			field(segment);
+		}
+	}
+
+	@Override
+	public void stringSegment(SegmentContext segment) {
+		// Nothing
+	}
+
+	private void field(SegmentContext segment) {
+		fv = cw.visitField(ACC_PRIVATE, "s" + labels.size(), "[B", null, null);
+		fv.visitEnd();
+		labels.add(label(segment));
+	}
+
+	@Override
+	public void epilogue() {
+		// create()
+		mv = cw.visitMethod(ACC_PROTECTED, "create", "()L" + RESULT + ";", null, null);
+		mv.visitCode();
+		mv.visitTypeInsn(NEW, fqcn);
+		mv.visitInsn(DUP);
+		mv.visitMethodInsn(INVOKESPECIAL, fqcn, "<init>", "()V");
+		mv.visitInsn(ARETURN);
+		mv.visitMaxs(0, 0);
+		mv.visitEnd();
+
+		// get(slot)
+		mv = cw.visitMethod(ACC_PUBLIC, "get", "(I)[B", null, null);
+		mv.visitCode();
+		Label dflt = slotSwitch();
+		for (int i = 0; i < labels.size(); i++) {
+			mv.visitLabel(cases[i]);
+			mv.visitVarInsn(ALOAD, 0);
+			mv.visitFieldInsn(GETFIELD, fqcn, "s" + i, "[B");
+			mv.visitInsn(ARETURN);
+		}
+		mv.visitLabel(dflt);
+		mismatch(mv, "No segment has this slot");
+		mv.visitMaxs(0, 0);
+		mv.visitEnd();
+
+		// set(slot, value)
+		mv = cw.visitMethod(ACC_PUBLIC, "set", "(I[B)V", null, null);
+		mv.visitCode();
+		dflt = slotSwitch();
+		for (int i = 0; i < labels.size(); i++) {
+			mv.visitLabel(cases[i]);
+			mv.visitVarInsn(ALOAD, 0);
+			mv.visitVarInsn(ALOAD, 2);
+			mv.visitFieldInsn(PUTFIELD, fqcn, "s" + i, "[B");
+			mv.visitInsn(RETURN);
+		}
+		mv.visitLabel(dflt);
+		mismatch(mv, "No segment has this slot");
+		mv.visitMaxs(0, 0);
+		mv.visitEnd();
+
+		// label(slot)
+		mv = cw.visitMethod(ACC_PUBLIC, "label", "(I)Ljava/lang/String;", null, null);
+		mv.visitCode();
+		dflt = slotSwitch();
+		for (int i = 0; i < labels.size(); i++) {
+			mv.visitLabel(cases[i]);
+			mv.visitLdcInsn(labels.get(i));
+			mv.visitInsn(ARETURN);
+		}
+		mv.visitLabel(dflt);
+		mismatch(mv, "No segment has this slot");
+		mv.visitMaxs(0, 0);
+		mv.visitEnd();
+
+		// slot(label), the last slot of each label by the hash code of the label
+		final Map<Integer,Map<String,Integer>> hashes = new TreeMap<Integer,Map<String,Integer>>();
+		for (int i = 0; i < labels.size(); i++) {
+			Map<String,Integer> bucket = hashes.get(labels.get(i).hashCode());
+			if (bucket == null) {
+				hashes.put(labels.get(i).hashCode(), bucket = new TreeMap<String,Integer>());
+			}
+			bucket.put(labels.get(i), i);
+		}
+		mv = cw.visitMethod(ACC_PUBLIC, "slot", "(Ljava/lang/Object;)I", null, null);
+		mv.visitCode();
+		final Label miss = new Label();
+		if (!hashes.isEmpty()) {
+			mv.visitVarInsn(ALOAD, 1);
+			mv.visitTypeInsn(INSTANCEOF, "java/lang/String");
+			mv.visitJumpInsn(IFEQ, miss);
+			mv.visitVarInsn(ALOAD, 1);
+			mv.visitMethodInsn(INVOKEVIRTUAL, "java/lang/Object", "hashCode", "()I");
+			final int[] keys = new int[hashes.size()];
+			final Label[] buckets = new Label[hashes.size()];
+			int k = 0;
+			for (Integer hash : hashes.keySet()) {
+				keys[k] = hash;
+				buckets[k++] = new Label();
+			}
+			mv.visitLookupSwitchInsn(miss, keys, buckets);
+			k = 0;
+			for (Map<String,Integer> bucket : hashes.values()) {
+				mv.visitLabel(buckets[k++]);
+				for (Map.Entry<String,Integer> label : bucket.entrySet()) {
+					mv.visitLdcInsn(label.getKey());
+					mv.visitVarInsn(ALOAD, 1);
+					mv.visitMethodInsn(INVOKEVIRTUAL, "java/lang/String", "equals", "(Ljava/lang/Object;)Z");
+					final Label next = new Label();
+					mv.visitJumpInsn(IFEQ, next);
+					push(mv, label.getValue());
+					mv.visitInsn(IRETURN);
+					mv.visitLabel(next);
+				}
+				mv.visitJumpInsn(GOTO, miss);
+			}
+		}
+		mv.visitLabel(miss);
+		mv.visitInsn(ICONST_M1);
+		mv.visitInsn(IRETURN);
+		mv.visitMaxs(0, 0);
+		mv.visitEnd();
+
+		// slots()
+		mv = cw.visitMethod(ACC_PUBLIC, "slots", "()I", null, null);
+		mv.visitCode();
+		push(mv, labels.size());
+		mv.visitInsn(IRETURN);
+		mv.visitMaxs(0, 0);
+		mv.visitEnd();
+
+		// size(), the number of distinct labels
+		int size = 0;
+		for (Map<String,Integer> bucket : hashes.values()) {
+			size += bucket.size();
+		}
+		mv = cw.visitMethod(ACC_PUBLIC, "size", "()I", null, null);
+		mv.visitCode();
+		push(mv, size);
+		mv.visitInsn(IRETURN);
+		mv.visitMaxs(0, 0);
+		mv.visitEnd();
+
+		cw.visitEnd();
+	}
+
+	// Opens a table switch on the slot, returns the default label
+	private Label slotSwitch() {
+		final Label dflt = new Label();
+		cases = new Label[labels.size()];
+		if (!labels.isEmpty()) {
+			for (int i = 0; i < cases.length; i++) {
+				cases[i] = new Label();
+			}
+			mv.visitVarInsn(ILOAD, 1);
+			mv.visitTableSwitchInsn(0, cases.length - 1, dflt, cases);
+		}
+		return dflt;
+	}
+
+	public String getBinaryName() {
+		return rflx;
+	}
+
+	public byte[] toByteArray() {
+		return cw.toByteArray();
+	}
+}
@@ -0,0 +1,93 @@
+// Copyright (c) 2013 Darach Ennis < darach at gmail dot com >.
+//
+// Permission is hereby granted, free of charge, to any person obtaining a
+// copy of this software and associated documentation files (the
+// "Software"), to deal in the Software without restriction, including
+// without limitation the rights to use, copy, modify, merge, publish,
+// distribute, sublicense, and/or sell copies of the Software, and to permit
+// persons to whom the Software is furnished to do so, subject to the
+// following conditions:  
+//
+// The above copyright notice and this permission notice shall be included
+// in all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS
+// OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+// MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN
+// NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+// DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+// OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE
+// USE OR OTHER DEALINGS IN THE SOFTWARE.
+
+package io.darach.bitsyntax;
+
+import org.objectweb.asm.ClassWriter;
+
+import io.darach.bitsyntax.BitSyntax.SegmentType;
+
+import static org.objectweb.asm.Opcodes.*;
+import static io.darach.bitsyntax.BitSyntaxParser.*;
+import static io.darach.bitsyntax.BitSyntaxHelper.*;
+import static io.darach.bitsyntax.BitSyntaxBytecodeHelper.*;
+
+/**
+ * Generates <code>extractedInto</code>, the method backing <code>BitPattern.extractInto</code>,
+ * passing each labeled segment to a <code>BitSegmentSink</code> as it matches. Numeric
+ * segments of constant size readable as a primitive are read, all other labeled segments
+ * are passed in place by offset and size.
+ */
+public class BitSyntaxSinkPrinter extends BitSyntaxMethodPrinter {
+	private static final String SINK = "io/darach/bitsyntax/BitSegmentSink";
+
+	private int sink;
+
+	public BitSyntaxSinkPrinter(final ClassWriter cw, final String fqcn) {
+		super(cw, fqcn);
+	}
+
+	@Override
+	protected int begin() {
+		mv = cw.visitMethod(ACC_PUBLIC, "extractedInto", "([BLjava/util/Map;L" + SINK + ";)I", "([BLjava/util/Map<Ljava/lang/String;Ljava/lang/Integer;>;L" + SINK + ";)I", null);
+		mv.visitCode();
+		sizes = 2;
+		sink = 3;
+		return 4;
+	}
+
+	@Override
+	protected void number(SegmentContext segment, int slot) {
+		if (!isConstant(segment) || !isPrimitive(segment, binding)) {
+			binary(segment, slot);
+			return;
+		}
+
+		final int bits = bits(segment, binding);
+		mv.visitVarInsn(ALOAD, sink);
+		push(mv, slot);
+		pushBinary();
+		pushMark();
+		readBits(mv, segment, bits, -1, descriptor);
+		if (SegmentType.Integer.equals(typeof(segment))) {
+			mv.visitMethodInsn(INVOKEINTERFACE, SINK, "onInt", "(IJ)V");
+			return;
+		}
+		if (bits == 32) {
+			mv.visitInsn(L2I);
+			mv.visitMethodInsn(INVOKESTATIC, "java/lang/Float", "intBitsToFloat", "(I)F");
+			mv.visitInsn(F2D);
+		} else {
+			mv.visitMethodInsn(INVOKESTATIC, "java/lang/Double", "longBitsToDouble", "(J)D");
+		}
+		mv.visitMethodInsn(INVOKEINTERFACE, SINK, "onDouble", "(ID)V");
+	}
+
+	@Override
+	protected void binary(SegmentContext segment, int slot) {
+		mv.visitVarInsn(ALOAD, sink);
+		push(mv, slot);
+		mv.visitVarInsn(ALOAD, binary);
+		pushMark();
+		width(segment);
+		mv.visitMethodInsn(INVOKEINTERFACE, SINK, "onBinary", "(I[BII)V");
+	}
+}
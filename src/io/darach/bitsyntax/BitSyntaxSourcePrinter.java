@@ -78,7 +78,7 @@ public class BitSyntaxSourcePrinter implements BitSyntaxVisitor {
     	"\n" +
     	"    public Map<String,byte[]> generated(byte[] binary, Map<String,Integer> vars) {\n" +
 		"        Map<String,byte[]> bindings = new HashMap<String,byte[]>();\n" +
-	    "        scope = (vars != null) ? vars : new HashMap<String,Integer>();\n" +
+	    "        final Map<String,Integer> scope = (vars != null) ? vars : new HashMap<String,Integer>();\n" +
 	    "        int offset = 0, mark = 0;\n" +
 	    "        int total_size_in_bits = binary.length * 8;\n" +
 	    "        byte[] result = null;\n" +
@@ -173,7 +173,7 @@ public class BitSyntaxSourcePrinter implements BitSyntaxVisitor {
 	}
 
 	public void stringSegment(SegmentContext segment) {
-        final int sizeBytes = segment.QS().getText().length() - 2;
+        final int sizeBytes = chars(segment).length();
         final int sizeBits = sizeBytes << 3;
 
         clazzText += "        // " + segment.getText() + "\n";
@@ -0,0 +1,42 @@
+// Copyright (c) 2013 Darach Ennis < darach at gmail dot com >.
+//
+// Permission is hereby granted, free of charge, to any person obtaining a
+// copy of this software and associated documentation files (the
+// "Software"), to deal in the Software without restriction, including
+// without limitation the rights to use, copy, modify, merge, publish,
+// distribute, sublicense, and/or sell copies of the Software, and to permit
+// persons to whom the Software is furnished to do so, subject to the
+// following conditions:  
+//
+// The above copyright notice and this permission notice shall be included
+// in all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS
+// OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+// MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN
+// NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+// DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+// OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE
+// USE OR OTHER DEALINGS IN THE SOFTWARE.
+
+package io.darach.bitsyntax;
+
+import java.nio.ByteBuffer;
+
+/**
+ * A MappedRecordHandler receives the records a <code>MappedRecordScanner</code>
+ * walks in file order.
+ */
+public interface MappedRecordHandler {
+	/**
+	 * A complete record has matched. The record is a view of the mapped file, not a
+	 * copy, so it is only valid for the duration of the call. Offsets are absolute,
+	 * from the start of the buffer regardless of its position.
+	 * 
+	 * @param buffer	The mapped buffer holding the record
+	 * @param offset	The offset in bytes of the record in the buffer
+	 * @param length	The length in bytes of the record
+	 * @param position	The position in bytes of the record in the file
+	 */
+	public void record(final ByteBuffer buffer, final int offset, final int length, final long position);
+}
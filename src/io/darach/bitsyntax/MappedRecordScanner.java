@@ -0,0 +1,136 @@
+// Copyright (c) 2013 Darach Ennis < darach at gmail dot com >.
+//
+// Permission is hereby granted, free of charge, to any person obtaining a
+// copy of this software and associated documentation files (the
+// "Software"), to deal in the Software without restriction, including
+// without limitation the rights to use, copy, modify, merge, publish,
+// distribute, sublicense, and/or sell copies of the Software, and to permit
+// persons to whom the Software is furnished to do so, subject to the
+// following conditions:  
+//
+// The above copyright notice and this permission notice shall be included
+// in all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS
+// OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+// MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN
+// NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+// DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+// OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE
+// USE OR OTHER DEALINGS IN THE SOFTWARE.
+
+package io.darach.bitsyntax;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+
+/**
+ * The MappedRecordScanner walks a file of records, each matching a compiled bit
+ * pattern, record by record. The file is mapped into memory a window at a time
+ * and each record is matched in place in the mapped buffer, which also determines
+ * its length, and passed to a handler without copying.
+ * 
+ * Files of any size are scanned through a window of at most 256MB, the largest
+ * region offsets in bits are addressable in. Once a record extends beyond the
+ * window, the next window is mapped from the start of that record, so no record
+ * larger than the window can be scanned.
+ * 
+ * As with <code>BitFrameDecoder</code>, every segment must have a size and records
+ * start on a byte boundary.
+ */
+public class MappedRecordScanner {
+	/**
+	 * The default size in bytes of the mapped window
+	 */
+	public static final int DEFAULT_WINDOW = 64 << 20;
+
+	/**
+	 * The largest size in bytes of the mapped window, such that offsets in bits fit an int
+	 */
+	public static final int MAXIMUM_WINDOW = Integer.MAX_VALUE >>> 3;
+
+	private final AbstractBitPattern pattern;
+	private final FileChannel channel;
+	private final int window;
+	private final int minimum;
+
+	/**
+	 * @param pattern	The bit pattern each record matches
+	 * @param channel	The file to scan, opened for reading
+	 */
+	public MappedRecordScanner(final BitPattern pattern, final FileChannel channel) {
+		this(pattern, channel, DEFAULT_WINDOW);
+	}
+
+	/**
+	 * @param pattern	The bit pattern each record matches
+	 * @param channel	The file to scan, opened for reading
+	 * @param window	The size in bytes of the mapped window, the largest record that can be scanned
+	 * @throws BitSyntaxException	Thrown if the window is less than the minimum size of the pattern or exceeds <code>MAXIMUM_WINDOW</code>,
+	 * 								or if the pattern has a segment without a size
+	 */
+	public MappedRecordScanner(final BitPattern pattern, final FileChannel channel, final int window) throws BitSyntaxException {
+		this.pattern = (AbstractBitPattern) pattern;
+		if (!this.pattern.frameable()) {
+			throw new BitSyntaxException("Segments without a size cannot be framed");
+		}
+		this.channel = channel;
+		this.minimum = Math.max(1, this.pattern.minimum());
+		if (window < minimum || window > MAXIMUM_WINDOW) {
+			throw new BitSyntaxException("Window of " + window + " bytes must be between the minimum record size of " + minimum + " bytes and " + MAXIMUM_WINDOW + " bytes");
+		}
+		this.window = window;
+	}
+
+	/**
+	 * Scans the records of the file from the start
+	 * 
+	 * @see #scan(long, MappedRecordHandler)
+	 */
+	public long scan(final MappedRecordHandler handler) throws IOException, BitSyntaxException {
+		return scan(0, handler);
+	}
+
+	/**
+	 * Scans the records of the file from a position in the file up to the last complete
+	 * record. A partial record at the end of the file, as when the file is still being
+	 * written, is not scanned.
+	 * 
+	 * @param position	The position in bytes in the file of the first record
+	 * @param handler	The handler of each record
+	 * @return			The position in bytes in the file following the last complete record
+	 * @throws IOException	Thrown if the file cannot be mapped
+	 * @throws BitSyntaxException	Thrown if a record does not match or is larger than the window
+	 */
+	public long scan(long position, final MappedRecordHandler handler) throws IOException, BitSyntaxException {
+		final long size = channel.size();
+		while (size - position >= minimum) {
+			final int length = (int) Math.min(window, size - position);
+			final MappedByteBuffer buffer = channel.map(MapMode.READ_ONLY, position, length);
+			int offset = 0;
+			while (length - offset >= minimum) {
+				final int status = pattern.framed(buffer, offset, length - offset);
+				if (status == AbstractBitPattern.SHORTFALL) break;
+				if (status < 0) {
+					throw new BitSyntaxException("Record at " + (position + offset) + " does not match at segment " + ~status);
+				}
+				final int n = (status + 7) >>> 3;
+				if (n == 0) {
+					throw new BitSyntaxException("Empty records cannot be scanned");
+				}
+				handler.record(buffer, offset, n, position + offset);
+				offset += n;
+			}
+			if (offset == 0) {
+				if (length == window) {
+					throw new BitSyntaxException("Record at " + position + " exceeds the window of " + window + " bytes");
+				}
+				break;
+			}
+			position += offset;
+		}
+		return position;
+	}
+}
@@ -0,0 +1,172 @@
+// Copyright (c) 2013 Darach Ennis < darach at gmail dot com >.
+//
+// Permission is hereby granted, free of charge, to any person obtaining a
+// copy of this software and associated documentation files (the
+// "Software"), to deal in the Software without restriction, including
+// without limitation the rights to use, copy, modify, merge, publish,
+// distribute, sublicense, and/or sell copies of the Software, and to permit
+// persons to whom the Software is furnished to do so, subject to the
+// following conditions:  
+//
+// The above copyright notice and this permission notice shall be included
+// in all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS
+// OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+// MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN
+// NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+// DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+// OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE
+// USE OR OTHER DEALINGS IN THE SOFTWARE.
+
+
+package io.darach.bitsyntax;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Map;
+
+import org.junit.Test;
+
+import static io.darach.bitsyntax.BitHelper.*;
+
+public class BitBinderTest {
+
+	public static class Packet {
+		public int version;
+		public short port;
+		public double ratio;
+		public byte[] payload;
+		private long flags;
+		private byte[] tail;
+
+		public Packet setFlags(byte flags) {
+			throw new IllegalStateException("The widest setter is preferred");
+		}
+
+		public Packet setFlags(long flags) {
+			this.flags = flags;
+			return this;
+		}
+
+		public void setTail(byte[] tail) {
+			this.tail = tail;
+		}
+	}
+
+	public static class Narrow {
+		public byte version;
+	}
+
+	public static class Widths {
+		public long l;
+		public int i;
+		public short s;
+		public char c;
+		public double d;
+	}
+
+	static class Hidden {
+		public int version;
+	}
+
+	@Test
+	public void testDecode() throws IOException {
+		final BitBinder<Packet> binder = BitSyntax.compile("<< version:4, flags:4/unsigned, port:16/signed-little, ratio:32/float, 0xFF:8, payload:n/binary, tail/binary >>", Packet.class);
+		assertEquals(Packet.class, binder.target());
+
+		final byte[] binary = fromHex("5A" + "FEFF" + "40600000" + "FF" + "CAFE" + "BABE");
+		final Map<String,Integer> sizes = Collections.singletonMap("n", 2);
+		final Packet packet = binder.decode(binary, sizes);
+		assertEquals(5, packet.version);
+		assertEquals(10, packet.flags);
+		assertEquals(-2, packet.port);
+		assertEquals(3.5, packet.ratio, 0.0);
+		assertEquals("CAFE", toHex(packet.payload));
+		assertEquals("BABE", toHex(packet.tail));
+		assertNotSame(packet, binder.decode(binary, sizes));
+		assertEquals("CAFE", toHex(binder.pattern().extract(binary, sizes).get("payload")));
+
+		binary[7] = 0;
+		try {
+			binder.decode(binary, sizes);
+			fail("Binary does not match");
+		} catch (BitSyntaxException e) {
+			// Expected
+		}
+		try {
+			binder.decode(fromHex("5AFEFF"), sizes);
+			fail("Binary is too short");
+		} catch (BitSyntaxException e) {
+			// Expected
+		}
+	}
+
+	@Test
+	public void testDecodeNarrow() throws IOException {
+		final BitBinder<Narrow> binder = BitSyntax.compile("<< _:4, version:4/signed >>", Narrow.class);
+		assertEquals(-1, binder.decode(fromHex("0F")).version);
+		assertEquals(7, binder.decode(fromHex("07")).version);
+	}
+
+	@Test
+	public void testDecodeUnsigned() throws IOException {
+		// Unsigned segments only bind to primitives holding all of their values
+		final BitBinder<Widths> binder = BitSyntax.compile("<< l:63/unsigned, i:31/unsigned, s:15/unsigned, c:16/unsigned, d:32/unsigned, _:3 >>", Widths.class);
+		final Widths widths = binder.decode(fromHex("FFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFF"));
+		assertEquals(Long.MAX_VALUE, widths.l);
+		assertEquals(Integer.MAX_VALUE, widths.i);
+		assertEquals(Short.MAX_VALUE, widths.s);
+		assertEquals(0xFFFF, widths.c);
+		assertEquals(4294967295.0, widths.d, 0.0);
+	}
+
+	@Test
+	public void testInvalidTargets() throws IOException {
+		final String[] sources = {
+			"<< version:8, unknown:8 >>",
+			"<< version:40 >>",
+			"<< port:n >>",
+			"<< ratio:64/float, flags:4/binary >>",
+		};
+		for (String source : sources) {
+			try {
+				BitSyntax.compile(source, Packet.class);
+				fail("Segments cannot be bound: " + source);
+			} catch (BitSyntaxException e) {
+				// Expected
+			}
+		}
+		try {
+			BitSyntax.compile("<< version:16 >>", Narrow.class);
+			fail("A byte cannot hold 16 bits");
+		} catch (BitSyntaxException e) {
+			// Expected
+		}
+		final String[] signedness = {
+			"<< l:64/unsigned >>",
+			"<< i:32/unsigned >>",
+			"<< s:16/unsigned >>",
+			"<< c:17/unsigned >>",
+			"<< c:16/signed >>",
+			"<< c:8 >>",
+			"<< d:64/unsigned >>",
+		};
+		for (String source : signedness) {
+			try {
+				BitSyntax.compile(source, Widths.class);
+				fail("Segment values do not all fit: " + source);
+			} catch (BitSyntaxException e) {
+				// Expected
+			}
+		}
+		try {
+			BitSyntax.compile("<< version:8 >>", Hidden.class);
+			fail("Target is not public");
+		} catch (BitSyntaxException e) {
+			// Expected
+		}
+	}
+}
@@ -0,0 +1,94 @@
+// Copyright (c) 2013 Darach Ennis < darach at gmail dot com >.
+//
+// Permission is hereby granted, free of charge, to any person obtaining a
+// copy of this software and associated documentation files (the
+// "Software"), to deal in the Software without restriction, including
+// without limitation the rights to use, copy, modify, merge, publish,
+// distribute, sublicense, and/or sell copies of the Software, and to permit
+// persons to whom the Software is furnished to do so, subject to the
+// following conditions:  
+//
+// The above copyright notice and this permission notice shall be included
+// in all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS
+// OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+// MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN
+// NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+// DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+// OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE
+// USE OR OTHER DEALINGS IN THE SOFTWARE.
+
+
+package io.darach.bitsyntax;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+import static io.darach.bitsyntax.BitHelper.*;
+
+public class BitClausesTest {
+
+	@Test
+	public void testFirstMatchingClause() throws IOException {
+		BitClauses clauses = BitSyntax.compileClauses(
+			"<< 1:8, 2:8, a/binary >>",
+			"<< 1:8, b:8, c/binary >>",
+			"<< \"GET \", path/binary >>",
+			"<< \"POST\", path/binary >>",
+			"<< _:8, 7:8/little, n:16/little, _/binary >>",
+			"<< x:8 >>");
+		assertEquals(6, clauses.size());
+
+		Map<String,byte[]> results = new HashMap<String,byte[]>();
+		assertEquals(0, clauses.extract(fromHex("0102CAFE"), results));
+		assertEquals("CAFE", toHex(results.get("a")));
+
+		results.clear();
+		assertEquals(1, clauses.extract(fromHex("0103CAFE"), results));
+		assertEquals("03", toHex(results.get("b")));
+		assertNull(results.get("a"));
+
+		results.clear();
+		assertEquals(2, clauses.extract(toBytes("GET /index.html"), results));
+		assertEquals("/index.html", new String(results.get("path")));
+		assertEquals(3, clauses.match(toBytes("POST /")));
+		assertEquals(4, clauses.match(fromHex("FF07CAFE")));
+		assertEquals(5, clauses.match(fromHex("FF")));
+		assertEquals(-1, clauses.match(fromHex("")));
+		assertEquals(5, clauses.match(toBytes("PUT /")));
+		assertSame(clauses.clause(2), BitSyntax.compile("<< \"GET \", path/binary >>"));
+	}
+
+	@Test
+	public void testManyClauses() throws IOException {
+		// 40 clauses keyed by a tag and a version, as dispatched by a router
+		List<String> sources = new ArrayList<String>();
+		for (int i = 0; i < 40; i++) {
+			sources.add("<< 0xCAFE:16, " + (i / 4) + ":8, " + (i % 4) + ":4, _:4, body" + i + "/binary >>");
+		}
+		sources.add("<< 0xCAFE:16, tag:8, _/binary >>");
+		BitClauses clauses = BitSyntax.compileClauses("clauses.test", "Router", sources);
+		for (int i = 0; i < 40; i++) {
+			Map<String,byte[]> results = new HashMap<String,byte[]>();
+			byte[] binary = new byte[] { (byte) 0xCA, (byte) 0xFE, (byte) (i / 4), (byte) ((i % 4) << 4), (byte) i };
+			assertEquals(i, clauses.extract(binary, results));
+			assertArrayEquals(new byte[] { (byte) i }, results.get("body" + i));
+		}
+		assertEquals(40, clauses.match(fromHex("CAFE0A00")));
+		assertEquals(40, clauses.match(fromHex("CAFE0150")));
+		assertEquals(-1, clauses.match(fromHex("CAFF0000")));
+		assertEquals(-1, clauses.match(fromHex("CA")));
+	}
+
+	private static byte[] toBytes(String s) {
+		return s.getBytes();
+	}
+}
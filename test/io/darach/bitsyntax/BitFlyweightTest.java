@@ -0,0 +1,116 @@
+// Copyright (c) 2013 Darach Ennis < darach at gmail dot com >.
+//
+// Permission is hereby granted, free of charge, to any person obtaining a
+// copy of this software and associated documentation files (the
+// "Software"), to deal in the Software without restriction, including
+// without limitation the rights to use, copy, modify, merge, publish,
+// distribute, sublicense, and/or sell copies of the Software, and to permit
+// persons to whom the Software is furnished to do so, subject to the
+// following conditions:  
+//
+// The above copyright notice and this permission notice shall be included
+// in all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS
+// OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+// MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN
+// NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+// DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+// OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE
+// USE OR OTHER DEALINGS IN THE SOFTWARE.
+
+
+package io.darach.bitsyntax;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.lang.reflect.Method;
+
+import org.junit.Test;
+
+import static io.darach.bitsyntax.BitHelper.*;
+
+public class BitFlyweightTest {
+
+	@Test
+	public void testIntegers() throws Exception {
+		BitPattern bp = BitSyntax.compile("<< a:8, b:16/unsigned, c:4, d:4/unsigned, e:16/little-unsigned, f:12/little-unsigned, _:4, rest/binary >>");
+		BitFlyweight fw = bp.flyweight().wrap(fromHex("CAFEBABE3412BCA001"), 0);
+		assertEquals(-54, fw.getLong(0));
+		assertEquals(0xFEBA, fw.getLong(1));
+		assertEquals(-5, fw.getLong(2));
+		assertEquals(0xE, fw.getLong(3));
+		assertEquals(0x1234, fw.getLong(4));
+		assertEquals(0xABC, fw.getLong(5));
+		assertEquals(-54, get(fw, "getA"));
+		assertEquals(0xFEBA, get(fw, "getB"));
+		assertEquals("01", toHex((byte[]) get(fw, "getRest")));
+	}
+
+	@Test
+	public void testUnsignedEdges() throws Exception {
+		// Unsigned integers of 32 bits are not sign extended, as decode does not
+		BitPattern bp = BitSyntax.compile("<< a:32/unsigned, b:8, c:32, d:31/unsigned >>");
+		byte[] binary = fromHex("FFFFFFFF" + "07" + "FFFFFFFF" + "FFFFFFFE");
+		BitFlyweight fw = bp.flyweight().wrap(binary, 0);
+		long[] integers = new long[4];
+		bp.decode(binary, integers, new double[4]);
+		assertEquals(0xFFFFFFFFL, fw.getLong(0));
+		assertEquals(0xFFFFFFFFL, get(fw, "getA"));
+		assertEquals(4294967295.0, fw.getDouble(0), 0.0);
+		assertEquals(integers[0], fw.getLong(0));
+		assertEquals(-1, fw.getLong(2));
+		assertEquals(-1, get(fw, "getC"));
+		assertEquals(integers[2], fw.getLong(2));
+		assertEquals(0x7FFFFFFF, fw.getLong(3));
+		assertEquals(integers[3], fw.getLong(3));
+	}
+
+	@Test
+	public void testFloats() throws Exception {
+		BitPattern bp = BitSyntax.compile("<< x:32/float, y:64/double, z:32/float-little >>");
+		byte[] binary = fromHex("40600000" + "400921FB54442D18" + "00006040");
+		BitFlyweight fw = bp.flyweight().wrap(binary, 0);
+		assertEquals(3.5f, (Float) get(fw, "getX"), 0.0f);
+		assertEquals(Math.PI, (Double) get(fw, "getY"), 0.0);
+		assertEquals(3.5f, (Float) get(fw, "getZ"), 0.0f);
+		assertEquals(Math.PI, fw.getDouble(fw.slot("y")), 0.0);
+	}
+
+	@Test
+	public void testWrap() throws IOException {
+		BitPattern bp = BitSyntax.compile("<< _:4, a:12/unsigned, b:1/binary >>");
+		BitFlyweight fw = bp.flyweight();
+		byte[] binary = fromHex("00CAFEBABE");
+		assertEquals(0xAFE, fw.wrap(binary, 1).getLong(0));
+		assertEquals(0xEBA, fw.wrap(binary, 2).getLong(0));
+		assertEquals(0, fw.slot("a"));
+		assertEquals(1, fw.slot("b"));
+		assertEquals(-1, fw.slot("c"));
+		try {
+			fw.wrap(binary, 3);
+			fail();
+		} catch (BitSyntaxException expected) { }
+		try {
+			fw.wrap(binary, 1).getLong(1);
+			fail();
+		} catch (BitSyntaxException expected) { }
+	}
+
+	@Test
+	public void testAgreesWithExtract() throws Exception {
+		String source = "<< foo:8/integer, test:4/integer-unit:1, _:4/unit:1, bar:16/integer >>";
+		byte[] binary = fromHex("CAFEBABE");
+		BitPattern bp = BitSyntax.compile(source);
+		BitFlyweight fw = bp.flyweight().wrap(binary, 0);
+		assertEquals((byte) bp.extract(binary).get("foo")[0], fw.getLong(0));
+		assertEquals((byte) (bp.extract(binary).get("test")[0] << 4) >> 4, fw.getLong(1));
+		assertEquals(toHex(bp.extract(binary).get("bar")), Integer.toHexString((int) fw.getLong(2) & 0xFFFF).toUpperCase());
+	}
+
+	private static Object get(BitFlyweight fw, String name) throws Exception {
+		Method m = fw.getClass().getMethod(name);
+		return m.invoke(fw);
+	}
+}
@@ -0,0 +1,144 @@
+// Copyright (c) 2013 Darach Ennis < darach at gmail dot com >.
+//
+// Permission is hereby granted, free of charge, to any person obtaining a
+// copy of this software and associated documentation files (the
+// "Software"), to deal in the Software without restriction, including
+// without limitation the rights to use, copy, modify, merge, publish,
+// distribute, sublicense, and/or sell copies of the Software, and to permit
+// persons to whom the Software is furnished to do so, subject to the
+// following conditions:  
+//
+// The above copyright notice and this permission notice shall be included
+// in all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS
+// OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+// MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN
+// NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+// DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+// OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE
+// USE OR OTHER DEALINGS IN THE SOFTWARE.
+
+package io.darach.bitsyntax;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+import static io.darach.bitsyntax.BitHelper.*;
+
+public class BitFrameDecoderTest {
+
+	@Test
+	public void testPartialReads() throws IOException {
+		final BitPattern bp = BitSyntax.compile("<< \"F\", len:8/unsigned, payload:len/binary >>");
+		final BitFrameDecoder decoder = new BitFrameDecoder(bp, 8);
+		final List<String> frames = new ArrayList<String>();
+		final BitFrameHandler handler = new BitFrameHandler() {
+			@Override
+			public void frame(byte[] buffer, int offset, int length) {
+				final BitFlyweight fw = bp.flyweight().wrap(buffer, offset, length);
+				assertEquals(length - 2, fw.getLong(fw.slot("len")));
+				frames.add(toHex(Arrays.copyOfRange(buffer, offset + 2, offset + length)));
+			}
+		};
+
+		// Frames arrive a byte at a time, straddling the end of the buffer
+		final ReadableByteChannel channel = new Trickle(fromHex("4603CAFEBA" + "4600" + "4604BABECAFE" + "4601"));
+		int decoded = 0;
+		int n;
+		while ((n = decoder.read(channel, handler)) >= 0) {
+			decoded += n;
+		}
+		assertEquals(3, decoded);
+		assertEquals("CAFEBA", frames.get(0));
+		assertEquals("", frames.get(1));
+		assertEquals("BABECAFE", frames.get(2));
+		assertEquals(2, decoder.remaining());
+	}
+
+	@Test
+	public void testInputStream() throws IOException {
+		final BitPattern bp = BitSyntax.compile("<< a:16, b:12, _:4 >>");
+		final BitFrameDecoder decoder = new BitFrameDecoder(bp, 16);
+		final List<Integer> offsets = new ArrayList<Integer>();
+		final BitFrameHandler handler = new BitFrameHandler() {
+			@Override
+			public void frame(byte[] buffer, int offset, int length) {
+				assertEquals(4, length);
+				offsets.add(offset);
+			}
+		};
+		assertEquals(2, decoder.read(new ByteArrayInputStream(fromHex("CAFEBABE" + "CAFEBABE" + "CA")), handler));
+		assertEquals(1, decoder.remaining());
+		assertEquals(0, (int) offsets.get(0));
+		assertEquals(4, (int) offsets.get(1));
+	}
+
+	@Test
+	public void testMismatch() throws IOException {
+		final BitFrameDecoder decoder = new BitFrameDecoder(BitSyntax.compile("<< \"F\", len:8/unsigned, payload:len/binary >>"), 8);
+		try {
+			decoder.read(new ByteArrayInputStream(fromHex("4601CA" + "4701CA")), new BitFrameHandler() {
+				@Override
+				public void frame(byte[] buffer, int offset, int length) {
+					// Ignore
+				}
+			});
+			fail("Frame does not match");
+		} catch (BitSyntaxException e) {
+			// Expected
+		}
+
+		// Frames larger than the buffer cannot be decoded
+		try {
+			new BitFrameDecoder(BitSyntax.compile("<< \"F\", len:8/unsigned, payload:len/binary >>"), 4).read(new ByteArrayInputStream(fromHex("4608CAFEBABE")), null);
+			fail("Frame exceeds capacity");
+		} catch (BitSyntaxException e) {
+			// Expected
+		}
+
+		// Rejected before any frame is read
+		try {
+			new BitFrameDecoder(BitSyntax.compile("<< \"F\", rest/binary >>"), 8);
+			fail("Segments without a size cannot be framed");
+		} catch (BitSyntaxException e) {
+			// Expected
+		}
+	}
+
+	// Reads a single byte at a time
+	private static class Trickle implements ReadableByteChannel {
+		private final byte[] bytes;
+		private int position = 0;
+
+		Trickle(final byte[] bytes) {
+			this.bytes = bytes;
+		}
+
+		@Override
+		public int read(ByteBuffer dst) {
+			if (position == bytes.length) return -1;
+			if (!dst.hasRemaining()) return 0;
+			dst.put(bytes[position++]);
+			return 1;
+		}
+
+		@Override
+		public boolean isOpen() {
+			return true;
+		}
+
+		@Override
+		public void close() {
+		}
+	}
+}
@@ -23,7 +23,11 @@
 package io.darach.bitsyntax;
 
 import java.io.UnsupportedEncodingException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.Random;
 
 import org.junit.Test;
 
@@ -105,6 +109,219 @@ public class BitHelperTest {
 		assertEquals("", toHex(bitgrok(test, 4, 0)));
 	}
 	
+	@Test
+	public void testReadBits() {
+		byte[] test = new byte[] { (byte)0xCA, (byte)0xFE, (byte)0xBA, (byte)0xBE, 0x01, 0x23, 0x45, 0x67, (byte)0x89 };
+
+		assertEquals(0xCAFEL, readBits(test, 0, 16));
+		assertEquals(0xAFEBL, readBits(test, 4, 16));
+		assertEquals(0x0AL, readBits(test, 4, 4));
+		assertEquals(0x01L, readBits(test, 4, 1));
+		assertEquals(0L, readBits(test, 4, 0));
+		assertEquals(0xCAFEBABE01234567L, readBits(test, 0, 64));
+		assertEquals(0xAFEBABE012345678L, readBits(test, 4, 64));
+		assertEquals(0x1757L, readBits(test, 16, 13));
+	}
+
+	@Test
+	public void testReadBitsByteBuffer() {
+		byte[] test = new byte[] { (byte)0xCA, (byte)0xFE, (byte)0xBA, (byte)0xBE, 0x01, 0x23, 0x45, 0x67, (byte)0x89 };
+
+		for (ByteBuffer buffer : new ByteBuffer[] { ByteBuffer.wrap(test), ByteBuffer.allocateDirect(test.length).put(test).order(ByteOrder.LITTLE_ENDIAN) }) {
+			buffer.position(3);
+			assertEquals(0xCAFEL, readBits(buffer, 0, 16));
+			assertEquals(0xAFEBL, readBits(buffer, 4, 16));
+			assertEquals(0xCAFEBABE01234567L, readBits(buffer, 0, 64));
+			assertEquals(0xAFEBABE012345678L, readBits(buffer, 4, 64));
+			assertEquals(0x1757L, readBits(buffer, 16, 13));
+			assertEquals(0x2345L, readBits(buffer, 40, 16));
+		}
+	}
+
+	@Test
+	public void testBitgrokByteBuffer() {
+		byte[] test = fromHex("CAFEBABE0123456789ABCDEF0F1E2D3C4B5A6978");
+		ByteBuffer direct = ByteBuffer.allocateDirect(test.length).put(test);
+		for (int start = 0; start < 32; start += 4) {
+			for (int bits = 0; start + bits <= test.length * 8; bits++) {
+				assertArrayEquals(bitgrok(test, start, bits), bitgrok(direct, start, bits));
+			}
+		}
+	}
+
+	@Test
+	public void testBitgrokWord() {
+		// At most 64 bits are read as a word at any offset
+		byte[] test = fromHex("CAFEBABE0123456789ABCDEF0F1E2D3C4B5A6978");
+		ByteBuffer direct = ByteBuffer.allocateDirect(test.length).put(test);
+		for (int start = 0; start < 40; start++) {
+			for (int bits = 0; bits <= 64; bits++) {
+				assertArrayEquals(bitgrok(direct, start, bits), bitgrok(test, start, bits));
+			}
+		}
+		assertEquals("AFEBABE0", toHex(bitgrok(test, 4, 32)));
+		assertEquals("04", toHex(bitgrok(test, 1, 3)));
+	}
+
+	@Test
+	public void testBitgrokBulk() {
+		byte[] test = new byte[300];
+		new Random(7).nextBytes(test);
+		ByteBuffer direct = ByteBuffer.allocateDirect(test.length).put(test);
+		for (int start = 0; start < 24; start++) {
+			for (int bits = 65; start + bits <= test.length * 8; bits += 37) {
+				assertArrayEquals(bitgrok(direct, start, bits), bitgrok(test, start, bits));
+			}
+		}
+
+		// Into a caller supplied destination
+		byte[] dest = new byte[40];
+		assertEquals(32, bitgrok(test, 3, 259, dest, 5));
+		assertArrayEquals(bitgrok(test, 3, 259), Arrays.copyOfRange(dest, 5, 37));
+		assertEquals(0, dest[4]);
+		assertEquals(0, dest[37]);
+		assertEquals(16, bitgrok(test, 8, 128, dest, 0));
+		assertArrayEquals(Arrays.copyOfRange(test, 1, 17), Arrays.copyOf(dest, 16));
+		try {
+			bitgrok(test, 3, 259, dest, 9);
+			fail("Destination too short");
+		} catch (ArrayIndexOutOfBoundsException e) {
+			// Expected
+		}
+	}
+
+	@Test
+	public void testReadSignedLittleBits() {
+		byte[] test = fromHex("CAFEBABE");
+		ByteBuffer heap = ByteBuffer.wrap(test);
+		assertEquals(0xFFFFFFFFFFFFCAFEL, readSignedBits(test, 0, 16));
+		assertEquals(0x0AFEL, readSignedBits(test, 2, 14));
+		assertEquals(0xFFFFFFFFFFFFCAFEL, readSignedBits(test, 1, 15));
+		assertEquals(0xFECAL, readLittleBits(test, 0, 16));
+		assertEquals(0xFFFFFFFFFFFFFECAL, readSignedLittleBits(test, 0, 16));
+		assertEquals(0xBEBAFECAL, readLittleBits(test, 0, 32));
+		assertEquals(0xFFFFFFFFBEBAFECAL, readSignedLittleBits(test, 0, 32));
+		assertEquals(readSignedBits(test, 3, 13), readSignedBits(heap, 3, 13));
+		assertEquals(readLittleBits(test, 5, 24), readLittleBits(heap, 5, 24));
+		assertEquals(readSignedLittleBits(test, 7, 20), readSignedLittleBits(heap, 7, 20));
+		assertEquals(-1L, signed(1L, 1));
+		assertEquals(0L, signed(0L, 0));
+		assertEquals(Long.MIN_VALUE, signed(Long.MIN_VALUE, 64));
+	}
+
+	@Test
+	public void testReadBitsWidth() {
+		// Integers are read from at most 64 bits, never shifted garbage
+		final byte[] host = new byte[16];
+		for (int bits : new int[] { -1, 65, Integer.MIN_VALUE }) {
+			try {
+				readBits(host, 0, bits);
+				fail("Read of " + bits + " bits");
+			} catch (BitSyntaxException e) {
+				// Expected
+			}
+			try {
+				readBits(ByteBuffer.wrap(host), 0, bits);
+				fail("Read of " + bits + " bits");
+			} catch (BitSyntaxException e) {
+				// Expected
+			}
+			try {
+				readBits(0L, host.length, 0, bits);
+				fail("Read of " + bits + " bits");
+			} catch (BitSyntaxException e) {
+				// Expected
+			}
+		}
+		assertEquals(0L, readBits(host, 0, 64));
+	}
+
+	@Test
+	public void testReadBitsOutOfRange() {
+		// Reads up to the very last bit but never past it
+		assertEquals(0xABL, readBits(fromHex("AB"), 0, 8));
+		assertEquals(0x0123456789ABCDEFL, readBits(fromHex("F0123456789ABCDEF0"), 4, 64));
+		assertEquals(0L, readBits(new byte[1], 8, 0));
+		final byte[][] hosts = { fromHex("AB"), new byte[8], new byte[8], new byte[300], new byte[300] };
+		final int[][] reads = { { 0, 16 }, { 4, 64 }, { -1, 8 }, { 2399, 2 }, { 2000, 401 } };
+		for (int i = 0; i < hosts.length; i++) {
+			final byte[] host = hosts[i];
+			final int start = reads[i][0];
+			final int bits = reads[i][1];
+			try {
+				if (bits <= 64) {
+					readBits(host, start, bits);
+					fail("Read past the end");
+				}
+			} catch (ArrayIndexOutOfBoundsException e) {
+				// Expected
+			}
+			try {
+				if (bits <= 64) {
+					readBits(ByteBuffer.wrap(host), start, bits);
+					fail("Read past the limit");
+				}
+			} catch (ArrayIndexOutOfBoundsException e) {
+				// Expected
+			}
+			try {
+				bitgrok(host, start, bits);
+				fail("Grokked past the end");
+			} catch (ArrayIndexOutOfBoundsException e) {
+				// Expected
+			}
+			try {
+				bitgrok(host, start, bits, new byte[64], 0);
+				fail("Grokked past the end");
+			} catch (ArrayIndexOutOfBoundsException e) {
+				// Expected
+			}
+		}
+	}
+
+	@Test
+	public void testLittleEndian() {
+		assertEquals(0x3412L, littleEndian(0x1234L, 16));
+		assertEquals(0xABCL, littleEndian(0xBCAL, 12));
+		assertEquals(0x0123456789ABCDEFL, littleEndian(0xEFCDAB8967452301L, 64));
+		assertEquals(0x5L, littleEndian(0x5L, 3));
+	}
+
+	@Test
+	public void testWriteBits() {
+		byte[] b = fromHex("FFFFFFFFFFFFFFFFFFFFFFFF");
+		writeBits(b, 4, 12, 0xABC);
+		assertEquals("FABCFFFFFFFFFFFFFFFFFFFF", toHex(b));
+		writeBits(b, 20, 64, 0x0123456789ABCDEFL);
+		assertEquals("FABCF0123456789ABCDEFFFF", toHex(b));
+		writeBits(b, 95, 1, 0);
+		assertEquals("FABCF0123456789ABCDEFFFE", toHex(b));
+		writeBits(b, 94, 2, 1);
+		assertEquals("FABCF0123456789ABCDEFFFD", toHex(b));
+		for (int i = 0; i <= 64; i++) {
+			byte[] r = new byte[10];
+			writeBits(r, i, 16, 0xCAFE);
+			assertEquals(0xCAFE, readBits(r, i, 16));
+		}
+
+		byte[] c = new byte[4];
+		writeBinary(c, 4, 20, fromHex("CAFEBA"));
+		assertEquals("0CAFEB00", toHex(c));
+		writeBinary(c, 0, 8, fromHex("BE"));
+		assertEquals("BEAFEB00", toHex(c));
+	}
+
+	@Test
+	public void testToLittleEndian() {
+		assertEquals(0x3412L, toLittleEndian(0x1234L, 16));
+		assertEquals(0xBCAL, toLittleEndian(0xABCL, 12));
+		assertEquals(0xEFCDAB8967452301L, toLittleEndian(0x0123456789ABCDEFL, 64));
+		for (int n = 1; n <= 64; n++) {
+			long v = 0x0123456789ABCDEFL >>> (64 - n);
+			assertEquals(v, littleEndian(toLittleEndian(v, n), n));
+		}
+	}
+
 	@Test
 	public void testHexConversions() throws UnsupportedEncodingException {
 		assertEquals("6265C3A970", toHex("beép")); // @NOTE default encoding is UTF-8
@@ -0,0 +1,193 @@
+// Copyright (c) 2013 Darach Ennis < darach at gmail dot com >.
+//
+// Permission is hereby granted, free of charge, to any person obtaining a
+// copy of this software and associated documentation files (the
+// "Software"), to deal in the Software without restriction, including
+// without limitation the rights to use, copy, modify, merge, publish,
+// distribute, sublicense, and/or sell copies of the Software, and to permit
+// persons to whom the Software is furnished to do so, subject to the
+// following conditions:  
+//
+// The above copyright notice and this permission notice shall be included
+// in all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS
+// OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+// MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN
+// NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+// DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+// OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE
+// USE OR OTHER DEALINGS IN THE SOFTWARE.
+
+package io.darach.bitsyntax;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.Test;
+
+import static io.darach.bitsyntax.BitHelper.*;
+
+public class BitParallelDecoderTest {
+
+	// Collects the payload of each record of the chunks of a thread by the index of its first record
+	private static class Payloads implements BitBatchHandler {
+		final long[] payload;
+		final SortedMap<Long,long[]> chunks = new TreeMap<Long,long[]>();
+
+		Payloads(final BitColumns columns) {
+			this.payload = columns.integer("payload");
+		}
+
+		@Override
+		public void batch(BitColumns columns, int count, long first) {
+			chunks.put(first, Arrays.copyOf(payload, count));
+		}
+	}
+
+	private static final BitSinkFactory<Payloads> PAYLOADS = new BitSinkFactory<Payloads>() {
+		@Override
+		public Payloads create(BitColumns columns) {
+			return new Payloads(columns);
+		}
+	};
+
+	@Test
+	public void testDecode() throws IOException {
+		final ForkJoinPool pool = new ForkJoinPool(4);
+		try {
+			// Records of 1 to 4 byte payloads, and a trailing partial record
+			final StringBuilder hex = new StringBuilder();
+			for (int i = 0; i < 1000; i++) {
+				final int n = 1 + (i & 3);
+				hex.append(String.format("%04X", n)).append(String.format("%0" + (n << 1) + "X", i & 0xFF));
+			}
+			hex.append("0004CAFE");
+			final byte[] binary = fromHex(hex.toString());
+
+			final BitParallelDecoder decoder = new BitParallelDecoder(BitSyntax.compile("<< len:16/unsigned, payload:len/unsigned-unit:8 >>"), pool, 64);
+			assertOrdered(decoder.decode(binary, PAYLOADS), 16, 1000, 0xFF);
+
+			try {
+				new BitParallelDecoder(BitSyntax.compile("<< 1:16, payload:8 >>"), pool).decode(binary, PAYLOADS);
+				fail("Record does not match");
+			} catch (BitSyntaxException e) {
+				// Expected
+			}
+			try {
+				new BitParallelDecoder(BitSyntax.compile("<< len:16, payload/binary >>"), pool);
+				fail("Segments without a size cannot be framed");
+			} catch (BitSyntaxException e) {
+				// Expected
+			}
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+	@Test
+	public void testDecodeFixed() throws IOException {
+		final ForkJoinPool pool = new ForkJoinPool(4);
+		try {
+			final StringBuilder hex = new StringBuilder();
+			for (int i = 0; i < 500; i++) {
+				hex.append("0002").append(String.format("%04X", i));
+			}
+			// A trailing partial record
+			hex.append("0002CA");
+			final BitParallelDecoder decoder = new BitParallelDecoder(BitSyntax.compile("<< 2:16, payload:16 >>"), pool, 100);
+			assertOrdered(decoder.decode(fromHex(hex.toString()), PAYLOADS), 5, 500, 0xFFFF);
+
+			// The second record of the third chunk does not match
+			hex.replace(1608, 1612, "0003");
+			try {
+				decoder.decode(fromHex(hex.toString()), PAYLOADS);
+				fail("Record does not match");
+			} catch (BitSyntaxException e) {
+				assertEquals("Record 201 does not match", e.getMessage());
+			}
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+	@Test
+	public void testDecodeLargeBinary() throws IOException {
+		final ForkJoinPool pool = new ForkJoinPool(4);
+		try {
+			// Records of 4KB beyond the 256MB an int offset in bits reaches
+			final byte[] binary = new byte[300 << 20];
+			final int count = binary.length >>> 12;
+			for (int i = 0; i < count; i++) {
+				final int offset = i << 12;
+				binary[offset] = (byte) (4090 >>> 8);
+				binary[offset + 1] = (byte) 4090;
+				binary[offset + 2] = (byte) (i >>> 24);
+				binary[offset + 3] = (byte) (i >>> 16);
+				binary[offset + 4] = (byte) (i >>> 8);
+				binary[offset + 5] = (byte) i;
+			}
+			final BitParallelDecoder decoder = new BitParallelDecoder(BitSyntax.compile("<< len:16/unsigned, payload:32, _:len/binary >>"), pool, 1024);
+			assertOrdered(decoder.decode(binary, PAYLOADS), (count + 1023) / 1024, count, 0xFFFFFFFFL);
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+	@Test
+	public void testDecodeFile() throws IOException {
+		final StringBuilder hex = new StringBuilder();
+		for (int i = 0; i < 300; i++) {
+			hex.append("0001").append(String.format("%02X", i & 0xFF));
+		}
+		final File file = File.createTempFile("records", ".bin");
+		final FileOutputStream out = new FileOutputStream(file);
+		try {
+			out.write(fromHex(hex.toString()));
+		} finally {
+			out.close();
+		}
+
+		final ForkJoinPool pool = new ForkJoinPool(4);
+		final RandomAccessFile raf = new RandomAccessFile(file, "r");
+		try {
+			final FileChannel channel = raf.getChannel();
+			final BitParallelDecoder decoder = new BitParallelDecoder(BitSyntax.compile("<< len:16/unsigned, payload:len/unsigned-unit:8 >>"), pool, 32);
+			assertOrdered(decoder.decode(channel, PAYLOADS), 10, 300, 0xFF);
+		} finally {
+			raf.close();
+			file.delete();
+			pool.shutdown();
+		}
+	}
+
+	// Merges the chunks of the sinks of each thread in record order
+	private static void assertOrdered(final List<Payloads> sinks, final int chunks, final int count, final long mask) {
+		// A sink per thread of the pool of 4, and the thread invoking the pool
+		assertTrue(sinks.size() <= Math.min(chunks, 5));
+		final SortedMap<Long,long[]> merged = new TreeMap<Long,long[]>();
+		for (Payloads sink : sinks) {
+			merged.putAll(sink.chunks);
+		}
+		assertEquals(chunks, merged.size());
+		int i = 0;
+		for (Map.Entry<Long,long[]> chunk : merged.entrySet()) {
+			assertEquals(i, chunk.getKey().longValue());
+			for (long value : chunk.getValue()) {
+				assertEquals(i++ & mask, value);
+			}
+		}
+		assertEquals(count, i);
+	}
+}
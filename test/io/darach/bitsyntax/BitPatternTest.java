@@ -0,0 +1,665 @@
+// Copyright (c) 2013 Darach Ennis < darach at gmail dot com >.
+//
+// Permission is hereby granted, free of charge, to any person obtaining a
+// copy of this software and associated documentation files (the
+// "Software"), to deal in the Software without restriction, including
+// without limitation the rights to use, copy, modify, merge, publish,
+// distribute, sublicense, and/or sell copies of the Software, and to permit
+// persons to whom the Software is furnished to do so, subject to the
+// following conditions:  
+//
+// The above copyright notice and this permission notice shall be included
+// in all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS
+// OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+// MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN
+// NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+// DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+// OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE
+// USE OR OTHER DEALINGS IN THE SOFTWARE.
+
+
+package io.darach.bitsyntax;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Test;
+
+import static io.darach.bitsyntax.BitHelper.*;
+
+public class BitPatternTest {
+
+	@Test
+	public void testDecodeIntegers() throws IOException {
+		BitPattern bp = BitSyntax.compile("<< a:8, b:16/unsigned, c:4, d:4/unsigned, e:16/little-signed, f:12/little-unsigned, _:4, g:64, h/integer >>");
+		long[] integers = new long[8];
+		int bits = bp.decode(fromHex("CAFEBABE12F4BCA0" + "8000000000000001" + "FF"), integers, null);
+		assertEquals(136, bits);
+		assertEquals(-54, integers[0]);
+		assertEquals(0xFEBA, integers[1]);
+		assertEquals(-5, integers[2]);
+		assertEquals(0xE, integers[3]);
+		assertEquals((short) 0xF412, integers[4]);
+		assertEquals(0xABC, integers[5]);
+		assertEquals(0x8000000000000001L, integers[6]);
+		assertEquals(-1, integers[7]);
+	}
+
+	@Test
+	public void testDecodeReals() throws IOException {
+		BitPattern bp = BitSyntax.compile("<< x:32/float, y:64/double, z:32/float-little, n:8, w/float >>");
+		long[] integers = new long[5];
+		double[] reals = new double[5];
+		bp.decode(fromHex("40600000" + "400921FB54442D18" + "00006040" + "07" + "400921FB54442D18"), integers, reals);
+		assertEquals(3.5, reals[0], 0.0);
+		assertEquals(Math.PI, reals[1], 0.0);
+		assertEquals(3.5, reals[2], 0.0);
+		assertEquals(7, integers[3]);
+		assertEquals(Math.PI, reals[4], 0.0);
+	}
+
+	@Test
+	public void testDecodeUnaligned() throws IOException {
+		BitPattern bp = BitSyntax.compile("<< _:3, a:61/unsigned, b:13/unsigned, c:64/unsigned >>");
+		long[] integers = new long[3];
+		bp.decode(fromHex("FFFFFFFFFFFFFFFF" + "0000" + "FFFFFFFFFFFFFFFF"), integers, null);
+		assertEquals(0x1FFFFFFFFFFFFFFFL, integers[0]);
+		assertEquals(0, integers[1]);
+		assertEquals(0x1FFFFFFFFFFFFFFFL, integers[2]);
+	}
+
+	@Test(expected=BitSyntaxException.class)
+	public void testDecodeMismatch() throws IOException {
+		BitSyntax.compile("<< a:8, b:32 >>").decode(fromHex("CAFE"), new long[2], null);
+	}
+
+	@Test
+	public void testDecodeBatch() throws IOException {
+		BitPattern bp = BitSyntax.compile("<< 0xC:4, a:12/unsigned, b:16/little-signed, x:32/float, _:4 >>");
+		BitColumns columns = new BitColumns(bp, 4);
+		long[] a = columns.integer("a");
+		double[] x = columns.real("x");
+
+		// Records of 68 bits, the last 4 bits of each are padding
+		byte[] binary = fromHex("CAFEBABE406000000" + "C0100000C08000000" + "C7FFFFFF404000000" + "0");
+		assertEquals(3, bp.decodeBatch(binary, 3, 68, columns));
+		assertEquals(0xAFE, a[0]);
+		assertEquals(0x010, a[1]);
+		assertEquals(0x7FF, a[2]);
+		assertEquals(3.5, x[0], 0.0);
+		assertEquals(-4.0, x[1], 0.0);
+		assertEquals(3.0, x[2], 0.0);
+
+		// Record 1 does not match
+		binary[8] = (byte) 0x0D;
+		try {
+			bp.decodeBatch(binary, 3, 68, columns);
+			fail("Record does not match");
+		} catch (BitSyntaxException e) {
+			assertTrue(e.getMessage().contains("Record 1"));
+		}
+		try {
+			bp.decodeBatch(binary, 4, 68, columns);
+			fail("Records exceed the binary");
+		} catch (BitSyntaxException e) {
+			// Expected
+		}
+	}
+
+	@Test
+	public void testDecodeBatchColumnTypes() throws IOException {
+		// Only columns of the type their segment is decoded as are ever written
+		final BitColumns columns = new BitColumns(BitSyntax.compile("<< a:8, r:32/float, big:128, bin:2/binary, v:n >>"), 2);
+		assertEquals(2, columns.integer("a").length);
+		assertEquals(2, columns.real("r").length);
+		assertEquals(2, columns.integer("v").length);
+		final String[][] mismatched = { { "integer", "r" }, { "real", "a" }, { "integer", "big" }, { "real", "bin" }, { "integer", "bin" }, { "integer", "none" } };
+		for (String[] column : mismatched) {
+			try {
+				if ("integer".equals(column[0])) {
+					columns.integer(column[1]);
+				} else {
+					columns.real(column[1]);
+				}
+				fail("Column " + column[1] + " is never decoded as " + column[0]);
+			} catch (BitSyntaxException e) {
+				// Expected
+			}
+		}
+	}
+
+	@Test
+	public void testDecodeBatchDuplicateLabel() throws IOException {
+		// The column of a label used more than once is of the last segment, as extract and decode keep
+		final BitPattern bp = BitSyntax.compile("<< x:8, x:8 >>");
+		final BitColumns columns = new BitColumns(bp, 1);
+		final long[] x = columns.integer("x");
+		final byte[] binary = fromHex("CA07");
+		assertEquals(1, bp.decodeBatch(binary, 1, 16, columns));
+		assertEquals(7, x[0]);
+		assertEquals("07", toHex(bp.extract(binary).get("x")));
+	}
+
+	@Test
+	public void testMatches() throws IOException {
+		BitPattern bp = BitSyntax.compile("<< a:8, b:16, c/binary >>");
+		assertTrue(bp.matches(fromHex("CAFEBABE")));
+		assertTrue(bp.matches(fromHex("CAFEBA")));
+		assertFalse(bp.matches(fromHex("CAFE")));
+		assertFalse(bp.matches(fromHex("")));
+	}
+
+	@Test
+	public void testTryExtract() throws IOException {
+		BitPattern bp = BitSyntax.compile("<< a:8, _:4, b:12, c:1/binary >>");
+		Map<String,byte[]> results = new HashMap<String,byte[]>();
+		assertEquals(32, bp.tryExtract(fromHex("CAFEBABE"), results));
+		assertEquals("CA", toHex(results.get("a")));
+		assertEquals("BE", toHex(results.get("c")));
+
+		// Status is the complement of the index of the failing segment. Segments
+		// of constant size are validated up front so none are extracted
+		results.clear();
+		assertEquals(~3, bp.tryExtract(fromHex("CAFEBA"), results));
+		assertTrue(results.isEmpty());
+		assertEquals(~1, bp.tryExtract(fromHex("CA"), null));
+		assertEquals(~0, bp.tryExtract(fromHex(""), null));
+	}
+
+	@Test
+	public void testExtractByteBuffer() throws IOException {
+		BitPattern bp = BitSyntax.compile("<< a:8, _:4, b:12, c:n/binary, d/binary >>");
+		Map<String,Integer> sizes = Collections.singletonMap("n", 1);
+		for (ByteBuffer buffer : new ByteBuffer[] { ByteBuffer.wrap(fromHex("00CAFEBABE0123")), ByteBuffer.allocateDirect(7).put(fromHex("00CAFEBABE0123")) }) {
+			buffer.position(1);
+			buffer.limit(6);
+			Map<String,byte[]> results = bp.extract(buffer, 0, sizes);
+			assertEquals("CA", toHex(results.get("a")));
+			assertEquals("EB", toHex(results.get("b")));
+			assertEquals("BE", toHex(results.get("c")));
+			assertEquals("01", toHex(results.get("d")));
+			assertEquals(1, buffer.position());
+			assertEquals(6, buffer.limit());
+
+			// From an offset in bits, up to the limit
+			results = bp.extract(buffer, 4, sizes);
+			assertEquals("AF", toHex(results.get("a")));
+			assertEquals("BE", toHex(bp.extract(fromHex("CAFEBABE0123"), sizes).get("c")));
+			assertEquals(~3, bp.tryExtract(buffer, 16, sizes, null));
+			assertEquals(36, bp.tryExtract(buffer, 4, sizes, null));
+		}
+	}
+
+	@Test
+	public void testExtractLargeBuffer() throws IOException {
+		// The bits of a buffer of 256MB or more do not fit an int, a sparse mapped file saves the memory
+		final BitPattern bp = BitSyntax.compile("<< x:8, y:8 >>");
+		final File file = File.createTempFile("bitsyntax", ".bin");
+		file.deleteOnExit();
+		final RandomAccessFile raf = new RandomAccessFile(file, "rw");
+		try {
+			raf.write(fromHex("CAFE"));
+			raf.setLength(300 << 20);
+			final ByteBuffer buffer = raf.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, raf.length());
+			final Map<String,byte[]> results = bp.extract(buffer, 0);
+			assertEquals("CA", toHex(results.get("x")));
+			assertEquals("FE", toHex(results.get("y")));
+			assertEquals("FE", toHex(bp.extract(buffer, 8).get("x")));
+
+			// A binary that starts beyond the first 256MB of the buffer, or before its position
+			buffer.position(280 << 20);
+			try {
+				bp.extract(buffer, 0);
+				fail("Binary beyond 256MB");
+			} catch (BitSyntaxException e) {
+				// Expected
+			}
+			try {
+				bp.tryExtract(buffer, 0, null, null);
+				fail("Binary beyond 256MB");
+			} catch (BitSyntaxException e) {
+				// Expected
+			}
+			buffer.position(1);
+			assertEquals("FE", toHex(bp.extract(buffer, 0).get("x")));
+			try {
+				bp.extract(buffer, -8);
+				fail("Binary before the position");
+			} catch (BitSyntaxException e) {
+				// Expected
+			}
+		} finally {
+			raf.close();
+		}
+		file.delete();
+	}
+
+	@Test
+	public void testDecodeOffHeap() throws IOException {
+		BitPattern bp = BitSyntax.compile("<< \"F\", a:8, b:16/unsigned, c:4, d:4/unsigned, e:16/little-signed, f:12/little-unsigned, _:4, g:64, x:32/float, n:8, y/double >>");
+		byte[] frame = fromHex("46" + "CAFEBABE12F4BCA0" + "8000000000000001" + "40600000" + "07" + "400921FB54442D18");
+		BitRegion region = BitRegion.allocate(1024);
+		try {
+			region.put(993, frame, 0, frame.length);
+			long[] integers = new long[10];
+			double[] reals = new double[10];
+			assertEquals(frame.length * 8, bp.decode(region, 993, frame.length, integers, reals));
+			assertEquals(-54, integers[0]);
+			assertEquals(0xFEBA, integers[1]);
+			assertEquals(-5, integers[2]);
+			assertEquals(0xE, integers[3]);
+			assertEquals((short) 0xF412, integers[4]);
+			assertEquals(0xABC, integers[5]);
+			assertEquals(0x8000000000000001L, integers[6]);
+			assertEquals(3.5, reals[7], 0.0);
+			assertEquals(7, integers[8]);
+			assertEquals(Math.PI, reals[9], 0.0);
+
+			// Frames outside of the region, or that do not match
+			try {
+				bp.decode(region, 995, frame.length, integers, reals);
+				fail("Frame outside of region");
+			} catch (BitSyntaxException e) {
+				// Expected
+			}
+			try {
+				bp.decode(region, 992, frame.length, integers, reals);
+				fail("Literal does not match");
+			} catch (BitSyntaxException e) {
+				// Expected
+			}
+
+			// Frames larger than 2GB are matched within their first 256MB, only the leading bytes are read
+			final BitRegion large = BitRegion.wrap(region.address(), 3L << 30);
+			assertEquals(24, BitSyntax.compile("<< a:8, b:16/unsigned >>").decode(large, 994, 3L << 29, integers, reals));
+			assertEquals(0xFEBA, integers[1]);
+		} finally {
+			region.free();
+		}
+
+		// Direct buffers are off-heap
+		ByteBuffer buffer = ByteBuffer.allocateDirect(frame.length).put(frame);
+		long[] integers = new long[10];
+		bp.decode(BitRegion.wrap(buffer), 0, frame.length, integers, new double[10]);
+		assertEquals(0xABC, integers[5]);
+	}
+
+	@Test
+	public void testLiterals() throws IOException {
+		BitPattern bp = BitSyntax.compile("<< \"GET /index.html \", path/binary >>");
+		assertTrue(bp.matches("GET /index.html HTTP/1.1".getBytes()));
+		assertEquals(~0, bp.tryExtract("GET /index.htm! HTTP/1.1".getBytes(), null));
+		assertEquals(~0, bp.tryExtract("PUT /index.html HTTP/1.1".getBytes(), null));
+
+		bp = BitSyntax.compile("<< 0xCA:8, a:4, 0xE:4/unsigned, 0xBEBA:16/little, 3:32/float, b:4, 5:4 >>");
+		assertTrue(bp.matches(fromHex("CAFEBABE4040000015")));
+		assertEquals(~0, bp.tryExtract(fromHex("CBFEBABE4040000015"), null));
+		assertEquals(~2, bp.tryExtract(fromHex("CAFDBABE4040000015"), null));
+		assertEquals(~3, bp.tryExtract(fromHex("CAFEBEBA4040000015"), null));
+		assertEquals(~4, bp.tryExtract(fromHex("CAFEBABE4040000115"), null));
+		assertEquals(~6, bp.tryExtract(fromHex("CAFEBABE4040000016"), null));
+
+		try {
+			bp.decode(fromHex("CAFEBABE4040000016"), new long[2], null);
+			fail("Literal does not match");
+		} catch (BitSyntaxException e) {
+			// Expected
+		}
+	}
+
+	@Test
+	public void testEscapedLiterals() throws IOException {
+		// Escape sequences stand for a single byte each
+		BitPattern bp = BitSyntax.compile("<< \"a\\\"b\", x:8 >>");
+		assertTrue(bp.matches(fromHex("61226200")));
+		assertEquals(~0, bp.tryExtract(fromHex("615C226200"), null));
+		assertEquals("FF", toHex(bp.extract(fromHex("612262FF")).get("x")));
+		byte[] binary = new byte[4];
+		assertEquals(32, bp.encode(binary, 0, new long[] { 7 }, null, null));
+		assertEquals("61226207", toHex(binary));
+
+		bp = BitSyntax.compile("<< \"\\t\\\\\\101\\0\\u0042\", x:8 >>");
+		assertTrue(bp.matches(fromHex("095C41004201")));
+		binary = new byte[6];
+		assertEquals(48, bp.encode(binary, 0, new long[] { 1 }, null, null));
+		assertEquals("095C41004201", toHex(binary));
+
+		try {
+			BitSyntax.compile("<< \"\\u0100\" >>");
+			fail("Escaped character does not fit a byte");
+		} catch (BitSyntaxException e) {
+			// Expected
+		}
+	}
+
+	@Test
+	public void testBind() throws IOException {
+		BitPattern bp = BitSyntax.compile("<< a:8, b:n/binary, c:m, d/binary >>");
+		assertTrue(bp.expansion().contains("b:n*8/binary"));
+		try {
+			bp.extract(fromHex("CAFEBABE"));
+			fail("Variable segment size is unbound");
+		} catch (BitSyntaxException e) {
+			// Expected
+		}
+
+		Map<String,Integer> sizes = new HashMap<String,Integer>();
+		sizes.put("n", 2);
+		sizes.put("m", 4);
+		BitPattern bound = bp.bind(sizes);
+		assertNotSame(bp, bound);
+		assertSame(bound, bp.bind(sizes));
+		assertTrue(bound.expansion().contains("b:16/binary"));
+
+		Map<String,byte[]> results = bound.extract(fromHex("CAFEBABE"));
+		assertEquals("CA", toHex(results.get("a")));
+		assertEquals("FEBA", toHex(results.get("b")));
+		assertEquals("0B", toHex(results.get("c")));
+		assertEquals("0E", toHex(results.get("d")));
+
+		long[] integers = new long[4];
+		assertEquals(32, bound.decode(fromHex("CAFEBABE"), integers, null));
+		assertEquals(-54, integers[0]);
+		assertEquals(-5, integers[2]);
+
+		assertEquals(~1, bound.tryExtract(fromHex("CAFE"), null));
+		assertEquals(~2, bound.tryExtract(fromHex("CAFEBA"), null));
+	}
+
+	@Test
+	public void testVariableSizes() throws IOException {
+		BitPattern bp = BitSyntax.compile("<< a:8, b:n/binary, c:m, d:n/binary, _/binary >>");
+		Map<String,Integer> sizes = new HashMap<String,Integer>();
+		sizes.put("n", 1);
+		sizes.put("m", 4);
+		Map<String,byte[]> results = bp.extract(fromHex("CAFEBABE"), sizes);
+		assertEquals("FE", toHex(results.get("b")));
+		assertEquals("0B", toHex(results.get("c")));
+		assertEquals("AB", toHex(results.get("d")));
+
+		// Sizes beyond the binary do not match, even if the size in bits would overflow
+		sizes.put("n", 4);
+		assertEquals(~1, bp.tryExtract(fromHex("CAFEBABE"), sizes, null));
+		sizes.put("n", Integer.MAX_VALUE);
+		assertEquals(~1, bp.tryExtract(fromHex("CAFEBABE"), sizes, null));
+
+		sizes.put("n", -1);
+		try {
+			bp.extract(fromHex("CAFEBABE"), sizes);
+			fail("Negative variable segment size");
+		} catch (BitSyntaxException e) {
+			// Expected
+		}
+		sizes.remove("n");
+		try {
+			bp.extract(fromHex("CAFEBABE"), sizes);
+			fail("Variable segment size is unbound");
+		} catch (BitSyntaxException e) {
+			// Expected
+		}
+	}
+
+	@Test
+	public void testExtractResult() throws IOException {
+		// Aa and BB share a hash code, a is used twice
+		BitPattern bp = BitSyntax.compile("<< a:8, Aa:4, _:4, BB:16, a:8, rest/binary >>");
+		BitResult results = bp.extract(fromHex("CAFEBABE0123"));
+		assertEquals(5, results.slots());
+		assertEquals(4, results.size());
+		assertEquals("CA", toHex(results.get(0)));
+		assertEquals("01", toHex(results.get(3)));
+		assertEquals("01", toHex(results.get("a")));
+		assertEquals("0F", toHex(results.get("Aa")));
+		assertEquals("BABE", toHex(results.get("BB")));
+		assertEquals(3, results.slot("a"));
+		assertEquals(1, results.slot("Aa"));
+		assertEquals(2, results.slot("BB"));
+		assertEquals(-1, results.slot("C#"));
+		assertEquals(-1, results.slot(1));
+		assertNull(results.get("b"));
+		assertEquals("BB", results.label(2));
+		assertTrue(results.containsKey("rest"));
+
+		Map<String,byte[]> expected = new HashMap<String,byte[]>();
+		bp.tryExtract(fromHex("CAFEBABE0123"), expected);
+		assertEquals(expected.keySet(), results.keySet());
+		for (Map.Entry<String,byte[]> entry : results.entrySet()) {
+			assertArrayEquals(expected.get(entry.getKey()), entry.getValue());
+		}
+
+		try {
+			results.get(5);
+			fail("No segment has this slot");
+		} catch (BitSyntaxException e) {
+			// Expected
+		}
+
+		// The segments of existing labels can be replaced, labels cannot be added or removed
+		assertEquals("01", toHex(results.put("a", fromHex("FF"))));
+		assertEquals("FF", toHex(results.get("a")));
+		assertEquals("FF", toHex(results.get(3)));
+		assertEquals("CA", toHex(results.get(0)));
+		try {
+			results.put("b", new byte[0]);
+			fail("No segment labeled b");
+		} catch (IllegalArgumentException e) {
+			// Expected
+		}
+		try {
+			results.remove("a");
+			fail("Labels cannot be removed");
+		} catch (UnsupportedOperationException e) {
+			// Expected
+		}
+
+		// A result per extract
+		assertNotSame(results, bp.extract(fromHex("CAFEBABE0123")));
+		assertTrue(BitSyntax.compile("<< 1:8 >>").extract(fromHex("01")).isEmpty());
+	}
+
+	@Test
+	public void testExtractInto() throws IOException {
+		final BitPattern bp = BitSyntax.compile("<< a:16/signed-little, b:32/float, 0xFF:8, c:n/binary, d:4, e:100, rest/binary >>");
+		final StringBuilder events = new StringBuilder();
+		final BitSegmentSink sink = new BitSegmentSink() {
+			@Override
+			public void onInt(int slot, long value) {
+				events.append(slot).append(':').append(value).append(' ');
+			}
+
+			@Override
+			public void onDouble(int slot, double value) {
+				events.append(slot).append(':').append(value).append(' ');
+			}
+
+			@Override
+			public void onBinary(int slot, byte[] binary, int bitOffset, int bitLength) {
+				events.append(slot).append(':').append(toHex(bitgrok(binary, bitOffset, bitLength))).append('@').append(bitOffset).append(' ');
+			}
+		};
+		final byte[] binary = fromHex("FEFF" + "40600000" + "FF" + "CAFE" + "A" + "0123456789ABCDEF012345678" + "BABE");
+		final Map<String,Integer> sizes = Collections.singletonMap("n", 2);
+		assertEquals(binary.length * 8, bp.extractInto(binary, sizes, sink));
+		assertEquals("0:-2 1:3.5 2:CAFE@56 3:-6 4:0123456789ABCDEF01234567@76 5:BABE@176 ", events.toString());
+
+		events.setLength(0);
+		binary[6] = 0;
+		try {
+			bp.extractInto(binary, sizes, sink);
+			fail("Binary does not match");
+		} catch (BitSyntaxException e) {
+			// Expected, the leading segments are passed as they match
+			assertEquals("0:-2 1:3.5 ", events.toString());
+		}
+	}
+
+	@Test
+	public void testExtractLazy() throws IOException {
+		BitPattern bp = BitSyntax.compile("<< a:8, _:4, b:n/binary-unit:4, c:3, 0x1:5, _:4, rest/binary >>");
+		byte[] binary = fromHex("CAFEBABE0A1F456789");
+		Map<String,Integer> sizes = Collections.singletonMap("n", 6);
+		Map<String,byte[]> eager = bp.extract(binary, sizes);
+		Map<String,byte[]> lazy = bp.extractLazy(binary, sizes, false);
+		assertEquals(eager.keySet(), lazy.keySet());
+		for (Map.Entry<String,byte[]> entry : eager.entrySet()) {
+			assertArrayEquals(entry.getValue(), lazy.get(entry.getKey()));
+		}
+		for (Map.Entry<String,byte[]> entry : lazy.entrySet()) {
+			assertArrayEquals(eager.get(entry.getKey()), entry.getValue());
+		}
+		assertNull(lazy.get("d"));
+		assertFalse(lazy.containsKey("d"));
+		assertNotSame(lazy.get("a"), lazy.get("a"));
+
+		// Memoized segments are extracted once
+		Map<String,byte[]> memoized = bp.extractLazy(binary, sizes, true);
+		assertSame(memoized.get("b"), memoized.get("b"));
+		assertEquals("EBABE0", toHex(memoized.get("b")));
+
+		try {
+			lazy.put("a", new byte[0]);
+			fail("Lazy extraction is read-only");
+		} catch (UnsupportedOperationException e) {
+			// Expected
+		}
+		try {
+			bp.extractLazy(fromHex("CAFEBABE0AFF4567"), sizes, false);
+			fail("Binary does not match");
+		} catch (BitSyntaxException e) {
+			// Expected
+		}
+
+		// The last of segments sharing a label, as extract
+		bp = BitSyntax.compile("<< a:8, a:8 >>");
+		assertEquals("FE", toHex(bp.extractLazy(fromHex("CAFE")).get("a")));
+		assertEquals(1, bp.extractLazy(fromHex("CAFE")).size());
+	}
+
+	@Test
+	public void testSharedAcrossThreads() throws Exception {
+		// A single pattern matched concurrently with sizes that differ per thread
+		final BitPattern bp = BitSyntax.compile("<< a:8, b:n/binary, c:16, _/binary >>");
+		final byte[] binary = fromHex("CAFEBABE0123456789ABCDEF");
+		final int threads = 8;
+		final ExecutorService executor = Executors.newFixedThreadPool(threads);
+		try {
+			final List<Future<Boolean>> futures = new ArrayList<Future<Boolean>>();
+			for (int t = 0; t < threads; t++) {
+				final int n = 1 + (t % 4);
+				futures.add(executor.submit(new Callable<Boolean>() {
+					@Override
+					public Boolean call() {
+						final Map<String,Integer> sizes = Collections.singletonMap("n", n);
+						final String b = toHex(Arrays.copyOfRange(binary, 1, 1 + n));
+						final String c = toHex(Arrays.copyOfRange(binary, 1 + n, 3 + n));
+						for (int i = 0; i < 20000; i++) {
+							final Map<String,byte[]> results = bp.extract(binary, sizes);
+							if (!b.equals(toHex(results.get("b"))) || !c.equals(toHex(results.get("c")))) return false;
+						}
+						return true;
+					}
+				}));
+			}
+			for (Future<Boolean> future : futures) {
+				assertTrue(future.get());
+			}
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	@Test
+	public void testDependentSizes() throws IOException {
+		BitPattern bp = BitSyntax.compile("<< len:16/unsigned, payload:len/binary, rest/binary >>");
+		Map<String,byte[]> results = bp.extract(fromHex("0003AABBCCDD"));
+		assertEquals("0003", toHex(results.get("len")));
+		assertEquals("AABBCC", toHex(results.get("payload")));
+		assertEquals("DD", toHex(results.get("rest")));
+		assertEquals(~1, bp.tryExtract(fromHex("0004AABBCC"), null));
+
+		// A negative size does not match
+		assertEquals(~0, BitSyntax.compile("<< len:8, payload:len/binary >>").tryExtract(fromHex("FFAA"), null));
+
+		long[] integers = new long[3];
+		assertEquals(20, BitSyntax.compile("<< n:8, a:n, b:8 >>").decode(fromHex("04FAB0"), integers, null));
+		assertEquals(4, integers[0]);
+		assertEquals(-1, integers[1]);
+		assertEquals((byte) 0xAB, integers[2]);
+	}
+
+	@Test
+	public void testEncode() throws IOException {
+		BitPattern bp = BitSyntax.compile("<< a:8, b:16/unsigned, c:4, d:4/unsigned, e:16/little-signed, f:12/little-unsigned, _:4, g:32/float, h:64/double-little, i:2/binary, j/binary >>");
+		long[] integers = new long[] { -54, 0xFEBA, -5, 0xE, (short) 0xF412, 0xABC, 0, 0, 0, 0 };
+		double[] reals = new double[10];
+		reals[6] = 3.5;
+		reals[7] = Math.PI;
+		byte[][] binaries = new byte[10][];
+		binaries[8] = fromHex("CAFE");
+		binaries[9] = fromHex("BABE");
+
+		byte[] binary = new byte[28];
+		assertEquals(192, bp.encode(binary, 1, integers, reals, binaries));
+		assertEquals("00CAFEBABE12F4BCA040600000182D4454FB210940CAFEBABE000000", toHex(binary));
+
+		long[] decoded = new long[10];
+		double[] decodedReals = new double[10];
+		bp.decode(Arrays.copyOfRange(binary, 1, 26), decoded, decodedReals);
+		assertArrayEquals(Arrays.copyOf(integers, 6), Arrays.copyOf(decoded, 6));
+		assertEquals(3.5, decodedReals[6], 0.0);
+		assertEquals(Math.PI, decodedReals[7], 0.0);
+
+		try {
+			bp.encode(new byte[24], 1, integers, reals, binaries);
+			fail("Binary too small");
+		} catch (BitSyntaxException e) {
+			// Expected
+		}
+	}
+
+	@Test
+	public void testEncodeLiteralsAndDependentSizes() throws IOException {
+		BitPattern bp = BitSyntax.compile("<< 1:4, 2:4, \"ab\", len:16, payload:len/binary, 10:16/little >>");
+		byte[] binary = new byte[10];
+		assertEquals(80, bp.encode(binary, 0, new long[] { 3 }, null, new byte[][] { null, fromHex("AABBCC") }));
+		assertEquals("1261620003AABBCC0A00", toHex(binary));
+
+		// Unaligned
+		binary = new byte[3];
+		assertEquals(20, BitSyntax.compile("<< 0xF:4, a:12/little, b:4 >>").encode(binary, 0, new long[] { 0xABC, 5 }, null, null));
+		assertEquals("FBCA50", toHex(binary));
+	}
+
+	@Test
+	public void testBindFlyweight() throws IOException {
+		BitPattern bp = BitSyntax.compile("<< a:8, b:n/binary, c:8 >>");
+		BitFlyweight fw = bp.flyweight().wrap(fromHex("CAFEBABE"), 0);
+		assertEquals(-54, fw.getLong(fw.slot("a")));
+		try {
+			fw.getLong(fw.slot("c"));
+			fail("Variable segment size is unbound");
+		} catch (BitSyntaxException e) {
+			// Expected
+		}
+
+		BitFlyweight bound = bp.bind(Collections.singletonMap("n", 2)).flyweight().wrap(fromHex("CAFEBABE"), 0);
+		assertEquals((byte) 0xBE, bound.getLong(bound.slot("c")));
+	}
+}
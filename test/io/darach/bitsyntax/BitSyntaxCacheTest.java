@@ -0,0 +1,78 @@
+// Copyright (c) 2013 Darach Ennis < darach at gmail dot com >.
+//
+// Permission is hereby granted, free of charge, to any person obtaining a
+// copy of this software and associated documentation files (the
+// "Software"), to deal in the Software without restriction, including
+// without limitation the rights to use, copy, modify, merge, publish,
+// distribute, sublicense, and/or sell copies of the Software, and to permit
+// persons to whom the Software is furnished to do so, subject to the
+// following conditions:  
+//
+// The above copyright notice and this permission notice shall be included
+// in all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS
+// OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+// MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN
+// NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+// DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+// OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE
+// USE OR OTHER DEALINGS IN THE SOFTWARE.
+
+
+package io.darach.bitsyntax;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+
+import org.junit.Test;
+
+public class BitSyntaxCacheTest {
+
+	@Test
+	public void testHitsAndMisses() throws IOException {
+		BitSyntaxCache cache = new BitSyntaxCache(4);
+		BitPattern a = cache.compile("cache.test", "Hit", "<< a:8, b:8 >>");
+		assertSame(a, cache.compile("cache.test", "Hit", "<<a:8,b:8>>"));
+		assertSame(a, cache.compile("cache.test", "Hit", " << a : 8 ,\n b : 8 >> "));
+		assertNotSame(a, cache.compile("cache.test", "Other", "<< a:8, b:8 >>"));
+		assertNotSame(a, cache.compile("cache.test", "Hit", "<< a:8, b:16 >>"));
+		assertEquals(2, cache.getHits());
+		assertEquals(3, cache.getMisses());
+		assertEquals(0, cache.getEvictions());
+		assertEquals(3, cache.size());
+	}
+
+	@Test
+	public void testQuotedWhitespaceIsSignificant() {
+		assertEquals("<<\"a b\",c:8>>", BitSyntaxCache.normalize("<< \"a b\", c:8 >>"));
+		assertEquals("<<\"a\\\" b\">>", BitSyntaxCache.normalize("<< \"a\\\" b\" >>"));
+	}
+
+	@Test
+	public void testLeastRecentlyUsedEviction() throws IOException {
+		BitSyntaxCache cache = new BitSyntaxCache(2);
+		BitPattern a = cache.compile("cache.test", "Lru", "<< a:8 >>");
+		BitPattern b = cache.compile("cache.test", "Lru", "<< b:8 >>");
+		assertSame(a, cache.compile("cache.test", "Lru", "<< a:8 >>"));
+		cache.compile("cache.test", "Lru", "<< c:8 >>");
+		assertEquals(1, cache.getEvictions());
+		assertEquals(2, cache.size());
+		assertSame(a, cache.compile("cache.test", "Lru", "<< a:8 >>"));
+		assertNotSame(b, cache.compile("cache.test", "Lru", "<< b:8 >>"));
+
+		cache.setMaximumSize(1);
+		assertEquals(1, cache.size());
+		assertEquals(3, cache.getEvictions());
+	}
+
+	@Test
+	public void testDisabled() throws IOException {
+		BitSyntaxCache cache = new BitSyntaxCache(0);
+		BitPattern a = cache.compile("cache.test", "Off", "<< a:8 >>");
+		assertNotSame(a, cache.compile("cache.test", "Off", "<< a:8 >>"));
+		assertEquals(0, cache.size());
+		assertEquals(2, cache.getMisses());
+	}
+}
@@ -0,0 +1,126 @@
+// Copyright (c) 2013 Darach Ennis < darach at gmail dot com >.
+//
+// Permission is hereby granted, free of charge, to any person obtaining a
+// copy of this software and associated documentation files (the
+// "Software"), to deal in the Software without restriction, including
+// without limitation the rights to use, copy, modify, merge, publish,
+// distribute, sublicense, and/or sell copies of the Software, and to permit
+// persons to whom the Software is furnished to do so, subject to the
+// following conditions:  
+//
+// The above copyright notice and this permission notice shall be included
+// in all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS
+// OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+// MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN
+// NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+// DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+// OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE
+// USE OR OTHER DEALINGS IN THE SOFTWARE.
+
+
+package io.darach.bitsyntax;
+
+import static org.junit.Assert.*;
+import static org.junit.Assume.*;
+
+import java.io.IOException;
+import java.lang.management.ClassLoadingMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.ref.WeakReference;
+import java.util.Map;
+
+import org.junit.After;
+import org.junit.Test;
+
+import static io.darach.bitsyntax.BitHelper.*;
+
+public class BitSyntaxClassDefinerTest {
+	private final BitSyntaxClassDefiner original = BitSyntax.getClassDefiner();
+
+	@After
+	public void restore() {
+		BitSyntax.setClassDefiner(original);
+	}
+
+	@Test
+	public void testPatternClassLoaders() throws IOException {
+		BitSyntax.setClassDefiner(new BitSyntaxClassLoaderDefiner());
+		BitPattern a = BitSyntax.generate("definer.test", "Loader", "<< a:8 >>");
+		BitPattern b = BitSyntax.generate("definer.test", "Loader", "<< a:8 >>");
+		ClassLoader loader = a.getClass().getClassLoader();
+		assertNotSame(ClassLoader.getSystemClassLoader(), loader);
+		assertNotSame(loader, b.getClass().getClassLoader());
+		assertSame(loader, a.flyweight().getClass().getClassLoader());
+		assertArrayEquals(fromHex("CA"), a.extract(fromHex("CA")).get("a"));
+	}
+
+	@Test
+	public void testHiddenClasses() throws IOException {
+		assumeTrue(BitSyntaxHiddenClassDefiner.isSupported());
+		BitSyntax.setClassDefiner(new BitSyntaxHiddenClassDefiner());
+		BitPattern bp = BitSyntax.generate("definer.test", "Hidden", "<< a:8, b:16 >>");
+		assertTrue(bp.getClass().getName().startsWith("definer.test.Hidden"));
+		Map<String,byte[]> results = bp.extract(fromHex("CAFEBA"));
+		assertArrayEquals(fromHex("FEBA"), results.get("b"));
+		BitFlyweight fw = bp.flyweight().wrap(fromHex("CAFEBA"), 0);
+		assertEquals((short) 0xFEBA, fw.getLong(fw.slot("b")));
+	}
+
+	@Test
+	public void testUnload() throws IOException {
+		assertTrue(isUnloaded(new BitSyntaxClassLoaderDefiner()));
+	}
+
+	@Test
+	public void testUnloadHidden() throws IOException {
+		assumeTrue(BitSyntaxHiddenClassDefiner.isSupported());
+		assertTrue(isUnloaded(new BitSyntaxHiddenClassDefiner()));
+	}
+
+	@Test
+	public void testSoak() throws IOException {
+		// A short soak by default, ant soak compiles and discards a million patterns
+		final int n = Integer.getInteger("io.darach.bitsyntax.soak", 2000);
+		final ClassLoadingMXBean classes = ManagementFactory.getClassLoadingMXBean();
+		final MemoryPoolMXBean metaspace = metaspace();
+		BitSyntax.generate("definer.test", "Soak", "<< a:8, b:8/little, c/binary >>");
+		final long before = loaded(classes);
+		final long used = (metaspace != null) ? metaspace.getUsage().getUsed() : 0;
+		for (int i = 0; i < n; i++) {
+			BitPattern bp = BitSyntax.generate("definer.test", "Soak", "<< a:8, b:8/little, c/binary >>");
+			assertTrue(bp.matches(fromHex("CAFE")));
+		}
+		assertTrue(loaded(classes) - before < Math.min(n / 2, 20000));
+		// Flat, within a bound independent of the number of patterns discarded
+		if (metaspace != null) {
+			assertTrue(metaspace.getUsage().getUsed() - used < 32 << 20);
+		}
+	}
+
+	private static boolean isUnloaded(final BitSyntaxClassDefiner definer) throws IOException {
+		BitSyntax.setClassDefiner(definer);
+		BitPattern bp = BitSyntax.generate("definer.test", "Unload", "<< a:8 >>");
+		final WeakReference<Class<?>> pattern = new WeakReference<Class<?>>(bp.getClass());
+		final WeakReference<Class<?>> flyweight = new WeakReference<Class<?>>(bp.flyweight().getClass());
+		bp = null;
+		for (int i = 0; i < 20 && (pattern.get() != null || flyweight.get() != null); i++) {
+			System.gc();
+		}
+		return pattern.get() == null && flyweight.get() == null;
+	}
+
+	private static MemoryPoolMXBean metaspace() {
+		for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+			if ("Metaspace".equals(pool.getName())) return pool;
+		}
+		return null;
+	}
+
+	private static long loaded(final ClassLoadingMXBean classes) {
+		System.gc();
+		return classes.getLoadedClassCount();
+	}
+}
@@ -37,11 +37,15 @@ public class BitSyntaxTest {
 	public void testCompilerDefaultsAndOverrides() throws IOException {
 		// Should generate unique names in default package with default class prefix
 		BitPattern expr0 = BitSyntax.compile("<< >>");
-		BitPattern expr1 = BitSyntax.compile("<< >>");
-		BitPattern expr2 = BitSyntax.compile("<< >>");
+		BitPattern expr1 = BitSyntax.compile("<< a:8 >>");
+		BitPattern expr2 = BitSyntax.compile("<< b:8 >>");
 		assertEquals("bitsyntax.generated.Expr1", expr0.getClass().getName());
 		assertEquals("bitsyntax.generated.Expr2", expr1.getClass().getName());
 		assertEquals("bitsyntax.generated.Expr3", expr2.getClass().getName());
+
+		// Should reuse the compiled pattern for the same source
+		assertSame(expr0, BitSyntax.compile("<<>>"));
+		assertSame(expr1, BitSyntax.compile("<<a:8>>"));
 		
 		// Should generate unique class names in custom package with custom class prefix
 		BitPattern expr3 = BitSyntax.compile("foo", "bar", "<< >>");
@@ -79,7 +83,7 @@ public class BitSyntaxTest {
 	@Test
 	public void testNumericInteger() throws IOException {
 		byte[] integer = fromHex("CAFEBABE");
-		assertExtractTest("CA", "<< test:8/integer, 1:8/integer, 10:16/integer >>", integer);
+		assertExtractTest("CA", "<< test:8/integer, 0xFE:8/integer, 47806:16/integer >>", integer);
 		assertExtractTest("CA", "<< test:8/integer, foo:8/integer, bar:16/integer >>", integer);
 		assertExtractTest("FE", "<< foo:8/integer, test:8/integer, bar:16/integer >>", integer);
 		assertExtractTest("BABE", "<< foo:8/integer, bar:8/integer, test:16/integer >>", integer);
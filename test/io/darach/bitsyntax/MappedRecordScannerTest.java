@@ -0,0 +1,111 @@
+// Copyright (c) 2013 Darach Ennis < darach at gmail dot com >.
+//
+// Permission is hereby granted, free of charge, to any person obtaining a
+// copy of this software and associated documentation files (the
+// "Software"), to deal in the Software without restriction, including
+// without limitation the rights to use, copy, modify, merge, publish,
+// distribute, sublicense, and/or sell copies of the Software, and to permit
+// persons to whom the Software is furnished to do so, subject to the
+// following conditions:  
+//
+// The above copyright notice and this permission notice shall be included
+// in all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS
+// OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+// MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN
+// NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+// DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+// OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE
+// USE OR OTHER DEALINGS IN THE SOFTWARE.
+
+package io.darach.bitsyntax;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import static io.darach.bitsyntax.BitHelper.*;
+
+public class MappedRecordScannerTest {
+
+	@Test
+	public void testScan() throws IOException {
+		final File file = write("0003CAFEBA" + "0000" + "0004BABECAFE" + "0001AB" + "0002");
+		final List<String> records = new ArrayList<String>();
+		final List<Long> positions = new ArrayList<Long>();
+		final MappedRecordHandler handler = new MappedRecordHandler() {
+			@Override
+			public void record(ByteBuffer buffer, int offset, int length, long position) {
+				assertEquals(length - 2, readBits(buffer, offset << 3, 16));
+				final StringBuilder payload = new StringBuilder();
+				for (int i = offset + 2; i < offset + length; i++) {
+					payload.append(String.format("%02X", buffer.get(i)));
+				}
+				records.add(payload.toString());
+				positions.add(position);
+			}
+		};
+
+		final RandomAccessFile raf = new RandomAccessFile(file, "r");
+		try {
+			final FileChannel channel = raf.getChannel();
+			final BitPattern bp = BitSyntax.compile("<< len:16/unsigned, payload:len/binary >>");
+
+			// Records straddle the windows, so each window is remapped from the last partial record
+			assertEquals(16, new MappedRecordScanner(bp, channel, 6).scan(handler));
+			assertEquals(4, records.size());
+			assertEquals("CAFEBA", records.get(0));
+			assertEquals("", records.get(1));
+			assertEquals("BABECAFE", records.get(2));
+			assertEquals("AB", records.get(3));
+			assertEquals(Long.valueOf(13), positions.get(3));
+
+			records.clear();
+			assertEquals(16, new MappedRecordScanner(bp, channel).scan(7, handler));
+			assertEquals(2, records.size());
+
+			try {
+				new MappedRecordScanner(bp, channel, 5).scan(handler);
+				fail("Record exceeds window");
+			} catch (BitSyntaxException e) {
+				// Expected
+			}
+			try {
+				new MappedRecordScanner(BitSyntax.compile("<< 3:16, payload:3/binary >>"), channel).scan(handler);
+				fail("Record does not match");
+			} catch (BitSyntaxException e) {
+				// Expected
+			}
+			try {
+				new MappedRecordScanner(BitSyntax.compile("<< len:16, rest/binary >>"), channel);
+				fail("Records without a size cannot be scanned");
+			} catch (BitSyntaxException e) {
+				// Expected
+			}
+		} finally {
+			raf.close();
+			file.delete();
+		}
+	}
+
+	private static File write(final String hex) throws IOException {
+		final File file = File.createTempFile("records", ".bin");
+		final FileOutputStream out = new FileOutputStream(file);
+		try {
+			out.write(fromHex(hex));
+		} finally {
+			out.close();
+		}
+		return file;
+	}
+}